@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "4.0.2"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "io.github.ashr123"
@@ -24,21 +25,79 @@ repositories {
     mavenCentral()
 }
 
+// Key distributions shared by the JMH benchmarks and the load generator
+val workload: SourceSet by sourceSets.creating
+
+// HTTP load generator for a running instance, see LoadGenerator
+val loadtest: SourceSet by sourceSets.creating
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-redis")
 //    implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-webmvc")
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
     developmentOnly("org.springframework.boot:spring-boot-devtools")
     developmentOnly("org.springframework.boot:spring-boot-docker-compose")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     annotationProcessor("org.springframework.boot:spring-boot-configuration-processor")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
 //    testImplementation("org.springframework.boot:spring-boot-starter-web-test")
     testImplementation("org.springframework.boot:spring-boot-starter-webmvc-test")
+    testImplementation("org.springframework.boot:spring-boot-starter-webflux-test")
     testImplementation("org.springframework.boot:spring-boot-testcontainers")
     testImplementation("org.testcontainers:testcontainers-junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    jmhImplementation("org.testcontainers:testcontainers")
+    jmhImplementation(workload.output)
+    "loadtestImplementation"(workload.output)
+    "loadtestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+jmh {
+    // ./gradlew jmh -PjmhIncludes=ReadPathBenchmark
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes = listOf(it) }
+    // ./gradlew jmh -PjmhParams="impl=standard,redis;keyCount=1000"
+    providers.gradleProperty("jmhParams").orNull?.let { params ->
+        params.split(";").forEach { param ->
+            val (name, values) = param.split("=", limit = 2)
+            benchmarkParameters.put(name, objects.listProperty<String>().value(values.split(",")))
+        }
+    }
+    providers.gradleProperty("jmhThreads").orNull?.let { threads = it.toInt() }
+    jmhVersion = "1.37"
+    resultFormat = "JSON"
+    // gc.alloc.rate.norm = bytes allocated per operation
+    profilers = listOf("gc")
+}
+
+tasks.register<JavaExec>("memoryFootprint") {
+    description = "Reports retained heap per entry of the in-memory engines."
+    group = "verification"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "io.github.ashr123.warmestdata.benchmark.MemoryFootprintReport"
+    jvmArgs("-Xmx4g")
+    providers.gradleProperty("entryCounts").orNull?.let { args(it) }
+}
+
+tasks.register<JavaExec>("mappedStartup") {
+    description = "Reports startup time of the mapped engine against snapshot restore by dataset size."
+    group = "verification"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "io.github.ashr123.warmestdata.benchmark.MappedStartupReport"
+    jvmArgs("-Xmx4g")
+    providers.gradleProperty("entryCounts").orNull?.let { args(it) }
+}
+
+tasks.register<JavaExec>("loadTest") {
+    description = "Drives running instances at a fixed arrival rate and reports HdrHistogram latencies per endpoint."
+    group = "verification"
+    classpath = loadtest.runtimeClasspath
+    mainClass = "io.github.ashr123.warmestdata.loadtest.LoadGenerator"
+    // ./gradlew loadTest -PloadTestArgs="--rate=2000 --duration=60s"
+    providers.gradleProperty("loadTestArgs").orNull?.let { args(it.trim().split(Regex("\\s+"))) }
+}
@@ -0,0 +1,104 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.EngineProbe;
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The coalescing window's trade-off between Redis round trips saved and latency added: single-key operations of many
+ * concurrent callers against a Testcontainers Redis, once with every operation as its own script call ({@code off})
+ * and once per window, in microseconds, of {@link RedisWarmestDataStructure#coalescing}.
+ * <p>
+ * Sample time mode reports the latency percentiles (compare {@code p0.99} across windows); every iteration also prints
+ * the throughput and the mean operations per script call. Run with
+ * {@code ./gradlew jmh -PjmhIncludes=CoalescingBenchmark} (requires Docker); vary the callers with
+ * {@code -PjmhThreads}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoalescingBenchmark {
+
+	@Param({"off", "0", "50", "200", "1000"})
+	public String windowMicros;
+
+	@Param({"128"})
+	public int maxBatch;
+
+	@Param({"10000"})
+	public int keyCount;
+
+	private RedisFixture redis;
+	private RedisWarmestDataStructure dataStructure;
+	private String[] keys;
+	private final LongAdder operations = new LongAdder();
+	private final LongAdder scriptCalls = new LongAdder();
+	private long iterationStart;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		redis = new RedisFixture();
+		dataStructure = "off".equals(windowMicros) ?
+				new RedisWarmestDataStructure(redis.redisTemplate) :
+				RedisWarmestDataStructure.coalescing(redis.redisTemplate,
+						Duration.ofNanos(Long.parseLong(windowMicros) * 1000), maxBatch);
+		keys = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "key-" + i;
+			dataStructure.put(keys[i], i);
+		}
+		dataStructure.setProbe(new EngineProbe() {
+			@Override
+			public void scriptExecuted(String script, long nanos, boolean failed) {
+				scriptCalls.increment();
+			}
+		});
+	}
+
+	@Setup(Level.Iteration)
+	public void startIteration() {
+		operations.reset();
+		scriptCalls.reset();
+		iterationStart = System.nanoTime();
+	}
+
+	@TearDown(Level.Iteration)
+	public void report() {
+		double seconds = (System.nanoTime() - iterationStart) / 1e9;
+		System.out.printf("%n[window %s] %.0f ops/s, %.1f ops per script call%n", windowMicros,
+				operations.sum() / seconds, (double) operations.sum() / Math.max(1, scriptCalls.sum()));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		dataStructure.destroy();
+		redis.close();
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public Object get(ThreadState state) {
+		operations.increment();
+		return dataStructure.get(keys[state.random.nextInt(keys.length)]);
+	}
+
+	@Benchmark
+	@Threads(64)
+	public Object put(ThreadState state) {
+		operations.increment();
+		return dataStructure.put(keys[state.random.nextInt(keys.length)], state.random.nextInt());
+	}
+}
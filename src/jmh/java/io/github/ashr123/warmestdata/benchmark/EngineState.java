@@ -0,0 +1,103 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.*;
+import io.github.ashr123.warmestdata.workload.ZipfianGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Builds and pre-fills the engine under test for every trial, shared by {@link OperationBenchmark} and
+ * {@link MixedWorkloadBenchmark}.
+ * <p>
+ * The Redis-backed engines get a fresh Testcontainers Redis per trial (requires Docker).
+ */
+@State(Scope.Benchmark)
+public abstract class EngineState {
+
+	private static final int FILL_BATCH_SIZE = 10_000;
+
+	@Param({"standard", "segmented", "buffered", "primitive", "redis", "redis-zset", "near-cache"})
+	public String impl;
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	public int keyCount;
+
+	@Param({"uniform", "zipf"})
+	public String distribution;
+
+	protected WarmestDataStructureInterface dataStructure;
+	protected String[] keys;
+	private ZipfianGenerator zipf;
+	private RedisFixture redis;
+
+	@Setup(Level.Trial)
+	public void setUpEngine() {
+		if (impl.startsWith("redis") || impl.equals("near-cache")) {
+			redis = new RedisFixture();
+		}
+		dataStructure = createEngine();
+		keys = new String[keyCount];
+		Map<String, Integer> batch = new HashMap<>();
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "key-" + i;
+			batch.put(keys[i], i);
+			if (batch.size() == FILL_BATCH_SIZE) {
+				dataStructure.putAll(batch);
+				batch.clear();
+			}
+		}
+		dataStructure.putAll(batch);
+		zipf = switch (distribution) {
+			case "uniform" -> null;
+			case "zipf" -> new ZipfianGenerator(keyCount, ZipfianGenerator.DEFAULT_THETA);
+			default -> throw new IllegalArgumentException("Unknown distribution: " + distribution);
+		};
+	}
+
+	private WarmestDataStructureInterface createEngine() {
+		return switch (impl) {
+			case "standard" -> new WarmestDataStructure();
+			case "segmented" -> new SegmentedWarmestDataStructure(16);
+			case "buffered" -> new BufferedWarmestDataStructure(0, 128);
+			case "primitive" -> new PrimitiveWarmestDataStructure(1024);
+			case "redis" -> new RedisWarmestDataStructure(redis.redisTemplate);
+			case "redis-zset" -> new RedisSortedSetWarmestDataStructure(redis.redisTemplate);
+			case "near-cache" -> new NearCacheWarmestDataStructure(new RedisWarmestDataStructure(redis.redisTemplate),
+					redis.redisTemplate,
+					redis.connectionFactory,
+					100_000,
+					Duration.ofMinutes(1),
+					Duration.ofMillis(10));
+			default -> throw new IllegalArgumentException("Unknown impl: " + impl);
+		};
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownEngine() throws Exception {
+		if (dataStructure instanceof NearCacheWarmestDataStructure nearCache) {
+			nearCache.destroy();
+		}
+		if (redis != null) {
+			redis.close();
+			redis = null;
+		}
+	}
+
+	/**
+	 * @return the next key to operate on, drawn from the configured distribution
+	 */
+	protected String nextKey(SplittableRandom random) {
+		return zipf == null ?
+				keys[random.nextInt(keys.length)] :
+				keys[zipf.next(random)];
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		final SplittableRandom random = new SplittableRandom();
+	}
+}
@@ -0,0 +1,79 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.metrics.InstrumentedWarmestDataStructure;
+import io.github.ashr123.warmestdata.metrics.MicrometerEngineProbe;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the Micrometer instrumentation adds to {@link WarmestDataStructure}.
+ * <ul>
+ *   <li>{@code off} – the bare engine, as with {@code warmest.metrics.enabled=false}</li>
+ *   <li>{@code decorator} – operation timers only</li>
+ *   <li>{@code full} – operation timers plus the engine probe (get status split, write lock wait/hold)</li>
+ * </ul>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=InstrumentationOverheadBenchmark}, once with the default single thread and
+ * once with {@code -PjmhThreads=8} to include timer contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentationOverheadBenchmark {
+
+	@Param({"off", "decorator", "full"})
+	public String instrumentation;
+
+	@Param({"10000"})
+	public int keyCount;
+
+	private WarmestDataStructureInterface dataStructure;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		WarmestDataStructure engine = new WarmestDataStructure();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		dataStructure = switch (instrumentation) {
+			case "off" -> engine;
+			case "decorator" -> new InstrumentedWarmestDataStructure(engine, registry, "WarmestDataStructure");
+			case "full" -> {
+				engine.setProbe(new MicrometerEngineProbe(registry, "WarmestDataStructure"));
+				yield new InstrumentedWarmestDataStructure(engine, registry, "WarmestDataStructure");
+			}
+			default -> throw new IllegalArgumentException("Unknown instrumentation: " + instrumentation);
+		};
+		keys = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "key-" + i;
+			dataStructure.put(keys[i], i);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	public Object get(ThreadState state) {
+		return dataStructure.get(keys[state.random.nextInt(keys.length)]);
+	}
+
+	@Benchmark
+	public Object put(ThreadState state) {
+		return dataStructure.put(keys[state.random.nextInt(keys.length)], state.random.nextInt());
+	}
+
+	@Benchmark
+	public Object getWarmest() {
+		return dataStructure.getWarmest();
+	}
+}
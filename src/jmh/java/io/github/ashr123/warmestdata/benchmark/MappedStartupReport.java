@@ -0,0 +1,88 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.MappedWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.persistence.SnapshotFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time from process start to the first answered request of the persistent engines: reopening
+ * {@link MappedWarmestDataStructure} after a clean close and after a crash, against restoring a
+ * {@link WarmestDataStructure} from its {@link SnapshotFile}.
+ * <p>
+ * Each time covers opening or restoring plus one {@code getWarmest()}. The files are written just before, so they are in
+ * the page cache; a cold cache adds the disk reads to the snapshot restore and to the pages the first requests fault in.
+ * Run with {@code ./gradlew mappedStartup} (optionally {@code -PentryCounts=1000000,10000000}).
+ */
+public class MappedStartupReport {
+
+	private static final int MAX_KEY_LENGTH = 16;
+
+	public static void main(String... args) throws IOException {
+		String entryCounts = args.length > 0 ?
+				args[0] :
+				"100000,1000000,10000000";
+		System.out.printf("%-18s %12s %12s%n", "startup", "entries", "ms");
+		for (String count : entryCounts.split(",")) {
+			int entries = Integer.parseInt(count.trim());
+			Path directory = Files.createTempDirectory("mapped-startup");
+			try {
+				report(directory, entries);
+			} finally {
+				try (Stream<Path> files = Files.walk(directory)) {
+					for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+						Files.delete(file);
+					}
+				}
+			}
+		}
+	}
+
+	private static void report(Path directory, int entries) throws IOException {
+		Path mapped = directory.resolve("mapped");
+		try (MappedWarmestDataStructure dataStructure = new MappedWarmestDataStructure(mapped, MAX_KEY_LENGTH, entries)) {
+			for (int i = 0; i < entries; i++) {
+				dataStructure.put("key-" + i, i);
+			}
+		}
+		long start = System.nanoTime();
+		MappedWarmestDataStructure clean = new MappedWarmestDataStructure(mapped, MAX_KEY_LENGTH, entries);
+		clean.getWarmest();
+		print("mapped (clean)", entries, start);
+		// Leave it open, so the next open finds the header dirty as after a crash
+		start = System.nanoTime();
+		try (MappedWarmestDataStructure recovered = new MappedWarmestDataStructure(mapped, MAX_KEY_LENGTH, entries)) {
+			recovered.getWarmest();
+			print("mapped (recovered)", entries, start);
+		}
+		// Unmaps its files before the snapshot is measured; the header it writes is never read again
+		clean.close();
+
+		Path snapshot = directory.resolve("warmest.snapshot");
+		writeSnapshot(snapshot, entries);
+		System.gc();
+		start = System.nanoTime();
+		WarmestDataStructure restored = new WarmestDataStructure();
+		restored.restore(sink -> SnapshotFile.read(snapshot, sink));
+		restored.getWarmest();
+		print("snapshot restore", entries, start);
+	}
+
+	private static void writeSnapshot(Path snapshot, int entries) throws IOException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		for (int i = 0; i < entries; i++) {
+			dataStructure.put("key-" + i, i);
+		}
+		SnapshotFile.write(dataStructure.snapshot(), snapshot);
+	}
+
+	private static void print(String startup, int entries, long startNanos) {
+		System.out.printf("%-18s %,12d %,12d%n", startup, entries, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+	}
+}
@@ -0,0 +1,63 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.PrimitiveWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+
+import java.util.function.Supplier;
+
+/**
+ * Measures the retained heap per entry of the in-memory engines.
+ * <p>
+ * The key strings are created before the baseline measurement, so the reported numbers are the structure's own
+ * overhead per entry; the key strings themselves cost the same in every engine.
+ * Run with {@code ./gradlew memoryFootprint} (optionally {@code -PentryCounts=1000000,10000000}).
+ */
+public class MemoryFootprintReport {
+
+	public static void main(String... args) {
+		String entryCounts = args.length > 0 ?
+				args[0] :
+				"1000000,10000000";
+		System.out.printf("%-12s %12s %16s %14s%n", "engine", "entries", "retained bytes", "bytes/entry");
+		for (String count : entryCounts.split(",")) {
+			int entries = Integer.parseInt(count.trim());
+			String[] keys = new String[entries];
+			for (int i = 0; i < entries; i++) {
+				keys[i] = "key-" + i;
+			}
+			report("standard", keys, WarmestDataStructure::new);
+			report("primitive", keys, () -> new PrimitiveWarmestDataStructure(1024));
+			report("presized", keys, () -> new PrimitiveWarmestDataStructure(entries));
+		}
+	}
+
+	private static void report(String engine, String[] keys, Supplier<WarmestDataStructureInterface> factory) {
+		long before = usedHeapAfterGc();
+		WarmestDataStructureInterface dataStructure = factory.get();
+		for (int i = 0; i < keys.length; i++) {
+			dataStructure.put(keys[i], i);
+		}
+		long retained = usedHeapAfterGc() - before;
+		System.out.printf("%-12s %,12d %,16d %14.1f%n", engine, keys.length, retained, (double) retained / keys.length);
+		// Keep the structure reachable until after the measurement
+		if (dataStructure.getWarmest() == null) {
+			throw new IllegalStateException("Structure unexpectedly empty");
+		}
+	}
+
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		// Repeat until the number stabilises, System.gc() is only a hint
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			long current = runtime.totalMemory() - runtime.freeMemory();
+			if (current >= used) {
+				break;
+			}
+			used = current;
+		}
+		return used;
+	}
+}
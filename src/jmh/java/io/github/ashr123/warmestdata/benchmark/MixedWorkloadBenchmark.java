@@ -0,0 +1,32 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read/write mixes of get and put across every engine, key count and key distribution.
+ * <p>
+ * Run with e.g. {@code ./gradlew jmh -PjmhIncludes=MixedWorkloadBenchmark -PjmhParams="readPercent=90" -PjmhThreads=8}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MixedWorkloadBenchmark extends EngineState {
+
+	/**
+	 * Percentage of operations that are gets; the rest are puts.
+	 */
+	@Param({"50", "90", "99"})
+	public int readPercent;
+
+	@Benchmark
+	public Object mixed(ThreadState state) {
+		String key = nextKey(state.random);
+		return state.random.nextInt(100) < readPercent ?
+				dataStructure.get(key) :
+				dataStructure.put(key, state.random.nextInt());
+	}
+}
@@ -0,0 +1,49 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark per {@link io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface} operation, across every
+ * engine, key count and key distribution.
+ * <p>
+ * Throughput plus sampled latency percentiles; the {@code gc} profiler configured in {@code build.gradle.kts} adds
+ * {@code gc.alloc.rate.norm} (bytes allocated per operation). Narrow the matrix with e.g.
+ * {@code ./gradlew jmh -PjmhIncludes=OperationBenchmark -PjmhParams="impl=standard,primitive;keyCount=1000"} and set the
+ * thread count with {@code -PjmhThreads=8}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class OperationBenchmark extends EngineState {
+
+	@Benchmark
+	public Object put(ThreadState state) {
+		return dataStructure.put(nextKey(state.random), state.random.nextInt());
+	}
+
+	@Benchmark
+	public Object get(ThreadState state) {
+		return dataStructure.get(nextKey(state.random));
+	}
+
+	@Benchmark
+	public Object getWarmest() {
+		return dataStructure.getWarmest();
+	}
+
+	/**
+	 * Removes a key and puts it back, so the key count stays constant over the run; one invocation is two operations.
+	 */
+	@Benchmark
+	public Object removeThenPut(ThreadState state) {
+		String key = nextKey(state.random);
+		Integer value = dataStructure.remove(key);
+		return dataStructure.put(key, value == null ?
+				0 :
+				value);
+	}
+}
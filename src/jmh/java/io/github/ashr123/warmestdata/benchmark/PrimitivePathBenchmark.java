@@ -0,0 +1,87 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed operations of {@link WarmestDataStructure} with their primitive variants ({@code getInt},
+ * {@code putInt}, {@code removeInt}), on keys that are always mapped and values outside the {@link Integer} cache, so
+ * every boxed result costs an allocation.
+ * <p>
+ * Read {@code gc.alloc.rate.norm}: the primitive benchmarks should report ~0 B/op, except {@code removeThenPutInt},
+ * whose put allocates the new node. Run with {@code ./gradlew jmh -PjmhIncludes=PrimitivePathBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimitivePathBenchmark {
+
+	/**
+	 * Above the {@link Integer} cache, which ends at 127.
+	 */
+	private static final int VALUE_BASE = 1_000_000;
+
+	@Param({"1024"})
+	public int keyCount;
+
+	private WarmestDataStructureInterface dataStructure;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		dataStructure = new WarmestDataStructure();
+		keys = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "key-" + i;
+			dataStructure.put(keys[i], VALUE_BASE + i);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private final SplittableRandom random = new SplittableRandom();
+	}
+
+	private String nextKey(ThreadState state) {
+		return keys[state.random.nextInt(keys.length)];
+	}
+
+	@Benchmark
+	public Object get(ThreadState state) {
+		return dataStructure.get(nextKey(state));
+	}
+
+	@Benchmark
+	public long getInt(ThreadState state) {
+		return dataStructure.getInt(nextKey(state));
+	}
+
+	@Benchmark
+	public Object put(ThreadState state) {
+		return dataStructure.put(nextKey(state), VALUE_BASE + state.random.nextInt(keyCount));
+	}
+
+	@Benchmark
+	public long putInt(ThreadState state) {
+		return dataStructure.putInt(nextKey(state), VALUE_BASE + state.random.nextInt(keyCount));
+	}
+
+	/**
+	 * Removes a key and puts it back, so the key count stays constant over the run; one invocation is two operations.
+	 */
+	@Benchmark
+	public long removeThenPutInt(ThreadState state) {
+		String key = nextKey(state);
+		long value = dataStructure.removeInt(key);
+		return dataStructure.putInt(key, value == WarmestDataStructureInterface.NO_VALUE ?
+				VALUE_BASE :
+				(int) value);
+	}
+}
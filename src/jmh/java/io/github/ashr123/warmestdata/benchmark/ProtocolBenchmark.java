@@ -0,0 +1,164 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.WarmestDataApplication;
+import io.github.ashr123.warmestdata.binary.BinaryProtocolClient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the REST endpoints with the binary protocol, end to end over localhost, against one running instance of the
+ * in-memory engine.
+ * <ul>
+ *   <li>{@code rest*} – one request at a time over a keep-alive HTTP/1.1 connection, JSON bodies</li>
+ *   <li>{@code binary*} – one request at a time over a binary protocol connection</li>
+ *   <li>{@code binaryPipelined*} – {@value #PIPELINE_DEPTH} requests sent before their responses are read; scores are
+ *   per request</li>
+ * </ul>
+ * Every benchmark thread has its own connection. Run with {@code ./gradlew jmh -PjmhIncludes=ProtocolBenchmark}, and
+ * with {@code -PjmhThreads=8} for concurrent clients.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProtocolBenchmark {
+
+	private static final int PIPELINE_DEPTH = 16;
+
+	@Param({"10000"})
+	public int keyCount;
+
+	private ConfigurableApplicationContext context;
+	private int httpPort;
+	private int binaryPort;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		httpPort = freePort();
+		binaryPort = freePort();
+		context = new SpringApplicationBuilder(WarmestDataApplication.class)
+				.properties("server.port=" + httpPort,
+						"warmest.binary.port=" + binaryPort,
+						"spring.main.banner-mode=off",
+						"logging.level.root=warn")
+				.run();
+		keys = new String[keyCount];
+		try (BinaryProtocolClient client = new BinaryProtocolClient("localhost", binaryPort)) {
+			for (int i = 0; i < keyCount; i++) {
+				keys[i] = "key-" + i;
+				client.sendPut(keys[i], i);
+				client.flush();
+				client.readValue();
+			}
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class ClientState {
+		private final SplittableRandom random = new SplittableRandom();
+		private HttpClient httpClient;
+		private URI dataUri;
+		private BinaryProtocolClient binaryClient;
+
+		@Setup(Level.Trial)
+		public void setUp(ProtocolBenchmark benchmark) throws IOException {
+			httpClient = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.build();
+			dataUri = URI.create("http://localhost:" + benchmark.httpPort + "/data/");
+			binaryClient = new BinaryProtocolClient("localhost", benchmark.binaryPort);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			binaryClient.close();
+		}
+	}
+
+	private String randomKey(ClientState state) {
+		return keys[state.random.nextInt(keys.length)];
+	}
+
+	@Benchmark
+	public int restGet(ClientState state) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(state.dataUri.resolve(randomKey(state)))
+				.GET()
+				.build();
+		return state.httpClient.send(request, HttpResponse.BodyHandlers.ofString())
+				.body()
+				.length();
+	}
+
+	@Benchmark
+	public int restPut(ClientState state) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(state.dataUri.resolve(randomKey(state)))
+				.header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofString(Integer.toString(state.random.nextInt())))
+				.build();
+		return state.httpClient.send(request, HttpResponse.BodyHandlers.ofString())
+				.body()
+				.length();
+	}
+
+	@Benchmark
+	public Integer binaryGet(ClientState state) throws IOException {
+		return state.binaryClient.get(randomKey(state));
+	}
+
+	@Benchmark
+	public Integer binaryPut(ClientState state) throws IOException {
+		return state.binaryClient.put(randomKey(state), state.random.nextInt());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PIPELINE_DEPTH)
+	public int binaryPipelinedGet(ClientState state) throws IOException {
+		for (int i = 0; i < PIPELINE_DEPTH; i++) {
+			state.binaryClient.sendGet(randomKey(state));
+		}
+		state.binaryClient.flush();
+		int sum = 0;
+		for (int i = 0; i < PIPELINE_DEPTH; i++) {
+			sum += state.binaryClient.readValue();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PIPELINE_DEPTH)
+	public int binaryPipelinedPut(ClientState state) throws IOException {
+		for (int i = 0; i < PIPELINE_DEPTH; i++) {
+			state.binaryClient.sendPut(randomKey(state), state.random.nextInt());
+		}
+		state.binaryClient.flush();
+		int sum = 0;
+		for (int i = 0; i < PIPELINE_DEPTH; i++) {
+			sum += state.binaryClient.readValue();
+		}
+		return sum;
+	}
+}
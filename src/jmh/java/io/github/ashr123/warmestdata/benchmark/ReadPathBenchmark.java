@@ -0,0 +1,98 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.BufferedWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.EngineProbe;
+import io.github.ashr123.warmestdata.dto.EngineProbeAware;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the read-then-upgrade {@code get()} of {@link WarmestDataStructure} with the buffered access recording of
+ * {@link BufferedWarmestDataStructure} on a hot-read workload.
+ * <p>
+ * Almost every get hits a non-tail key, which is the case that takes the write lock in the classic engine.
+ * Besides throughput, each run reports {@code hotReads:writeLocks}, the write-lock acquisitions per microsecond counted
+ * by an {@link EngineProbe}; divided by the {@code hotReads} score it gives the acquisitions per operation.
+ * Run with {@code ./gradlew jmh -PjmhIncludes=ReadPathBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadPathBenchmark {
+
+	@Param({"standard", "buffered"})
+	public String engine;
+
+	@Param({"1024"})
+	public int keyCount;
+
+	/**
+	 * Percentage of operations that are puts; the rest are gets.
+	 */
+	@Param({"0", "5"})
+	public int writePercent;
+
+	/**
+	 * The counters of the thread running the benchmark method; the probe is called on the thread that takes the lock.
+	 */
+	private static final ThreadLocal<LockCounters> COUNTERS = new ThreadLocal<>();
+
+	private WarmestDataStructureInterface dataStructure;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		dataStructure = switch (engine) {
+			case "standard" -> new WarmestDataStructure();
+			case "buffered" -> new BufferedWarmestDataStructure(0, 128);
+			default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+		};
+		keys = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "key-" + i;
+			dataStructure.put(keys[i], i);
+		}
+		((EngineProbeAware) dataStructure).setProbe(new EngineProbe() {
+			@Override
+			public void writeLockWaited(long nanos) {
+				LockCounters counters = COUNTERS.get();
+				if (counters != null) {
+					counters.writeLocks++;
+				}
+			}
+		});
+	}
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class LockCounters {
+		public long writeLocks;
+
+		@Setup(Level.Iteration)
+		public void setUp() {
+			writeLocks = 0;
+			COUNTERS.set(this);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Object hotReads(ThreadState state, LockCounters counters) {
+		String key = keys[state.random.nextInt(keys.length)];
+		return state.random.nextInt(100) < writePercent ?
+				dataStructure.put(key, 1) :
+				dataStructure.get(key);
+	}
+}
@@ -0,0 +1,32 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * A throwaway Testcontainers Redis plus a connected {@link StringRedisTemplate}, one per benchmark trial.
+ */
+final class RedisFixture implements AutoCloseable {
+
+	private final GenericContainer<?> redis;
+	final LettuceConnectionFactory connectionFactory;
+	final StringRedisTemplate redisTemplate;
+
+	RedisFixture() {
+		redis = new GenericContainer<>(DockerImageName.parse("redis:latest")).withExposedPorts(6379);
+		redis.start();
+		connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+	}
+
+	@Override
+	public void close() {
+		connectionFactory.destroy();
+		redis.stop();
+	}
+}
@@ -0,0 +1,107 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.RedisSortedSetWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the linked-list Lua scripts ({@link RedisWarmestDataStructure}) with the sorted-set layout
+ * ({@link RedisSortedSetWarmestDataStructure}) against a Testcontainers Redis.
+ * <p>
+ * Besides ops/sec, every trial prints the Redis server CPU time spent per operation, taken from the
+ * {@code used_cpu_sys} + {@code used_cpu_user} counters of {@code INFO cpu} before and after the measured iterations.
+ * Run with {@code ./gradlew jmh -PjmhIncludes=RedisLayoutBenchmark} (requires Docker).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisLayoutBenchmark {
+
+	@Param({"list", "zset"})
+	public String layout;
+
+	@Param({"10000"})
+	public int keyCount;
+
+	private RedisFixture redis;
+	private StringRedisTemplate redisTemplate;
+	private WarmestDataStructureInterface dataStructure;
+	private String[] keys;
+	private final LongAdder operations = new LongAdder();
+	private double cpuSecondsAtStart;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		redis = new RedisFixture();
+		redisTemplate = redis.redisTemplate;
+		dataStructure = switch (layout) {
+			case "list" -> new RedisWarmestDataStructure(redisTemplate);
+			case "zset" -> new RedisSortedSetWarmestDataStructure(redisTemplate);
+			default -> throw new IllegalArgumentException("Unknown layout: " + layout);
+		};
+		keys = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "key-" + i;
+			dataStructure.put(keys[i], i);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void startIteration() {
+		operations.reset();
+		cpuSecondsAtStart = redisCpuSeconds();
+	}
+
+	@TearDown(Level.Iteration)
+	public void reportCpu() {
+		double cpuMicros = (redisCpuSeconds() - cpuSecondsAtStart) * 1_000_000;
+		System.out.printf("%n[%s] Redis CPU per op: %.2f µs (%d ops)%n", layout, cpuMicros / operations.sum(), operations.sum());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		redis.close();
+	}
+
+	private double redisCpuSeconds() {
+		Properties cpu = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("cpu"));
+		return Double.parseDouble(cpu.getProperty("used_cpu_sys")) + Double.parseDouble(cpu.getProperty("used_cpu_user"));
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Object get(ThreadState state) {
+		operations.increment();
+		return dataStructure.get(keys[state.random.nextInt(keys.length)]);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Object put(ThreadState state) {
+		operations.increment();
+		return dataStructure.put(keys[state.random.nextInt(keys.length)], state.random.nextInt());
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Object getWarmest() {
+		operations.increment();
+		return dataStructure.getWarmest();
+	}
+}
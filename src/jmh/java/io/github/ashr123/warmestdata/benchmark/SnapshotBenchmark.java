@@ -0,0 +1,71 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.persistence.SnapshotFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the three phases of snapshot persistence of {@link WarmestDataStructure}, one operation per iteration:
+ * <ul>
+ *   <li>{@code copy} – {@link WarmestDataStructure#snapshot()}, the only phase that holds the lock, one chunk at a time</li>
+ *   <li>{@code write} – encoding the copy and writing it to disk</li>
+ *   <li>{@code restore} – streaming the file into an empty engine, as on startup</li>
+ * </ul>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=SnapshotBenchmark}; the 10M case needs the 8 GB heap set below.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+	@Param({"1000000", "10000000"})
+	public int keyCount;
+
+	private WarmestDataStructure dataStructure;
+	private WarmestDataStructure.Snapshot snapshot;
+	private Path directory;
+	private Path file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		dataStructure = new WarmestDataStructure();
+		for (int i = 0; i < keyCount; i++) {
+			dataStructure.put("key-" + i, i);
+		}
+		snapshot = dataStructure.snapshot();
+		directory = Files.createTempDirectory("snapshot-benchmark");
+		file = directory.resolve("warmest.snapshot");
+		SnapshotFile.write(snapshot, file);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(directory);
+	}
+
+	@Benchmark
+	public Object copy() {
+		return dataStructure.snapshot();
+	}
+
+	@Benchmark
+	public void write() throws IOException {
+		SnapshotFile.write(snapshot, file);
+	}
+
+	@Benchmark
+	public Object restore() throws IOException {
+		WarmestDataStructure restored = new WarmestDataStructure();
+		restored.restore(sink -> SnapshotFile.read(file, sink));
+		return restored;
+	}
+}
@@ -0,0 +1,85 @@
+package io.github.ashr123.warmestdata.benchmark;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.persistence.WriteAheadLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable put throughput of {@link WarmestDataStructure} with a {@link WriteAheadLog} in each mode, next to
+ * {@code none} (no log) as the upper bound.
+ * <p>
+ * Group commit only pays off with many concurrent writers, so sweep the thread count, e.g.
+ * {@code for t in 1 16 128; do ./gradlew jmh -PjmhIncludes=WriteAheadLogBenchmark -PjmhThreads=$t; done}.
+ * The numbers depend on the disk's fsync latency; the log is written to {@code java.io.tmpdir}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteAheadLogBenchmark {
+
+	@Param({"none", "sync", "group", "async"})
+	public String mode;
+
+	@Param({"1"})
+	public int flushIntervalMillis;
+
+	@Param({"10000"})
+	public int keyCount;
+
+	private WarmestDataStructure dataStructure;
+	private WriteAheadLog writeAheadLog;
+	private Path directory;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		dataStructure = new WarmestDataStructure();
+		directory = Files.createTempDirectory("wal-benchmark");
+		if (!mode.equals("none")) {
+			writeAheadLog = new WriteAheadLog(directory,
+					WriteAheadLog.Mode.valueOf(mode.toUpperCase()),
+					Duration.ofMillis(flushIntervalMillis),
+					64L << 20,
+					0);
+			dataStructure.setMutationLog(writeAheadLog);
+		}
+		keys = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "key-" + i;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		if (writeAheadLog != null) {
+			writeAheadLog.close();
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	public Object put(ThreadState state) {
+		return dataStructure.put(keys[state.random.nextInt(keys.length)], state.random.nextInt());
+	}
+}
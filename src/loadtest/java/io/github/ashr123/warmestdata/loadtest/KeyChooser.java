@@ -0,0 +1,33 @@
+package io.github.ashr123.warmestdata.loadtest;
+
+import io.github.ashr123.warmestdata.workload.ZipfianGenerator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks key indices in {@code [0, keyCount)}, either uniformly or Zipf-distributed with index 0 as the hottest key,
+ * drawn by the same {@link ZipfianGenerator} as the JMH benchmarks.
+ */
+final class KeyChooser {
+
+	private final int keyCount;
+	/**
+	 * Null for the uniform distribution.
+	 */
+	private final ZipfianGenerator zipf;
+
+	KeyChooser(int keyCount, String distribution) {
+		this.keyCount = keyCount;
+		zipf = switch (distribution) {
+			case "uniform" -> null;
+			case "zipf" -> new ZipfianGenerator(keyCount, ZipfianGenerator.DEFAULT_THETA);
+			default -> throw new IllegalArgumentException("Unknown distribution: " + distribution);
+		};
+	}
+
+	int next(SplittableRandom random) {
+		return zipf == null ?
+				random.nextInt(keyCount) :
+				zipf.next(random);
+	}
+}
@@ -0,0 +1,131 @@
+package io.github.ashr123.warmestdata.loadtest;
+
+import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-endpoint latency percentiles of one run, in milliseconds, and their comparison with a saved baseline.
+ * <p>
+ * Histograms record microseconds. A baseline is an HdrHistogram log with one histogram per endpoint, tagged with the
+ * {@link Operation} name, so it can also be inspected with the standard HdrHistogram tools.
+ */
+final class LatencyReport {
+
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	private final Map<Operation, Histogram> histograms;
+	private final Map<Operation, ? extends Number> errors;
+	private final Duration duration;
+
+	LatencyReport(Map<Operation, Histogram> histograms, Map<Operation, ? extends Number> errors, Duration duration) {
+		this.histograms = histograms;
+		this.errors = errors;
+		this.duration = duration;
+	}
+
+	static Map<String, Histogram> load(Path file) throws IOException {
+		Map<String, Histogram> baseline = new LinkedHashMap<>();
+		try (HistogramLogReader reader = new HistogramLogReader(file.toFile())) {
+			for (EncodableHistogram histogram; (histogram = reader.nextIntervalHistogram()) != null; ) {
+				baseline.put(histogram.getTag(), (Histogram) histogram);
+			}
+		}
+		return baseline;
+	}
+
+	private static double millis(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+	}
+
+	void print(PrintStream out) {
+		out.printf("%n%-20s %9s %8s %9s", "endpoint", "requests", "errors", "req/s");
+		for (double percentile : PERCENTILES) {
+			out.printf(" %9s", "p" + percentile);
+		}
+		out.printf(" %9s%n", "max (ms)");
+
+		histograms.forEach((operation, histogram) -> {
+			if (histogram.getTotalCount() == 0 && errors.get(operation).longValue() == 0) {
+				return;
+			}
+			out.printf("%-20s %,9d %,8d %9.1f",
+					operation.endpoint,
+					histogram.getTotalCount(),
+					errors.get(operation).longValue(),
+					histogram.getTotalCount() / (double) duration.toSeconds());
+			for (double percentile : PERCENTILES) {
+				out.printf(" %9.3f", millis(histogram, percentile));
+			}
+			out.printf(" %9.3f%n", histogram.getMaxValue() / MICROS_PER_MILLI);
+		});
+	}
+
+	/**
+	 * Writes one {@code <operation>.hgrm} file per endpoint, the format the HdrHistogram plotter reads.
+	 */
+	void writePercentileDistributions(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+			if (entry.getValue().getTotalCount() == 0) {
+				continue;
+			}
+			try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm")))) {
+				entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+			}
+		}
+	}
+
+	void save(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+			HistogramLogWriter writer = new HistogramLogWriter(out);
+			writer.outputLogFormatVersion();
+			writer.outputStartTime(System.currentTimeMillis());
+			writer.outputLegend();
+			histograms.forEach((operation, histogram) -> {
+				histogram.setTag(operation.name());
+				writer.outputIntervalHistogram(histogram);
+			});
+		}
+		System.out.println("Saved baseline to " + file);
+	}
+
+	/**
+	 * Prints every percentile next to the baseline's and the relative change; positive means slower than the baseline.
+	 */
+	void compare(Map<String, Histogram> baseline, PrintStream out) {
+		out.printf("%n%-20s %9s %12s %12s %9s%n", "endpoint", "pct", "baseline ms", "current ms", "change");
+		histograms.forEach((operation, histogram) -> {
+			Histogram before = baseline.get(operation.name());
+			if (before == null || before.getTotalCount() == 0 || histogram.getTotalCount() == 0) {
+				return;
+			}
+			for (double percentile : PERCENTILES) {
+				double then = millis(before, percentile);
+				double now = millis(histogram, percentile);
+				out.printf("%-20s %9s %12.3f %12.3f %+8.1f%%%n",
+						operation.endpoint,
+						"p" + percentile,
+						then,
+						now,
+						then == 0 ?
+								0 :
+								(now - then) / then * 100);
+			}
+		});
+	}
+}
@@ -0,0 +1,149 @@
+package io.github.ashr123.warmestdata.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Drives a running instance (or several, e.g. the three of {@code compose-multi.yaml}) at a fixed arrival rate and
+ * reports HdrHistogram latency percentiles per endpoint.
+ * <p>
+ * The load follows an open model: request {@code i} is due at {@code start + i / rate} whether or not earlier requests
+ * have completed, and its latency is measured from that due time, not from when it was actually sent. A stalled server
+ * therefore shows up as latency of every request that queued behind the stall, instead of being hidden by a sender that
+ * politely waited (coordinated omission).
+ * <p>
+ * Run with {@code ./gradlew loadTest -PloadTestArgs="--rate=2000 --duration=60s"}; see {@link LoadTestOptions#USAGE}.
+ */
+public class LoadGenerator {
+
+	private static final int PREFILL_CONCURRENCY = 64;
+
+	private final LoadTestOptions options;
+	private final HttpClient client = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+	private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+	private final LongAdder inFlight = new LongAdder();
+	private final Operation[] operationByWeight;
+	private final KeyChooser keyChooser;
+
+	LoadGenerator(LoadTestOptions options) {
+		this.options = options;
+		for (Operation operation : Operation.values()) {
+			histograms.put(operation, new ConcurrentHistogram(3));
+			errors.put(operation, new LongAdder());
+		}
+		operationByWeight = options.mix().entrySet().stream()
+				.flatMap(entry -> Stream.generate(entry::getKey).limit(entry.getValue()))
+				.toArray(Operation[]::new);
+		keyChooser = new KeyChooser(options.keyCount(), options.distribution());
+	}
+
+	public static void main(String... args) throws Exception {
+		LoadTestOptions options = LoadTestOptions.parse(args);
+		LoadGenerator generator = new LoadGenerator(options);
+		if (options.prefill()) {
+			generator.prefill();
+		}
+		generator.run();
+
+		LatencyReport report = new LatencyReport(generator.histograms, generator.errors, options.duration());
+		report.print(System.out);
+		report.writePercentileDistributions(options.reportDir());
+		if (options.saveBaseline() != null) {
+			report.save(options.saveBaseline());
+		}
+		if (options.baseline() != null) {
+			report.compare(LatencyReport.load(options.baseline()), System.out);
+		}
+	}
+
+	private static String key(int index) {
+		return "key-" + index;
+	}
+
+	private void prefill() throws InterruptedException {
+		Semaphore permits = new Semaphore(PREFILL_CONCURRENCY);
+		for (int i = 0; i < options.keyCount(); i++) {
+			permits.acquire();
+			URI target = options.targets().get(i % options.targets().size());
+			client.sendAsync(Operation.PUT.request(target, key(i), i), HttpResponse.BodyHandlers.discarding())
+					.whenComplete((response, failure) -> permits.release());
+		}
+		permits.acquire(PREFILL_CONCURRENCY);
+		System.out.printf("Prefilled %,d keys%n", options.keyCount());
+	}
+
+	private void run() throws InterruptedException {
+		SplittableRandom random = new SplittableRandom();
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+		long start = System.nanoTime();
+		long measureFrom = start + options.warmup().toNanos();
+		long end = measureFrom + options.duration().toNanos();
+		long maxDispatchLag = 0;
+
+		for (long i = 0; ; i++) {
+			long dueAt = start + i * intervalNanos;
+			if (dueAt >= end) {
+				break;
+			}
+			long wait = dueAt - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			} else {
+				maxDispatchLag = Math.max(maxDispatchLag, -wait);
+			}
+
+			Operation operation = operationByWeight[random.nextInt(operationByWeight.length)];
+			URI target = options.targets().get((int) (i % options.targets().size()));
+			HttpRequest request = operation.request(target, key(keyChooser.next(random)), random.nextInt());
+			send(operation, request, dueAt, dueAt >= measureFrom);
+		}
+
+		// Let the last requests finish before the histograms are read
+		long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (inFlight.sum() > 0 && System.nanoTime() < drainDeadline) {
+			Thread.sleep(10);
+		}
+		System.out.printf("Max dispatch lag: %.3f ms%s%n",
+				maxDispatchLag / 1e6,
+				maxDispatchLag > intervalNanos * 10 ?
+						" (the generator could not keep up; latencies still count from the due time)" :
+						"");
+	}
+
+	private void send(Operation operation, HttpRequest request, long dueAt, boolean measured) {
+		inFlight.increment();
+		client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.whenComplete((response, failure) -> {
+					inFlight.decrement();
+					if (!measured) {
+						return;
+					}
+					if (failure != null) {
+						errors.get(operation).increment();
+						return;
+					}
+					histograms.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueAt));
+					// 404 is the normal answer for a key that is not present
+					if (response.statusCode() >= 400 && response.statusCode() != 404) {
+						errors.get(operation).increment();
+					}
+				});
+	}
+}
@@ -0,0 +1,100 @@
+package io.github.ashr123.warmestdata.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Command-line options of {@link LoadGenerator}, all in {@code --name=value} form.
+ *
+ * @param targets      base URLs; requests are spread over them round-robin
+ * @param rate         requests per second, sent on a fixed schedule regardless of how fast responses come back
+ * @param duration     measured run time
+ * @param warmup       run time before measurement starts, at the same rate
+ * @param mix          relative weight of every operation
+ * @param keyCount     number of distinct keys
+ * @param distribution {@code uniform} or {@code zipf}
+ * @param prefill      whether every key is put once before the run, so gets and deletes hit
+ * @param reportDir    where the per-endpoint {@code .hgrm} percentile distributions are written
+ * @param saveBaseline HdrHistogram log to save this run to, or null
+ * @param baseline     HdrHistogram log of an earlier run to compare against, or null
+ */
+record LoadTestOptions(List<URI> targets,
+                       int rate,
+                       Duration duration,
+                       Duration warmup,
+                       Map<Operation, Integer> mix,
+                       int keyCount,
+                       String distribution,
+                       boolean prefill,
+                       Path reportDir,
+                       Path saveBaseline,
+                       Path baseline) {
+
+	static final String USAGE = """
+			Options (all optional):
+			  --targets=http://localhost:8080[,http://localhost:8081,...]
+			  --rate=1000                 requests per second (open model)
+			  --duration=60s --warmup=10s (ms, s or m)
+			  --mix=get:70,put:20,delete:5,warmest:5
+			  --keys=10000 --distribution=uniform|zipf --prefill=true
+			  --report-dir=build/loadtest
+			  --save-baseline=<file.hlog> --baseline=<file.hlog>
+			""";
+
+	static LoadTestOptions parse(String... args) {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got: " + arg + "\n" + USAGE);
+			}
+			values.put(arg.substring(2, separator), arg.substring(separator + 1));
+		}
+
+		LoadTestOptions options = new LoadTestOptions(
+				Arrays.stream(values.getOrDefault("targets", "http://localhost:8080").split(","))
+						.map(String::trim)
+						.map(URI::create)
+						.toList(),
+				Integer.parseInt(values.getOrDefault("rate", "1000")),
+				parseDuration(values.getOrDefault("duration", "60s")),
+				parseDuration(values.getOrDefault("warmup", "10s")),
+				parseMix(values.getOrDefault("mix", "get:70,put:20,delete:5,warmest:5")),
+				Integer.parseInt(values.getOrDefault("keys", "10000")),
+				values.getOrDefault("distribution", "uniform"),
+				Boolean.parseBoolean(values.getOrDefault("prefill", "true")),
+				Path.of(values.getOrDefault("report-dir", "build/loadtest")),
+				Optional.ofNullable(values.get("save-baseline")).map(Path::of).orElse(null),
+				Optional.ofNullable(values.get("baseline")).map(Path::of).orElse(null));
+		if (options.rate < 1 || options.keyCount < 1) {
+			throw new IllegalArgumentException("rate and keys must be positive\n" + USAGE);
+		}
+		return options;
+	}
+
+	private static Duration parseDuration(String value) {
+		if (value.endsWith("ms")) {
+			return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+		}
+		long amount = Long.parseLong(value.substring(0, value.length() - 1));
+		return switch (value.charAt(value.length() - 1)) {
+			case 's' -> Duration.ofSeconds(amount);
+			case 'm' -> Duration.ofMinutes(amount);
+			default -> throw new IllegalArgumentException("Duration must end in ms, s or m: " + value);
+		};
+	}
+
+	private static Map<Operation, Integer> parseMix(String value) {
+		Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+		for (String part : value.split(",")) {
+			String[] weight = part.trim().split(":");
+			mix.put(Operation.valueOf(weight[0].toUpperCase(Locale.ROOT)), Integer.parseInt(weight[1]));
+		}
+		if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+			throw new IllegalArgumentException("Mix weights must add up to more than 0: " + value);
+		}
+		return mix;
+	}
+}
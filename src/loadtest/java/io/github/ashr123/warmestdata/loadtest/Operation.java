@@ -0,0 +1,51 @@
+package io.github.ashr123.warmestdata.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The REST operations the load generator can issue, one latency histogram each.
+ */
+enum Operation {
+	PUT("PUT /data/{key}") {
+		@Override
+		HttpRequest request(URI base, String key, int value) {
+			return HttpRequest.newBuilder(dataUri(base, key))
+					.header("Content-Type", "application/json")
+					.PUT(HttpRequest.BodyPublishers.ofString(String.valueOf(value)))
+					.build();
+		}
+	},
+	GET("GET /data/{key}") {
+		@Override
+		HttpRequest request(URI base, String key, int value) {
+			return HttpRequest.newBuilder(dataUri(base, key)).GET().build();
+		}
+	},
+	DELETE("DELETE /data/{key}") {
+		@Override
+		HttpRequest request(URI base, String key, int value) {
+			return HttpRequest.newBuilder(dataUri(base, key)).DELETE().build();
+		}
+	},
+	WARMEST("GET /warmest") {
+		@Override
+		HttpRequest request(URI base, String key, int value) {
+			return HttpRequest.newBuilder(base.resolve("/warmest")).GET().build();
+		}
+	};
+
+	final String endpoint;
+
+	Operation(String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	private static URI dataUri(URI base, String key) {
+		return base.resolve("/data/" + URLEncoder.encode(key, StandardCharsets.UTF_8));
+	}
+
+	abstract HttpRequest request(URI base, String key, int value);
+}
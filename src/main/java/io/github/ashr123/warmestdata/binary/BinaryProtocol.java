@@ -0,0 +1,52 @@
+package io.github.ashr123.warmestdata.binary;
+
+/**
+ * Length-prefixed binary protocol of {@link BinaryProtocolServer}, big-endian.
+ * <p>
+ * Every request and every response is a frame: {@code int length} of what follows, then the body. A request body is an
+ * opcode and its arguments:
+ * <pre>
+ * GET            key
+ * PUT            key, int value
+ * PUT_TTL        key, int value, long time to live in milliseconds
+ * REMOVE         key
+ * GET_WARMEST
+ * GET_WARMEST_N  int n, at most warmest.max-limit
+ * GET_ALL        int count, keys
+ * PUT_ALL        int count, (key, int value) pairs
+ * REMOVE_ALL     int count, keys
+ * </pre>
+ * A response body is a status, then for {@link #OK} the result:
+ * <pre>
+ * GET, PUT, PUT_TTL, REMOVE        int value (the previous one for writes)
+ * GET_WARMEST                      key
+ * GET_WARMEST_N                    int count, keys, warmest first
+ * GET_ALL, PUT_ALL, REMOVE_ALL     int count, then per requested key in request order: byte 1 and int value, or byte 0
+ * </pre>
+ * {@link #NULL} has no result (key absent, no warmest key), and {@link #ERROR} is followed by a key-encoded message; an
+ * error only fails its own request. A key is an unsigned short length and that many UTF-8 bytes.
+ * <p>
+ * Requests may be pipelined: a client can send any number of them before reading, and the responses come back in
+ * request order.
+ */
+public final class BinaryProtocol {
+
+	public static final byte GET = 1;
+	public static final byte PUT = 2;
+	public static final byte PUT_TTL = 3;
+	public static final byte REMOVE = 4;
+	public static final byte GET_WARMEST = 5;
+	public static final byte GET_WARMEST_N = 6;
+	public static final byte GET_ALL = 7;
+	public static final byte PUT_ALL = 8;
+	public static final byte REMOVE_ALL = 9;
+
+	public static final byte OK = 0;
+	public static final byte NULL = 1;
+	public static final byte ERROR = 2;
+
+	public static final int MAX_KEY_BYTES = 0xFFFF;
+
+	private BinaryProtocol() {
+	}
+}
@@ -0,0 +1,258 @@
+package io.github.ashr123.warmestdata.binary;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Blocking client of {@link BinaryProtocolServer}, one connection, not thread-safe.
+ * <p>
+ * The operation methods send one request and wait for its response. To pipeline, call the {@code send} methods for
+ * any number of requests, then {@link #flush()}, then the matching {@code read} method once per request, in the same
+ * order. The server stops reading a connection whose responses are not read, so a pipeline whose requests and responses
+ * do not fit the socket buffers must be read from another thread while it is sent.
+ */
+public final class BinaryProtocolClient implements Closeable {
+
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+	// Request bodies are assembled here first, since the frame starts with their length
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+	private final DataOutputStream bodyOut = new DataOutputStream(body);
+
+	public BinaryProtocolClient(String host, int port) throws IOException {
+		socket = new Socket();
+		socket.connect(new InetSocketAddress(host, port));
+		socket.setTcpNoDelay(true);
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+	}
+
+	// ==================== One request, one response ====================
+
+	public Integer get(String key) throws IOException {
+		sendGet(key);
+		flush();
+		return readValue();
+	}
+
+	public Integer put(String key, int value) throws IOException {
+		sendPut(key, value);
+		flush();
+		return readValue();
+	}
+
+	public Integer put(String key, int value, long ttlMillis) throws IOException {
+		sendPut(key, value, ttlMillis);
+		flush();
+		return readValue();
+	}
+
+	public Integer remove(String key) throws IOException {
+		sendRemove(key);
+		flush();
+		return readValue();
+	}
+
+	public String getWarmest() throws IOException {
+		sendGetWarmest();
+		flush();
+		return readKey();
+	}
+
+	public List<String> getWarmest(int n) throws IOException {
+		sendGetWarmest(n);
+		flush();
+		return readKeys();
+	}
+
+	public Map<String, Integer> getAll(Collection<String> keys) throws IOException {
+		sendGetAll(keys);
+		flush();
+		return readValues(keys);
+	}
+
+	public Map<String, Integer> putAll(Map<String, Integer> entries) throws IOException {
+		sendPutAll(entries);
+		flush();
+		return readValues(entries.keySet());
+	}
+
+	public Map<String, Integer> removeAll(Collection<String> keys) throws IOException {
+		sendRemoveAll(keys);
+		flush();
+		return readValues(keys);
+	}
+
+	// ==================== Pipelining: send ====================
+
+	public void sendGet(String key) throws IOException {
+		bodyOut.writeByte(BinaryProtocol.GET);
+		writeKey(key);
+		endFrame();
+	}
+
+	public void sendPut(String key, int value) throws IOException {
+		bodyOut.writeByte(BinaryProtocol.PUT);
+		writeKey(key);
+		bodyOut.writeInt(value);
+		endFrame();
+	}
+
+	public void sendPut(String key, int value, long ttlMillis) throws IOException {
+		bodyOut.writeByte(BinaryProtocol.PUT_TTL);
+		writeKey(key);
+		bodyOut.writeInt(value);
+		bodyOut.writeLong(ttlMillis);
+		endFrame();
+	}
+
+	public void sendRemove(String key) throws IOException {
+		bodyOut.writeByte(BinaryProtocol.REMOVE);
+		writeKey(key);
+		endFrame();
+	}
+
+	public void sendGetWarmest() throws IOException {
+		bodyOut.writeByte(BinaryProtocol.GET_WARMEST);
+		endFrame();
+	}
+
+	public void sendGetWarmest(int n) throws IOException {
+		bodyOut.writeByte(BinaryProtocol.GET_WARMEST_N);
+		bodyOut.writeInt(n);
+		endFrame();
+	}
+
+	public void sendGetAll(Collection<String> keys) throws IOException {
+		sendKeys(BinaryProtocol.GET_ALL, keys);
+	}
+
+	public void sendPutAll(Map<String, Integer> entries) throws IOException {
+		bodyOut.writeByte(BinaryProtocol.PUT_ALL);
+		bodyOut.writeInt(entries.size());
+		for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+			writeKey(entry.getKey());
+			bodyOut.writeInt(entry.getValue());
+		}
+		endFrame();
+	}
+
+	public void sendRemoveAll(Collection<String> keys) throws IOException {
+		sendKeys(BinaryProtocol.REMOVE_ALL, keys);
+	}
+
+	private void sendKeys(byte opcode, Collection<String> keys) throws IOException {
+		bodyOut.writeByte(opcode);
+		bodyOut.writeInt(keys.size());
+		for (String key : keys) {
+			writeKey(key);
+		}
+		endFrame();
+	}
+
+	private void writeKey(String key) throws IOException {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > BinaryProtocol.MAX_KEY_BYTES) {
+			body.reset();
+			throw new IllegalArgumentException("Key longer than " + BinaryProtocol.MAX_KEY_BYTES + " bytes");
+		}
+		bodyOut.writeShort(bytes.length);
+		bodyOut.write(bytes);
+	}
+
+	private void endFrame() throws IOException {
+		out.writeInt(body.size());
+		body.writeTo(out);
+		body.reset();
+	}
+
+	/**
+	 * Sends the requests buffered by the {@code send} methods.
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	// ==================== Pipelining: read ====================
+
+	/**
+	 * Reads the response to a get, put or remove.
+	 */
+	public Integer readValue() throws IOException {
+		return readStatus() == BinaryProtocol.OK ?
+				in.readInt() :
+				null;
+	}
+
+	/**
+	 * Reads the response to a {@link #sendGetWarmest()}.
+	 */
+	public String readKey() throws IOException {
+		return readStatus() == BinaryProtocol.OK ?
+				readKeyBytes() :
+				null;
+	}
+
+	/**
+	 * Reads the response to a {@link #sendGetWarmest(int)}.
+	 */
+	public List<String> readKeys() throws IOException {
+		readStatus();
+		int count = in.readInt();
+		List<String> keys = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			keys.add(readKeyBytes());
+		}
+		return keys;
+	}
+
+	/**
+	 * Reads the response to a batch request.
+	 *
+	 * @param keys the keys of the request, in the order they were sent
+	 */
+	public Map<String, Integer> readValues(Collection<String> keys) throws IOException {
+		readStatus();
+		in.readInt();
+		Map<String, Integer> values = new LinkedHashMap<>();
+		for (String key : keys) {
+			values.put(key, in.readBoolean() ?
+					in.readInt() :
+					null);
+		}
+		return values;
+	}
+
+	/**
+	 * Reads the frame length and the status.
+	 *
+	 * @throws BinaryProtocolException if the server answered with an error; the connection stays usable
+	 */
+	private byte readStatus() throws IOException {
+		in.readInt();
+		byte status = in.readByte();
+		if (status == BinaryProtocol.ERROR) {
+			throw new BinaryProtocolException(readKeyBytes());
+		}
+		return status;
+	}
+
+	private String readKeyBytes() throws IOException {
+		byte[] bytes = new byte[in.readUnsignedShort()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
@@ -0,0 +1,13 @@
+package io.github.ashr123.warmestdata.binary;
+
+import java.io.IOException;
+
+/**
+ * The server answered a request with an {@link BinaryProtocol#ERROR}.
+ */
+public class BinaryProtocolException extends IOException {
+
+	public BinaryProtocolException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,415 @@
+package io.github.ashr123.warmestdata.binary;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves the active engine over the {@link BinaryProtocol}, next to the REST controllers.
+ * <p>
+ * Connections are spread over {@code warmest.binary.io-threads} NIO event loops (default one per CPU). A loop reads
+ * whatever arrived, executes every complete request in it in order and writes all their responses back with one write,
+ * so a pipelining client pays one system call per batch rather than per request. Requests are decoded straight from the
+ * connection's read buffer, and responses encoded straight into its write buffer; both buffers are reused and only grow
+ * for frames larger than they are, so a request allocates little beyond its key.
+ * <p>
+ * Requests run on the event loop, so an operation that blocks (a synchronous write-ahead log, a forwarding cluster or
+ * replication engine) holds up the other connections of its loop meanwhile. While a client does not read its responses,
+ * its connection stops being read.
+ * <p>
+ * Enabled by setting {@code warmest.binary.port}.
+ */
+@Service
+@ConditionalOnProperty(name = "warmest.binary.port")
+public class BinaryProtocolServer implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(BinaryProtocolServer.class);
+	private static final int INITIAL_BUFFER_BYTES = 1 << 16;
+
+	private final WarmestDataStructureInterface dataStructure;
+	private final int port;
+	private final int maxFrameBytes;
+	private final int maxLimit;
+	private final EventLoop[] eventLoops;
+	private ServerSocketChannel serverChannel;
+	private volatile boolean closed = false;
+
+	/**
+	 * @param ioThreads    number of event loops, 0 for one per CPU
+	 * @param maxFrameSize largest accepted request; a connection that sends a larger one is closed
+	 * @param maxLimit     largest n of {@link BinaryProtocol#GET_WARMEST_N}, as for {@code GET /warmest?limit=n}
+	 */
+	public BinaryProtocolServer(WarmestDataStructureInterface dataStructure,
+	                            @Value("${warmest.binary.port}") int port,
+	                            @Value("${warmest.binary.io-threads:0}") int ioThreads,
+	                            @Value("${warmest.binary.max-frame-size:1MB}") DataSize maxFrameSize,
+	                            @Value("${warmest.max-limit:10000}") int maxLimit) {
+		this.dataStructure = dataStructure;
+		this.port = port;
+		maxFrameBytes = (int) Math.min(maxFrameSize.toBytes(), Integer.MAX_VALUE - Integer.BYTES);
+		this.maxLimit = maxLimit;
+		eventLoops = new EventLoop[ioThreads > 0 ?
+				ioThreads :
+				Runtime.getRuntime().availableProcessors()];
+	}
+
+	@Override
+	public void afterPropertiesSet() throws IOException {
+		for (int i = 0; i < eventLoops.length; i++) {
+			eventLoops[i] = new EventLoop();
+			startThread("binary-io-" + i, eventLoops[i]);
+		}
+		serverChannel = ServerSocketChannel.open()
+				.bind(new InetSocketAddress(port));
+		startThread("binary-acceptor", this::accept);
+		log.info("Serving the binary protocol on port {} with {} event loops", getPort(), eventLoops.length);
+	}
+
+	private static void startThread(String name, Runnable task) {
+		Thread thread = new Thread(task, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void accept() {
+		int next = 0;
+		while (!closed) {
+			try {
+				SocketChannel channel = serverChannel.accept();
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+				eventLoops[next++ % eventLoops.length].register(channel);
+			} catch (IOException e) {
+				if (!closed) {
+					log.warn("Failed to accept a connection", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the port clients connect to, useful when configured as 0
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		closed = true;
+		serverChannel.close();
+		for (EventLoop eventLoop : eventLoops) {
+			eventLoop.selector.wakeup();
+		}
+	}
+
+	private final class EventLoop implements Runnable {
+
+		private final Selector selector;
+		private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+		private EventLoop() throws IOException {
+			selector = Selector.open();
+		}
+
+		private void register(SocketChannel channel) {
+			accepted.add(channel);
+			selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!closed) {
+					selector.select();
+					for (SocketChannel channel; (channel = accepted.poll()) != null; ) {
+						try {
+							SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+							key.attach(new Connection(channel, key));
+						} catch (ClosedChannelException e) {
+							// Closed by the client before it was registered
+						}
+					}
+					for (SelectionKey key : selector.selectedKeys()) {
+						Connection connection = (Connection) key.attachment();
+						try {
+							if (key.isReadable()) {
+								connection.read();
+							} else if (key.isWritable()) {
+								connection.flush();
+							}
+						} catch (IOException e) {
+							connection.close();
+						}
+					}
+					selector.selectedKeys().clear();
+				}
+			} catch (IOException e) {
+				log.error("Event loop failed", e);
+			} finally {
+				for (SelectionKey key : selector.keys()) {
+					((Connection) key.attachment()).close();
+				}
+				try {
+					selector.close();
+				} catch (IOException e) {
+					// Nothing left to do with it
+				}
+			}
+		}
+	}
+
+	/**
+	 * One client connection; only used by the thread of its event loop.
+	 */
+	private final class Connection {
+
+		private final SocketChannel channel;
+		private final SelectionKey key;
+		private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+		// Always in write mode: the bytes from 0 to position are the responses not written yet
+		private ByteBuffer out = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+
+		private Connection(SocketChannel channel, SelectionKey key) {
+			this.channel = channel;
+			this.key = key;
+		}
+
+		private void close() {
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// Nothing left to do with it
+			}
+		}
+
+		private void read() throws IOException {
+			if (channel.read(in) == -1) {
+				close();
+				return;
+			}
+			in.flip();
+			while (in.remaining() >= Integer.BYTES) {
+				int length = in.getInt(in.position());
+				if (length < 1 || length > maxFrameBytes) {
+					throw new IOException("Invalid frame length " + length);
+				}
+				int frameEnd = in.position() + Integer.BYTES + length;
+				if (frameEnd > in.limit()) {
+					if (Integer.BYTES + length > in.capacity()) {
+						in = ByteBuffer.allocate(Integer.BYTES + length)
+								.put(in)
+								.flip();
+					}
+					break;
+				}
+				int limit = in.limit();
+				in.position(in.position() + Integer.BYTES)
+						.limit(frameEnd);
+				execute();
+				in.limit(limit)
+						.position(frameEnd);
+			}
+			in.compact();
+			flush();
+		}
+
+		private void flush() throws IOException {
+			out.flip();
+			channel.write(out);
+			out.compact();
+			// Stop reading while responses are pending, so a client that does not read cannot make them pile up
+			key.interestOps(out.position() == 0 ?
+					SelectionKey.OP_READ :
+					SelectionKey.OP_WRITE);
+		}
+
+		// ==================== Requests ====================
+
+		/**
+		 * Executes the request between the read buffer's position and limit and appends its response.
+		 */
+		private void execute() {
+			int start = out.position();
+			try {
+				ensureOut(Integer.BYTES + 1 + Integer.BYTES);
+				out.putInt(0);  // Length, filled in below
+				byte opcode = in.get();
+				switch (opcode) {
+					case BinaryProtocol.GET -> putValue(dataStructure.get(readKey()));
+					case BinaryProtocol.PUT -> putValue(dataStructure.put(readKey(), in.getInt()));
+					case BinaryProtocol.PUT_TTL -> {
+						String key = readKey();
+						int value = in.getInt();
+						putValue(dataStructure.put(key, value, in.getLong()));
+					}
+					case BinaryProtocol.REMOVE -> putValue(dataStructure.remove(readKey()));
+					case BinaryProtocol.GET_WARMEST -> {
+						String warmest = dataStructure.getWarmest();
+						if (warmest == null) {
+							out.put(BinaryProtocol.NULL);
+						} else {
+							out.put(BinaryProtocol.OK);
+							putKey(warmest);
+						}
+					}
+					case BinaryProtocol.GET_WARMEST_N -> {
+						int limit = in.getInt();
+						if (limit < 0 || limit > maxLimit) {
+							throw new IllegalArgumentException("Limit must be between 0 and " + maxLimit);
+						}
+						List<String> warmest = dataStructure.getWarmest(limit);
+						out.put(BinaryProtocol.OK)
+								.putInt(warmest.size());
+						for (String key : warmest) {
+							putKey(key);
+						}
+					}
+					case BinaryProtocol.GET_ALL -> {
+						List<String> keys = readKeys();
+						putValues(keys, dataStructure.getAll(keys));
+					}
+					case BinaryProtocol.PUT_ALL -> {
+						int count = readCount(Short.BYTES + Integer.BYTES);
+						List<String> keys = new ArrayList<>(count);
+						Map<String, Integer> entries = new LinkedHashMap<>();
+						for (int i = 0; i < count; i++) {
+							String key = readKey();
+							keys.add(key);
+							entries.put(key, in.getInt());
+						}
+						putValues(keys, dataStructure.putAll(entries));
+					}
+					case BinaryProtocol.REMOVE_ALL -> {
+						List<String> keys = readKeys();
+						putValues(keys, dataStructure.removeAll(keys));
+					}
+					default -> throw new IllegalArgumentException("Unknown opcode " + opcode);
+				}
+			} catch (BufferUnderflowException e) {
+				putError(start, "Malformed request");
+			} catch (RuntimeException e) {
+				putError(start, e.getMessage() == null ?
+						e.getClass().getSimpleName() :
+						e.getMessage());
+			}
+			out.putInt(start, out.position() - start - Integer.BYTES);
+		}
+
+		/**
+		 * Decodes straight from the read buffer's backing array, so the String is the only allocation.
+		 */
+		private String readKey() {
+			int length = Short.toUnsignedInt(in.getShort());
+			if (length > in.remaining()) {
+				throw new BufferUnderflowException();
+			}
+			String key = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+			in.position(in.position() + length);
+			return key;
+		}
+
+		/**
+		 * @param minEntryBytes the smallest encoding of one entry, to reject counts the frame cannot hold before sizing
+		 *                      anything by them
+		 */
+		private int readCount(int minEntryBytes) {
+			int count = in.getInt();
+			if (count < 0 || (long) count * minEntryBytes > in.remaining()) {
+				throw new BufferUnderflowException();
+			}
+			return count;
+		}
+
+		private List<String> readKeys() {
+			int count = readCount(Short.BYTES);
+			List<String> keys = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				keys.add(readKey());
+			}
+			return keys;
+		}
+
+		// ==================== Responses ====================
+
+		private void ensureOut(int bytes) {
+			if (out.remaining() < bytes) {
+				out = ByteBuffer.allocate(Math.max(2 * out.capacity(), out.position() + bytes))
+						.put(out.flip());
+			}
+		}
+
+		private void putValue(Integer value) {
+			if (value == null) {
+				out.put(BinaryProtocol.NULL);
+			} else {
+				out.put(BinaryProtocol.OK)
+						.putInt(value);
+			}
+		}
+
+		private void putKey(String key) {
+			byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > BinaryProtocol.MAX_KEY_BYTES) {
+				throw new IllegalStateException("Key longer than " + BinaryProtocol.MAX_KEY_BYTES + " bytes");
+			}
+			ensureOut(Short.BYTES + bytes.length);
+			out.putShort((short) bytes.length)
+					.put(bytes);
+		}
+
+		private void putValues(Collection<String> keys, Map<String, Integer> values) {
+			ensureOut(1 + Integer.BYTES + keys.size() * (1 + Integer.BYTES));
+			out.put(BinaryProtocol.OK)
+					.putInt(keys.size());
+			for (String key : keys) {
+				Integer value = values.get(key);
+				if (value == null) {
+					out.put((byte) 0);
+				} else {
+					out.put((byte) 1)
+							.putInt(value);
+				}
+			}
+		}
+
+		/**
+		 * Replaces whatever the failed request wrote after start with an error response.
+		 */
+		private void putError(int start, String message) {
+			out.position(start);
+			byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+			int length = Math.min(bytes.length, BinaryProtocol.MAX_KEY_BYTES);
+			ensureOut(Integer.BYTES + 1 + Short.BYTES + length);
+			out.putInt(0)
+					.put(BinaryProtocol.ERROR)
+					.putShort((short) length)
+					.put(bytes, 0, length);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package io.github.ashr123.warmestdata.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends {@link ClusterProtocol} requests to other nodes, stamping every request with the local clock and merging the
+ * clock of every reply, so that whatever the owner stamps afterwards is ordered after what this node did before.
+ */
+public class ClusterClient {
+
+	private final HttpClient httpClient;
+	private final HybridLogicalClock clock;
+	private final Duration timeout;
+
+	public ClusterClient(HybridLogicalClock clock, Duration timeout) {
+		this.clock = clock;
+		this.timeout = timeout;
+		httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(timeout)
+				.build();
+	}
+
+	/**
+	 * @param node      base URL of the owner
+	 * @param ttlMillis the time to live of a single entry, 0 for none
+	 * @return the previous values, in the order of entries
+	 */
+	public List<Integer> put(String node, Map<String, Integer> entries, long ttlMillis) {
+		StringJoiner body = new StringJoiner("\n");
+		for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+			body.add(ClusterProtocol.encodeKey(entry.getKey()) + ' ' + entry.getValue());
+		}
+		String path = ttlMillis == 0 ?
+				ClusterProtocol.PUT :
+				ClusterProtocol.PUT + "?ttlMillis=" + ttlMillis;
+		return values(node, send(node, post(node, path, body.toString())));
+	}
+
+	/**
+	 * @return the values, in the order of keys
+	 */
+	public List<Integer> get(String node, Collection<String> keys) {
+		return values(node, send(node, post(node, ClusterProtocol.GET, keysBody(keys))));
+	}
+
+	/**
+	 * @return the previous values, in the order of keys
+	 */
+	public List<Integer> remove(String node, Collection<String> keys) {
+		return values(node, send(node, post(node, ClusterProtocol.REMOVE, keysBody(keys))));
+	}
+
+	/**
+	 * @return the owner's n warmest keys with their stamps, warmest first
+	 */
+	public CompletableFuture<List<StampedKey>> getWarmest(String node, int n) {
+		HttpRequest request = request(node, ClusterProtocol.WARMEST + "?limit=" + n).GET().build();
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+				.handle((response, e) -> {
+					if (e != null) {
+						throw new ShardUnavailableException("Node " + node + " did not answer", e);
+					}
+					List<StampedKey> warmest = new ArrayList<>();
+					for (String line : lines(node, response)) {
+						if (!line.isEmpty()) {
+							int space = line.indexOf(' ');
+							warmest.add(new StampedKey(ClusterProtocol.decodeKey(line.substring(space + 1)),
+									Long.parseLong(line, 0, space, 10)));
+						}
+					}
+					return warmest;
+				});
+	}
+
+	/**
+	 * Waits for a future of this client, rethrowing its {@link ShardUnavailableException} as is.
+	 */
+	public static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	private static String keysBody(Collection<String> keys) {
+		StringJoiner body = new StringJoiner("\n");
+		for (String key : keys) {
+			body.add(ClusterProtocol.encodeKey(key));
+		}
+		return body.toString();
+	}
+
+	private HttpRequest.Builder request(String node, String path) {
+		return HttpRequest.newBuilder(URI.create(node + path))
+				.timeout(timeout)
+				.header(HybridLogicalClock.HEADER, Long.toString(clock.now()));
+	}
+
+	private HttpRequest post(String node, String path, String body) {
+		return request(node, path)
+				.header("Content-Type", "text/plain")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+
+	private HttpResponse<String> send(String node, HttpRequest request) {
+		try {
+			return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+		} catch (IOException e) {
+			throw new ShardUnavailableException("Node " + node + " did not answer", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ShardUnavailableException("Interrupted while waiting for node " + node, e);
+		}
+	}
+
+	/**
+	 * Checks the status and merges the owner's clock.
+	 */
+	private List<String> lines(String node, HttpResponse<String> response) {
+		if (response.statusCode() != 200) {
+			throw new ShardUnavailableException("Node " + node + " answered " + response.statusCode());
+		}
+		response.headers()
+				.firstValueAsLong(HybridLogicalClock.HEADER)
+				.ifPresent(clock::update);
+		return ClusterProtocol.lines(response.body());
+	}
+
+	private List<Integer> values(String node, HttpResponse<String> response) {
+		List<Integer> values = new ArrayList<>();
+		for (String line : lines(node, response)) {
+			values.add(ClusterProtocol.decodeValue(line));
+		}
+		return values;
+	}
+}
@@ -0,0 +1,56 @@
+package io.github.ashr123.warmestdata.cluster;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wire format between cluster nodes: {@code text/plain} bodies with one line per key, in request order, and the
+ * sender's {@link HybridLogicalClock} in the {@link HybridLogicalClock#HEADER} header both ways.
+ * <ul>
+ *   <li>{@code POST /cluster/put[?ttlMillis=n]} – lines {@code key value}; replies with the previous values</li>
+ *   <li>{@code POST /cluster/get} – lines {@code key}; replies with the values</li>
+ *   <li>{@code POST /cluster/remove} – lines {@code key}; replies with the previous values</li>
+ *   <li>{@code GET /cluster/warmest?limit=n} – replies with lines {@code stamp key}, warmest first</li>
+ * </ul>
+ * Keys are URL-encoded, so they contain neither spaces nor line breaks; a missing value is an empty line.
+ */
+public final class ClusterProtocol {
+
+	public static final String PUT = "/cluster/put";
+	public static final String GET = "/cluster/get";
+	public static final String REMOVE = "/cluster/remove";
+	public static final String WARMEST = "/cluster/warmest";
+
+	private ClusterProtocol() {
+	}
+
+	public static String encodeKey(String key) {
+		return URLEncoder.encode(key, StandardCharsets.UTF_8);
+	}
+
+	public static String decodeKey(String encodedKey) {
+		return URLDecoder.decode(encodedKey, StandardCharsets.UTF_8);
+	}
+
+	public static String encodeValue(Integer value) {
+		return value == null ?
+				"" :
+				value.toString();
+	}
+
+	public static Integer decodeValue(String line) {
+		return line.isEmpty() ?
+				null :
+				Integer.parseInt(line);
+	}
+
+	/**
+	 * @return the lines of a body that holds at least one line (which may be empty)
+	 */
+	public static List<String> lines(String body) {
+		return Arrays.asList(body.split("\n", -1));
+	}
+}
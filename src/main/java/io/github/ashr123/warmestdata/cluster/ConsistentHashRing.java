@@ -0,0 +1,111 @@
+package io.github.ashr123.warmestdata.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to nodes by consistent hashing.
+ * <p>
+ * Every node is placed on a 64-bit ring at virtualNodes pseudo-random points, and a key belongs to the node at the first
+ * point at or after the key's hash. With enough points per node, shards are balanced to within a few percent, and
+ * adding or removing a node only moves the keys between its points and their predecessors. The points live in a sorted
+ * {@code long[]}, so a lookup is one hash and a binary search without allocation.
+ */
+public final class ConsistentHashRing {
+
+	private final List<String> nodes;
+	private final long[] points;
+	private final String[] owners;
+
+	/**
+	 * @param nodes        the node names, in any order; every node that is given the same names builds the same ring
+	 * @param virtualNodes points per node
+	 */
+	public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+		if (nodes.isEmpty()) {
+			throw new IllegalArgumentException("A ring needs at least one node");
+		}
+		if (virtualNodes <= 0) {
+			throw new IllegalArgumentException("Virtual nodes must be positive");
+		}
+		this.nodes = List.copyOf(nodes);
+
+		// Unsigned order, as searched by ownerOf
+		TreeMap<Long, String> ring = new TreeMap<>(Long::compareUnsigned);
+		for (String node : this.nodes) {
+			for (int i = 0; i < virtualNodes; i++) {
+				ring.put(hash(node + '#' + i), node);
+			}
+		}
+		points = new long[ring.size()];
+		owners = new String[ring.size()];
+		int i = 0;
+		for (Map.Entry<Long, String> point : ring.entrySet()) {
+			points[i] = point.getKey();
+			owners[i] = point.getValue();
+			i++;
+		}
+	}
+
+	/**
+	 * 64-bit FNV-1a over the chars, finished with MurmurHash3's fmix64 so that similar keys spread over the whole ring.
+	 */
+	static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash ^= key.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	public List<String> nodes() {
+		return nodes;
+	}
+
+	public String ownerOf(String key) {
+		long hash = hash(key);
+		int low = 0;
+		int high = points.length;
+		// First point at or after hash, in unsigned order
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(points[mid], hash) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return owners[low == points.length ?
+				0 :
+				low];
+	}
+
+	/**
+	 * Splits keys by owner, keeping their order within every shard. The shards are ordered by the position of their last
+	 * key, so the shard holding the last key comes last.
+	 */
+	public Map<String, List<String>> partition(Collection<String> keys) {
+		Map<String, List<String>> shards = new LinkedHashMap<>();
+		for (String key : keys) {
+			String owner = ownerOf(key);
+			// Re-inserting moves the shard behind the others
+			List<String> shard = shards.remove(owner);
+			if (shard == null) {
+				shard = new ArrayList<>();
+			}
+			shard.add(key);
+			shards.put(owner, shard);
+		}
+		return shards;
+	}
+}
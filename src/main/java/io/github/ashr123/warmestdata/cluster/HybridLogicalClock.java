@@ -0,0 +1,69 @@
+package io.github.ashr123.warmestdata.cluster;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hybrid logical clock packed into a long: the upper 52 bits are epoch microseconds, the lower 12 bits a logical
+ * counter.
+ * <p>
+ * Every stamp handed out is greater than every stamp handed out or received before, so the order of stamps respects
+ * causality: a node that received a stamp (in a request or a reply) only hands out greater ones afterwards. Between
+ * nodes that never exchanged a message, stamps follow the wall clocks, so they are ordered correctly as long as the
+ * events are further apart than the clocks' skew. The counter lets a node hand out 4096 stamps per microsecond
+ * before running ahead of its wall clock; if it does, it simply carries into the microseconds.
+ */
+public final class HybridLogicalClock {
+
+	/**
+	 * Carries the sender's clock on cluster requests and replies.
+	 */
+	public static final String HEADER = "X-Warmest-Hlc";
+
+	private static final int LOGICAL_BITS = 12;
+
+	private final AtomicLong last = new AtomicLong();
+	private final LongSupplier epochMicros;
+
+	public HybridLogicalClock() {
+		this(HybridLogicalClock::epochMicros);
+	}
+
+	/**
+	 * @param epochMicros the wall clock, in microseconds since the epoch
+	 */
+	public HybridLogicalClock(LongSupplier epochMicros) {
+		this.epochMicros = epochMicros;
+	}
+
+	private static long epochMicros() {
+		Instant now = Instant.now();
+		return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+	}
+
+	/**
+	 * @return a stamp for a local event, greater than every stamp seen so far
+	 */
+	public long now() {
+		long physical = epochMicros.getAsLong() << LOGICAL_BITS;
+		return last.updateAndGet(stamp -> Math.max(stamp + 1, physical));
+	}
+
+	/**
+	 * Merges a stamp received from another node.
+	 *
+	 * @return a stamp for the receive event, greater than remote and every stamp seen so far
+	 */
+	public long update(long remote) {
+		long physical = epochMicros.getAsLong() << LOGICAL_BITS;
+		return last.updateAndGet(stamp -> Math.max(Math.max(stamp, remote) + 1, physical));
+	}
+
+	/**
+	 * @return the wall-clock part of stamp, in microseconds since the epoch
+	 */
+	public static long epochMicros(long stamp) {
+		return stamp >>> LOGICAL_BITS;
+	}
+}
@@ -0,0 +1,19 @@
+package io.github.ashr123.warmestdata.cluster;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A request could not be answered because the node owning part of it did not answer.
+ */
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class ShardUnavailableException extends RuntimeException {
+
+	public ShardUnavailableException(String message) {
+		super(message);
+	}
+
+	public ShardUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
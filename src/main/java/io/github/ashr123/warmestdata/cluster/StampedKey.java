@@ -0,0 +1,7 @@
+package io.github.ashr123.warmestdata.cluster;
+
+/**
+ * A key and the {@link HybridLogicalClock} stamp of its last access.
+ */
+public record StampedKey(String key, long stamp) {
+}
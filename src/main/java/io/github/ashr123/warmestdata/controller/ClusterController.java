@@ -0,0 +1,110 @@
+package io.github.ashr123.warmestdata.controller;
+
+import io.github.ashr123.warmestdata.cluster.ClusterProtocol;
+import io.github.ashr123.warmestdata.cluster.HybridLogicalClock;
+import io.github.ashr123.warmestdata.cluster.StampedKey;
+import io.github.ashr123.warmestdata.dto.ClusterWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the {@link ClusterProtocol} requests other nodes forward to this one for the keys it owns.
+ */
+@RestController
+@Profile("cluster & !redis & !reactive")
+@RequestMapping(produces = MediaType.TEXT_PLAIN_VALUE)
+public class ClusterController {
+
+	private final ClusterWarmestDataStructure cluster;
+
+	public ClusterController(WarmestDataStructureInterface dataStructure) {
+		cluster = WarmestDataStructureDecorator.unwrap(dataStructure, ClusterWarmestDataStructure.class);
+	}
+
+	/**
+	 * Replies with the lines and the clock, which is past every stamp this request caused.
+	 */
+	private ResponseEntity<String> reply(List<String> lines) {
+		return ResponseEntity.ok()
+				.header(HybridLogicalClock.HEADER, Long.toString(cluster.getClock().now()))
+				.body(String.join("\n", lines));
+	}
+
+	private static List<String> encodeValues(List<String> keys, Map<String, Integer> values) {
+		List<String> lines = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			lines.add(ClusterProtocol.encodeValue(values.get(key)));
+		}
+		return lines;
+	}
+
+	private static List<String> decodeKeys(String body) {
+		List<String> keys = new ArrayList<>();
+		for (String line : ClusterProtocol.lines(body)) {
+			keys.add(ClusterProtocol.decodeKey(line));
+		}
+		return keys;
+	}
+
+	@PostMapping(ClusterProtocol.PUT)
+	public ResponseEntity<String> put(@RequestHeader(HybridLogicalClock.HEADER) long clock,
+	                                  @RequestParam(defaultValue = "0") long ttlMillis,
+	                                  @RequestBody String body) {
+		cluster.getClock().update(clock);
+		List<String> keys = new ArrayList<>();
+		Map<String, Integer> entries = new LinkedHashMap<>();
+		for (String line : ClusterProtocol.lines(body)) {
+			int space = line.indexOf(' ');
+			String key = ClusterProtocol.decodeKey(line.substring(0, space));
+			keys.add(key);
+			entries.put(key, Integer.parseInt(line, space + 1, line.length(), 10));
+		}
+		if (keys.size() == 1) {
+			String key = keys.get(0);
+			return reply(List.of(ClusterProtocol.encodeValue(cluster.putOwned(key, entries.get(key), ttlMillis))));
+		}
+		if (ttlMillis != 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ttlMillis is only supported for a single entry");
+		}
+		return reply(encodeValues(keys, cluster.putAllOwned(entries)));
+	}
+
+	@PostMapping(ClusterProtocol.GET)
+	public ResponseEntity<String> get(@RequestHeader(HybridLogicalClock.HEADER) long clock, @RequestBody String body) {
+		cluster.getClock().update(clock);
+		List<String> keys = decodeKeys(body);
+		return keys.size() == 1 ?
+				reply(List.of(ClusterProtocol.encodeValue(cluster.getOwned(keys.get(0))))) :
+				reply(encodeValues(keys, cluster.getAllOwned(keys)));
+	}
+
+	@PostMapping(ClusterProtocol.REMOVE)
+	public ResponseEntity<String> remove(@RequestHeader(HybridLogicalClock.HEADER) long clock, @RequestBody String body) {
+		cluster.getClock().update(clock);
+		List<String> keys = decodeKeys(body);
+		return keys.size() == 1 ?
+				reply(List.of(ClusterProtocol.encodeValue(cluster.removeOwned(keys.get(0))))) :
+				reply(encodeValues(keys, cluster.removeAllOwned(keys)));
+	}
+
+	@GetMapping(ClusterProtocol.WARMEST)
+	public ResponseEntity<String> getWarmest(@RequestHeader(HybridLogicalClock.HEADER) long clock, @RequestParam int limit) {
+		cluster.getClock().update(clock);
+		List<String> lines = new ArrayList<>();
+		for (StampedKey stampedKey : cluster.getWarmestOwned(limit)) {
+			lines.add(stampedKey.stamp() + " " + ClusterProtocol.encodeKey(stampedKey.key()));
+		}
+		return reply(lines);
+	}
+}
@@ -0,0 +1,128 @@
+package io.github.ashr123.warmestdata.controller;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.namespace.NamespaceRegistry;
+import io.github.ashr123.warmestdata.namespace.NamespaceStats;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The endpoints of {@link WarmestDataController} under {@code /ns/{ns}}, each namespace with its own independent
+ * structure, see {@link NamespaceRegistry}.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/ns")
+public class NamespaceController {
+
+	private final NamespaceRegistry namespaces;
+	private final int maxLimit;
+
+	public NamespaceController(NamespaceRegistry namespaces,
+	                           @Value("${warmest.max-limit:10000}") int maxLimit) {
+		this.namespaces = namespaces;
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * Resolves the namespace a write goes to, creating it on first use.
+	 */
+	private WarmestDataStructureInterface forWrite(String ns) {
+		return resolve(namespaces::get, ns);
+	}
+
+	/**
+	 * Resolves the namespace a read or remove goes to, which answers as an empty one if it does not exist, so only
+	 * writes create namespaces.
+	 */
+	private WarmestDataStructureInterface forRead(String ns) {
+		return resolve(namespaces::find, ns);
+	}
+
+	private static WarmestDataStructureInterface resolve(Function<String, WarmestDataStructureInterface> lookup, String ns) {
+		try {
+			return lookup.apply(ns);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		} catch (IllegalStateException e) {
+			throw new ResponseStatusException(HttpStatus.INSUFFICIENT_STORAGE, e.getMessage());
+		} catch (UnsupportedOperationException e) {
+			throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, e.getMessage());
+		}
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public void handleIllegalArgument(IllegalArgumentException e, HttpServletResponse response) throws IOException {
+		WarmestDataController.badRequest(e, response);
+	}
+
+	@GetMapping
+	@ResponseStatus(HttpStatus.OK)
+	public List<NamespaceStats> stats() {
+		try {
+			return namespaces.stats();
+		} catch (UnsupportedOperationException e) {
+			throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, e.getMessage());
+		}
+	}
+
+	@PutMapping("/{ns}/data/{key}")
+	@ResponseStatus(HttpStatus.OK)
+	public Integer put(@PathVariable String ns, @PathVariable String key, @RequestBody int value,
+	                   @RequestParam(required = false) Long ttlMillis) {
+		return WarmestDataController.put(forWrite(ns), key, value, ttlMillis);
+	}
+
+	@GetMapping("/{ns}/data/{key}")
+	@ResponseStatus(HttpStatus.OK)
+	public Integer get(@PathVariable String ns, @PathVariable String key) {
+		return WarmestDataController.get(forRead(ns), key);
+	}
+
+	@DeleteMapping("/{ns}/data/{key}")
+	@ResponseStatus(HttpStatus.OK)
+	public Integer remove(@PathVariable String ns, @PathVariable String key) {
+		return WarmestDataController.remove(forRead(ns), key);
+	}
+
+	@GetMapping("/{ns}/warmest")
+	@ResponseStatus(HttpStatus.OK)
+	public String getWarmest(@PathVariable String ns) {
+		return forRead(ns).getWarmest();
+	}
+
+	@GetMapping(value = "/{ns}/warmest", params = "limit")
+	@ResponseStatus(HttpStatus.OK)
+	public List<String> getWarmest(@PathVariable String ns, @RequestParam int limit) {
+		return WarmestDataController.getWarmest(forRead(ns), limit, maxLimit);
+	}
+
+	// ==================== Batch endpoints: the order of the batch defines the recency order ====================
+
+	@PutMapping("/{ns}/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Map<String, Integer> putAll(@PathVariable String ns, @RequestBody Map<String, Integer> entries) {
+		return WarmestDataController.putAll(forWrite(ns), entries);
+	}
+
+	@GetMapping("/{ns}/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Map<String, Integer> getAll(@PathVariable String ns, @RequestParam List<String> keys) {
+		return forRead(ns).getAll(keys);
+	}
+
+	@DeleteMapping("/{ns}/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Map<String, Integer> removeAll(@PathVariable String ns, @RequestParam List<String> keys) {
+		return forRead(ns).removeAll(keys);
+	}
+}
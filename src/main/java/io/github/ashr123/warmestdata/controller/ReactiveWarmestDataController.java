@@ -0,0 +1,84 @@
+package io.github.ashr123.warmestdata.controller;
+
+import io.github.ashr123.warmestdata.dto.ReactiveWarmestDataStructureInterface;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebFlux mirror of {@link WarmestDataController}: same endpoints, bodies and status codes.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveWarmestDataController {
+
+	private final ReactiveWarmestDataStructureInterface dataStructure;
+	private final int maxLimit;
+
+	public ReactiveWarmestDataController(ReactiveWarmestDataStructureInterface dataStructure,
+	                                     @Value("${warmest.max-limit:10000}") int maxLimit) {
+		this.dataStructure = dataStructure;
+		this.maxLimit = maxLimit;
+	}
+
+	@PutMapping("/data/{key}")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<Integer> put(@PathVariable String key, @RequestBody int value) {
+		return dataStructure.put(key, value);
+	}
+
+	@GetMapping("/data/{key}")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<Integer> get(@PathVariable String key) {
+		return dataStructure.get(key)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Key not found: " + key)));
+	}
+
+	@DeleteMapping("/data/{key}")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<Integer> remove(@PathVariable String key) {
+		return dataStructure.remove(key);
+	}
+
+	@GetMapping("/warmest")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<String> getWarmest() {
+		return dataStructure.getWarmest();
+	}
+
+	@GetMapping(value = "/warmest", params = "limit")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<List<String>> getWarmest(@RequestParam int limit) {
+		WarmestDataController.checkLimit(limit, maxLimit);
+		return dataStructure.getWarmest(limit);
+	}
+
+	// ==================== Batch endpoints: the order of the batch defines the recency order ====================
+
+	@PutMapping("/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<Map<String, Integer>> putAll(@RequestBody Map<String, Integer> entries) {
+		if (entries.containsValue(null)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Values must not be null");
+		}
+		return dataStructure.putAll(entries);
+	}
+
+	@GetMapping("/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<Map<String, Integer>> getAll(@RequestParam List<String> keys) {
+		return dataStructure.getAll(keys);
+	}
+
+	@DeleteMapping("/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<Map<String, Integer>> removeAll(@RequestParam List<String> keys) {
+		return dataStructure.removeAll(keys);
+	}
+}
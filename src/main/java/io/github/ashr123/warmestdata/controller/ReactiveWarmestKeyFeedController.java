@@ -0,0 +1,41 @@
+package io.github.ashr123.warmestdata.controller;
+
+import io.github.ashr123.warmestdata.feed.WarmestKeyFeed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * WebFlux mirror of {@link WarmestKeyFeedController}: same endpoint and events. A client that does not keep up only
+ * gets the latest change once it requests more.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveWarmestKeyFeedController {
+
+	private final WarmestKeyFeed feed;
+
+	public ReactiveWarmestKeyFeedController(WarmestKeyFeed feed) {
+		this.feed = feed;
+	}
+
+	@GetMapping(value = "/warmest/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<String>> changes() {
+		return Flux.create(sink -> {
+			WarmestKeyFeed.Subscription subscription = feed.subscribe(change -> {
+				String key = change.key() == null ?
+						"" :
+						change.key();
+				sink.next(ServerSentEvent.builder(key)
+						.id(String.valueOf(change.sequence()))
+						.event("warmest")
+						.build());
+			});
+			sink.onDispose(subscription::close);
+		}, FluxSink.OverflowStrategy.LATEST);
+	}
+}
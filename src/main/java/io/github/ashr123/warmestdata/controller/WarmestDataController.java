@@ -1,39 +1,139 @@
 package io.github.ashr123.warmestdata.controller;
 
 import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
 @RestController
+@Profile("!reactive")
 public class WarmestDataController {
 
 	private final WarmestDataStructureInterface dataStructure;
+	private final int maxLimit;
 
-	public WarmestDataController(WarmestDataStructureInterface dataStructure) {
+	/**
+	 * @param maxLimit the largest {@code limit} of {@code GET /warmest?limit=n}, since the engine walks n keys under its
+	 *                 lock and the response holds them all
+	 */
+	public WarmestDataController(WarmestDataStructureInterface dataStructure,
+	                             @Value("${warmest.max-limit:10000}") int maxLimit) {
 		this.dataStructure = dataStructure;
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * @throws ResponseStatusException 400 if limit is negative or above maxLimit
+	 */
+	static void checkLimit(int limit, int maxLimit) {
+		if (limit < 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must not be negative");
+		}
+		if (limit > maxLimit) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must not exceed " + maxLimit);
+		}
+	}
+
+	/**
+	 * @throws ResponseStatusException 400 if ttlMillis is not positive, 501 if the engine does not expire entries
+	 */
+	static void checkTimeToLive(WarmestDataStructureInterface dataStructure, long ttlMillis) {
+		if (ttlMillis <= 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ttlMillis must be positive");
+		}
+		if (!dataStructure.supportsTimeToLive()) {
+			throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "The active engine does not support a time to live");
+		}
+	}
+
+	/**
+	 * The response body has to be an object, so the single-key endpoints call the engine's primitive variants, which do
+	 * not allocate, and box here, where {@link Integer#valueOf(int)} reuses the cached small values.
+	 *
+	 * @param value a primitive variant's result
+	 * @return null for {@link WarmestDataStructureInterface#NO_VALUE}
+	 */
+	static Integer toInteger(long value) {
+		return value == WarmestDataStructureInterface.NO_VALUE ?
+				null :
+				(int) value;
+	}
+
+	/**
+	 * Answers an argument the engine rejected with 400, like the checks above: a key longer than the mapped engine
+	 * stores, or a write a follower's leader rejected.
+	 */
+	static void badRequest(IllegalArgumentException e, HttpServletResponse response) throws IOException {
+		response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public void handleIllegalArgument(IllegalArgumentException e, HttpServletResponse response) throws IOException {
+		badRequest(e, response);
+	}
+
+	// ==================== Shared with NamespaceController, over the structure a request resolved to ====================
+
+	static Integer put(WarmestDataStructureInterface dataStructure, String key, int value, Long ttlMillis) {
+		if (ttlMillis == null) {
+			return toInteger(dataStructure.putInt(key, value));
+		}
+		checkTimeToLive(dataStructure, ttlMillis);
+		return dataStructure.put(key, value, ttlMillis);
+	}
+
+	/**
+	 * @throws ResponseStatusException 404 if there is no mapping for key
+	 */
+	static Integer get(WarmestDataStructureInterface dataStructure, String key) {
+		long value = dataStructure.getInt(key);
+		if (value == WarmestDataStructureInterface.NO_VALUE) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Key not found: " + key);
+		}
+		return (int) value;
 	}
 
+	static Integer remove(WarmestDataStructureInterface dataStructure, String key) {
+		return toInteger(dataStructure.removeInt(key));
+	}
+
+	static List<String> getWarmest(WarmestDataStructureInterface dataStructure, int limit, int maxLimit) {
+		checkLimit(limit, maxLimit);
+		return dataStructure.getWarmest(limit);
+	}
+
+	static Map<String, Integer> putAll(WarmestDataStructureInterface dataStructure, Map<String, Integer> entries) {
+		if (entries.containsValue(null)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Values must not be null");
+		}
+		return dataStructure.putAll(entries);
+	}
+
+	// ==================== Single-key endpoints ====================
+
 	@PutMapping("/data/{key}")
 	@ResponseStatus(HttpStatus.OK)
-	public Integer put(@PathVariable String key, @RequestBody int value) {
-		return dataStructure.put(key, value);
+	public Integer put(@PathVariable String key, @RequestBody int value, @RequestParam(required = false) Long ttlMillis) {
+		return put(dataStructure, key, value, ttlMillis);
 	}
 
 	@GetMapping("/data/{key}")
 	@ResponseStatus(HttpStatus.OK)
 	public Integer get(@PathVariable String key) {
-		Integer value = dataStructure.get(key);
-		if (value == null) {
-			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Key not found: " + key);
-		}
-		return value;
+		return get(dataStructure, key);
 	}
 
 	@DeleteMapping("/data/{key}")
 	@ResponseStatus(HttpStatus.OK)
 	public Integer remove(@PathVariable String key) {
-		return dataStructure.remove(key);
+		return remove(dataStructure, key);
 	}
 
 	@GetMapping("/warmest")
@@ -41,4 +141,30 @@ public class WarmestDataController {
 	public String getWarmest() {
 		return dataStructure.getWarmest();
 	}
+
+	@GetMapping(value = "/warmest", params = "limit")
+	@ResponseStatus(HttpStatus.OK)
+	public List<String> getWarmest(@RequestParam int limit) {
+		return getWarmest(dataStructure, limit, maxLimit);
+	}
+
+	// ==================== Batch endpoints: the order of the batch defines the recency order ====================
+
+	@PutMapping("/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Map<String, Integer> putAll(@RequestBody Map<String, Integer> entries) {
+		return putAll(dataStructure, entries);
+	}
+
+	@GetMapping("/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Map<String, Integer> getAll(@RequestParam List<String> keys) {
+		return dataStructure.getAll(keys);
+	}
+
+	@DeleteMapping("/data")
+	@ResponseStatus(HttpStatus.OK)
+	public Map<String, Integer> removeAll(@RequestParam List<String> keys) {
+		return dataStructure.removeAll(keys);
+	}
 }
@@ -0,0 +1,49 @@
+package io.github.ashr123.warmestdata.controller;
+
+import io.github.ashr123.warmestdata.feed.WarmestKeyFeed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent events of the warmest key: a {@code warmest} event with the current key on connect, then one for every
+ * change. The data is the key, empty while there is none; the id is the change's sequence number.
+ */
+@RestController
+@Profile("!reactive")
+public class WarmestKeyFeedController {
+
+	private final WarmestKeyFeed feed;
+
+	public WarmestKeyFeedController(WarmestKeyFeed feed) {
+		this.feed = feed;
+	}
+
+	@GetMapping(value = "/warmest/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter changes() {
+		// 0: never time out, the stream ends when the client disconnects
+		SseEmitter emitter = new SseEmitter(0L);
+		WarmestKeyFeed.Subscription subscription;
+		try {
+			subscription = feed.subscribe(change -> {
+				String key = change.key() == null ?
+						"" :
+						change.key();
+				emitter.send(SseEmitter.event()
+						.id(String.valueOf(change.sequence()))
+						.name("warmest")
+						.data(key));
+			});
+		} catch (UnsupportedOperationException e) {
+			throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, e.getMessage());
+		}
+		emitter.onCompletion(subscription::close);
+		emitter.onTimeout(subscription::close);
+		emitter.onError(e -> subscription.close());
+		return emitter;
+	}
+}
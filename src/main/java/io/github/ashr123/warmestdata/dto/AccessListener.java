@@ -0,0 +1,14 @@
+package io.github.ashr123.warmestdata.dto;
+
+/**
+ * Notified of every access that makes a key the warmest: puts, gets that find the key, and every such key of a batch,
+ * in batch order. Restoring a snapshot is not an access.
+ * <p>
+ * Called while the engine's lock is held, so the calls come in the engine's recency order: under the write lock, or
+ * under the read lock for a get of the key that already is the warmest, which may run concurrently with other such
+ * gets. Implementations must be cheap, must not block and must not call back into the engine.
+ */
+@FunctionalInterface
+public interface AccessListener {
+	void accessed(String key);
+}
@@ -0,0 +1,498 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe implementation of WarmestDataStructureInterface that records {@link #get(String)} accesses into striped
+ * ring buffers instead of taking the write lock on every recency change.
+ * <p>
+ * A reader looks the key up under the read lock and, while still holding it, appends the node together with a stamp
+ * from a shared clock to its stripe. Whoever next holds the write lock drains all stripes and replays the recorded
+ * {@code moveToTail} calls in stamp order, so the recency order is exactly the one a write-locked get would have produced.
+ * {@link #put}, {@link #remove} and {@link #getWarmest()} drain before they run. Nothing is dropped: when a stripe is
+ * full the reader falls back to the classic write-locked path.
+ * <p>
+ * Every write-lock acquisition, drains included, is reported to the probe, so the {@code warmest.lock.write.wait} count
+ * compares directly with the classic engine's.
+ */
+@Repository
+@Profile("buffered")
+public class BufferedWarmestDataStructure implements WarmestDataStructureInterface, EngineProbeAware {
+
+	private final Map<String, Node> map = new HashMap<>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ReadBuffer[] stripes;
+	private final int stripeMask;
+	private final Node[] drainScratch;
+	/**
+	 * Issues one stamp per recorded access; only ever advanced while holding the read lock.
+	 */
+	private final AtomicLong clock = new AtomicLong();
+	/**
+	 * Value of {@link #clock} after the last drain; only written while holding the write lock.
+	 */
+	private volatile long drainedStamp = 0;
+	private Node tail = null;  // Newest (warmest) once all buffers are drained
+	private EngineProbe probe = null;
+
+	/**
+	 * @param stripeCount    requested number of read buffers, rounded up to the next power of two;
+	 *                       0 means one per available processor
+	 * @param stripeCapacity number of accesses each read buffer holds before readers fall back to the write lock
+	 */
+	public BufferedWarmestDataStructure(@Value("${warmest.buffered.stripes:0}") int stripeCount,
+	                                    @Value("${warmest.buffered.stripe-capacity:128}") int stripeCapacity) {
+		if (stripeCount <= 0) {
+			stripeCount = Runtime.getRuntime().availableProcessors();
+		}
+		if (stripeCapacity < 2) {
+			throw new IllegalArgumentException("stripeCapacity must be at least 2: " + stripeCapacity);
+		}
+		int size = stripeCount == 1 ?
+				1 :
+				Integer.highestOneBit(stripeCount - 1) << 1;
+		stripes = new ReadBuffer[size];
+		for (int i = 0; i < size; i++) {
+			stripes[i] = new ReadBuffer(stripeCapacity);
+		}
+		stripeMask = size - 1;
+		drainScratch = new Node[size * stripeCapacity];
+	}
+
+	@Override
+	public void setProbe(EngineProbe probe) {
+		this.probe = probe;
+	}
+
+	/**
+	 * Acquires the write lock, reporting the wait to the probe if one is set.
+	 *
+	 * @return the time the lock was acquired, for {@link #unlockWrite(long)}
+	 */
+	private long lockWrite() {
+		if (probe == null) {
+			lock.writeLock().lock();
+			return 0;
+		}
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		long acquiredAt = System.nanoTime();
+		probe.writeLockWaited(acquiredAt - start);
+		return acquiredAt;
+	}
+
+	/**
+	 * Like {@link #lockWrite()}, but gives up at once if another thread holds the lock.
+	 *
+	 * @return the time the lock was acquired, for {@link #unlockWrite(long)}, or -1 if it was not
+	 */
+	private long tryLockWrite() {
+		if (!lock.writeLock().tryLock()) {
+			return -1;
+		}
+		if (probe == null) {
+			return 0;
+		}
+		probe.writeLockWaited(0);
+		return System.nanoTime();
+	}
+
+	/**
+	 * Releases the write lock, reporting the hold time to the probe if one is set.
+	 */
+	private void unlockWrite(long acquiredAt) {
+		if (probe != null) {
+			probe.writeLockHeld(System.nanoTime() - acquiredAt);
+		}
+		lock.writeLock().unlock();
+	}
+
+	/**
+	 * Detaches a node from its current position in the linked list.
+	 *
+	 * @param node the node to detach
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void detach(Node node) {
+		if (node.prev != null) {
+			node.prev.next = node.next;
+		}
+
+		if (node.next == null) {
+			// Node was tail
+			tail = node.prev;
+		} else {
+			node.next.prev = node.prev;
+		}
+
+		node.prev = null;
+		node.next = null;
+	}
+
+	/**
+	 * Attaches a node to the tail of the linked list (making it the warmest).
+	 *
+	 * @param node the node to attach to tail
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void attachToTail(Node node) {
+		node.prev = tail;
+		node.next = null;
+
+		if (tail != null) {
+			tail.next = node;
+		}
+		tail = node;
+	}
+
+	/**
+	 * Moves an existing node to the tail position (making it the warmest).
+	 *
+	 * @param node the node to move to tail
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void moveToTail(Node node) {
+		if (node != tail) {
+			detach(node);
+			attachToTail(node);
+		}
+		// Already at tail, nothing to do
+	}
+
+	/**
+	 * Replays every buffered access in stamp order.
+	 * <p>
+	 * Every stamp in {@code (drainedStamp, clock]} belongs to exactly one buffered entry, because a reader only takes a
+	 * stamp after reserving a slot, so each entry is placed directly at index {@code stamp - drainedStamp - 1}.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void drainReadBuffers() {
+		long base = drainedStamp;
+		long last = clock.get();
+		if (last == base) {
+			return;
+		}
+
+		for (ReadBuffer stripe : stripes) {
+			for (long i = stripe.readCounter, end = stripe.writeCounter.get(); i < end; i++) {
+				int slot = stripe.index(i);
+				drainScratch[(int) (stripe.stamps[slot] - base - 1)] = stripe.nodes[slot];
+				stripe.nodes[slot] = null;
+			}
+			stripe.readCounter = stripe.writeCounter.get();
+		}
+
+		for (int i = 0, count = (int) (last - base); i < count; i++) {
+			moveToTail(drainScratch[i]);
+			drainScratch[i] = null;
+		}
+		drainedStamp = last;
+	}
+
+	@Override
+	public Integer put(String key, int value) {
+		long acquiredAt = lockWrite();
+		try {
+			drainReadBuffers();
+			Node existingNode = map.get(key);
+			return existingNode == null
+					? insertNewNode(key, value)
+					: updateExistingNode(existingNode, value);
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+	}
+
+	private Integer insertNewNode(String key, int value) {
+		Node newNode = new Node(key, value);
+		map.put(key, newNode);
+		attachToTail(newNode);
+		return null;
+	}
+
+	private Integer updateExistingNode(Node node, int newValue) {
+		int previousValue = node.value;
+		node.value = newValue;
+		moveToTail(node);
+		return previousValue;
+	}
+
+	@Override
+	public Integer get(String key) {
+		ReadBuffer stripe = stripes[stripeIndex()];
+		Integer value = null;
+		boolean halfFull = false;
+		lock.readLock().lock();
+		try {
+			Node node = map.get(key);
+			if (node == null) {
+				return null;
+			}
+			if (node == tail && clock.get() == drainedStamp) {
+				// Nothing buffered, so tail is exact and this access changes nothing
+				return node.value;
+			}
+
+			long index = stripe.reserve();
+			if (index >= 0) {
+				int slot = stripe.index(index);
+				stripe.nodes[slot] = node;
+				stripe.stamps[slot] = clock.incrementAndGet();
+				// node.value is safe: read lock prevents any writer from mutating it
+				value = node.value;
+				halfFull = index - stripe.readCounter >= stripe.capacity() >> 1;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		if (value == null) {
+			// Stripe is full: never drop the access, apply it through the write-locked path instead
+			return moveNodeAndGetValue(key);
+		}
+		long acquiredAt;
+		if (halfFull && (acquiredAt = tryLockWrite()) >= 0) {
+			try {
+				drainReadBuffers();
+			} finally {
+				unlockWrite(acquiredAt);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Drains all read buffers and then applies this access under the write lock, like the classic get path.
+	 */
+	private Integer moveNodeAndGetValue(String key) {
+		long acquiredAt = lockWrite();
+		try {
+			drainReadBuffers();
+			Node node = map.get(key);
+			if (node == null) {
+				return null;
+			}
+
+			moveToTail(node);
+			return node.value;
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+	}
+
+	@Override
+	public Integer remove(String key) {
+		long acquiredAt = lockWrite();
+		try {
+			drainReadBuffers();
+			Node node = map.remove(key);
+
+			if (node == null) {
+				return null;
+			}
+			detach(node);
+			return node.value;
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+	}
+
+	@Override
+	public String getWarmest() {
+		lock.readLock().lock();
+		try {
+			if (clock.get() == drainedStamp) {
+				return tail == null ?
+						null :
+						tail.key;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		long acquiredAt = lockWrite();
+		try {
+			drainReadBuffers();
+			return tail == null ?
+					null :
+					tail.key;
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+	}
+
+	/**
+	 * Walks {@code prev} from the tail; like {@link #getWarmest()}, only takes the write lock if there is something to
+	 * drain.
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		lock.readLock().lock();
+		try {
+			if (clock.get() == drainedStamp) {
+				return walkFromTail(n);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		long acquiredAt = lockWrite();
+		try {
+			drainReadBuffers();
+			return walkFromTail(n);
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+	}
+
+	/**
+	 * @implNote Must be called while holding read or write lock, with all buffers drained.
+	 */
+	private List<String> walkFromTail(int n) {
+		List<String> warmest = new ArrayList<>(Math.max(0, Math.min(n, map.size())));
+		for (Node node = tail; node != null && warmest.size() < n; node = node.prev) {
+			warmest.add(node.key);
+		}
+		return warmest;
+	}
+
+	/**
+	 * Drains and applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		long acquiredAt = lockWrite();
+		try {
+			drainReadBuffers();
+			entries.forEach((key, value) -> {
+				Node existingNode = map.get(key);
+				previousValues.put(key, existingNode == null
+						? insertNewNode(key, value)
+						: updateExistingNode(existingNode, value));
+			});
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+		return previousValues;
+	}
+
+	/**
+	 * Drains and applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		long acquiredAt = lockWrite();
+		try {
+			drainReadBuffers();
+			for (String key : keys) {
+				Node node = map.get(key);
+				if (node == null) {
+					values.put(key, null);
+				} else {
+					moveToTail(node);
+					values.put(key, node.value);
+				}
+			}
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+		return values;
+	}
+
+	/**
+	 * Drains and applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		long acquiredAt = lockWrite();
+		try {
+			drainReadBuffers();
+			for (String key : keys) {
+				Node node = map.remove(key);
+				if (node != null) {
+					detach(node);
+					previousValues.put(key, node.value);
+				} else if (!previousValues.containsKey(key)) {
+					previousValues.put(key, null);
+				}
+			}
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+		return previousValues;
+	}
+
+	@SuppressWarnings("deprecation")
+	private int stripeIndex() {
+		// Thread.getId() is stable for the thread's lifetime; Thread.threadId() only exists from Java 19
+		long id = Thread.currentThread().getId();
+		return (int) (id * 0x9E3779B97F4A7C15L >>> 32) & stripeMask;
+	}
+
+	/**
+	 * Bounded multi-producer ring buffer of pending accesses.
+	 * Producers reserve slots while holding the read lock; the single consumer drains while holding the write lock, so
+	 * the lock hand-off publishes the slot contents and {@link #readCounter} never moves while a producer is active.
+	 */
+	private static class ReadBuffer {
+		private final Node[] nodes;
+		private final long[] stamps;
+		private final AtomicLong writeCounter = new AtomicLong();
+		private long readCounter = 0;
+
+		ReadBuffer(int capacity) {
+			nodes = new Node[capacity];
+			stamps = new long[capacity];
+		}
+
+		int capacity() {
+			return nodes.length;
+		}
+
+		int index(long counter) {
+			return (int) (counter % nodes.length);
+		}
+
+		/**
+		 * @return the reserved counter position, or -1 if the buffer is full
+		 * @implNote Must be called while holding read lock.
+		 */
+		long reserve() {
+			while (true) {
+				long current = writeCounter.get();
+				if (current - readCounter >= nodes.length) {
+					return -1;
+				}
+				if (writeCounter.compareAndSet(current, current + 1)) {
+					return current;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Node class for the doubly linked list.
+	 * Stores key, value, and references to previous and next nodes.
+	 */
+	private static class Node {
+		private final String key;
+		private int value;
+		private Node prev;
+		private Node next;
+
+		Node(String key, int value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package io.github.ashr123.warmestdata.dto;
+
+import io.github.ashr123.warmestdata.cluster.ClusterClient;
+import io.github.ashr123.warmestdata.cluster.ConsistentHashRing;
+import io.github.ashr123.warmestdata.cluster.HybridLogicalClock;
+import io.github.ashr123.warmestdata.cluster.StampedKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One node of a sharded cluster of in-memory engines.
+ * <p>
+ * Every node is configured with the same {@code warmest.cluster.nodes} (base URLs) and its own
+ * {@code warmest.cluster.self}. A {@link ConsistentHashRing} over the nodes assigns every key to one owner, which keeps
+ * it in its local engine (the delegate); operations on keys owned elsewhere are forwarded to the owner over HTTP (see
+ * {@link io.github.ashr123.warmestdata.cluster.ClusterProtocol}). Batches are split by owner and sent one shard after the
+ * other, the shard holding the batch's last key last, so that key is the warmest afterwards.
+ * <p>
+ * Every access is stamped by the owner with a {@link HybridLogicalClock}, and {@link #getWarmest(int)} asks every node
+ * for its warmest keys with their stamps and merges them by stamp. On the classic engine the stamp is taken through its
+ * {@link AccessListener}, inside the critical section that makes the key the warmest, and the warmest keys are read
+ * with their stamps under one read lock, so the stamps of a node follow its recency order exactly. Other engines are
+ * stamped right after the access, so concurrent accesses of one node may be ordered differently by stamp than by the
+ * engine; the merge goes by stamp either way. Forwarded requests and their replies carry the clock, so an access that
+ * causally follows another one, through any nodes, always gets a greater stamp; accesses without a causal link are
+ * ordered by the nodes' wall clocks at microsecond resolution, which is exact on a single host and within the clock
+ * skew across hosts.
+ * <p>
+ * Wraps whichever in-memory engine is active (a bean is never injected into itself, so the delegate is the local
+ * engine).
+ */
+@Repository
+@Primary
+@Profile("cluster & !redis & !reactive")
+public class ClusterWarmestDataStructure implements WarmestDataStructureInterface, WarmestDataStructureDecorator {
+
+	/**
+	 * Stable, so keys of equal stamp keep their recency order.
+	 */
+	private static final Comparator<StampedKey> BY_STAMP_DESCENDING = Comparator.comparingLong(StampedKey::stamp).reversed();
+
+	private final WarmestDataStructureInterface delegate;
+	private final String self;
+	private final ConsistentHashRing ring;
+	private final HybridLogicalClock clock = new HybridLogicalClock();
+	private final ClusterClient client;
+	/**
+	 * Stamp of the last access of every local key. Only looked up for keys the delegate reports as present, so the stamp
+	 * of a key that is gone is merely stale; evicted and expired keys are dropped through the {@link EvictionListener}.
+	 */
+	private final Map<String, Long> stamps = new ConcurrentHashMap<>();
+	/**
+	 * The classic engine, which stamps the accesses itself, or null if the owned operations stamp after the delegate.
+	 */
+	private final WarmestDataStructure stampingEngine;
+
+	/**
+	 * @param self         this node's base URL, one of nodes
+	 * @param nodes        the base URLs of all nodes, the same on every node
+	 * @param virtualNodes points per node on the hash ring
+	 * @param timeout      connect and request timeout for forwarded requests
+	 */
+	public ClusterWarmestDataStructure(WarmestDataStructureInterface delegate,
+	                                   @Value("${warmest.cluster.self}") String self,
+	                                   @Value("${warmest.cluster.nodes}") List<String> nodes,
+	                                   @Value("${warmest.cluster.virtual-nodes:128}") int virtualNodes,
+	                                   @Value("${warmest.cluster.timeout:2s}") Duration timeout) {
+		if (!nodes.contains(self)) {
+			throw new IllegalArgumentException("warmest.cluster.nodes " + nodes + " does not contain warmest.cluster.self " + self);
+		}
+		this.delegate = delegate;
+		this.self = self;
+		this.ring = new ConsistentHashRing(nodes, virtualNodes);
+		this.client = new ClusterClient(clock, timeout);
+
+		WarmestDataStructure engine = WarmestDataStructureDecorator.unwrap(delegate, WarmestDataStructure.class);
+		stampingEngine = engine;
+		if (engine != null) {
+			engine.setAccessListener(this::stamp);
+			engine.setEvictionListener(new EvictionListener() {
+				@Override
+				public void evicted(String key, int value) {
+					stamps.remove(key);
+				}
+
+				@Override
+				public void expired(String key, int value) {
+					stamps.remove(key);
+				}
+			});
+		}
+	}
+
+	@Override
+	public WarmestDataStructureInterface getDelegate() {
+		return delegate;
+	}
+
+	public HybridLogicalClock getClock() {
+		return clock;
+	}
+
+	private boolean isSelf(String node) {
+		return self.equals(node);
+	}
+
+	/**
+	 * Stamps an access of a local key; the max keeps the later of two stamps of concurrent gets of the warmest key.
+	 */
+	private void stamp(String key) {
+		stamps.merge(key, clock.now(), Math::max);
+	}
+
+	/**
+	 * Stamps an access the delegate applied, unless the engine already did so under its lock.
+	 */
+	private void stampAfter(String key) {
+		if (stampingEngine == null) {
+			stamp(key);
+		}
+	}
+
+	private StampedKey stamped(String key) {
+		return new StampedKey(key, stamps.getOrDefault(key, 0L));
+	}
+
+	// ==================== Operations on keys this node owns, stamped here ====================
+
+	/**
+	 * @param ttlMillis the time to live, 0 for none
+	 */
+	public Integer putOwned(String key, int value, long ttlMillis) {
+		Integer previousValue = ttlMillis == 0 ?
+				delegate.put(key, value) :
+				delegate.put(key, value, ttlMillis);
+		stampAfter(key);
+		return previousValue;
+	}
+
+	public Integer getOwned(String key) {
+		Integer value = delegate.get(key);
+		if (value != null) {
+			stampAfter(key);
+		}
+		return value;
+	}
+
+	public Integer removeOwned(String key) {
+		// Before the delegate, so a concurrent put that lands after the remove keeps its stamp
+		stamps.remove(key);
+		return delegate.remove(key);
+	}
+
+	public Map<String, Integer> putAllOwned(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = delegate.putAll(entries);
+		for (String key : entries.keySet()) {
+			stampAfter(key);
+		}
+		return previousValues;
+	}
+
+	public Map<String, Integer> getAllOwned(Collection<String> keys) {
+		Map<String, Integer> values = delegate.getAll(keys);
+		for (String key : keys) {
+			if (values.get(key) != null) {
+				stampAfter(key);
+			}
+		}
+		return values;
+	}
+
+	public Map<String, Integer> removeAllOwned(Collection<String> keys) {
+		for (String key : keys) {
+			stamps.remove(key);
+		}
+		return delegate.removeAll(keys);
+	}
+
+	/**
+	 * @return this node's n warmest keys with their stamps, ordered by stamp, greatest first; keys restored from a
+	 * snapshot and not accessed since have stamp 0 and keep their recency order
+	 */
+	public List<StampedKey> getWarmestOwned(int n) {
+		List<StampedKey> warmest;
+		if (stampingEngine == null) {
+			List<String> keys = delegate.getWarmest(n);
+			warmest = new ArrayList<>(keys.size());
+			for (String key : keys) {
+				warmest.add(stamped(key));
+			}
+		} else {
+			warmest = new ArrayList<>(stampingEngine.getWarmest(n, this::stamped));
+		}
+		warmest.sort(BY_STAMP_DESCENDING);
+		return warmest;
+	}
+
+	// ==================== WarmestDataStructureInterface: routed to the owners ====================
+
+	@Override
+	public Integer put(String key, int value) {
+		String owner = ring.ownerOf(key);
+		return isSelf(owner) ?
+				putOwned(key, value, 0) :
+				client.put(owner, Map.of(key, value), 0).get(0);
+	}
+
+	@Override
+	public boolean supportsTimeToLive() {
+		return delegate.supportsTimeToLive();
+	}
+
+	@Override
+	public Integer put(String key, int value, long ttlMillis) {
+		if (ttlMillis <= 0) {
+			throw new IllegalArgumentException("Time to live must be positive");
+		}
+		String owner = ring.ownerOf(key);
+		return isSelf(owner) ?
+				putOwned(key, value, ttlMillis) :
+				client.put(owner, Map.of(key, value), ttlMillis).get(0);
+	}
+
+	@Override
+	public Integer get(String key) {
+		String owner = ring.ownerOf(key);
+		return isSelf(owner) ?
+				getOwned(key) :
+				client.get(owner, List.of(key)).get(0);
+	}
+
+	@Override
+	public Integer remove(String key) {
+		String owner = ring.ownerOf(key);
+		return isSelf(owner) ?
+				removeOwned(key) :
+				client.remove(owner, List.of(key)).get(0);
+	}
+
+	@Override
+	public String getWarmest() {
+		List<String> warmest = getWarmest(1);
+		return warmest.isEmpty() ?
+				null :
+				warmest.get(0);
+	}
+
+	/**
+	 * Asks all other nodes in parallel, then merges every node's n warmest keys by stamp. Fails if any node does not
+	 * answer, rather than return an answer that might be wrong.
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		if (n <= 0) {
+			return List.of();
+		}
+
+		List<CompletableFuture<List<StampedKey>>> replies = new ArrayList<>();
+		for (String node : ring.nodes()) {
+			if (!isSelf(node)) {
+				replies.add(client.getWarmest(node, n));
+			}
+		}
+		List<StampedKey> candidates = new ArrayList<>(getWarmestOwned(n));
+		for (CompletableFuture<List<StampedKey>> reply : replies) {
+			candidates.addAll(ClusterClient.join(reply));
+		}
+		candidates.sort(BY_STAMP_DESCENDING);
+
+		List<String> warmest = new ArrayList<>(Math.min(n, candidates.size()));
+		for (int i = 0; i < candidates.size() && i < n; i++) {
+			warmest.add(candidates.get(i).key());
+		}
+		return warmest;
+	}
+
+	/**
+	 * Sends one sub-batch per owner, in {@link ConsistentHashRing#partition} order.
+	 */
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		for (String key : entries.keySet()) {
+			previousValues.put(key, null);  // Keeps the batch order
+		}
+		for (Map.Entry<String, List<String>> shard : ring.partition(entries.keySet()).entrySet()) {
+			Map<String, Integer> shardEntries = new LinkedHashMap<>();
+			for (String key : shard.getValue()) {
+				shardEntries.put(key, entries.get(key));
+			}
+			if (isSelf(shard.getKey())) {
+				previousValues.putAll(putAllOwned(shardEntries));
+			} else {
+				putReplies(previousValues, shard.getValue(), client.put(shard.getKey(), shardEntries, 0));
+			}
+		}
+		return previousValues;
+	}
+
+	/**
+	 * Sends one sub-batch per owner, in {@link ConsistentHashRing#partition} order. Only keys that are found are
+	 * accessed, so if the last one found was not in the last shard that found any, it is read once more to make it the
+	 * warmest.
+	 */
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		for (String key : keys) {
+			values.put(key, null);
+		}
+		String lastShardWithHit = null;
+		for (Map.Entry<String, List<String>> shard : ring.partition(keys).entrySet()) {
+			List<String> shardKeys = shard.getValue();
+			Map<String, Integer> shardValues = new LinkedHashMap<>();
+			if (isSelf(shard.getKey())) {
+				shardValues.putAll(getAllOwned(shardKeys));
+			} else {
+				putReplies(shardValues, shardKeys, client.get(shard.getKey(), shardKeys));
+			}
+			values.putAll(shardValues);
+			if (shardValues.values().stream().anyMatch(Objects::nonNull)) {
+				lastShardWithHit = shard.getKey();
+			}
+		}
+
+		String lastHit = null;
+		for (String key : keys) {
+			if (values.get(key) != null) {
+				lastHit = key;
+			}
+		}
+		if (lastHit != null && !ring.ownerOf(lastHit).equals(lastShardWithHit)) {
+			get(lastHit);
+		}
+		return values;
+	}
+
+	/**
+	 * Sends one sub-batch per owner, in {@link ConsistentHashRing#partition} order.
+	 */
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		for (String key : keys) {
+			previousValues.put(key, null);
+		}
+		for (Map.Entry<String, List<String>> shard : ring.partition(keys).entrySet()) {
+			if (isSelf(shard.getKey())) {
+				previousValues.putAll(removeAllOwned(shard.getValue()));
+			} else {
+				putReplies(previousValues, shard.getValue(), client.remove(shard.getKey(), shard.getValue()));
+			}
+		}
+		return previousValues;
+	}
+
+	/**
+	 * @param values the owner's reply, one value per key
+	 */
+	private static void putReplies(Map<String, Integer> results, List<String> keys, List<Integer> values) {
+		for (int i = 0; i < keys.size(); i++) {
+			results.put(keys.get(i), values.get(i));
+		}
+	}
+}
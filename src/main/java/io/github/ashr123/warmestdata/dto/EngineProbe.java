@@ -0,0 +1,54 @@
+package io.github.ashr123.warmestdata.dto;
+
+/**
+ * Receives internal events of an engine that WarmestDataStructureInterface does not expose, for instrumentation.
+ * <p>
+ * Called on the hot path, often while a lock is held, so implementations must be cheap and must not block.
+ * Engines skip all probe work, including taking timestamps, while no probe is set.
+ */
+public interface EngineProbe {
+	/**
+	 * @param status how the read-locked part of a get ended, e.g. {@code NOT_FOUND}, {@code AT_TAIL} or
+	 *               {@code NEEDS_MOVE} for {@link WarmestDataStructure}
+	 */
+	default void getOutcome(String status) {
+	}
+
+	default void writeLockWaited(long nanos) {
+	}
+
+	default void writeLockHeld(long nanos) {
+	}
+
+	/**
+	 * @param script the script's file name, e.g. {@code put.lua}
+	 * @param failed whether the execution threw
+	 */
+	default void scriptExecuted(String script, long nanos, boolean failed) {
+	}
+
+	/**
+	 * @param limit the capacity limit that forced the eviction, {@code entries} or {@code bytes}
+	 */
+	default void evicted(String limit) {
+	}
+
+	/**
+	 * Entries were removed because their time to live elapsed.
+	 */
+	default void expired(long count) {
+	}
+
+	/**
+	 * @param tier where a get found its key, {@code heap} or {@code disk}, or {@code miss}
+	 * @param nanos the get's latency
+	 */
+	default void tierGet(String tier, long nanos) {
+	}
+
+	/**
+	 * @param operations how many single-key operations of concurrent callers one script call ran
+	 */
+	default void coalesced(int operations) {
+	}
+}
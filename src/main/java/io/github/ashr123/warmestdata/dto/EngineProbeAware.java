@@ -0,0 +1,11 @@
+package io.github.ashr123.warmestdata.dto;
+
+/**
+ * Implemented by engines that can report internal events to an {@link EngineProbe}.
+ */
+public interface EngineProbeAware {
+	/**
+	 * Must be called before the engine is used concurrently, e.g. while the bean is being initialized.
+	 */
+	void setProbe(EngineProbe probe);
+}
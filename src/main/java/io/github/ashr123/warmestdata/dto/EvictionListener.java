@@ -0,0 +1,16 @@
+package io.github.ashr123.warmestdata.dto;
+
+/**
+ * Notified of every entry an engine drops on its own: to stay within its capacity limits, or because its time to live
+ * elapsed.
+ * <p>
+ * Called while the engine's write lock is held, so implementations must be cheap, must not block and must not call
+ * back into the engine.
+ */
+@FunctionalInterface
+public interface EvictionListener {
+	void evicted(String key, int value);
+
+	default void expired(String key, int value) {
+	}
+}
@@ -0,0 +1,159 @@
+package io.github.ashr123.warmestdata.dto;
+
+import io.github.ashr123.warmestdata.metrics.ReplicationMetrics;
+import io.github.ashr123.warmestdata.replication.ReplicationFollower;
+import io.github.ashr123.warmestdata.replication.ReplicationProtocol;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replica of a {@link io.github.ashr123.warmestdata.replication.ReplicationLeader}.
+ * <p>
+ * The local in-memory engine (the delegate) is kept in sync by a {@link ReplicationFollower}. Reads are served from it:
+ * {@link #get(String)} peeks at the value without changing the local recency order and queues the access for the
+ * leader, whose resulting record moves the key here once it is streamed back, so every replica ends up with the
+ * leader's order. Writes are forwarded to the leader and return once the delegate includes them, so a client reads its
+ * own writes from the same follower; other followers see them within their replication lag.
+ * <p>
+ * Selected by activating the {@code follower} profile and setting {@code warmest.replication.leader} to the leader's
+ * {@code host:port}; as the {@link Primary} bean it wraps the in-memory engine (a bean is never injected into itself, so
+ * the delegate is the local engine), which must not be capacity-bounded, or it drops entries the leader keeps.
+ */
+@Repository
+@Primary
+@Profile("follower & !redis & !reactive")
+public class FollowerWarmestDataStructure implements WarmestDataStructureInterface, WarmestDataStructureDecorator, DisposableBean {
+
+	private final WarmestDataStructureInterface delegate;
+	private final WarmestDataStructure replica;
+	private final ReplicationFollower follower;
+
+	/**
+	 * @param leader        the leader's {@code warmest.replication.port} address, {@code host:port}
+	 * @param batchInterval how often queued accesses are sent to the leader
+	 * @param timeout       connect timeout, and how long a write waits for the leader and then for the replica
+	 * @param retryInterval pause before reconnecting after the connection broke
+	 */
+	public FollowerWarmestDataStructure(WarmestDataStructureInterface delegate,
+	                                    ObjectProvider<MeterRegistry> meterRegistry,
+	                                    @Value("${warmest.replication.leader}") String leader,
+	                                    @Value("${warmest.replication.batch-interval:1ms}") Duration batchInterval,
+	                                    @Value("${warmest.replication.timeout:2s}") Duration timeout,
+	                                    @Value("${warmest.replication.retry-interval:1s}") Duration retryInterval) {
+		this.delegate = delegate;
+		replica = WarmestDataStructureDecorator.unwrap(delegate, WarmestDataStructure.class);
+		if (replica == null) {
+			throw new IllegalStateException("The follower profile requires the in-memory engine, but the active engine is " + delegate.getClass().getSimpleName());
+		}
+		follower = new ReplicationFollower(replica, leader, batchInterval, timeout, retryInterval);
+		meterRegistry.ifAvailable(registry -> ReplicationMetrics.bindFollower(registry, follower));
+	}
+
+	@Override
+	public WarmestDataStructureInterface getDelegate() {
+		return delegate;
+	}
+
+	public ReplicationFollower getFollower() {
+		return follower;
+	}
+
+	// ==================== Reads: served by the replica ====================
+
+	@Override
+	public Integer get(String key) {
+		Integer value = replica.peek(key);
+		if (value != null) {
+			follower.recordAccess(key);
+		}
+		return value;
+	}
+
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		for (String key : keys) {
+			values.put(key, get(key));
+		}
+		return values;
+	}
+
+	@Override
+	public String getWarmest() {
+		return delegate.getWarmest();
+	}
+
+	@Override
+	public List<String> getWarmest(int n) {
+		return delegate.getWarmest(n);
+	}
+
+	// ==================== Writes: forwarded to the leader ====================
+
+	@Override
+	public Integer put(String key, int value) {
+		return follower.write(ReplicationProtocol.PUT, List.of(key), List.of(value), 0)
+				.previousValues()
+				.get(0);
+	}
+
+	@Override
+	public boolean supportsTimeToLive() {
+		return delegate.supportsTimeToLive();
+	}
+
+	@Override
+	public Integer put(String key, int value, long ttlMillis) {
+		if (ttlMillis <= 0) {
+			throw new IllegalArgumentException("Time to live must be positive");
+		}
+		return follower.write(ReplicationProtocol.PUT, List.of(key), List.of(value), ttlMillis)
+				.previousValues()
+				.get(0);
+	}
+
+	@Override
+	public Integer remove(String key) {
+		return follower.write(ReplicationProtocol.REMOVE, List.of(key), List.of(), 0)
+				.previousValues()
+				.get(0);
+	}
+
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		List<String> keys = new ArrayList<>(entries.keySet());
+		return toMap(keys, follower.write(ReplicationProtocol.PUT, keys, new ArrayList<>(entries.values()), 0));
+	}
+
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		List<String> keyList = new ArrayList<>(keys);
+		return toMap(keyList, follower.write(ReplicationProtocol.REMOVE, keyList, List.of(), 0));
+	}
+
+	private static Map<String, Integer> toMap(List<String> keys, ReplicationFollower.WriteResult result) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		for (int i = 0; i < keys.size(); i++) {
+			previousValues.put(keys.get(i), result.previousValues().get(i));
+		}
+		return previousValues;
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		follower.close();
+	}
+}
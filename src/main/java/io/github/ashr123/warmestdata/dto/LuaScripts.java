@@ -0,0 +1,49 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the Lua scripts of the Redis engines from the classpath, replacing every {@code -- #include <file>} line with
+ * the content of {@code scripts/lib/<file>}, so a helper shared by several scripts is written once.
+ * <p>
+ * Redis still gets one self-contained script, cached by its SHA1 as before. An included helper refers to the locals the
+ * script declared above the include line, such as {@code expiryKey}.
+ */
+public final class LuaScripts {
+
+	private static final String INCLUDE = "-- #include ";
+	private static final String LIBRARY = "scripts/lib/";
+
+	private LuaScripts() {
+	}
+
+	public static <T> RedisScript<T> of(String path, Class<T> resultType) {
+		return RedisScript.of(source(path), resultType);
+	}
+
+	/**
+	 * @return the script's source with every include expanded, recursively
+	 */
+	public static String source(String path) {
+		StringBuilder source = new StringBuilder();
+		read(path).lines().forEach(line -> source.append(line.startsWith(INCLUDE) ?
+						source(LIBRARY + line.substring(INCLUDE.length()).strip()) :
+						line)
+				.append('\n'));
+		return source.toString();
+	}
+
+	private static String read(String path) {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read " + path, e);
+		}
+	}
+}
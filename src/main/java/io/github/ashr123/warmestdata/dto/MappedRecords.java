@@ -0,0 +1,177 @@
+package io.github.ashr123.warmestdata.dto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of fixed-size records, memory-mapped with {@link FileChannel#map} in chunks of up to 1 GiB, since a single
+ * mapping is limited to 2 GiB. A chunk always holds whole records, so no record straddles two mappings.
+ * <p>
+ * A mapping is otherwise only released when its buffer is garbage collected, so growing by doubling would keep every
+ * earlier size of the file mapped, and a reopened file would be mapped twice, until a GC that may never come. Growing
+ * keeps the full chunks and unmaps the partial one it replaces, and closing unmaps them all, through
+ * {@code sun.misc.Unsafe.invokeCleaner}, the only way to unmap on Java 17. No access may run concurrently with either, and no
+ * record can be accessed after closing.
+ * <p>
+ * Not thread-safe; the owner guards it with its lock.
+ */
+final class MappedRecords implements Closeable {
+
+	private static final int CHUNK_BYTES = 1 << 30;
+	private static final MappedByteBuffer[] NO_CHUNKS = {};
+	/**
+	 * {@code Unsafe.invokeCleaner(ByteBuffer)}, looked up reflectively, as {@code sun.misc} is not meant to be compiled
+	 * against; null if the runtime does not give access to it, the mappings are then left to the garbage collector.
+	 */
+	private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+	private final FileChannel channel;
+	private final int recordSize;
+	private final int recordsPerChunk;
+	private MappedByteBuffer[] chunks;
+	private int capacity;
+
+	/**
+	 * Opens or creates the file; a longer existing file keeps its capacity.
+	 *
+	 * @param minCapacity the capacity, in records, to extend a shorter or new file to
+	 */
+	MappedRecords(Path path, int recordSize, int minCapacity) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.recordSize = recordSize;
+		this.recordsPerChunk = CHUNK_BYTES / recordSize;
+		map((int) Math.min(Integer.MAX_VALUE, Math.max(minCapacity, channel.size() / recordSize)));
+	}
+
+	private static MethodHandle invokeCleaner() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return MethodHandles.lookup()
+					.findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+					.bindTo(field.get(null));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static void unmap(MappedByteBuffer chunk) {
+		if (INVOKE_CLEANER == null) {
+			return;
+		}
+		try {
+			INVOKE_CLEANER.invokeExact((ByteBuffer) chunk);
+		} catch (Throwable e) {
+			throw new IllegalStateException("Failed to unmap a mapped file", e);
+		}
+	}
+
+	/**
+	 * Maps the first capacity records, extending the file as needed; records past the old end of the file read as
+	 * zeros. The chunks that were already mapped whole are kept, and the partial one a bigger chunk replaces is unmapped;
+	 * both mappings share the page cache, so nothing written through the old one is lost.
+	 */
+	private void map(int capacity) throws IOException {
+		MappedByteBuffer[] oldChunks = chunks == null ?
+				NO_CHUNKS :
+				chunks;
+		int chunkCount = (int) (((long) capacity + recordsPerChunk - 1) / recordsPerChunk);
+		MappedByteBuffer[] newChunks = new MappedByteBuffer[chunkCount];
+		for (int i = 0; i < chunkCount; i++) {
+			long first = (long) i * recordsPerChunk;
+			long records = Math.min(recordsPerChunk, capacity - first);
+			newChunks[i] = i < oldChunks.length && oldChunks[i].capacity() == records * recordSize ?
+					oldChunks[i] :
+					channel.map(FileChannel.MapMode.READ_WRITE, first * recordSize, records * recordSize);
+		}
+		this.chunks = newChunks;
+		this.capacity = capacity;
+		for (int i = 0; i < oldChunks.length; i++) {
+			if (i >= newChunks.length || newChunks[i] != oldChunks[i]) {
+				unmap(oldChunks[i]);
+			}
+		}
+	}
+
+	int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Remaps the file with room for newCapacity records; the existing records stay where they are.
+	 */
+	void grow(int newCapacity) {
+		try {
+			map(newCapacity);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to grow a mapped file to " + newCapacity + " records", e);
+		}
+	}
+
+	private MappedByteBuffer chunk(int record) {
+		return chunks[record / recordsPerChunk];
+	}
+
+	private int position(int record, int offset) {
+		return (record % recordsPerChunk) * recordSize + offset;
+	}
+
+	int getInt(int record, int offset) {
+		return chunk(record).getInt(position(record, offset));
+	}
+
+	void putInt(int record, int offset, int value) {
+		chunk(record).putInt(position(record, offset), value);
+	}
+
+	long getLong(int record, int offset) {
+		return chunk(record).getLong(position(record, offset));
+	}
+
+	void putLong(int record, int offset, long value) {
+		chunk(record).putLong(position(record, offset), value);
+	}
+
+	char getChar(int record, int offset) {
+		return chunk(record).getChar(position(record, offset));
+	}
+
+	void putChar(int record, int offset, char value) {
+		chunk(record).putChar(position(record, offset), value);
+	}
+
+	/**
+	 * Writes the dirty pages back to the file, so they survive an operating system crash too.
+	 */
+	void force() {
+		for (MappedByteBuffer chunk : chunks) {
+			chunk.force();
+		}
+	}
+
+	/**
+	 * Unmaps the file and closes it; any access afterwards fails with an {@link IndexOutOfBoundsException} instead of
+	 * touching the unmapped memory.
+	 */
+	@Override
+	public void close() throws IOException {
+		MappedByteBuffer[] oldChunks = chunks;
+		chunks = NO_CHUNKS;
+		capacity = 0;
+		for (MappedByteBuffer chunk : oldChunks) {
+			unmap(chunk);
+		}
+		channel.close();
+	}
+}
@@ -0,0 +1,765 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe implementation of WarmestDataStructureInterface whose entries live in memory-mapped files, so a restarted
+ * process reopens them and serves right away instead of loading a snapshot.
+ * <p>
+ * The layout is that of {@link PrimitiveWarmestDataStructure}, with every array in a file of a directory
+ * ({@code warmest.mapped.path}), mapped with {@link MappedRecords}:
+ * <ul>
+ *   <li>{@code slots.dat} – one fixed-size record per slot: access stamp, hash, value, the recency links
+ *   {@code prev} / {@code next} as slot indices, and the key inline as UTF-16, up to {@code warmest.mapped.max-key-length}
+ *   chars</li>
+ *   <li>{@code table.dat} – the open-addressing table, slot index + 1 per bucket, so a fresh (zeroed) region is empty</li>
+ *   <li>{@code header.dat} – the tail, free list head, slot high-water mark, entry count and access clock, plus whether
+ *   the files were closed cleanly</li>
+ * </ul>
+ * The header is only written by {@link #close()}, which forces all files to disk first; while open, it is marked dirty.
+ * After a clean close, opening costs O(1) and the pages are faulted in by the first requests that touch them. After a
+ * crash, the header's tail and counters are stale and an operation may have been cut off between two stores, so opening
+ * scans the slots instead, O(n) over the mapped files with no parsing: every put and access stamps its slot with the
+ * next value of a clock, so the live slot with the highest stamp is the tail, and if walking {@code prev} from it does
+ * not visit every live slot in descending stamp order, the links are rebuilt by sorting the stamps. The free list and
+ * the table are always rebuilt. A process crash loses nothing that completed, as the kernel still holds the written
+ * pages; an operating system crash loses what was not written back yet.
+ * <p>
+ * Selected by activating the {@code mapped} profile and setting {@code warmest.mapped.path}.
+ */
+@Repository
+@Profile("mapped")
+public class MappedWarmestDataStructure implements WarmestDataStructureInterface, DisposableBean, Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(MappedWarmestDataStructure.class);
+
+	private static final int NIL = -1;
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private static final int MAGIC = 0x574D4150;  // "WMAP"
+	private static final int VERSION = 1;
+	private static final int CLEAN = 1;
+	private static final int DIRTY = 2;
+
+	// Header fields, all in record 0 of header.dat
+	private static final int HEADER_BYTES = 64;
+	private static final int HEADER_MAGIC = 0;
+	private static final int HEADER_VERSION = 4;
+	private static final int HEADER_STATE = 8;
+	private static final int HEADER_MAX_KEY_LENGTH = 12;
+	private static final int HEADER_TAIL = 16;
+	private static final int HEADER_FREE_HEAD = 20;
+	private static final int HEADER_HIGH_WATER = 24;
+	private static final int HEADER_COUNT = 28;
+	private static final int HEADER_CLOCK = 32;
+
+	// Slot fields
+	private static final int STAMP = 0;
+	private static final int HASH = 8;
+	private static final int VALUE = 12;
+	private static final int PREV = 16;
+	private static final int NEXT = 20;
+	/**
+	 * The key's length + 1, 0 for a free slot, so a fresh (zeroed) slot is free; written last on insert and first on
+	 * remove, so it decides whether a slot is live after a crash.
+	 */
+	private static final int KEY_LENGTH = 24;
+	private static final int KEY = 28;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Path directory;
+	private final int maxKeyLength;
+	private final MappedRecords header;
+	private final MappedRecords slots;
+	private final MappedRecords table;
+	private int tableMask;
+
+	private int highWater;   // Slots below this index have been handed out at least once
+	private int freeHead;    // Free list of recycled slots, linked through NEXT
+	private int tail;        // Newest (warmest)
+	private int count;
+	private long clock;      // Last access stamp handed out
+	private boolean closed = false;
+
+	/**
+	 * Opens the files in directory, creating them if there are none.
+	 *
+	 * @param maxKeyLength    the longest key, in chars; fixed when the files are created
+	 * @param initialCapacity number of entries the files can hold before they first grow
+	 */
+	public MappedWarmestDataStructure(@Value("${warmest.mapped.path}") Path directory,
+	                                  @Value("${warmest.mapped.max-key-length:64}") int maxKeyLength,
+	                                  @Value("${warmest.mapped.initial-capacity:1024}") int initialCapacity) throws IOException {
+		if (maxKeyLength < 1) {
+			throw new IllegalArgumentException("maxKeyLength must be positive: " + maxKeyLength);
+		}
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("initialCapacity must be positive: " + initialCapacity);
+		}
+		long start = System.nanoTime();
+		this.directory = directory;
+		this.maxKeyLength = maxKeyLength;
+		Files.createDirectories(directory);
+		Path headerPath = directory.resolve("header.dat");
+		boolean exists = Files.exists(headerPath);
+		header = new MappedRecords(headerPath, HEADER_BYTES, 1);
+		if (exists) {
+			if (header.getInt(0, HEADER_MAGIC) != MAGIC || header.getInt(0, HEADER_VERSION) != VERSION) {
+				throw new IllegalStateException(directory + " does not hold version " + VERSION + " mapped warmest data");
+			}
+			int storedMaxKeyLength = header.getInt(0, HEADER_MAX_KEY_LENGTH);
+			if (storedMaxKeyLength != maxKeyLength) {
+				throw new IllegalStateException(directory + " was created with a max key length of " + storedMaxKeyLength + ", not " + maxKeyLength);
+			}
+		} else {
+			header.putInt(0, HEADER_MAGIC, MAGIC);
+			header.putInt(0, HEADER_VERSION, VERSION);
+			header.putInt(0, HEADER_MAX_KEY_LENGTH, maxKeyLength);
+		}
+		int recordSize = (KEY + 2 * maxKeyLength + 7) & ~7;
+		slots = new MappedRecords(directory.resolve("slots.dat"), recordSize, initialCapacity);
+		// Sized by rebuildTable(), so an existing table keeps the capacity its buckets were placed with
+		table = new MappedRecords(directory.resolve("table.dat"), Integer.BYTES, 1);
+		tableMask = table.capacity() - 1;
+
+		String how;
+		if (exists && header.getInt(0, HEADER_STATE) == CLEAN) {
+			tail = header.getInt(0, HEADER_TAIL);
+			freeHead = header.getInt(0, HEADER_FREE_HEAD);
+			highWater = header.getInt(0, HEADER_HIGH_WATER);
+			count = header.getInt(0, HEADER_COUNT);
+			clock = header.getLong(0, HEADER_CLOCK);
+			if (table.capacity() < bucketsFor(slots.capacity())) {
+				// The initial capacity was raised since the files were created
+				rebuildTable();
+			}
+			how = "clean";
+		} else {
+			recover();
+			how = exists ?
+					"recovered" :
+					"created";
+		}
+		// From now on the header's counters are stale until close() writes them
+		header.putInt(0, HEADER_STATE, DIRTY);
+		header.force();
+		log.info("Opened {} entries in {} in {} ms ({})",
+				count, directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), how);
+	}
+
+	private static int bucketsFor(int slotCapacity) {
+		return Integer.highestOneBit(Math.max(2, (int) Math.ceil(slotCapacity / LOAD_FACTOR)) - 1) << 1;
+	}
+
+	private static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @param value {@link #NO_VALUE} or an int
+	 */
+	private static Integer box(long value) {
+		return value == NO_VALUE ?
+				null :
+				(int) value;
+	}
+
+	// ==================== Slot fields ====================
+
+	private boolean isLive(int slot) {
+		return slots.getInt(slot, KEY_LENGTH) != 0;
+	}
+
+	private long stamp(int slot) {
+		return slots.getLong(slot, STAMP);
+	}
+
+	private int prev(int slot) {
+		return slots.getInt(slot, PREV);
+	}
+
+	private int next(int slot) {
+		return slots.getInt(slot, NEXT);
+	}
+
+	private void setPrev(int slot, int prev) {
+		slots.putInt(slot, PREV, prev);
+	}
+
+	private void setNext(int slot, int next) {
+		slots.putInt(slot, NEXT, next);
+	}
+
+	private int value(int slot) {
+		return slots.getInt(slot, VALUE);
+	}
+
+	private boolean keyEquals(int slot, String key) {
+		if (slots.getInt(slot, KEY_LENGTH) != key.length() + 1) {
+			return false;
+		}
+		for (int i = 0; i < key.length(); i++) {
+			if (slots.getChar(slot, KEY + 2 * i) != key.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String key(int slot) {
+		char[] chars = new char[slots.getInt(slot, KEY_LENGTH) - 1];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = slots.getChar(slot, KEY + 2 * i);
+		}
+		return new String(chars);
+	}
+
+	private void checkKey(String key) {
+		if (key.length() > maxKeyLength) {
+			throw new IllegalArgumentException("Key longer than " + maxKeyLength + " chars: " + key.length());
+		}
+	}
+
+	// ==================== Recovery ====================
+
+	/**
+	 * Rebuilds the in-memory counters, the links if needed, the free list and the table from the live slots.
+	 *
+	 * @implNote Called from the constructor only.
+	 */
+	private void recover() {
+		count = 0;
+		highWater = 0;
+		tail = NIL;
+		clock = 0;
+		for (int slot = 0; slot < slots.capacity(); slot++) {
+			if (isLive(slot)) {
+				count++;
+				highWater = slot + 1;
+				long stamp = stamp(slot);
+				if (stamp > clock) {
+					clock = stamp;
+					tail = slot;
+				}
+			}
+		}
+		if (!linksValid()) {
+			relink();
+		}
+		freeHead = NIL;
+		for (int slot = highWater - 1; slot >= 0; slot--) {
+			if (!isLive(slot)) {
+				setNext(slot, freeHead);
+				freeHead = slot;
+			}
+		}
+		rebuildTable();
+	}
+
+	/**
+	 * @return whether walking {@code prev} from the tail visits every live slot once, in descending stamp order, with
+	 * matching {@code next} links
+	 */
+	private boolean linksValid() {
+		int seen = 0;
+		int after = NIL;
+		long afterStamp = Long.MAX_VALUE;
+		for (int slot = tail; slot != NIL; slot = prev(slot)) {
+			if (slot < 0 || slot >= highWater || seen == count || !isLive(slot) || next(slot) != after) {
+				return false;
+			}
+			long stamp = stamp(slot);
+			if (stamp >= afterStamp) {
+				return false;
+			}
+			seen++;
+			after = slot;
+			afterStamp = stamp;
+		}
+		return seen == count;
+	}
+
+	/**
+	 * Links the live slots in stamp order; stamps are unique, as the clock only moves forward.
+	 */
+	private void relink() {
+		long[] stamps = new long[count];
+		int i = 0;
+		for (int slot = 0; slot < highWater; slot++) {
+			if (isLive(slot)) {
+				stamps[i++] = stamp(slot);
+			}
+		}
+		Arrays.sort(stamps);
+		int[] order = new int[count];
+		for (int slot = 0; slot < highWater; slot++) {
+			if (isLive(slot)) {
+				order[Arrays.binarySearch(stamps, stamp(slot))] = slot;
+			}
+		}
+		int before = NIL;
+		for (int slot : order) {
+			setPrev(slot, before);
+			setNext(slot, NIL);
+			if (before != NIL) {
+				setNext(before, slot);
+			}
+			before = slot;
+		}
+		tail = before;
+		log.warn("Rebuilt the recency order of {} entries in {} from their access stamps", count, directory);
+	}
+
+	// ==================== Table ====================
+
+	/**
+	 * Sizes the table for the slot capacity, clears it and inserts every live slot.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void rebuildTable() {
+		int buckets = bucketsFor(slots.capacity());
+		if (table.capacity() < buckets) {
+			table.grow(buckets);
+		}
+		tableMask = table.capacity() - 1;
+		for (int bucket = 0; bucket < table.capacity(); bucket++) {
+			table.putInt(bucket, 0, 0);
+		}
+		for (int slot = 0; slot < highWater; slot++) {
+			if (isLive(slot)) {
+				insertBucket(slot);
+			}
+		}
+	}
+
+	/**
+	 * @return the slot the bucket references, or {@link #NIL} if it is empty
+	 */
+	private int bucketSlot(int bucket) {
+		return table.getInt(bucket, 0) - 1;
+	}
+
+	/**
+	 * @return the slot holding key, or {@link #NIL}
+	 * @implNote Must be called while holding read or write lock.
+	 */
+	private int findSlot(String key, int hash) {
+		for (int bucket = hash & tableMask; ; bucket = (bucket + 1) & tableMask) {
+			int slot = bucketSlot(bucket);
+			if (slot == NIL) {
+				return NIL;
+			}
+			if (slots.getInt(slot, HASH) == hash && keyEquals(slot, key)) {
+				return slot;
+			}
+		}
+	}
+
+	/**
+	 * @return the bucket referencing slot
+	 * @implNote Must be called while holding write lock.
+	 */
+	private int findBucket(int slot) {
+		for (int bucket = slots.getInt(slot, HASH) & tableMask; ; bucket = (bucket + 1) & tableMask) {
+			if (bucketSlot(bucket) == slot) {
+				return bucket;
+			}
+		}
+	}
+
+	/**
+	 * Clears a bucket and shifts later members of its probe run back, so lookups never need tombstones.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void deleteBucket(int bucket) {
+		int hole = bucket;
+		for (int current = (hole + 1) & tableMask; bucketSlot(current) != NIL; current = (current + 1) & tableMask) {
+			int home = slots.getInt(bucketSlot(current), HASH) & tableMask;
+			// Move the entry into the hole unless its home bucket lies cyclically in (hole, current]
+			if (((current - home) & tableMask) >= ((current - hole) & tableMask)) {
+				table.putInt(hole, 0, table.getInt(current, 0));
+				hole = current;
+			}
+		}
+		table.putInt(hole, 0, 0);
+	}
+
+	private void insertBucket(int slot) {
+		int bucket = slots.getInt(slot, HASH) & tableMask;
+		while (bucketSlot(bucket) != NIL) {
+			bucket = (bucket + 1) & tableMask;
+		}
+		table.putInt(bucket, 0, slot + 1);
+	}
+
+	// ==================== Slots and links ====================
+
+	/**
+	 * Doubles the slot file and rebuilds the table.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void grow() {
+		int newCapacity = slots.capacity() << 1;
+		if (newCapacity < 0) {
+			throw new IllegalStateException("Capacity exceeded");
+		}
+		slots.grow(newCapacity);
+		rebuildTable();
+	}
+
+	/**
+	 * @implNote Must be called while holding write lock.
+	 */
+	private int allocateSlot() {
+		if (freeHead != NIL) {
+			int slot = freeHead;
+			freeHead = next(slot);
+			return slot;
+		}
+		if (highWater == slots.capacity()) {
+			grow();
+		}
+		return highWater++;
+	}
+
+	/**
+	 * Detaches a slot from its current position in the linked list.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void detach(int slot) {
+		int before = prev(slot);
+		int after = next(slot);
+		if (before != NIL) {
+			setNext(before, after);
+		}
+
+		if (after == NIL) {
+			// Slot was tail
+			tail = before;
+		} else {
+			setPrev(after, before);
+		}
+
+		setPrev(slot, NIL);
+		setNext(slot, NIL);
+	}
+
+	/**
+	 * Attaches a slot to the tail of the linked list (making it the warmest).
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void attachToTail(int slot) {
+		setPrev(slot, tail);
+		setNext(slot, NIL);
+
+		if (tail != NIL) {
+			setNext(tail, slot);
+		}
+		tail = slot;
+	}
+
+	/**
+	 * Moves an existing slot to the tail position (making it the warmest) and stamps it.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void moveToTail(int slot) {
+		if (slot != tail) {
+			detach(slot);
+			attachToTail(slot);
+			slots.putLong(slot, STAMP, ++clock);
+		}
+		// Already at tail, nothing to do
+	}
+
+	/**
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void insertNewSlot(String key, int hash, int value) {
+		int slot = allocateSlot();
+		slots.putLong(slot, STAMP, ++clock);
+		slots.putInt(slot, HASH, hash);
+		slots.putInt(slot, VALUE, value);
+		for (int i = 0; i < key.length(); i++) {
+			slots.putChar(slot, KEY + 2 * i, key.charAt(i));
+		}
+		slots.putInt(slot, KEY_LENGTH, key.length() + 1);
+		insertBucket(slot);
+		attachToTail(slot);
+		count++;
+	}
+
+	/**
+	 * Unlinks a slot from the table and the list and puts it on the free list.
+	 *
+	 * @return the value the slot held
+	 * @implNote Must be called while holding write lock.
+	 */
+	private int removeSlot(int slot) {
+		slots.putInt(slot, KEY_LENGTH, 0);
+		deleteBucket(findBucket(slot));
+		detach(slot);
+		int previousValue = value(slot);
+		setNext(slot, freeHead);
+		freeHead = slot;
+		count--;
+		return previousValue;
+	}
+
+	// ==================== Operations ====================
+
+	@Override
+	public Integer put(String key, int value) {
+		return box(putInt(key, value));
+	}
+
+	@Override
+	public long putInt(String key, int value) {
+		checkKey(key);
+		int hash = spread(key.hashCode());
+		lock.writeLock().lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot == NIL) {
+				insertNewSlot(key, hash, value);
+				return NO_VALUE;
+			}
+
+			int previousValue = value(slot);
+			slots.putInt(slot, VALUE, value);
+			moveToTail(slot);
+			return previousValue;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public Integer get(String key) {
+		return box(getInt(key));
+	}
+
+	@Override
+	public long getInt(String key) {
+		int hash = spread(key.hashCode());
+		lock.readLock().lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot == NIL) {
+				return NO_VALUE;
+			}
+			if (slot == tail) {
+				// The value is safe: read lock prevents any writer from mutating it
+				return value(slot);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return moveSlotAndGetValue(key, hash);
+	}
+
+	private long moveSlotAndGetValue(String key, int hash) {
+		lock.writeLock().lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot == NIL) {
+				return NO_VALUE;
+			}
+
+			moveToTail(slot);
+			return value(slot);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public Integer remove(String key) {
+		return box(removeInt(key));
+	}
+
+	@Override
+	public long removeInt(String key) {
+		int hash = spread(key.hashCode());
+		lock.writeLock().lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot == NIL) {
+				return NO_VALUE;
+			}
+
+			return removeSlot(slot);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public String getWarmest() {
+		lock.readLock().lock();
+		try {
+			return tail == NIL ?
+					null :
+					key(tail);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Walks {@code prev} from the tail under the read lock.
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		lock.readLock().lock();
+		try {
+			List<String> warmest = new ArrayList<>();
+			for (int slot = tail; slot != NIL && warmest.size() < n; slot = prev(slot)) {
+				warmest.add(key(slot));
+			}
+			return warmest;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		entries.keySet().forEach(this::checkKey);
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		lock.writeLock().lock();
+		try {
+			entries.forEach((key, value) -> {
+				int hash = spread(key.hashCode());
+				int slot = findSlot(key, hash);
+				if (slot == NIL) {
+					insertNewSlot(key, hash, value);
+					previousValues.put(key, null);
+				} else {
+					previousValues.put(key, value(slot));
+					slots.putInt(slot, VALUE, value);
+					moveToTail(slot);
+				}
+			});
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return previousValues;
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		lock.writeLock().lock();
+		try {
+			for (String key : keys) {
+				int slot = findSlot(key, spread(key.hashCode()));
+				if (slot == NIL) {
+					values.put(key, null);
+				} else {
+					moveToTail(slot);
+					values.put(key, value(slot));
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return values;
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		lock.writeLock().lock();
+		try {
+			for (String key : keys) {
+				int slot = findSlot(key, spread(key.hashCode()));
+				if (slot != NIL) {
+					previousValues.put(key, removeSlot(slot));
+				} else if (!previousValues.containsKey(key)) {
+					previousValues.put(key, null);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return previousValues;
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return count;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Forces the files to disk, then writes the header and marks it clean, so the next open skips recovery. The
+	 * structure must not be used afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		lock.writeLock().lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			slots.force();
+			table.force();
+			header.putInt(0, HEADER_TAIL, tail);
+			header.putInt(0, HEADER_FREE_HEAD, freeHead);
+			header.putInt(0, HEADER_HIGH_WATER, highWater);
+			header.putInt(0, HEADER_COUNT, count);
+			header.putLong(0, HEADER_CLOCK, clock);
+			header.putInt(0, HEADER_STATE, CLEAN);
+			header.force();
+			slots.close();
+			table.close();
+			header.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Spring calls this on shutdown, also through decorators that forward destroy callbacks.
+	 */
+	@Override
+	public void destroy() throws IOException {
+		close();
+	}
+}
@@ -0,0 +1,45 @@
+package io.github.ashr123.warmestdata.dto;
+
+/**
+ * Receives every change {@link WarmestDataStructure} applies, in the order it applies them, for durability.
+ * <p>
+ * The append methods are called while the write lock is held, so they must only buffer the record. Every record gets
+ * the next sequence number, starting at 1. {@link #awaitDurable(long)} is called after the lock is released, and may
+ * block until the record is on disk.
+ */
+public interface MutationLog {
+
+	long appendPut(String key, int value);
+
+	/**
+	 * Records a put with a time to live.
+	 *
+	 * @param expiresAtMillis the epoch millisecond the entry expires at
+	 */
+	long appendPut(String key, int value, long expiresAtMillis);
+
+	long appendRemove(String key);
+
+	/**
+	 * Records a get that moved key to the tail.
+	 */
+	long appendAccess(String key);
+
+	/**
+	 * Called while the write lock is held, before a change is applied.
+	 *
+	 * @throws java.io.UncheckedIOException if the log can no longer make records durable, e.g. after a failed write or
+	 *                                      once it is closed, so the change must be rejected
+	 */
+	void checkWritable();
+
+	/**
+	 * Returns once the record with the given sequence number is as durable as this log promises.
+	 */
+	void awaitDurable(long sequence);
+
+	/**
+	 * @return the sequence number of the last appended record, 0 if there is none
+	 */
+	long lastSequence();
+}
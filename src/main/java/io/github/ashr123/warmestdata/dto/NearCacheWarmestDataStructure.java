@@ -0,0 +1,308 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorator for the Redis-backed WarmestDataStructureInterface that serves {@link #get(String)} from a local
+ * key → value near cache.
+ * <p>
+ * Every instance publishes the keys it writes on the {@value #INVALIDATION_CHANNEL} pub/sub channel and drops the keys
+ * it receives from it, so a value changed anywhere is evicted everywhere. A cache hit still has to bump recency in
+ * Redis: the key is queued and the queue is sent as one {@code getAll} script call every flush interval, and before any
+ * operation of this instance that reads or changes recency, so this instance always sees its own accesses in order.
+ * Other instances see a cached access at the latest one flush interval later.
+ * <p>
+ * The cache holds at most {@code max-entries} values, each for at most {@code max-age}: a value past its age is dropped
+ * when it is next read and by a periodic sweep, and a load into a full cache first drops the aged-out values and then,
+ * if that was not enough, an arbitrary sixteenth of the cache.
+ * <p>
+ * Selected by activating the {@code near-cache} profile together with {@code redis}; as the {@link Primary} bean it
+ * wraps whichever Redis layout is active (a bean is never injected into itself, so the delegate is the Redis engine).
+ */
+@Repository
+@Primary
+@Profile("redis & near-cache")
+public class NearCacheWarmestDataStructure implements WarmestDataStructureInterface, WarmestDataStructureDecorator, DisposableBean {
+
+	public static final String INVALIDATION_CHANNEL = "warmest:invalidations";
+
+	private static final Logger log = LoggerFactory.getLogger(NearCacheWarmestDataStructure.class);
+	private static final byte[] INVALIDATION_CHANNEL_BYTES = INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+	private final WarmestDataStructureInterface delegate;
+	private final StringRedisTemplate redisTemplate;
+	private final RedisMessageListenerContainer listenerContainer;
+	private final ScheduledExecutorService flusher;
+	private final int maxEntries;
+	/**
+	 * How many values a load into a full cache evicts at once, so the scan is paid once per that many loads.
+	 */
+	private final int evictionBatch;
+	private final long maxAgeNanos;
+
+	private final Map<String, CachedValue> cache = new ConcurrentHashMap<>();
+	/**
+	 * Bumped on every invalidation; a value loaded from Redis is only cached if no invalidation happened meanwhile.
+	 */
+	private final AtomicLong invalidations = new AtomicLong();
+	private final Queue<String> pendingAccesses = new ConcurrentLinkedQueue<>();
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	public NearCacheWarmestDataStructure(WarmestDataStructureInterface delegate,
+	                                     StringRedisTemplate redisTemplate,
+	                                     RedisConnectionFactory connectionFactory,
+	                                     @Value("${warmest.near-cache.max-entries:100000}") int maxEntries,
+	                                     @Value("${warmest.near-cache.max-age:60s}") Duration maxAge,
+	                                     @Value("${warmest.near-cache.flush-interval:10ms}") Duration flushInterval) {
+		this.delegate = delegate;
+		this.redisTemplate = redisTemplate;
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Near cache max entries must be positive");
+		}
+		this.maxEntries = maxEntries;
+		evictionBatch = Math.max(1, maxEntries / 16);
+		this.maxAgeNanos = maxAge.toNanos();
+
+		listenerContainer = new RedisMessageListenerContainer();
+		listenerContainer.setConnectionFactory(connectionFactory);
+		listenerContainer.addMessageListener(new InvalidationListener(), new ChannelTopic(INVALIDATION_CHANNEL));
+		listenerContainer.afterPropertiesSet();
+		listenerContainer.start();
+
+		flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "near-cache-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalNanos = flushInterval.toNanos();
+		flusher.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+		long sweepNanos = Math.max(intervalNanos, maxAgeNanos / 2);
+		flusher.scheduleWithFixedDelay(this::dropAgedOut, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public WarmestDataStructureInterface getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public Integer put(String key, int value) {
+		flushPendingAccesses();
+		Integer previousValue = delegate.put(key, value);
+		invalidate(List.of(key));
+		return previousValue;
+	}
+
+	@Override
+	public boolean supportsTimeToLive() {
+		return delegate.supportsTimeToLive();
+	}
+
+	/**
+	 * The entry is dropped from every near cache now and again when Redis expires it, since the expiry sweep publishes
+	 * the keys it removes.
+	 */
+	@Override
+	public Integer put(String key, int value, long ttlMillis) {
+		flushPendingAccesses();
+		Integer previousValue = delegate.put(key, value, ttlMillis);
+		invalidate(List.of(key));
+		return previousValue;
+	}
+
+	@Override
+	public Integer get(String key) {
+		CachedValue cached = cache.get(key);
+		if (cached != null) {
+			if (isFresh(cached, System.nanoTime())) {
+				// Served locally; Redis learns about the access with the next flush
+				pendingAccesses.add(key);
+				return cached.value();
+			}
+			cache.remove(key, cached);
+		}
+
+		flushPendingAccesses();
+		long invalidationsBefore = invalidations.get();
+		Integer value = delegate.get(key);
+		if (value != null) {
+			cacheIfUnchanged(key, value, invalidationsBefore);
+		}
+		return value;
+	}
+
+	@Override
+	public Integer remove(String key) {
+		flushPendingAccesses();
+		Integer previousValue = delegate.remove(key);
+		invalidate(List.of(key));
+		return previousValue;
+	}
+
+	@Override
+	public String getWarmest() {
+		flushPendingAccesses();
+		return delegate.getWarmest();
+	}
+
+	@Override
+	public List<String> getWarmest(int n) {
+		flushPendingAccesses();
+		return delegate.getWarmest(n);
+	}
+
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		flushPendingAccesses();
+		Map<String, Integer> previousValues = delegate.putAll(entries);
+		invalidate(entries.keySet());
+		return previousValues;
+	}
+
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		flushPendingAccesses();
+		return delegate.getAll(keys);
+	}
+
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		flushPendingAccesses();
+		Map<String, Integer> previousValues = delegate.removeAll(keys);
+		invalidate(keys);
+		return previousValues;
+	}
+
+	/**
+	 * Caches a value loaded from Redis unless an invalidation arrived since the load started.
+	 * The check runs inside {@code compute}, so it cannot interleave with {@link #evict(String)} for the same key.
+	 */
+	private void cacheIfUnchanged(String key, int value, long invalidationsBefore) {
+		if (cache.size() >= maxEntries && !cache.containsKey(key)) {
+			makeRoom();
+		}
+		cache.compute(key, (k, current) -> invalidations.get() == invalidationsBefore ?
+				new CachedValue(value, System.nanoTime()) :
+				current);
+	}
+
+	private boolean isFresh(CachedValue cached, long now) {
+		return now - cached.loadedAt() < maxAgeNanos;
+	}
+
+	/**
+	 * Drops the aged-out values and, if the cache is still full, {@link #evictionBatch} more in the map's iteration
+	 * order, which follows the key hashes rather than any access pattern. Concurrent loads may each make room, which
+	 * only evicts more than needed.
+	 */
+	private void makeRoom() {
+		dropAgedOut();
+		Iterator<String> keys = cache.keySet().iterator();
+		while (cache.size() > maxEntries - evictionBatch && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	/**
+	 * Removes every value older than the max age, which no read would serve anymore.
+	 */
+	private void dropAgedOut() {
+		long now = System.nanoTime();
+		cache.values().removeIf(cached -> !isFresh(cached, now));
+	}
+
+	/**
+	 * @return the values cached right now, aged-out ones not dropped yet included
+	 */
+	public int getCachedEntryCount() {
+		return cache.size();
+	}
+
+	private void evict(String key) {
+		invalidations.incrementAndGet();
+		cache.remove(key);
+	}
+
+	/**
+	 * Evicts the keys locally and tells every other instance to do the same.
+	 */
+	private void invalidate(Collection<String> keys) {
+		keys.forEach(this::evict);
+		redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (String key : keys) {
+				connection.publish(INVALIDATION_CHANNEL_BYTES, key.getBytes(StandardCharsets.UTF_8));
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Sends all queued cache-hit accesses to Redis, in order, as one batch. Always takes the lock, even with an empty
+	 * queue: a flush in flight may hold accesses queued before the caller's operation, which must reach Redis first.
+	 */
+	private void flushPendingAccesses() {
+		flushLock.lock();
+		try {
+			List<String> batch = new ArrayList<>();
+			for (String key; (key = pendingAccesses.poll()) != null; ) {
+				batch.add(key);
+			}
+			if (!batch.isEmpty()) {
+				delegate.getAll(batch);
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flushPendingAccesses();
+		} catch (RuntimeException e) {
+			// Recency bumps are best-effort for other instances; the next flush starts from a fresh queue
+			log.warn("Failed to flush near-cache accesses to Redis", e);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		flusher.shutdown();
+		flushQuietly();
+		listenerContainer.destroy();
+	}
+
+	private record CachedValue(int value, long loadedAt) {
+	}
+
+	private class InvalidationListener implements MessageListener {
+		@Override
+		public void onMessage(Message message, byte[] pattern) {
+			evict(new String(message.getBody(), StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,412 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe implementation of WarmestDataStructureInterface that stores entries in parallel primitive arrays instead
+ * of per-entry objects.
+ * <p>
+ * Every entry lives in a slot: {@code keys[slot]}, {@code values[slot]} and the recency links {@code prev[slot]} /
+ * {@code next[slot]}, which hold slot indices rather than references. An open-addressing table with linear probing maps
+ * a key to its slot, and removed slots are recycled through a free list threaded through {@code next}.
+ * Compared to {@link WarmestDataStructure} this drops the {@code HashMap.Node} and the linked-list {@code Node} per
+ * entry, so the only per-entry objects left are the caller's key strings.
+ */
+@Repository
+@Profile("primitive")
+public class PrimitiveWarmestDataStructure implements WarmestDataStructureInterface {
+
+	private static final int NIL = -1;
+	private static final int EMPTY = -1;
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Open-addressing table: slot index per bucket, EMPTY if unused
+	private int[] table;
+	private int tableMask;
+
+	// Parallel slot arrays
+	private String[] keys;
+	private int[] hashes;
+	private int[] values;
+	private int[] prev;
+	private int[] next;
+
+	private int highWater = 0;     // Slots below this index have been handed out at least once
+	private int freeHead = NIL;    // Free list of recycled slots, linked through next[]
+	private int tail = NIL;        // Newest (warmest)
+
+	/**
+	 * @param initialCapacity number of entries the structure can hold before it first grows
+	 */
+	public PrimitiveWarmestDataStructure(@Value("${warmest.primitive.initial-capacity:1024}") int initialCapacity) {
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("initialCapacity must be positive: " + initialCapacity);
+		}
+		allocate(initialCapacity);
+	}
+
+	private void allocate(int slotCapacity) {
+		int buckets = Integer.highestOneBit(Math.max(2, (int) Math.ceil(slotCapacity / LOAD_FACTOR)) - 1) << 1;
+		table = new int[buckets];
+		Arrays.fill(table, EMPTY);
+		tableMask = buckets - 1;
+		keys = new String[slotCapacity];
+		hashes = new int[slotCapacity];
+		values = new int[slotCapacity];
+		prev = new int[slotCapacity];
+		next = new int[slotCapacity];
+	}
+
+	private static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @return the slot holding key, or {@link #NIL}
+	 * @implNote Must be called while holding read or write lock.
+	 */
+	private int findSlot(String key, int hash) {
+		for (int bucket = hash & tableMask; ; bucket = (bucket + 1) & tableMask) {
+			int slot = table[bucket];
+			if (slot == EMPTY) {
+				return NIL;
+			}
+			if (hashes[slot] == hash && key.equals(keys[slot])) {
+				return slot;
+			}
+		}
+	}
+
+	/**
+	 * @return the bucket referencing slot
+	 * @implNote Must be called while holding write lock.
+	 */
+	private int findBucket(int slot) {
+		for (int bucket = hashes[slot] & tableMask; ; bucket = (bucket + 1) & tableMask) {
+			if (table[bucket] == slot) {
+				return bucket;
+			}
+		}
+	}
+
+	/**
+	 * Clears a bucket and shifts later members of its probe run back, so lookups never need tombstones.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void deleteBucket(int bucket) {
+		int hole = bucket;
+		for (int current = (hole + 1) & tableMask; table[current] != EMPTY; current = (current + 1) & tableMask) {
+			int home = hashes[table[current]] & tableMask;
+			// Move the entry into the hole unless its home bucket lies cyclically in (hole, current]
+			if (((current - home) & tableMask) >= ((current - hole) & tableMask)) {
+				table[hole] = table[current];
+				hole = current;
+			}
+		}
+		table[hole] = EMPTY;
+	}
+
+	/**
+	 * Doubles the slot arrays and rebuilds the table.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void grow() {
+		int newCapacity = keys.length << 1;
+		if (newCapacity < 0) {
+			throw new IllegalStateException("Capacity exceeded");
+		}
+		int buckets = Integer.highestOneBit((int) Math.ceil(newCapacity / LOAD_FACTOR) - 1) << 1;
+		table = new int[buckets];
+		Arrays.fill(table, EMPTY);
+		tableMask = buckets - 1;
+		keys = Arrays.copyOf(keys, newCapacity);
+		hashes = Arrays.copyOf(hashes, newCapacity);
+		values = Arrays.copyOf(values, newCapacity);
+		prev = Arrays.copyOf(prev, newCapacity);
+		next = Arrays.copyOf(next, newCapacity);
+		for (int slot = 0; slot < highWater; slot++) {
+			if (keys[slot] != null) {
+				insertBucket(slot);
+			}
+		}
+	}
+
+	private void insertBucket(int slot) {
+		int bucket = hashes[slot] & tableMask;
+		while (table[bucket] != EMPTY) {
+			bucket = (bucket + 1) & tableMask;
+		}
+		table[bucket] = slot;
+	}
+
+	/**
+	 * @implNote Must be called while holding write lock.
+	 */
+	private int allocateSlot() {
+		if (freeHead != NIL) {
+			int slot = freeHead;
+			freeHead = next[slot];
+			return slot;
+		}
+		if (highWater == keys.length) {
+			grow();
+		}
+		return highWater++;
+	}
+
+	/**
+	 * Detaches a slot from its current position in the linked list.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void detach(int slot) {
+		int before = prev[slot];
+		int after = next[slot];
+		if (before != NIL) {
+			next[before] = after;
+		}
+
+		if (after == NIL) {
+			// Slot was tail
+			tail = before;
+		} else {
+			prev[after] = before;
+		}
+
+		prev[slot] = NIL;
+		next[slot] = NIL;
+	}
+
+	/**
+	 * Attaches a slot to the tail of the linked list (making it the warmest).
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void attachToTail(int slot) {
+		prev[slot] = tail;
+		next[slot] = NIL;
+
+		if (tail != NIL) {
+			next[tail] = slot;
+		}
+		tail = slot;
+	}
+
+	/**
+	 * Moves an existing slot to the tail position (making it the warmest).
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void moveToTail(int slot) {
+		if (slot != tail) {
+			detach(slot);
+			attachToTail(slot);
+		}
+		// Already at tail, nothing to do
+	}
+
+	@Override
+	public Integer put(String key, int value) {
+		int hash = spread(key.hashCode());
+		lock.writeLock().lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot == NIL) {
+				insertNewSlot(key, hash, value);
+				return null;
+			}
+
+			int previousValue = values[slot];
+			values[slot] = value;
+			moveToTail(slot);
+			return previousValue;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void insertNewSlot(String key, int hash, int value) {
+		int slot = allocateSlot();
+		keys[slot] = key;
+		hashes[slot] = hash;
+		values[slot] = value;
+		insertBucket(slot);
+		attachToTail(slot);
+	}
+
+	@Override
+	public Integer get(String key) {
+		int hash = spread(key.hashCode());
+		lock.readLock().lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot == NIL) {
+				return null;
+			}
+			if (slot == tail) {
+				// values[slot] is safe: read lock prevents any writer from mutating it
+				return values[slot];
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return moveSlotAndGetValue(key, hash);
+	}
+
+	private Integer moveSlotAndGetValue(String key, int hash) {
+		lock.writeLock().lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot == NIL) {
+				return null;
+			}
+
+			moveToTail(slot);
+			return values[slot];
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public Integer remove(String key) {
+		int hash = spread(key.hashCode());
+		lock.writeLock().lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot == NIL) {
+				return null;
+			}
+
+			return removeSlot(slot);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Unlinks a slot from the table and the list and puts it on the free list.
+	 *
+	 * @return the value the slot held
+	 * @implNote Must be called while holding write lock.
+	 */
+	private int removeSlot(int slot) {
+		deleteBucket(findBucket(slot));
+		detach(slot);
+		int previousValue = values[slot];
+		keys[slot] = null;
+		next[slot] = freeHead;
+		freeHead = slot;
+		return previousValue;
+	}
+
+	@Override
+	public String getWarmest() {
+		lock.readLock().lock();
+		try {
+			return tail == NIL ?
+					null :
+					keys[tail];
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Walks {@code prev[]} from the tail under the read lock.
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		lock.readLock().lock();
+		try {
+			List<String> warmest = new ArrayList<>();
+			for (int slot = tail; slot != NIL && warmest.size() < n; slot = prev[slot]) {
+				warmest.add(keys[slot]);
+			}
+			return warmest;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		lock.writeLock().lock();
+		try {
+			entries.forEach((key, value) -> {
+				int hash = spread(key.hashCode());
+				int slot = findSlot(key, hash);
+				if (slot == NIL) {
+					insertNewSlot(key, hash, value);
+					previousValues.put(key, null);
+				} else {
+					previousValues.put(key, values[slot]);
+					values[slot] = value;
+					moveToTail(slot);
+				}
+			});
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return previousValues;
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> batchValues = new LinkedHashMap<>();
+		lock.writeLock().lock();
+		try {
+			for (String key : keys) {
+				int slot = findSlot(key, spread(key.hashCode()));
+				if (slot == NIL) {
+					batchValues.put(key, null);
+				} else {
+					moveToTail(slot);
+					batchValues.put(key, values[slot]);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return batchValues;
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		lock.writeLock().lock();
+		try {
+			for (String key : keys) {
+				int slot = findSlot(key, spread(key.hashCode()));
+				if (slot != NIL) {
+					previousValues.put(key, removeSlot(slot));
+				} else if (!previousValues.containsKey(key)) {
+					previousValues.put(key, null);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return previousValues;
+	}
+}
@@ -0,0 +1,202 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+
+/**
+ * Non-blocking variant of {@link RedisWarmestDataStructure}: runs the same Lua scripts on the same keys through
+ * {@link ReactiveStringRedisTemplate}, so no thread waits while a script is in flight.
+ * <p>
+ * Selected by activating the {@code reactive} profile, which also switches the app to WebFlux.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveRedisWarmestDataStructure implements ReactiveWarmestDataStructureInterface {
+
+	private static final List<String> WARMEST_KEYS =
+			RedisWarmestDataStructure.warmestKeys(RedisWarmestDataStructure.DEFAULT_PREFIX);
+	private static final List<String> KEYS =
+			RedisWarmestDataStructure.layoutKeys(RedisWarmestDataStructure.DEFAULT_PREFIX);
+	private static final RedisScript<String> PUT_SCRIPT = LuaScripts.of("scripts/put.lua", String.class);
+	private static final RedisScript<String> GET_SCRIPT = LuaScripts.of("scripts/get.lua", String.class);
+	private static final RedisScript<String> REMOVE_SCRIPT = LuaScripts.of("scripts/remove.lua", String.class);
+	private static final RedisScript<String> GET_WARMEST_SCRIPT = LuaScripts.of("scripts/getWarmest.lua", String.class);
+	private static final RedisScript<String> GET_WARMEST_N_SCRIPT = elementScript("scripts/getWarmestN.lua");
+	private static final RedisScript<String> PUT_ALL_SCRIPT = elementScript("scripts/putAll.lua");
+	private static final RedisScript<String> GET_ALL_SCRIPT = elementScript("scripts/getAll.lua");
+	private static final RedisScript<String> REMOVE_ALL_SCRIPT = elementScript("scripts/removeAll.lua");
+
+	private final ReactiveStringRedisTemplate redisTemplate;
+	private final String maxEntriesArg;
+
+	public ReactiveRedisWarmestDataStructure(ReactiveStringRedisTemplate redisTemplate) {
+		this(redisTemplate, 0, false);
+	}
+
+	/**
+	 * @param maxEntries evict the coldest entries while there are more than this many, 0 for no limit; evicted keys are
+	 *                   published on {@link NearCacheWarmestDataStructure#INVALIDATION_CHANNEL}
+	 * @param stream     whether writes must be appended to the replication stream, which this engine does not support
+	 * @throws IllegalStateException if {@code stream} is set, since stream replicas would silently miss every write
+	 */
+	@Autowired
+	public ReactiveRedisWarmestDataStructure(ReactiveStringRedisTemplate redisTemplate,
+	                                         @Value("${warmest.capacity.max-entries:0}") long maxEntries,
+	                                         @Value("${warmest.redis.stream.enabled:false}") boolean stream) {
+		if (maxEntries < 0) {
+			throw new IllegalArgumentException("Capacity limits must not be negative");
+		}
+		if (stream) {
+			throw new IllegalStateException("The reactive profile does not support warmest.redis.stream.enabled=true");
+		}
+		this.redisTemplate = redisTemplate;
+		this.maxEntriesArg = String.valueOf(maxEntries);
+	}
+
+	/**
+	 * The reactive template emits a multi-bulk reply element by element, so a list script is typed by its elements.
+	 */
+	@SuppressWarnings("unchecked")
+	private static RedisScript<String> elementScript(String path) {
+		return (RedisScript<String>) (RedisScript<?>) LuaScripts.of(path, List.class);
+	}
+
+	/**
+	 * @param result script reply, {@code ""} (the batch scripts' marker) if there is no mapping
+	 */
+	private static Integer parse(String result) {
+		return result.isEmpty() ?
+				null :
+				Integer.parseInt(result);
+	}
+
+	/**
+	 * @return the arguments of the key batch scripts: {@link RedisWarmestDataStructure#WARMEST_CHANNEL}, then the keys
+	 */
+	private static List<String> withChannel(Collection<String> keys) {
+		List<String> args = new ArrayList<>(keys.size() + 1);
+		args.add(RedisWarmestDataStructure.WARMEST_CHANNEL);
+		args.addAll(keys);
+		return args;
+	}
+
+	@Override
+	public Mono<Integer> put(String key, int value) {
+		return redisTemplate.execute(PUT_SCRIPT, KEYS, List.of(key, String.valueOf(value), maxEntriesArg,
+						NearCacheWarmestDataStructure.INVALIDATION_CHANNEL, "0", RedisWarmestDataStructure.WARMEST_CHANNEL))
+				.next()
+				.map(Integer::parseInt);
+	}
+
+	@Override
+	public Mono<Integer> get(String key) {
+		return redisTemplate.execute(GET_SCRIPT, KEYS, List.of(key, RedisWarmestDataStructure.WARMEST_CHANNEL))
+				.next()
+				.map(Integer::parseInt);
+	}
+
+	@Override
+	public Mono<Integer> remove(String key) {
+		return redisTemplate.execute(REMOVE_SCRIPT, KEYS, List.of(key, RedisWarmestDataStructure.WARMEST_CHANNEL))
+				.next()
+				.map(Integer::parseInt);
+	}
+
+	@Override
+	public Mono<String> getWarmest() {
+		return redisTemplate.execute(GET_WARMEST_SCRIPT, WARMEST_KEYS, List.of())
+				.next();
+	}
+
+	/**
+	 * Walks {@code warmest:prev} from the tail inside a single {@code getWarmestN.lua} invocation.
+	 */
+	@Override
+	public Mono<List<String>> getWarmest(int n) {
+		return n <= 0 ?
+				Mono.just(List.of()) :
+				redisTemplate.execute(GET_WARMEST_N_SCRIPT, WARMEST_KEYS, List.of(String.valueOf(n)))
+						.collectList();
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code putAll.lua} invocation.
+	 */
+	@Override
+	public Mono<Map<String, Integer>> putAll(Map<String, Integer> entries) {
+		if (entries.isEmpty()) {
+			return Mono.just(new LinkedHashMap<>());
+		}
+
+		List<String> args = new ArrayList<>(entries.size() * 2 + 3);
+		args.add(maxEntriesArg);
+		args.add(NearCacheWarmestDataStructure.INVALIDATION_CHANNEL);
+		args.add(RedisWarmestDataStructure.WARMEST_CHANNEL);
+		entries.forEach((key, value) -> {
+			args.add(key);
+			args.add(String.valueOf(value));
+		});
+		return redisTemplate.execute(PUT_ALL_SCRIPT, KEYS, args)
+				.collectList()
+				.map(results -> {
+					Map<String, Integer> previousValues = new LinkedHashMap<>();
+					int i = 0;
+					for (String key : entries.keySet()) {
+						previousValues.put(key, parse(results.get(i++)));
+					}
+					return previousValues;
+				});
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code getAll.lua} invocation.
+	 */
+	@Override
+	public Mono<Map<String, Integer>> getAll(Collection<String> keys) {
+		if (keys.isEmpty()) {
+			return Mono.just(new LinkedHashMap<>());
+		}
+
+		return redisTemplate.execute(GET_ALL_SCRIPT, KEYS, withChannel(keys))
+				.collectList()
+				.map(results -> {
+					Map<String, Integer> values = new LinkedHashMap<>();
+					int i = 0;
+					for (String key : keys) {
+						values.put(key, parse(results.get(i++)));
+					}
+					return values;
+				});
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code removeAll.lua} invocation.
+	 */
+	@Override
+	public Mono<Map<String, Integer>> removeAll(Collection<String> keys) {
+		if (keys.isEmpty()) {
+			return Mono.just(new LinkedHashMap<>());
+		}
+
+		return redisTemplate.execute(REMOVE_ALL_SCRIPT, KEYS, withChannel(keys))
+				.collectList()
+				.map(results -> {
+					Map<String, Integer> previousValues = new LinkedHashMap<>();
+					int i = 0;
+					for (String key : keys) {
+						Integer previousValue = parse(results.get(i++));
+						if (!previousValues.containsKey(key)) {
+							previousValues.put(key, previousValue);
+						}
+					}
+					return previousValues;
+				});
+	}
+}
@@ -0,0 +1,55 @@
+package io.github.ashr123.warmestdata.dto;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link WarmestDataStructureInterface}.
+ * <p>
+ * Every method has the same contract as its blocking namesake; a result that would be null there completes the
+ * {@link Mono} empty here.
+ */
+public interface ReactiveWarmestDataStructureInterface {
+	/**
+	 * @see WarmestDataStructureInterface#put(String, int)
+	 */
+	Mono<Integer> put(String key, int value);
+
+	/**
+	 * @see WarmestDataStructureInterface#remove(String)
+	 */
+	Mono<Integer> remove(String key);
+
+	/**
+	 * @see WarmestDataStructureInterface#get(String)
+	 */
+	Mono<Integer> get(String key);
+
+	/**
+	 * @see WarmestDataStructureInterface#getWarmest()
+	 */
+	Mono<String> getWarmest();
+
+	/**
+	 * @see WarmestDataStructureInterface#getWarmest(int)
+	 */
+	Mono<List<String>> getWarmest(int n);
+
+	/**
+	 * @see WarmestDataStructureInterface#putAll(Map)
+	 */
+	Mono<Map<String, Integer>> putAll(Map<String, Integer> entries);
+
+	/**
+	 * @see WarmestDataStructureInterface#getAll(Collection)
+	 */
+	Mono<Map<String, Integer>> getAll(Collection<String> keys);
+
+	/**
+	 * @see WarmestDataStructureInterface#removeAll(Collection)
+	 */
+	Mono<Map<String, Integer>> removeAll(Collection<String> keys);
+}
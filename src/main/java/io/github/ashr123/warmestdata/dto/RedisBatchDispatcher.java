@@ -0,0 +1,182 @@
+package io.github.ashr123.warmestdata.dto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces the single-key operations of concurrent callers into batches, each run as one {@code batch.lua} call by
+ * {@link RedisWarmestDataStructure}.
+ * <p>
+ * A dispatcher thread takes the first queued operation, then keeps collecting until the window has passed since it took
+ * it or the batch is full, and runs the batch. The script applies the operations in queue order and returns one result
+ * per operation, which completes the future of its caller. Operations queued while a batch runs go into the next one,
+ * so under load batches fill up without waiting, and an idle caller waits at most one window plus one round trip.
+ * A caller only queues its next operation once the previous one completed, so each caller's operations are applied in
+ * its own order. A batch that fails, in whole or for some of its operations, fails the futures it did not complete, and
+ * the dispatcher goes on with the next one.
+ */
+final class RedisBatchDispatcher implements AutoCloseable {
+
+	static final String PUT = "P";
+	static final String GET = "G";
+	static final String REMOVE = "R";
+	/**
+	 * How long {@link #close()} waits for the batch in flight before failing the queued operations itself.
+	 */
+	static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+	private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+	/**
+	 * Runs a batch, returning one result per operation, in order.
+	 */
+	private final Function<List<Operation>, List<String>> executor;
+	private final long windowNanos;
+	private final int maxBatch;
+	private final Thread dispatcher;
+	private volatile boolean closed = false;
+
+	/**
+	 * @param window   how long to keep collecting after the first operation of a batch, 0 to only take what is queued
+	 * @param maxBatch the most operations in one batch
+	 */
+	RedisBatchDispatcher(Function<List<Operation>, List<String>> executor, Duration window, int maxBatch) {
+		if (window.isNegative()) {
+			throw new IllegalArgumentException("Coalescing window must not be negative");
+		}
+		if (maxBatch <= 0) {
+			throw new IllegalArgumentException("Coalescing batch size must be positive");
+		}
+		this.executor = executor;
+		this.windowNanos = window.toNanos();
+		this.maxBatch = maxBatch;
+		dispatcher = new Thread(this::run, "redis-batch-dispatcher");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	/**
+	 * Queues an operation and waits until its batch ran.
+	 *
+	 * @param value the value to put, {@code ""} for gets and removes
+	 * @return the script's result for the operation, {@code ""} if there is no mapping
+	 * @throws RuntimeException what running the batch threw
+	 */
+	String apply(String op, String key, String value) {
+		if (closed) {
+			throw new IllegalStateException("Redis batch dispatcher is closed");
+		}
+		Operation operation = new Operation(op, key, value, new CompletableFuture<>());
+		queue.add(operation);
+		if (closed && queue.remove(operation)) {
+			// Closed after the check, possibly after the queue was drained: nothing would ever run it
+			throw new IllegalStateException("Redis batch dispatcher is closed");
+		}
+		try {
+			return operation.result().join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException cause ?
+					cause :
+					e;
+		}
+	}
+
+	private void run() {
+		try {
+			collectAndDispatch();
+		} finally {
+			// Also reached through an Error: later callers must then fail rather than wait forever
+			closed = true;
+			failQueued();
+		}
+	}
+
+	private void collectAndDispatch() {
+		List<Operation> batch = new ArrayList<>(maxBatch);
+		while (!closed || !queue.isEmpty()) {
+			try {
+				Operation first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + windowNanos;
+				while (batch.size() < maxBatch) {
+					long remaining = deadline - System.nanoTime();
+					Operation next = remaining > 0 ?
+							queue.poll(remaining, TimeUnit.NANOSECONDS) :
+							queue.poll();
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				// Nothing but this class owns the thread: stop taking operations, but run the queued ones
+				closed = true;
+			}
+			dispatch(batch);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Runs a batch and completes the future of every operation, exceptionally if the batch, or its result for that
+	 * operation, failed. A {@link RuntimeException} is not rethrown, so the dispatcher thread survives it.
+	 */
+	private void dispatch(List<Operation> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		RuntimeException failure = null;
+		try {
+			List<String> results = executor.apply(batch);
+			for (int i = 0; i < batch.size(); i++) {
+				batch.get(i).result().complete(results.get(i));
+			}
+		} catch (RuntimeException e) {
+			failure = e;
+		} finally {
+			// Also reached through an Error, so no caller is left waiting for an operation the loop did not complete
+			for (Operation operation : batch) {
+				if (!operation.result().isDone()) {
+					if (failure == null) {
+						failure = new IllegalStateException("Redis batch failed");
+					}
+					operation.result().completeExceptionally(failure);
+				}
+			}
+		}
+	}
+
+	private void failQueued() {
+		for (Operation operation; (operation = queue.poll()) != null; ) {
+			operation.result().completeExceptionally(new IllegalStateException("Redis batch dispatcher is closed"));
+		}
+	}
+
+	/**
+	 * Runs the queued operations and stops the dispatcher thread, which notices within its 100 ms poll timeout; it is
+	 * not interrupted, as that could fail the batch it is running. Waits at most {@link #CLOSE_TIMEOUT} for it.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			dispatcher.join(CLOSE_TIMEOUT.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// Queued by callers that passed the closed check just before it was set, or left by a dispatcher still stuck
+		failQueued();
+	}
+
+	record Operation(String op, String key, String value, CompletableFuture<String> result) {
+	}
+}
@@ -0,0 +1,203 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Redis-backed implementation of WarmestDataStructureInterface that tracks recency with a sorted set instead of a
+ * linked list.
+ * <p>
+ * Every put or successful get stamps the key with the next value of an {@code INCR} counter as its {@code ZADD} score,
+ * so the warmest key is simply the highest-scored member ({@code ZREVRANGE 0 0}). A move costs one {@code INCR} and one
+ * {@code ZADD} instead of the up to ~10 hash reads and writes of the linked-list scripts.
+ * Selected by activating the {@code redis-zset} profile together with {@code redis}.
+ */
+@Repository
+@Profile("redis & redis-zset")
+public class RedisSortedSetWarmestDataStructure implements WarmestDataStructureInterface, EngineProbeAware {
+
+	private static final String DATA_KEY = "warmest:z:data";
+	private static final String RECENCY_KEY = "warmest:z:recency";
+	private static final String CLOCK_KEY = "warmest:z:clock";
+	private static final List<String> KEYS = List.of(DATA_KEY, RECENCY_KEY, CLOCK_KEY);
+	private static final List<String> REMOVE_KEYS = List.of(DATA_KEY, RECENCY_KEY);
+
+	private static final RedisScript<String> PUT_SCRIPT = LuaScripts.of("scripts/zset/put.lua", String.class);
+	private static final RedisScript<String> GET_SCRIPT = LuaScripts.of("scripts/zset/get.lua", String.class);
+	private static final RedisScript<String> REMOVE_SCRIPT = LuaScripts.of("scripts/zset/remove.lua", String.class);
+	private static final RedisScript<List<String>> PUT_ALL_SCRIPT = listScript("scripts/zset/putAll.lua");
+	private static final RedisScript<List<String>> GET_ALL_SCRIPT = listScript("scripts/zset/getAll.lua");
+	private static final RedisScript<List<String>> REMOVE_ALL_SCRIPT = listScript("scripts/zset/removeAll.lua");
+
+	private final StringRedisTemplate redisTemplate;
+	private final String maxEntriesArg;
+	private EngineProbe probe = null;
+
+	public RedisSortedSetWarmestDataStructure(StringRedisTemplate redisTemplate) {
+		this(redisTemplate, 0);
+	}
+
+	/**
+	 * @param maxEntries evict the coldest entries while there are more than this many, 0 for no limit; evicted keys are
+	 *                   published on {@link NearCacheWarmestDataStructure#INVALIDATION_CHANNEL}
+	 */
+	@Autowired
+	public RedisSortedSetWarmestDataStructure(StringRedisTemplate redisTemplate,
+	                                          @Value("${warmest.capacity.max-entries:0}") long maxEntries) {
+		if (maxEntries < 0) {
+			throw new IllegalArgumentException("Capacity limits must not be negative");
+		}
+		this.redisTemplate = redisTemplate;
+		this.maxEntriesArg = String.valueOf(maxEntries);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static RedisScript<List<String>> listScript(String path) {
+		return (RedisScript<List<String>>) (RedisScript<?>) LuaScripts.of(path, List.class);
+	}
+
+	@Override
+	public void setProbe(EngineProbe probe) {
+		this.probe = probe;
+	}
+
+	/**
+	 * Runs a script, reporting its latency and outcome to the probe if one is set.
+	 */
+	private <T> T execute(RedisScript<T> script, String name, List<String> keys, Object... args) {
+		if (probe == null) {
+			return redisTemplate.execute(script, keys, args);
+		}
+
+		long start = System.nanoTime();
+		try {
+			T result = redisTemplate.execute(script, keys, args);
+			probe.scriptExecuted(name, System.nanoTime() - start, false);
+			return result;
+		} catch (RuntimeException e) {
+			probe.scriptExecuted(name, System.nanoTime() - start, true);
+			throw e;
+		}
+	}
+
+	/**
+	 * @param result script reply, {@code null} or (from the batch scripts) {@code ""} if there is no mapping
+	 */
+	private static Integer parse(String result) {
+		return result == null || result.isEmpty() ?
+				null :
+				Integer.parseInt(result);
+	}
+
+	@Override
+	public Integer put(String key, int value) {
+		return parse(execute(PUT_SCRIPT, "zset/put.lua", KEYS, key, String.valueOf(value), maxEntriesArg,
+				NearCacheWarmestDataStructure.INVALIDATION_CHANNEL, RedisWarmestDataStructure.WARMEST_CHANNEL));
+	}
+
+	@Override
+	public Integer get(String key) {
+		return parse(execute(GET_SCRIPT, "zset/get.lua", KEYS, key, RedisWarmestDataStructure.WARMEST_CHANNEL));
+	}
+
+	@Override
+	public Integer remove(String key) {
+		return parse(execute(REMOVE_SCRIPT, "zset/remove.lua", REMOVE_KEYS, key, RedisWarmestDataStructure.WARMEST_CHANNEL));
+	}
+
+	@Override
+	public String getWarmest() {
+		// A single command is atomic on its own, no script needed
+		Set<String> warmest = redisTemplate.opsForZSet().reverseRange(RECENCY_KEY, 0, 0);
+		return warmest == null || warmest.isEmpty() ?
+				null :
+				warmest.iterator().next();
+	}
+
+	/**
+	 * The n highest-scored members, in one {@code ZREVRANGE}.
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		if (n <= 0) {
+			return List.of();
+		}
+
+		Set<String> warmest = redisTemplate.opsForZSet().reverseRange(RECENCY_KEY, 0, n - 1);
+		return warmest == null ?
+				List.of() :
+				List.copyOf(warmest);
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code zset/putAll.lua} invocation.
+	 */
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		if (entries.isEmpty()) {
+			return previousValues;
+		}
+
+		Object[] args = new Object[entries.size() * 2 + 3];
+		int i = 0;
+		args[i++] = maxEntriesArg;
+		args[i++] = NearCacheWarmestDataStructure.INVALIDATION_CHANNEL;
+		args[i++] = RedisWarmestDataStructure.WARMEST_CHANNEL;
+		for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+			args[i++] = entry.getKey();
+			args[i++] = String.valueOf(entry.getValue());
+		}
+		List<String> results = execute(PUT_ALL_SCRIPT, "zset/putAll.lua", KEYS, args);
+		i = 0;
+		for (String key : entries.keySet()) {
+			previousValues.put(key, parse(results.get(i++)));
+		}
+		return previousValues;
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code zset/getAll.lua} invocation.
+	 */
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		if (keys.isEmpty()) {
+			return values;
+		}
+
+		List<String> results = execute(GET_ALL_SCRIPT, "zset/getAll.lua", KEYS, RedisWarmestDataStructure.withChannel(RedisWarmestDataStructure.WARMEST_CHANNEL, keys));
+		int i = 0;
+		for (String key : keys) {
+			values.put(key, parse(results.get(i++)));
+		}
+		return values;
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code zset/removeAll.lua} invocation.
+	 */
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		if (keys.isEmpty()) {
+			return previousValues;
+		}
+
+		List<String> results = execute(REMOVE_ALL_SCRIPT, "zset/removeAll.lua", REMOVE_KEYS, RedisWarmestDataStructure.withChannel(RedisWarmestDataStructure.WARMEST_CHANNEL, keys));
+		int i = 0;
+		for (String key : keys) {
+			Integer previousValue = parse(results.get(i++));
+			if (!previousValues.containsKey(key)) {
+				previousValues.put(key, previousValue);
+			}
+		}
+		return previousValues;
+	}
+}
@@ -1,56 +1,601 @@
 package io.github.ashr123.warmestdata.dto;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Repository;
 
-import java.util.Arrays;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Repository
-@Profile("redis")
-public class RedisWarmestDataStructure implements WarmestDataStructureInterface {
+@Profile("redis & !redis-zset")
+public class RedisWarmestDataStructure implements WarmestDataStructureInterface, EngineProbeAware, DisposableBean {
 
-	private static final String DATA_KEY = "warmest:data";
-	private static final String PREV_KEY = "warmest:prev";
-	private static final String NEXT_KEY = "warmest:next";
-	private static final String TAIL_KEY = "warmest:tail";
-	private static final List<String> WARMEST_KEYS = List.of(TAIL_KEY);
-	private static final List<String> KEYS = Arrays.asList(DATA_KEY, PREV_KEY, NEXT_KEY, TAIL_KEY);
+	/**
+	 * The scripts of both Redis layouts publish the new warmest key here, or an empty message once there is none,
+	 * whenever a call changes it.
+	 */
+	public static final String WARMEST_CHANNEL = "warmest:warmest-changes";
 
-	private static final RedisScript<String> PUT_SCRIPT = RedisScript.of(new ClassPathResource("scripts/put.lua"), String.class);
-	private static final RedisScript<String> GET_SCRIPT = RedisScript.of(new ClassPathResource("scripts/get.lua"), String.class);
-	private static final RedisScript<String> REMOVE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/remove.lua"), String.class);
-	private static final RedisScript<String> GET_WARMEST_SCRIPT = RedisScript.of(new ClassPathResource("scripts/getWarmest.lua"), String.class);
+	private static final Logger log = LoggerFactory.getLogger(RedisWarmestDataStructure.class);
+
+	/**
+	 * The key prefix of the default namespace; the keys of the others come from {@link #namespacePrefix(String)}.
+	 */
+	static final String DEFAULT_PREFIX = "warmest:";
+	private static final String DATA_KEY = "data";
+	private static final String PREV_KEY = "prev";
+	private static final String NEXT_KEY = "next";
+	private static final String TAIL_KEY = "tail";
+	private static final String HEAD_KEY = "head";
+	/**
+	 * Sorted set of the keys that have a time to live, scored by their deadline in epoch milliseconds.
+	 */
+	private static final String EXPIRY_KEY = "expiry";
+	/**
+	 * Every change, in order, for {@link io.github.ashr123.warmestdata.replication.RedisStreamFollower}; entries are
+	 * numbered by the counter at {@link #SEQUENCE_KEY}.
+	 */
+	private static final String STREAM_KEY = "stream";
+	private static final String SEQUENCE_KEY = "stream-seq";
+	private static final String NO_TTL = "0";
+
+	private static final RedisScript<String> PUT_SCRIPT = LuaScripts.of("scripts/put.lua", String.class);
+	private static final RedisScript<String> GET_SCRIPT = LuaScripts.of("scripts/get.lua", String.class);
+	private static final RedisScript<String> REMOVE_SCRIPT = LuaScripts.of("scripts/remove.lua", String.class);
+	/**
+	 * The single-key scripts as called with the stream, when they also reply the number of the last entry appended.
+	 */
+	private static final RedisScript<List<String>> PUT_STREAMED_SCRIPT = listScript("scripts/put.lua");
+	private static final RedisScript<List<String>> GET_STREAMED_SCRIPT = listScript("scripts/get.lua");
+	private static final RedisScript<List<String>> REMOVE_STREAMED_SCRIPT = listScript("scripts/remove.lua");
+	private static final RedisScript<String> GET_WARMEST_SCRIPT = LuaScripts.of("scripts/getWarmest.lua", String.class);
+	private static final RedisScript<List<String>> GET_WARMEST_N_SCRIPT = listScript("scripts/getWarmestN.lua");
+	private static final RedisScript<List<String>> PUT_ALL_SCRIPT = listScript("scripts/putAll.lua");
+	private static final RedisScript<List<String>> GET_ALL_SCRIPT = listScript("scripts/getAll.lua");
+	private static final RedisScript<List<String>> REMOVE_ALL_SCRIPT = listScript("scripts/removeAll.lua");
+	private static final RedisScript<List<Long>> EXPIRE_SCRIPT = listScript("scripts/expire.lua");
+	private static final RedisScript<List<Long>> STATS_SCRIPT = listScript("scripts/stats.lua");
+	private static final RedisScript<List<String>> BATCH_SCRIPT = listScript("scripts/batch.lua");
+	private static final RedisScript<List<String>> STREAM_SNAPSHOT_SCRIPT = listScript("scripts/streamSnapshot.lua");
 
 	private final StringRedisTemplate redisTemplate;
+	private final List<String> keys;
+	private final List<String> warmestKeys;
+	private final String warmestChannel;
+	private final String invalidationChannel;
+	private final String maxEntriesArg;
+	/**
+	 * {@code null} unless the scripts append every change to the replication stream.
+	 */
+	private final String streamKey;
+	private final String sequenceKey;
+	/**
+	 * The highest stream entry number the scripts of this instance replied.
+	 */
+	private final AtomicLong appendedSequence = new AtomicLong();
+	/**
+	 * {@code null} if expired entries are only hidden, never reclaimed.
+	 */
+	private final ScheduledExecutorService sweeper;
+	private final String sweepBatchArg;
+	private final int sweepBatch;
+	/**
+	 * {@code null} unless single-key operations are coalesced.
+	 */
+	private final RedisBatchDispatcher dispatcher;
+	private EngineProbe probe = null;
+	private Runnable expiringPutListener = null;
 
+	/**
+	 * Without capacity limits and without an expiry sweeper.
+	 */
 	public RedisWarmestDataStructure(StringRedisTemplate redisTemplate) {
+		this(redisTemplate, DEFAULT_PREFIX, 0, 1, null, null, 1, false);
+	}
+
+	/**
+	 * @param maxEntries    evict the coldest entries while there are more than this many, 0 for no limit; evicted keys
+	 *                      are published on {@link NearCacheWarmestDataStructure#INVALIDATION_CHANNEL}
+	 * @param sweepInterval how often {@code expire.lua} removes the entries whose time to live has run out
+	 * @param sweepBatch    the most entries a single {@code expire.lua} invocation removes
+	 * @param coalesce      whether to coalesce concurrent single-key operations, see {@link #coalescing}
+	 * @param stream        whether the scripts append every change to {@code warmest:stream}, see
+	 *                      {@link #streamSnapshot()}
+	 */
+	@Autowired
+	public RedisWarmestDataStructure(StringRedisTemplate redisTemplate,
+	                                 @Value("${warmest.capacity.max-entries:0}") long maxEntries,
+	                                 @Value("${warmest.ttl.sweep-interval:100ms}") Duration sweepInterval,
+	                                 @Value("${warmest.ttl.sweep-batch:100}") int sweepBatch,
+	                                 @Value("${warmest.redis.coalesce.enabled:false}") boolean coalesce,
+	                                 @Value("${warmest.redis.coalesce.window:100us}") Duration coalesceWindow,
+	                                 @Value("${warmest.redis.coalesce.max-batch:128}") int coalesceMaxBatch,
+	                                 @Value("${warmest.redis.stream.enabled:false}") boolean stream) {
+		this(redisTemplate, DEFAULT_PREFIX, maxEntries, sweepBatch, sweepInterval,
+				coalesce ?
+						coalesceWindow :
+						null,
+				coalesceMaxBatch, stream);
+	}
+
+	/**
+	 * Without capacity limits and without an expiry sweeper, coalescing the single-key operations of concurrent callers:
+	 * {@code put} without a time to live, {@code get} and {@code remove} are queued, and a dispatcher thread runs them in
+	 * batches of up to maxBatch operations, each as one {@code batch.lua} call that applies them in arrival order. A
+	 * batch is run once window has passed since its first operation was taken, or as soon as it is full. Saves the
+	 * per-call overhead of Redis and the connection at the price of up to one window of added latency.
+	 *
+	 * @param window   how long a batch collects operations, 0 to only take those queued while the previous batch ran
+	 * @param maxBatch the most operations in one batch
+	 */
+	public static RedisWarmestDataStructure coalescing(StringRedisTemplate redisTemplate, Duration window, int maxBatch) {
+		return new RedisWarmestDataStructure(redisTemplate, DEFAULT_PREFIX, 0, 1, null, window, maxBatch, false);
+	}
+
+	/**
+	 * A namespace's structure, independent of the default one and of every other namespace. Its keys all carry the hash
+	 * tag {@code {namespace}}, so on Redis Cluster each namespace lives in one slot (as the multi-key scripts require)
+	 * and different namespaces spread across the slots. Its warmest key changes and evictions are published on
+	 * channels of the same prefix. Nothing sweeps its expired entries unless the caller schedules
+	 * {@link #sweepExpired()}.
+	 *
+	 * @param namespace  the namespace, see {@link #namespacePrefix(String)}
+	 * @param maxEntries evict the coldest entries while there are more than this many, 0 for no limit
+	 * @param sweepBatch the most entries a single {@code expire.lua} invocation removes
+	 */
+	public static RedisWarmestDataStructure forNamespace(StringRedisTemplate redisTemplate, String namespace,
+	                                                     long maxEntries, int sweepBatch) {
+		return new RedisWarmestDataStructure(redisTemplate, namespacePrefix(namespace), maxEntries, sweepBatch, null, null, 1, false);
+	}
+
+	/**
+	 * @param sweepInterval  null to leave sweeping to the caller
+	 * @param coalesceWindow null to run every operation as its own script call
+	 * @param stream         whether the scripts append every change to the replication stream
+	 */
+	private RedisWarmestDataStructure(StringRedisTemplate redisTemplate, String keyPrefix, long maxEntries,
+	                                  int sweepBatch, Duration sweepInterval, Duration coalesceWindow,
+	                                  int coalesceMaxBatch, boolean stream) {
+		if (maxEntries < 0) {
+			throw new IllegalArgumentException("Capacity limits must not be negative");
+		}
+		if (sweepBatch <= 0) {
+			throw new IllegalArgumentException("Sweep batch must be positive");
+		}
 		this.redisTemplate = redisTemplate;
+		List<String> keys = new ArrayList<>(layoutKeys(keyPrefix));
+		if (stream) {
+			// The scripts append to the stream whenever they are given its keys
+			streamKey = keyPrefix + STREAM_KEY;
+			sequenceKey = keyPrefix + SEQUENCE_KEY;
+			keys.add(streamKey);
+			keys.add(sequenceKey);
+		} else {
+			streamKey = null;
+			sequenceKey = null;
+		}
+		this.keys = List.copyOf(keys);
+		this.warmestKeys = warmestKeys(keyPrefix);
+		if (DEFAULT_PREFIX.equals(keyPrefix)) {
+			this.warmestChannel = WARMEST_CHANNEL;
+			this.invalidationChannel = NearCacheWarmestDataStructure.INVALIDATION_CHANNEL;
+		} else {
+			this.warmestChannel = keyPrefix + "warmest-changes";
+			this.invalidationChannel = keyPrefix + "invalidations";
+		}
+		this.maxEntriesArg = String.valueOf(maxEntries);
+		this.sweepBatchArg = String.valueOf(sweepBatch);
+		this.sweepBatch = sweepBatch;
+
+		if (sweepInterval == null) {
+			sweeper = null;
+		} else {
+			sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "redis-expiry-sweeper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long intervalNanos = sweepInterval.toNanos();
+			sweeper.scheduleWithFixedDelay(this::sweepQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+		}
+		dispatcher = coalesceWindow == null ?
+				null :
+				new RedisBatchDispatcher(this::executeBatch, coalesceWindow, coalesceMaxBatch);
+	}
+
+	/**
+	 * @param namespace letters, digits, {@code _}, {@code .} and {@code -} only, so it cannot break out of its hash tag
+	 * @return the prefix of every key of the namespace, {@code warmest:{namespace}:}
+	 */
+	public static String namespacePrefix(String namespace) {
+		return "warmest:{" + namespace + "}:";
+	}
+
+	/**
+	 * @return the keys every list script but the getWarmest ones takes, in {@code KEYS} order, without the stream's;
+	 * {@link ReactiveRedisWarmestDataStructure} runs the same scripts on them
+	 */
+	static List<String> layoutKeys(String keyPrefix) {
+		return List.of(keyPrefix + DATA_KEY, keyPrefix + PREV_KEY, keyPrefix + NEXT_KEY, keyPrefix + TAIL_KEY,
+				keyPrefix + HEAD_KEY, keyPrefix + EXPIRY_KEY);
+	}
+
+	/**
+	 * @return the keys of {@code getWarmest.lua} and {@code getWarmestN.lua}, in {@code KEYS} order
+	 */
+	static List<String> warmestKeys(String keyPrefix) {
+		return List.of(keyPrefix + TAIL_KEY, keyPrefix + PREV_KEY, keyPrefix + EXPIRY_KEY);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> RedisScript<List<T>> listScript(String path) {
+		return (RedisScript<List<T>>) (RedisScript<?>) LuaScripts.of(path, List.class);
+	}
+
+	@Override
+	public void setProbe(EngineProbe probe) {
+		this.probe = probe;
+	}
+
+	/**
+	 * Called after every put with a time to live, so whoever calls {@link #sweepExpired()} knows there is something to
+	 * sweep. Must be called before the structure is used concurrently.
+	 */
+	public void setExpiringPutListener(Runnable expiringPutListener) {
+		this.expiringPutListener = expiringPutListener;
+	}
+
+	/**
+	 * Runs a script, reporting its latency and outcome to the probe if one is set.
+	 */
+	private <T> T execute(RedisScript<T> script, String name, List<String> keys, Object... args) {
+		if (probe == null) {
+			return redisTemplate.execute(script, keys, args);
+		}
+
+		long start = System.nanoTime();
+		try {
+			T result = redisTemplate.execute(script, keys, args);
+			probe.scriptExecuted(name, System.nanoTime() - start, false);
+			return result;
+		} catch (RuntimeException e) {
+			probe.scriptExecuted(name, System.nanoTime() - start, true);
+			throw e;
+		}
+	}
+
+	/**
+	 * Runs the operations queued by the dispatcher as one {@code batch.lua} invocation.
+	 */
+	private List<String> executeBatch(List<RedisBatchDispatcher.Operation> operations) {
+		Object[] args = new Object[operations.size() * 3 + 3];
+		int i = 0;
+		args[i++] = maxEntriesArg;
+		args[i++] = invalidationChannel;
+		args[i++] = warmestChannel;
+		for (RedisBatchDispatcher.Operation operation : operations) {
+			args[i++] = operation.op();
+			args[i++] = operation.key();
+			args[i++] = operation.value();
+		}
+		if (probe != null) {
+			probe.coalesced(operations.size());
+		}
+		return executeAll(BATCH_SCRIPT, "batch.lua", args);
+	}
+
+	/**
+	 * Runs a single-key script, which with the stream also replies the number of the last entry it appended.
+	 *
+	 * @return the script's result, {@code null} or {@code ""} if there is no mapping
+	 */
+	private String executeSingle(RedisScript<String> script, RedisScript<List<String>> streamedScript, String name,
+	                             Object... args) {
+		if (streamKey == null) {
+			return execute(script, name, keys, args);
+		}
+		List<String> reply = execute(streamedScript, name, keys, args);
+		recordAppended(reply.get(1));
+		return reply.get(0);
+	}
+
+	/**
+	 * Runs a batch script, which with the stream also replies the number of the last entry it appended, after the
+	 * results.
+	 *
+	 * @return one result per entry of the batch
+	 */
+	private List<String> executeAll(RedisScript<List<String>> script, String name, Object... args) {
+		List<String> results = execute(script, name, keys, args);
+		if (streamKey == null) {
+			return results;
+		}
+		recordAppended(results.get(results.size() - 1));
+		return results.subList(0, results.size() - 1);
+	}
+
+	private void recordAppended(String sequence) {
+		appendedSequence.accumulateAndGet(Long.parseLong(sequence), Math::max);
+	}
+
+	/**
+	 * The batch scripts mark a missing value with {@code ""} rather than {@code nil} or {@code false}: a Lua table
+	 * ends at its first {@code nil}, which would cut the reply short, and the reactive engine reads the same replies
+	 * element by element as a {@code Flux}, which cannot carry {@code null}. Stored values are integers, never empty.
+	 *
+	 * @param result script reply, {@code null} or (from the batch scripts) {@code ""} if there is no mapping
+	 */
+	private static Integer parse(String result) {
+		return result == null || result.isEmpty() ?
+				null :
+				Integer.parseInt(result);
 	}
 
 	@Override
 	public Integer put(String key, int value) {
-		String result = redisTemplate.execute(PUT_SCRIPT, KEYS, key, String.valueOf(value));
-		return result == null ? null : Integer.parseInt(result);
+		if (dispatcher != null) {
+			return parse(dispatcher.apply(RedisBatchDispatcher.PUT, key, String.valueOf(value)));
+		}
+		return parse(executeSingle(PUT_SCRIPT, PUT_STREAMED_SCRIPT, "put.lua", key, String.valueOf(value),
+				maxEntriesArg, invalidationChannel, NO_TTL, warmestChannel));
+	}
+
+	@Override
+	public boolean supportsTimeToLive() {
+		return true;
+	}
+
+	/**
+	 * The deadline goes into {@code warmest:expiry}: the scripts treat the entry as absent once it has passed, and the
+	 * sweeper removes it (publishing the key) shortly after.
+	 */
+	@Override
+	public Integer put(String key, int value, long ttlMillis) {
+		if (ttlMillis <= 0) {
+			throw new IllegalArgumentException("Time to live must be positive");
+		}
+		Integer previousValue = parse(executeSingle(PUT_SCRIPT, PUT_STREAMED_SCRIPT, "put.lua", key,
+				String.valueOf(value), maxEntriesArg, invalidationChannel, String.valueOf(ttlMillis), warmestChannel));
+		if (expiringPutListener != null) {
+			expiringPutListener.run();
+		}
+		return previousValue;
 	}
 
 	@Override
 	public Integer get(String key) {
-		String result = redisTemplate.execute(GET_SCRIPT, KEYS, key);
-		return result == null ? null : Integer.parseInt(result);
+		if (dispatcher != null) {
+			return parse(dispatcher.apply(RedisBatchDispatcher.GET, key, ""));
+		}
+		return parse(executeSingle(GET_SCRIPT, GET_STREAMED_SCRIPT, "get.lua", key, warmestChannel));
 	}
 
 	@Override
 	public Integer remove(String key) {
-		String result = redisTemplate.execute(REMOVE_SCRIPT, KEYS, key);
-		return result == null ? null : Integer.parseInt(result);
+		if (dispatcher != null) {
+			return parse(dispatcher.apply(RedisBatchDispatcher.REMOVE, key, ""));
+		}
+		return parse(executeSingle(REMOVE_SCRIPT, REMOVE_STREAMED_SCRIPT, "remove.lua", key, warmestChannel));
 	}
 
 	@Override
 	public String getWarmest() {
-		return redisTemplate.execute(GET_WARMEST_SCRIPT, WARMEST_KEYS);
+		return execute(GET_WARMEST_SCRIPT, "getWarmest.lua", warmestKeys);
+	}
+
+	/**
+	 * Walks {@code warmest:prev} from the tail inside a single {@code getWarmestN.lua} invocation.
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		return n <= 0 ?
+				List.of() :
+				execute(GET_WARMEST_N_SCRIPT, "getWarmestN.lua", warmestKeys, String.valueOf(n));
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code putAll.lua} invocation.
+	 */
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		if (entries.isEmpty()) {
+			return previousValues;
+		}
+
+		Object[] args = new Object[entries.size() * 2 + 3];
+		int i = 0;
+		args[i++] = maxEntriesArg;
+		args[i++] = invalidationChannel;
+		args[i++] = warmestChannel;
+		for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+			args[i++] = entry.getKey();
+			args[i++] = String.valueOf(entry.getValue());
+		}
+		List<String> results = executeAll(PUT_ALL_SCRIPT, "putAll.lua", args);
+		i = 0;
+		for (String key : entries.keySet()) {
+			previousValues.put(key, parse(results.get(i++)));
+		}
+		return previousValues;
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code getAll.lua} invocation.
+	 */
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		if (keys.isEmpty()) {
+			return values;
+		}
+
+		List<String> results = executeAll(GET_ALL_SCRIPT, "getAll.lua", withChannel(warmestChannel, keys));
+		int i = 0;
+		for (String key : keys) {
+			values.put(key, parse(results.get(i++)));
+		}
+		return values;
+	}
+
+	/**
+	 * Runs the whole batch as a single {@code removeAll.lua} invocation.
+	 */
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		if (keys.isEmpty()) {
+			return previousValues;
+		}
+
+		List<String> results = executeAll(REMOVE_ALL_SCRIPT, "removeAll.lua", withChannel(warmestChannel, keys));
+		int i = 0;
+		for (String key : keys) {
+			Integer previousValue = parse(results.get(i++));
+			if (!previousValues.containsKey(key)) {
+				previousValues.put(key, previousValue);
+			}
+		}
+		return previousValues;
+	}
+
+	/**
+	 * @return the arguments of the key batch scripts: the warmest key channel, then the keys
+	 */
+	static Object[] withChannel(String channel, Collection<String> keys) {
+		Object[] args = new Object[keys.size() + 1];
+		args[0] = channel;
+		int i = 1;
+		for (String key : keys) {
+			args[i++] = key;
+		}
+		return args;
+	}
+
+	// ==================== Replication stream ====================
+
+	/**
+	 * @return the key of the replication stream, {@code null} unless the scripts append to it
+	 */
+	public String getStreamKey() {
+		return streamKey;
+	}
+
+	private void requireStream() {
+		if (streamKey == null) {
+			throw new IllegalStateException("The replication stream requires warmest.redis.stream.enabled=true");
+		}
+	}
+
+	/**
+	 * @return the number of the last entry appended to the replication stream, 0 before the first one
+	 * @throws IllegalStateException unless the scripts append to the stream
+	 */
+	public long streamSequence() {
+		requireStream();
+		String sequence = redisTemplate.opsForValue().get(sequenceKey);
+		return sequence == null ?
+				0 :
+				Long.parseLong(sequence);
+	}
+
+	/**
+	 * @return the number of the last stream entry a script call of this instance appended, 0 before the first; taken
+	 * from the scripts' replies, so unlike {@link #streamSequence()} it costs no round trip and leaves out the entries
+	 * of other instances
+	 */
+	public long appendedSequence() {
+		return appendedSequence.get();
+	}
+
+	/**
+	 * Reads every live entry together with the replication stream position they include, atomically, in one
+	 * {@code streamSnapshot.lua} invocation, which blocks Redis for a time proportional to the entry count.
+	 *
+	 * @throws IllegalStateException unless the scripts append to the stream
+	 */
+	public StreamSnapshot streamSnapshot() {
+		requireStream();
+		List<String> result = execute(STREAM_SNAPSHOT_SCRIPT, "streamSnapshot.lua", keys);
+		int count = (result.size() - 2) / 3;
+		String[] entryKeys = new String[count];
+		int[] values = new int[count];
+		long[] expiresAt = new long[count];
+		for (int i = 0, r = 2; i < count; i++) {
+			entryKeys[i] = result.get(r++);
+			values[i] = Integer.parseInt(result.get(r++));
+			// A sorted-set score, which Redis formats as a double
+			expiresAt[i] = (long) Double.parseDouble(result.get(r++));
+		}
+		return new StreamSnapshot(Long.parseLong(result.get(0)), result.get(1), entryKeys, values, expiresAt);
+	}
+
+	/**
+	 * @return the number of entries, expired ones not swept yet included, and the bytes of all the structure's keys as
+	 * reported by {@code MEMORY USAGE}, in one {@code stats.lua} invocation
+	 */
+	public Stats stats() {
+		List<Long> result = execute(STATS_SCRIPT, "stats.lua", keys);
+		return new Stats(result.get(0), result.get(1));
+	}
+
+	/**
+	 * Removes the expired entries in batches, so that no single script blocks Redis for long.
+	 *
+	 * @return whether keys with a time to live are left, which a later sweep has to remove once they expire
+	 */
+	public boolean sweepExpired() {
+		List<Long> result;
+		do {
+			result = execute(EXPIRE_SCRIPT, "expire.lua", keys, sweepBatchArg, invalidationChannel, warmestChannel);
+			long removed = result.get(0);
+			if (removed > 0 && probe != null) {
+				probe.expired(removed);
+			}
+		} while (result.get(0) >= sweepBatch);
+		return result.get(1) > 0;
+	}
+
+	private void sweepQuietly() {
+		try {
+			sweepExpired();
+		} catch (RuntimeException e) {
+			log.warn("Failed to sweep expired entries from Redis", e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (sweeper != null) {
+			sweeper.shutdown();
+		}
+		if (dispatcher != null) {
+			dispatcher.close();
+		}
+	}
+
+	public record Stats(long entries, long bytes) {
+	}
+
+	/**
+	 * All live entries at one point in the replication stream; {@code keys[i]} maps to {@code values[i]}, index 0 is the
+	 * coldest.
+	 *
+	 * @param sequence    the number of the last stream entry included, 0 if none
+	 * @param lastEntryId the ID of that entry, to read the stream on from; {@code 0-0} if the stream is empty
+	 * @param expiresAt   the epoch millisecond {@code keys[i]} expires at by the Redis clock, 0 if it never does
+	 */
+	public record StreamSnapshot(long sequence, String lastEntryId, String[] keys, int[] values, long[] expiresAt) {
 	}
 }
@@ -0,0 +1,244 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe implementation of WarmestDataStructureInterface that spreads keys across N independently locked
+ * segments, each holding its own HashMap and doubly linked recency list.
+ * <p>
+ * Every recency-changing operation stamps its node with a value taken from a single monotonic clock while holding the
+ * segment lock, so the warmest key overall is the tail with the highest stamp among all segment tails.
+ * {@link #getWarmest()} locks every segment (in index order) to compare those tails against one consistent cut.
+ */
+@Repository
+@Profile("segmented")
+public class SegmentedWarmestDataStructure implements WarmestDataStructureInterface {
+
+	private final Segment[] segments;
+	private final int segmentMask;
+	private final AtomicLong clock = new AtomicLong();
+
+	/**
+	 * @param segmentCount requested number of segments, rounded up to the next power of two
+	 */
+	public SegmentedWarmestDataStructure(@Value("${warmest.segmented.segments:16}") int segmentCount) {
+		if (segmentCount < 1) {
+			throw new IllegalArgumentException("segmentCount must be positive: " + segmentCount);
+		}
+		int size = segmentCount == 1 ?
+				1 :
+				Integer.highestOneBit(segmentCount - 1) << 1;
+		segments = new Segment[size];
+		for (int i = 0; i < size; i++) {
+			segments[i] = new Segment();
+		}
+		segmentMask = size - 1;
+	}
+
+	private Segment segmentFor(String key) {
+		int h = key.hashCode();
+		return segments[(h ^ (h >>> 16)) & segmentMask];
+	}
+
+	@Override
+	public Integer put(String key, int value) {
+		Segment segment = segmentFor(key);
+		segment.lock.lock();
+		try {
+			Node existingNode = segment.map.get(key);
+			if (existingNode == null) {
+				Node newNode = new Node(key, value);
+				segment.map.put(key, newNode);
+				segment.attachToTail(newNode, clock.incrementAndGet());
+				return null;
+			}
+
+			int previousValue = existingNode.value;
+			existingNode.value = value;
+			segment.moveToTail(existingNode, clock.incrementAndGet());
+			return previousValue;
+		} finally {
+			segment.lock.unlock();
+		}
+	}
+
+	@Override
+	public Integer get(String key) {
+		Segment segment = segmentFor(key);
+		segment.lock.lock();
+		try {
+			Node node = segment.map.get(key);
+			if (node == null) {
+				return null;
+			}
+
+			// Even a segment's tail must be re-stamped: it may not be the warmest across segments
+			segment.moveToTail(node, clock.incrementAndGet());
+			return node.value;
+		} finally {
+			segment.lock.unlock();
+		}
+	}
+
+	@Override
+	public Integer remove(String key) {
+		Segment segment = segmentFor(key);
+		segment.lock.lock();
+		try {
+			Node node = segment.map.remove(key);
+
+			if (node == null) {
+				return null;
+			}
+			segment.detach(node);
+			return node.value;
+		} finally {
+			segment.lock.unlock();
+		}
+	}
+
+	@Override
+	public String getWarmest() {
+		int locked = 0;
+		try {
+			Node warmest = null;
+			for (Segment segment : segments) {
+				segment.lock.lock();
+				locked++;
+				Node tail = segment.tail;
+				if (tail != null && (warmest == null || tail.stamp > warmest.stamp)) {
+					warmest = tail;
+				}
+			}
+			return warmest == null ?
+					null :
+					warmest.key;
+		} finally {
+			while (locked > 0) {
+				segments[--locked].lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Merges the segment lists from their tails by descending stamp, under the same consistent cut as
+	 * {@link #getWarmest()}.
+	 * Complexity: O(n log N) for N segments
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		int locked = 0;
+		try {
+			Queue<Node> candidates = new PriorityQueue<>(segments.length, (a, b) -> Long.compare(b.stamp, a.stamp));
+			for (Segment segment : segments) {
+				segment.lock.lock();
+				locked++;
+				if (segment.tail != null) {
+					candidates.add(segment.tail);
+				}
+			}
+
+			List<String> warmest = new ArrayList<>();
+			while (warmest.size() < n && !candidates.isEmpty()) {
+				Node node = candidates.poll();
+				warmest.add(node.key);
+				if (node.prev != null) {
+					candidates.add(node.prev);
+				}
+			}
+			return warmest;
+		} finally {
+			while (locked > 0) {
+				segments[--locked].lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * One independently locked partition of the key space with its own recency list.
+	 */
+	private static class Segment {
+		private final Map<String, Node> map = new HashMap<>();
+		private final ReentrantLock lock = new ReentrantLock();
+		private Node tail = null;  // Newest (warmest) within this segment
+
+		/**
+		 * Detaches a node from its current position in the linked list.
+		 *
+		 * @param node the node to detach
+		 * @implNote Must be called while holding the segment lock.
+		 */
+		private void detach(Node node) {
+			if (node.prev != null) {
+				node.prev.next = node.next;
+			}
+
+			if (node.next == null) {
+				// Node was tail
+				tail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+
+			node.prev = null;
+			node.next = null;
+		}
+
+		/**
+		 * Attaches a node to the tail of the linked list and stamps it.
+		 *
+		 * @param node  the node to attach to tail
+		 * @param stamp the access stamp taken from the shared clock
+		 * @implNote Must be called while holding the segment lock.
+		 */
+		private void attachToTail(Node node, long stamp) {
+			node.prev = tail;
+			node.next = null;
+			node.stamp = stamp;
+
+			if (tail != null) {
+				tail.next = node;
+			}
+			tail = node;
+		}
+
+		/**
+		 * Moves an existing node to the tail position and re-stamps it.
+		 *
+		 * @param node  the node to move to tail
+		 * @param stamp the access stamp taken from the shared clock
+		 * @implNote Must be called while holding the segment lock.
+		 */
+		private void moveToTail(Node node, long stamp) {
+			if (node == tail) {
+				node.stamp = stamp;
+			} else {
+				detach(node);
+				attachToTail(node, stamp);
+			}
+		}
+	}
+
+	/**
+	 * Node class for the per-segment doubly linked list.
+	 * Stores key, value, the access stamp of its last recency change, and references to previous and next nodes.
+	 */
+	private static class Node {
+		private final String key;
+		private int value;
+		private long stamp;
+		private Node prev;
+		private Node next;
+
+		Node(String key, int value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
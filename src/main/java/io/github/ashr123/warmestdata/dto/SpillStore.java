@@ -0,0 +1,541 @@
+package io.github.ashr123.warmestdata.dto;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * The disk tier of {@link TieredWarmestDataStructure}: entries appended to segment files, found through a compact
+ * in-heap index.
+ * <p>
+ * A record is the key's UTF-8 length, the value and the key. Records are appended to the active segment,
+ * {@code spill-<id>.dat}, which is replaced by a new one once it reaches the segment size. An entry's address is
+ * its segment id in the high and its offset in the low 32 bits, so addresses grow with append order, and as entries
+ * are appended coldest first, a higher address is a warmer entry. The index is open-addressing over two arrays, the
+ * key's hash and the address, 12 B per bucket and no key strings on the heap; a lookup reads the key of every bucket
+ * whose hash matches from disk. Removing an entry only drops it from the index. A segment without live records is
+ * deleted, and one that is at least half dead is queued to be rewritten with its live records in their order. The
+ * rewrite is incremental: every flush and remove streams at most {@value #COMPACTION_STEP_BYTES} bytes of it through a
+ * reused buffer, so no change pays for a whole segment.
+ * <p>
+ * The files are scratch space: existing ones are deleted on open, and all of them on close.
+ * <p>
+ * Not thread-safe. Lookups only read, so they may run concurrently with each other, but not with changes.
+ */
+final class SpillStore implements Closeable {
+
+	private static final long EMPTY = -1;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+	private static final int COMPACTION_STEP_BYTES = 64 * 1024;
+	private static final String SEGMENT_PREFIX = "spill-";
+	private static final String SEGMENT_SUFFIX = ".dat";
+
+	private final Path directory;
+	private final int segmentBytes;
+	private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+	private Segment active;
+	private ByteBuffer writeBuffer = ByteBuffer.allocate(8192);
+	/**
+	 * Inactive segments at least half dead, in the order they became so.
+	 */
+	private final Queue<Segment> compactionQueue = new ArrayDeque<>();
+	private Compaction compaction = null;
+	private ByteBuffer compactionBuffer = ByteBuffer.allocate(COMPACTION_STEP_BYTES);
+
+	private int[] hashes;
+	private long[] addresses;
+	private int mask;
+	private int count = 0;
+	private long liveBytes = 0;
+
+	/**
+	 * @param segmentBytes size at which the active segment is replaced by a new one
+	 */
+	SpillStore(Path directory, int segmentBytes) throws IOException {
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		Files.createDirectories(directory);
+		try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+			for (Path leftover : leftovers) {
+				Files.delete(leftover);
+			}
+		}
+		resize(16);
+		active = openSegment(0);
+	}
+
+	private static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	private static long address(int segment, long offset) {
+		return (long) segment << 32 | offset;
+	}
+
+	private static int segmentOf(long address) {
+		return (int) (address >>> 32);
+	}
+
+	private static long offsetOf(long address) {
+		return address & 0xFFFF_FFFFL;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException("Spill segment ended inside a record");
+			}
+		}
+		buffer.flip();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+
+	private Segment openSegment(int id) throws IOException {
+		Path path = directory.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+		Segment segment = new Segment(id, path, FileChannel.open(path,
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+		segments.put(id, segment);
+		return segment;
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	int size() {
+		return count;
+	}
+
+	/**
+	 * @return the bytes the segment files take, including removed records not reclaimed yet
+	 */
+	long fileBytes() {
+		long bytes = writeBuffer.position();
+		if (compaction != null) {
+			bytes += compaction.targetSize;
+		}
+		for (Segment segment : segments.values()) {
+			bytes += segment.size;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return the bytes of the live records
+	 */
+	long liveBytes() {
+		return liveBytes;
+	}
+
+	// ==================== Index ====================
+
+	private void resize(int buckets) {
+		int[] oldHashes = hashes;
+		long[] oldAddresses = addresses;
+		hashes = new int[buckets];
+		addresses = new long[buckets];
+		Arrays.fill(addresses, EMPTY);
+		mask = buckets - 1;
+		if (oldAddresses != null) {
+			for (int i = 0; i < oldAddresses.length; i++) {
+				if (oldAddresses[i] != EMPTY) {
+					insertBucket(oldHashes[i], oldAddresses[i]);
+				}
+			}
+		}
+	}
+
+	private void insertBucket(int hash, long address) {
+		int bucket = hash & mask;
+		while (addresses[bucket] != EMPTY) {
+			bucket = (bucket + 1) & mask;
+		}
+		hashes[bucket] = hash;
+		addresses[bucket] = address;
+	}
+
+	/**
+	 * Clears a bucket and shifts later members of its probe run back, so lookups never need tombstones.
+	 */
+	private void deleteBucket(int bucket) {
+		int hole = bucket;
+		for (int current = (hole + 1) & mask; addresses[current] != EMPTY; current = (current + 1) & mask) {
+			int home = hashes[current] & mask;
+			// Move the entry into the hole unless its home bucket lies cyclically in (hole, current]
+			if (((current - home) & mask) >= ((current - hole) & mask)) {
+				hashes[hole] = hashes[current];
+				addresses[hole] = addresses[current];
+				hole = current;
+			}
+		}
+		addresses[hole] = EMPTY;
+	}
+
+	/**
+	 * @return the bucket of key, or -1
+	 */
+	private int findBucket(byte[] keyBytes, int hash) throws IOException {
+		for (int bucket = hash & mask; addresses[bucket] != EMPTY; bucket = (bucket + 1) & mask) {
+			if (hashes[bucket] == hash && Arrays.equals(readKeyBytes(addresses[bucket]), keyBytes)) {
+				return bucket;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the bucket holding address, or -1 if its record was removed
+	 */
+	private int findBucket(int hash, long address) {
+		for (int bucket = hash & mask; addresses[bucket] != EMPTY; bucket = (bucket + 1) & mask) {
+			if (addresses[bucket] == address) {
+				return bucket;
+			}
+		}
+		return -1;
+	}
+
+	// ==================== Records ====================
+
+	/**
+	 * @return the record's header (key length, value) followed by its key
+	 */
+	private ByteBuffer readRecord(long address) throws IOException {
+		FileChannel channel = segments.get(segmentOf(address)).channel;
+		long offset = offsetOf(address);
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+		readFully(channel, header, offset);
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + header.getInt(0));
+		record.put(header);
+		readFully(channel, record, offset);
+		return record;
+	}
+
+	private byte[] readKeyBytes(long address) throws IOException {
+		ByteBuffer record = readRecord(address);
+		return Arrays.copyOfRange(record.array(), RECORD_HEADER_BYTES, record.limit());
+	}
+
+	/**
+	 * Appends an entry that must not be in the store yet, as the warmest one. It is written by the next
+	 * {@link #flush()}, which must come before any other call.
+	 */
+	void append(String key, int value) {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		int recordBytes = RECORD_HEADER_BYTES + keyBytes.length;
+		try {
+			if (active.size + writeBuffer.position() + recordBytes > segmentBytes && active.size + writeBuffer.position() > 0) {
+				flush();
+				Segment previous = active;
+				active = openSegment(previous.id + 1);
+				reclaim(previous);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to start a spill segment", e);
+		}
+		if (writeBuffer.remaining() < recordBytes) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + recordBytes));
+			writeBuffer.flip();
+			writeBuffer = grown.put(writeBuffer);
+		}
+		long address = address(active.id, active.size + writeBuffer.position());
+		writeBuffer.putInt(keyBytes.length)
+				.putInt(value)
+				.put(keyBytes);
+
+		if (count + 1 > addresses.length * LOAD_FACTOR) {
+			resize(addresses.length << 1);
+		}
+		insertBucket(spread(key.hashCode()), address);
+		count++;
+		liveBytes += recordBytes;
+		active.live++;
+		active.liveBytes += recordBytes;
+	}
+
+	/**
+	 * Writes the records appended since the last flush to the active segment, then takes a compaction step.
+	 */
+	void flush() {
+		if (writeBuffer.position() == 0) {
+			return;
+		}
+		writeBuffer.flip();
+		try {
+			writeFully(active.channel, writeBuffer, active.size);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write to " + active.path, e);
+		}
+		active.size += writeBuffer.limit();
+		writeBuffer.clear();
+		try {
+			compactStep();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to compact a spill segment in " + directory, e);
+		}
+	}
+
+	/**
+	 * @return whether key is in the store
+	 */
+	boolean contains(String key) {
+		if (count == 0) {
+			return false;
+		}
+		try {
+			return findBucket(key.getBytes(StandardCharsets.UTF_8), spread(key.hashCode())) != -1;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read from " + directory, e);
+		}
+	}
+
+	/**
+	 * @return the value of key, or {@link WarmestDataStructureInterface#NO_VALUE} if it is not in the store
+	 */
+	long remove(String key) {
+		if (count == 0) {
+			return WarmestDataStructureInterface.NO_VALUE;
+		}
+		try {
+			int bucket = findBucket(key.getBytes(StandardCharsets.UTF_8), spread(key.hashCode()));
+			if (bucket == -1) {
+				return WarmestDataStructureInterface.NO_VALUE;
+			}
+			long address = addresses[bucket];
+			ByteBuffer record = readRecord(address);
+			deleteBucket(bucket);
+			count--;
+			liveBytes -= record.limit();
+			Segment segment = segments.get(segmentOf(address));
+			segment.live--;
+			segment.liveBytes -= record.limit();
+			reclaim(segment);
+			compactStep();
+			return record.getInt(Integer.BYTES);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read from " + directory, e);
+		}
+	}
+
+	/**
+	 * @return up to n keys, warmest first
+	 */
+	List<String> warmestKeys(int n) {
+		if (n <= 0 || count == 0) {
+			return List.of();
+		}
+		// Min-heap of the n highest addresses seen so far
+		PriorityQueue<Long> warmest = new PriorityQueue<>(Math.min(n, count));
+		for (long address : addresses) {
+			if (address == EMPTY) {
+				continue;
+			}
+			if (warmest.size() < n) {
+				warmest.add(address);
+			} else if (address > warmest.peek()) {
+				warmest.poll();
+				warmest.add(address);
+			}
+		}
+		String[] keys = new String[warmest.size()];
+		try {
+			for (int i = keys.length - 1; i >= 0; i--) {
+				keys[i] = new String(readKeyBytes(warmest.poll()), StandardCharsets.UTF_8);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read from " + directory, e);
+		}
+		return Arrays.asList(keys);
+	}
+
+	// ==================== Reclaiming space ====================
+
+	/**
+	 * Deletes an inactive segment without live records, or queues one that is at least half dead for compaction.
+	 */
+	private void reclaim(Segment segment) throws IOException {
+		if (segment == active) {
+			return;
+		}
+		if (segment.live == 0) {
+			if (compaction != null && compaction.source == segment) {
+				abortCompaction();
+			}
+			compactionQueue.remove(segment);
+			segment.channel.close();
+			Files.delete(segment.path);
+			segments.remove(segment.id);
+		} else if (segment.liveBytes * 2 <= segment.size
+				&& !compactionQueue.contains(segment)
+				&& (compaction == null || compaction.source != segment)) {
+			compactionQueue.add(segment);
+		}
+	}
+
+	/**
+	 * Copies the live records of the next {@value #COMPACTION_STEP_BYTES} bytes of the segment being compacted to its
+	 * new file, starting on the next queued segment if none is. The index keeps pointing at the old file, which stays
+	 * intact, until the last step swaps the files.
+	 */
+	private void compactStep() throws IOException {
+		if (compaction == null) {
+			Segment next = compactionQueue.poll();
+			if (next == null) {
+				return;
+			}
+			Path target = next.path.resolveSibling(next.path.getFileName() + ".tmp");
+			compaction = new Compaction(next, target, FileChannel.open(target,
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+		}
+		Segment source = compaction.source;
+		ByteBuffer buffer = compactionBuffer.clear()
+				.limit((int) Math.min(compactionBuffer.capacity(), source.size - compaction.sourceOffset));
+		readFully(source.channel, buffer, compaction.sourceOffset);
+		byte[] bytes = buffer.array();
+		int read = 0;
+		int kept = 0;
+		while (read + RECORD_HEADER_BYTES <= buffer.limit()
+				&& read + RECORD_HEADER_BYTES + buffer.getInt(read) <= buffer.limit()) {
+			int keyLength = buffer.getInt(read);
+			int recordBytes = RECORD_HEADER_BYTES + keyLength;
+			long offset = compaction.sourceOffset + read;
+			int hash = spread(new String(bytes, read + RECORD_HEADER_BYTES, keyLength, StandardCharsets.UTF_8).hashCode());
+			if (findBucket(hash, address(source.id, offset)) != -1) {
+				compaction.addMove(hash, offset, compaction.targetSize + kept);
+				// Live records move to the front of the buffer, which is then written as one block
+				System.arraycopy(bytes, read, bytes, kept, recordBytes);
+				kept += recordBytes;
+			}
+			read += recordBytes;
+		}
+		if (read == 0) {
+			// The next record is larger than the buffer: grow it to fit and retry
+			compactionBuffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + buffer.getInt(0));
+			compactStep();
+			return;
+		}
+		writeFully(compaction.channel, buffer.position(0).limit(kept), compaction.targetSize);
+		compaction.targetSize += kept;
+		compaction.sourceOffset += read;
+		if (compaction.sourceOffset == source.size) {
+			finishCompaction();
+		}
+	}
+
+	/**
+	 * Replaces the segment's file with the compacted one and points the index at the moved records. The moves are
+	 * applied in file order, so no record's new address is still the old address of one not updated yet.
+	 */
+	private void finishCompaction() throws IOException {
+		Compaction finished = compaction;
+		compaction = null;
+		Segment segment = finished.source;
+		finished.channel.close();
+		segment.channel.close();
+		Files.move(finished.path, segment.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		segment.channel = FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		segment.size = finished.targetSize;
+		for (int i = 0; i < finished.moves; i++) {
+			// Records removed since they were copied are no longer in the index
+			int bucket = findBucket(finished.hashes[i], address(segment.id, finished.offsets[i] >>> 32));
+			if (bucket != -1) {
+				addresses[bucket] = address(segment.id, finished.offsets[i] & 0xFFFF_FFFFL);
+			}
+		}
+	}
+
+	private void abortCompaction() throws IOException {
+		compaction.channel.close();
+		Files.deleteIfExists(compaction.path);
+		compaction = null;
+	}
+
+	/**
+	 * Deletes all segment files.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (compaction != null) {
+			abortCompaction();
+		}
+		compactionQueue.clear();
+		for (Iterator<Segment> iterator = segments.values().iterator(); iterator.hasNext(); ) {
+			Segment segment = iterator.next();
+			segment.channel.close();
+			Files.deleteIfExists(segment.path);
+			iterator.remove();
+		}
+	}
+
+	private static final class Segment {
+		private final int id;
+		private final Path path;
+		private FileChannel channel;
+		/**
+		 * Bytes written to the file.
+		 */
+		private long size = 0;
+		private int live = 0;
+		private long liveBytes = 0;
+
+		private Segment(int id, Path path, FileChannel channel) {
+			this.id = id;
+			this.path = path;
+			this.channel = channel;
+		}
+	}
+
+	/**
+	 * A segment being rewritten into a new file, and the records moved so far.
+	 */
+	private static final class Compaction {
+		private final Segment source;
+		private final Path path;
+		private final FileChannel channel;
+		private long sourceOffset = 0;
+		private long targetSize = 0;
+		private int moves = 0;
+		private int[] hashes = new int[64];
+		/**
+		 * The old offset in the high and the new one in the low 32 bits.
+		 */
+		private long[] offsets = new long[64];
+
+		private Compaction(Segment source, Path path, FileChannel channel) {
+			this.source = source;
+			this.path = path;
+			this.channel = channel;
+		}
+
+		private void addMove(int hash, long from, long to) {
+			if (moves == hashes.length) {
+				hashes = Arrays.copyOf(hashes, moves << 1);
+				offsets = Arrays.copyOf(offsets, moves << 1);
+			}
+			hashes[moves] = hash;
+			offsets[moves++] = from << 32 | to;
+		}
+	}
+}
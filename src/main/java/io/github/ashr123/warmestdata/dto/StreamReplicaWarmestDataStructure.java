@@ -0,0 +1,329 @@
+package io.github.ashr123.warmestdata.dto;
+
+import io.github.ashr123.warmestdata.metrics.ReplicationMetrics;
+import io.github.ashr123.warmestdata.replication.RedisStreamFollower;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorator for the Redis linked-list layout that serves reads from a full local replica, kept in sync by a
+ * {@link RedisStreamFollower} from the stream the scripts append every change to.
+ * <p>
+ * {@link #get(String)} peeks at the replica without changing its recency order and queues the access; the queue is sent
+ * as one {@code getAll} script call every flush interval, and before any write of this instance, and the resulting
+ * stream entries move the keys here too, so every replica ends up with Redis' order. Writes go to Redis. A read is
+ * served by the replica only if it is fresh enough for the {@link Consistency} policy, and by Redis otherwise:
+ * <ul>
+ *   <li>{@link Consistency#READ_YOUR_WRITES}: every write's script replies the number of the last stream entry it
+ *   appended, and a read waits up to {@code max-wait} for the replica to include it, so a client sees its own writes
+ *   (and, for {@code getWarmest}, its own reads) through this instance</li>
+ *   <li>{@link Consistency#BOUNDED_STALENESS}: a read is served locally while the replica drained the stream at most
+ *   {@code max-staleness} ago, without any extra round trip</li>
+ * </ul>
+ * Selected by activating the {@code replica} profile together with {@code redis}, which also turns on
+ * {@code warmest.redis.stream.enabled} (every instance that writes must append to the stream); as the {@link Primary}
+ * bean it wraps the Redis engine (a bean is never injected into itself, so the delegate is the Redis engine).
+ */
+@Repository
+@Primary
+@Profile("redis & replica & !redis-zset & !near-cache")
+public class StreamReplicaWarmestDataStructure implements WarmestDataStructureInterface, WarmestDataStructureDecorator, DisposableBean {
+
+	public enum Consistency {
+		/**
+		 * Reads include every write and every read made through this instance before them.
+		 */
+		READ_YOUR_WRITES,
+		/**
+		 * Reads include every change made in Redis up to max-staleness before them.
+		 */
+		BOUNDED_STALENESS
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(StreamReplicaWarmestDataStructure.class);
+
+	private final WarmestDataStructureInterface delegate;
+	private final RedisWarmestDataStructure source;
+	private final WarmestDataStructure replica = new WarmestDataStructure();
+	private final RedisStreamFollower follower;
+	private final ScheduledExecutorService flusher;
+	private final Consistency consistency;
+	private final long maxStalenessMillis;
+	private final long maxWaitNanos;
+
+	/**
+	 * The highest stream entry number one of this instance's writes appended; reads wait for the replica to reach it.
+	 */
+	private final AtomicLong writtenSequence = new AtomicLong();
+	private final Queue<String> pendingAccesses = new ConcurrentLinkedQueue<>();
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final LongAdder replicaReads = new LongAdder();
+	private final LongAdder redisReads = new LongAdder();
+
+	/**
+	 * @param consistency     when a read may be served by the replica
+	 * @param maxStaleness    with {@link Consistency#BOUNDED_STALENESS}, how long ago the replica may have last drained
+	 *                        the stream; keep it above the poll timeout
+	 * @param maxWait         with {@link Consistency#READ_YOUR_WRITES}, how long a read waits for the replica before
+	 *                        going to Redis
+	 * @param flushInterval   how often the accesses served by the replica are sent to Redis
+	 * @param pollTimeout     how long one {@code XREAD} blocks while there are no new entries
+	 * @param batchSize       the most stream entries one {@code XREAD} returns
+	 * @param streamMaxLength the approximate number of entries the stream is trimmed to
+	 * @param retryInterval   pause before reading the stream again after a read failed
+	 */
+	public StreamReplicaWarmestDataStructure(WarmestDataStructureInterface delegate,
+	                                         StringRedisTemplate redisTemplate,
+	                                         ObjectProvider<MeterRegistry> meterRegistry,
+	                                         @Value("${warmest.replica.consistency:read-your-writes}") Consistency consistency,
+	                                         @Value("${warmest.replica.max-staleness:1s}") Duration maxStaleness,
+	                                         @Value("${warmest.replica.max-wait:100ms}") Duration maxWait,
+	                                         @Value("${warmest.replica.flush-interval:10ms}") Duration flushInterval,
+	                                         @Value("${warmest.replica.poll-timeout:100ms}") Duration pollTimeout,
+	                                         @Value("${warmest.replica.batch-size:1000}") int batchSize,
+	                                         @Value("${warmest.replica.stream-max-length:1000000}") long streamMaxLength,
+	                                         @Value("${warmest.replica.retry-interval:1s}") Duration retryInterval) {
+		this.delegate = delegate;
+		source = WarmestDataStructureDecorator.unwrap(delegate, RedisWarmestDataStructure.class);
+		if (source == null) {
+			throw new IllegalStateException("The replica profile requires the Redis linked-list layout, but the active engine is " + delegate.getClass().getSimpleName());
+		}
+		this.consistency = consistency;
+		maxStalenessMillis = maxStaleness.toMillis();
+		maxWaitNanos = maxWait.toNanos();
+		follower = new RedisStreamFollower(source, redisTemplate, replica, pollTimeout, batchSize, streamMaxLength, retryInterval);
+
+		flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-access-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalNanos = flushInterval.toNanos();
+		flusher.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+		meterRegistry.ifAvailable(registry -> ReplicationMetrics.bindStreamReplica(registry, this));
+	}
+
+	@Override
+	public WarmestDataStructureInterface getDelegate() {
+		return delegate;
+	}
+
+	public RedisStreamFollower getFollower() {
+		return follower;
+	}
+
+	// ==================== Reads: served by the replica when fresh enough ====================
+
+	/**
+	 * @return whether the replica may serve a read now, waiting for it under {@link Consistency#READ_YOUR_WRITES}
+	 */
+	private boolean replicaIsFresh() {
+		return switch (consistency) {
+			case READ_YOUR_WRITES -> follower.isSynced() && follower.awaitApplied(writtenSequence.get(), System.nanoTime() + maxWaitNanos);
+			case BOUNDED_STALENESS -> follower.isSynced() && follower.getLagMillis() <= maxStalenessMillis;
+		};
+	}
+
+	@Override
+	public Integer get(String key) {
+		if (replicaIsFresh()) {
+			replicaReads.increment();
+			Integer value = replica.peek(key);
+			if (value != null) {
+				pendingAccesses.add(key);
+			}
+			return value;
+		}
+		redisReads.increment();
+		flushPendingAccesses();
+		// Moves the key in Redis, like a write
+		Integer value = delegate.get(key);
+		recordWrite();
+		return value;
+	}
+
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		if (replicaIsFresh()) {
+			replicaReads.increment();
+			Map<String, Integer> values = new LinkedHashMap<>();
+			for (String key : keys) {
+				Integer value = replica.peek(key);
+				if (value != null) {
+					pendingAccesses.add(key);
+				}
+				values.put(key, value);
+			}
+			return values;
+		}
+		redisReads.increment();
+		flushPendingAccesses();
+		Map<String, Integer> values = delegate.getAll(keys);
+		recordWrite();
+		return values;
+	}
+
+	/**
+	 * Under {@link Consistency#READ_YOUR_WRITES}, first sends the queued accesses, whose moves this instance's client
+	 * expects to see.
+	 */
+	@Override
+	public String getWarmest() {
+		includeOwnAccesses();
+		if (replicaIsFresh()) {
+			replicaReads.increment();
+			return replica.getWarmest();
+		}
+		redisReads.increment();
+		return delegate.getWarmest();
+	}
+
+	@Override
+	public List<String> getWarmest(int n) {
+		includeOwnAccesses();
+		if (replicaIsFresh()) {
+			replicaReads.increment();
+			return replica.getWarmest(n);
+		}
+		redisReads.increment();
+		return delegate.getWarmest(n);
+	}
+
+	// ==================== Writes: sent to Redis ====================
+
+	@Override
+	public Integer put(String key, int value) {
+		flushPendingAccesses();
+		Integer previousValue = delegate.put(key, value);
+		recordWrite();
+		return previousValue;
+	}
+
+	@Override
+	public boolean supportsTimeToLive() {
+		return delegate.supportsTimeToLive();
+	}
+
+	@Override
+	public Integer put(String key, int value, long ttlMillis) {
+		flushPendingAccesses();
+		Integer previousValue = delegate.put(key, value, ttlMillis);
+		recordWrite();
+		return previousValue;
+	}
+
+	@Override
+	public Integer remove(String key) {
+		flushPendingAccesses();
+		Integer previousValue = delegate.remove(key);
+		recordWrite();
+		return previousValue;
+	}
+
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		flushPendingAccesses();
+		Map<String, Integer> previousValues = delegate.putAll(entries);
+		recordWrite();
+		return previousValues;
+	}
+
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		flushPendingAccesses();
+		Map<String, Integer> previousValues = delegate.removeAll(keys);
+		recordWrite();
+		return previousValues;
+	}
+
+	/**
+	 * Under {@link Consistency#READ_YOUR_WRITES}, makes later reads wait for the write just made, taking the number of
+	 * the entry it appended from its script's reply rather than reading the stream's counter.
+	 */
+	private void recordWrite() {
+		if (consistency == Consistency.READ_YOUR_WRITES) {
+			writtenSequence.accumulateAndGet(source.appendedSequence(), Math::max);
+		}
+	}
+
+	/**
+	 * Sends all queued accesses to Redis, in order, as one batch, and records their stream position before the lock is
+	 * released. Always takes the lock, even with an empty queue: a flush in flight may hold accesses queued before the
+	 * caller's operation, which must reach Redis, and the position a later read waits for, first.
+	 */
+	private void flushPendingAccesses() {
+		flushLock.lock();
+		try {
+			List<String> batch = new ArrayList<>();
+			for (String key; (key = pendingAccesses.poll()) != null; ) {
+				batch.add(key);
+			}
+			if (!batch.isEmpty()) {
+				delegate.getAll(batch);
+				recordWrite();
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Under {@link Consistency#READ_YOUR_WRITES}, sends the queued accesses, so the read that follows waits for the
+	 * replica to include them.
+	 */
+	private void includeOwnAccesses() {
+		if (consistency == Consistency.READ_YOUR_WRITES) {
+			flushPendingAccesses();
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flushPendingAccesses();
+		} catch (RuntimeException e) {
+			// Recency bumps are best-effort; the next flush starts from a fresh queue
+			log.warn("Failed to flush replica accesses to Redis", e);
+		}
+	}
+
+	// ==================== Stats ====================
+
+	/**
+	 * @return reads served by the replica since startup
+	 */
+	public long getReplicaReads() {
+		return replicaReads.sum();
+	}
+
+	/**
+	 * @return reads sent to Redis since startup, because the replica was not fresh enough
+	 */
+	public long getRedisReads() {
+		return redisReads.sum();
+	}
+
+	@Override
+	public void destroy() {
+		flusher.shutdown();
+		flushQuietly();
+		follower.close();
+	}
+}
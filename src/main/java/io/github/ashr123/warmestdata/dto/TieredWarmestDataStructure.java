@@ -0,0 +1,381 @@
+package io.github.ashr123.warmestdata.dto;
+
+import io.github.ashr123.warmestdata.metrics.TieredMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Two-tier engine: the hot entries stay in the capacity-bounded in-memory engine (the delegate), and the entries it
+ * evicts from its cold end are spilled to a {@link SpillStore} on local disk instead of being dropped.
+ * <p>
+ * The heap budget is the in-memory engine's capacity limit, {@code warmest.capacity.max-entries} and/or
+ * {@code warmest.capacity.max-bytes}. Every entry on disk was evicted while it was the coldest in the heap, so the disk
+ * tier is colder than the heap tier, and ordered by spill time: {@link #getWarmest(int)} continues on disk where the
+ * heap ends. A get that misses the heap and finds the key on disk moves it back into the heap as the warmest entry,
+ * which may spill the coldest heap entry in turn. Puts and removes of a key that is on disk drop it there.
+ * <p>
+ * Gets run under a read lock of this engine, so they are as concurrent as those of the in-memory engine; a miss in the
+ * heap looks the key up in the disk index there too. Only a get that finds its key on disk, to move it into the heap,
+ * and every change take the write lock. Evictions are collected while the in-memory engine holds its own write lock
+ * and written to disk afterward, in one write. Hits per tier and their latencies are reported through the probe and
+ * {@link TieredMetrics}.
+ * <p>
+ * The disk tier is scratch space, emptied on startup: snapshots, the write-ahead log and replication cover the heap
+ * tier only. No time to live, as spilled entries have no deadline.
+ * <p>
+ * Selected by activating the {@code tiered} profile, setting {@code warmest.tiered.path} and a capacity limit; as the
+ * {@link Primary} bean it wraps the in-memory engine (a bean is never injected into itself, so the delegate is the
+ * local engine).
+ */
+@Repository
+@Primary
+@Profile("tiered & !redis & !reactive")
+public class TieredWarmestDataStructure implements WarmestDataStructureInterface, WarmestDataStructureDecorator, EngineProbeAware, DisposableBean {
+
+	private final WarmestDataStructureInterface delegate;
+	private final WarmestDataStructure heap;
+	private final SpillStore disk;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	/**
+	 * Entries the heap evicted and that are not on disk yet.
+	 */
+	private final List<Spill> pendingSpills = new ArrayList<>();
+	private final LongAdder heapHits = new LongAdder();
+	private final LongAdder diskHits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private EngineProbe probe = null;
+
+	/**
+	 * @param directory   where the segment files of the disk tier are kept; existing ones are deleted
+	 * @param segmentSize size at which a segment file is closed and a new one started, at most 1GB
+	 */
+	public TieredWarmestDataStructure(WarmestDataStructureInterface delegate,
+	                                  ObjectProvider<MeterRegistry> meterRegistry,
+	                                  @Value("${warmest.tiered.path}") Path directory,
+	                                  @Value("${warmest.tiered.segment-size:64MB}") DataSize segmentSize) throws IOException {
+		this.delegate = delegate;
+		heap = WarmestDataStructureDecorator.unwrap(delegate, WarmestDataStructure.class);
+		if (heap == null) {
+			throw new IllegalStateException("The tiered profile requires the in-memory engine, but the active engine is " + delegate.getClass().getSimpleName());
+		}
+		if (!heap.isCapacityBounded()) {
+			throw new IllegalStateException("The tiered profile requires warmest.capacity.max-entries or warmest.capacity.max-bytes as the heap budget");
+		}
+		if (segmentSize.toBytes() <= 0 || segmentSize.toBytes() > DataSize.ofGigabytes(1).toBytes()) {
+			throw new IllegalArgumentException("warmest.tiered.segment-size must be between 1B and 1GB: " + segmentSize);
+		}
+		disk = new SpillStore(directory, (int) segmentSize.toBytes());
+		heap.setEvictionListener((key, value) -> {
+			synchronized (pendingSpills) {
+				pendingSpills.add(new Spill(key, value));
+			}
+		});
+		meterRegistry.ifAvailable(registry -> TieredMetrics.bind(registry, this));
+	}
+
+	/**
+	 * @param value {@link #NO_VALUE} or an int
+	 */
+	private static Integer box(long value) {
+		return value == NO_VALUE ?
+				null :
+				(int) value;
+	}
+
+	@Override
+	public WarmestDataStructureInterface getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public void setProbe(EngineProbe probe) {
+		this.probe = probe;
+	}
+
+	/**
+	 * Writes the entries the heap evicted to disk.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void spillPending() {
+		synchronized (pendingSpills) {
+			if (pendingSpills.isEmpty()) {
+				return;
+			}
+			for (Spill spill : pendingSpills) {
+				disk.append(spill.key(), spill.value());
+			}
+			pendingSpills.clear();
+		}
+		disk.flush();
+	}
+
+	private boolean hasPendingSpills() {
+		synchronized (pendingSpills) {
+			return !pendingSpills.isEmpty();
+		}
+	}
+
+	private void recordGet(String tier, LongAdder hits, long startedAt) {
+		hits.increment();
+		if (probe != null) {
+			probe.tierGet(tier, System.nanoTime() - startedAt);
+		}
+	}
+
+	// ==================== Single-key operations ====================
+
+	@Override
+	public Integer put(String key, int value) {
+		return box(putInt(key, value));
+	}
+
+	@Override
+	public long putInt(String key, int value) {
+		lock.writeLock().lock();
+		try {
+			spillPending();
+			long previousValue = delegate.putInt(key, value);
+			if (previousValue == NO_VALUE) {
+				previousValue = disk.remove(key);
+			}
+			spillPending();
+			return previousValue;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public Integer get(String key) {
+		return box(getInt(key));
+	}
+
+	@Override
+	public long getInt(String key) {
+		long startedAt = probe == null ?
+				0 :
+				System.nanoTime();
+		lock.readLock().lock();
+		try {
+			long value = delegate.getInt(key);
+			if (value != NO_VALUE) {
+				recordGet("heap", heapHits, startedAt);
+				return value;
+			}
+			if (!hasPendingSpills() && !disk.contains(key)) {
+				recordGet("miss", misses, startedAt);
+				return NO_VALUE;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		lock.writeLock().lock();
+		try {
+			spillPending();
+			return getUnderWriteLock(key, startedAt);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Looks the key up in the heap, then on disk, moving it into the heap if it was there.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private long getUnderWriteLock(String key, long startedAt) {
+		// Another get may have moved the key into the heap since the read lock was released
+		long value = delegate.getInt(key);
+		if (value != NO_VALUE) {
+			recordGet("heap", heapHits, startedAt);
+			return value;
+		}
+		value = disk.remove(key);
+		if (value == NO_VALUE) {
+			recordGet("miss", misses, startedAt);
+			return NO_VALUE;
+		}
+		delegate.putInt(key, (int) value);
+		spillPending();
+		recordGet("disk", diskHits, startedAt);
+		return value;
+	}
+
+	@Override
+	public Integer remove(String key) {
+		return box(removeInt(key));
+	}
+
+	@Override
+	public long removeInt(String key) {
+		lock.writeLock().lock();
+		try {
+			spillPending();
+			long previousValue = delegate.removeInt(key);
+			return previousValue == NO_VALUE ?
+					disk.remove(key) :
+					previousValue;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * The heap's warmest key; the disk's only while the heap is empty.
+	 */
+	@Override
+	public String getWarmest() {
+		lock.readLock().lock();
+		try {
+			String warmest = delegate.getWarmest();
+			if (warmest != null) {
+				return warmest;
+			}
+			List<String> spilled = disk.warmestKeys(1);
+			return spilled.isEmpty() ?
+					null :
+					spilled.get(0);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Continues on disk where the heap ends. Complexity: O(n) while the heap holds n entries; otherwise it also scans
+	 * the disk index, O(d log n) for d entries on disk.
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		lock.readLock().lock();
+		try {
+			List<String> warmest = new ArrayList<>(delegate.getWarmest(n));
+			warmest.addAll(disk.warmestKeys(n - warmest.size()));
+			return warmest;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// ==================== Batch operations: one write lock acquisition of this engine each ====================
+
+	/**
+	 * Puts the entries one at a time, so that a key evicted by an earlier entry of the batch is on disk before a later
+	 * entry looks for it there.
+	 */
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		lock.writeLock().lock();
+		try {
+			spillPending();
+			entries.forEach((key, value) -> {
+				long previousValue = delegate.putInt(key, value);
+				if (previousValue == NO_VALUE) {
+					previousValue = disk.remove(key);
+				}
+				spillPending();
+				previousValues.put(key, box(previousValue));
+			});
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return previousValues;
+	}
+
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		lock.writeLock().lock();
+		try {
+			spillPending();
+			for (String key : keys) {
+				long startedAt = probe == null ?
+						0 :
+						System.nanoTime();
+				values.put(key, box(getUnderWriteLock(key, startedAt)));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return values;
+	}
+
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		lock.writeLock().lock();
+		try {
+			spillPending();
+			Map<String, Integer> previousValues = delegate.removeAll(keys);
+			previousValues.replaceAll((key, previousValue) -> {
+				if (previousValue != null) {
+					return previousValue;
+				}
+				return box(disk.remove(key));
+			});
+			return previousValues;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// ==================== Stats ====================
+
+	/**
+	 * @return a consistent view of both tiers and the hit counts since startup
+	 */
+	public Stats stats() {
+		lock.readLock().lock();
+		try {
+			return new Stats(heap.size(), disk.size(), disk.fileBytes(),
+					heapHits.sum(), diskHits.sum(), misses.sum());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		lock.writeLock().lock();
+		try {
+			disk.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param diskBytes bytes the segment files take, including removed records not reclaimed yet
+	 */
+	public record Stats(int heapEntries, int diskEntries, long diskBytes, long heapHits, long diskHits, long misses) {
+		/**
+		 * @return the share of the gets that found their key which found it in the heap, NaN before the first one
+		 */
+		public double heapHitRatio() {
+			long hits = heapHits + diskHits;
+			return hits == 0 ?
+					Double.NaN :
+					(double) heapHits / hits;
+		}
+	}
+
+	private record Spill(String key, int value) {
+	}
+}
@@ -0,0 +1,171 @@
+package io.github.ashr123.warmestdata.dto;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel over {@link System#nanoTime()} deadlines.
+ * <p>
+ * Four levels of 64 buckets: a level-0 bucket spans 2^23 ns (~8.4 ms) and every level is 64 times coarser than the one
+ * below, so the wheel covers ~39 hours before timers wrap around; a wrapped timer is just looked at early and put back.
+ * Every bucket is an intrusive doubly linked list, so {@link #schedule}, {@link #reschedule} and {@link #cancel} are
+ * O(1). {@link #advance} only visits the buckets the clock moved past; a timer is expired there if its deadline has
+ * passed and otherwise moved down to a finer level, so each timer is touched at most once per level.
+ * <p>
+ * Not thread-safe: the owning engine calls it while holding its write lock.
+ *
+ * @param <T> the payload handed back when a timer expires
+ */
+public final class TimerWheel<T> {
+
+	private static final int BUCKET_BITS = 6;
+	private static final int BUCKETS = 1 << BUCKET_BITS;
+	private static final int MASK = BUCKETS - 1;
+	private static final int LEVELS = 4;
+	private static final int TICK_BITS = 23;
+
+	private final Timer<T>[][] wheel;
+	private long nanos;
+	private int size = 0;
+
+	/**
+	 * @param nanos the current time
+	 */
+	@SuppressWarnings("unchecked")
+	public TimerWheel(long nanos) {
+		this.nanos = nanos;
+		wheel = new Timer[LEVELS][BUCKETS];
+		for (Timer<T>[] level : wheel) {
+			for (int i = 0; i < BUCKETS; i++) {
+				Timer<T> sentinel = new Timer<>(null, 0);
+				sentinel.prev = sentinel;
+				sentinel.next = sentinel;
+				level[i] = sentinel;
+			}
+		}
+	}
+
+	private static int shift(int level) {
+		return TICK_BITS + level * BUCKET_BITS;
+	}
+
+	/**
+	 * @return the number of scheduled timers
+	 */
+	public int size() {
+		return size;
+	}
+
+	public void schedule(Timer<T> timer) {
+		link(bucketFor(timer.deadline), timer);
+		size++;
+	}
+
+	public void reschedule(Timer<T> timer, long deadline) {
+		unlink(timer);
+		timer.deadline = deadline;
+		link(bucketFor(deadline), timer);
+	}
+
+	public void cancel(Timer<T> timer) {
+		unlink(timer);
+		size--;
+	}
+
+	/**
+	 * Moves the clock to now, handing the payload of every timer whose deadline has passed to onExpired. The expired
+	 * timers are already unscheduled when onExpired runs.
+	 */
+	public void advance(long now, Consumer<T> onExpired) {
+		long previous = nanos;
+		nanos = now;
+		for (int level = 0; level < LEVELS; level++) {
+			long previousTicks = previous >> shift(level);
+			long delta = (now >> shift(level)) - previousTicks;
+			if (delta <= 0) {
+				// Coarser levels tick even less often
+				break;
+			}
+			expire(level, previousTicks, delta, onExpired);
+		}
+	}
+
+	/**
+	 * Empties the buckets from the one the clock left through the one it is now in (at most all of them), expiring the
+	 * due timers and rescheduling the rest.
+	 */
+	private void expire(int level, long previousTicks, long delta, Consumer<T> onExpired) {
+		Timer<T>[] buckets = wheel[level];
+		int count = (int) Math.min(delta + 1, BUCKETS);
+		for (int i = 0; i < count; i++) {
+			Timer<T> sentinel = buckets[(int) ((previousTicks + i) & MASK)];
+			Timer<T> timer = sentinel.next;
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+			while (timer != sentinel) {
+				Timer<T> next = timer.next;
+				if (timer.deadline - nanos <= 0) {
+					timer.prev = null;
+					timer.next = null;
+					size--;
+					onExpired.accept(timer.value);
+				} else {
+					link(bucketFor(timer.deadline), timer);
+				}
+				timer = next;
+			}
+		}
+	}
+
+	/**
+	 * The finest level whose range covers the deadline; a deadline that has already passed goes to the current bucket.
+	 */
+	private Timer<T> bucketFor(long deadline) {
+		long time = deadline - nanos > 0 ?
+				deadline :
+				nanos;
+		long duration = time - nanos;
+		for (int level = 0; level < LEVELS - 1; level++) {
+			if (duration < 1L << shift(level + 1)) {
+				return wheel[level][(int) ((time >> shift(level)) & MASK)];
+			}
+		}
+		return wheel[LEVELS - 1][(int) ((time >> shift(LEVELS - 1)) & MASK)];
+	}
+
+	private static <T> void link(Timer<T> sentinel, Timer<T> timer) {
+		timer.prev = sentinel.prev;
+		timer.next = sentinel;
+		sentinel.prev.next = timer;
+		sentinel.prev = timer;
+	}
+
+	private static <T> void unlink(Timer<T> timer) {
+		timer.prev.next = timer.next;
+		timer.next.prev = timer.prev;
+		timer.prev = null;
+		timer.next = null;
+	}
+
+	/**
+	 * A deadline and its payload; links itself into one bucket at a time.
+	 */
+	public static final class Timer<T> {
+		private final T value;
+		private long deadline;
+		private Timer<T> prev;
+		private Timer<T> next;
+
+		public Timer(T value, long deadline) {
+			this.value = value;
+			this.deadline = deadline;
+		}
+
+		public T value() {
+			return value;
+		}
+
+		public long deadline() {
+			return deadline;
+		}
+	}
+}
@@ -1,23 +1,298 @@
 package io.github.ashr123.warmestdata.dto;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Thread-safe implementation of WarmestDataStructureInterface using a custom doubly linked list
  * and HashMap for O(1) operations.
+ * <p>
+ * Optionally capacity-bounded: once an insert takes the entry count above {@code warmest.capacity.max-entries} or the
+ * estimated footprint ({@link #estimateBytes(String)}) above {@code warmest.capacity.max-bytes}, the coldest entries are
+ * popped from the head of the list, O(1) each, until both are within their limits again. Evictions are reported to the
+ * {@link EvictionListener} and the probe, and logged as removes. Both limits default to 0, meaning unbounded.
+ * <p>
+ * Entries put with a time to live get a timer in a {@link TimerWheel}. An entry whose deadline has passed is invisible
+ * at once: reads skip it, so {@link #getWarmest()} falls back to the warmest entry still alive. Every write-lock
+ * acquisition advances the wheel and removes the entries that expired since, so the cost is O(1) per expired entry and
+ * nothing is ever scanned. So that an idle engine frees them as well, a background tick every
+ * {@code warmest.ttl.sweep-interval} takes the write lock if it is free and does the same. Expiries are reported to the
+ * probe and the {@link EvictionListener}, and logged as removes.
+ * <p>
+ * An {@link AccessListener} is told every key an operation makes the warmest, in order, while the lock is held.
+ * <p>
+ * A {@link WarmestKeyListener} is told the new warmest key, the key at the tail of the list, whenever a write lock
+ * acquisition ends with a different one, so a batch or a restore is reported once.
  */
 @Repository
-@Profile("!redis")
-public class WarmestDataStructure implements WarmestDataStructureInterface {
+@Profile("!redis & !reactive & !segmented & !buffered & !primitive & !mapped")
+public class WarmestDataStructure implements WarmestDataStructureInterface, EngineProbeAware {
+
+	/**
+	 * Two nodes (32 B each) and ~8 B of table slots per entry, as measured in output/PRIMITIVE-MEMORY-FOOTPRINT.md.
+	 */
+	private static final long ENTRY_OVERHEAD_BYTES = 72;
+	private static final long STRING_BYTES = 24;
+	private static final long ARRAY_HEADER_BYTES = 16;
+	/**
+	 * ~100 years; longer times to live are capped so deadlines cannot overflow.
+	 */
+	private static final long MAX_TTL_MILLIS = TimeUnit.DAYS.toMillis(36_500);
+	/**
+	 * Result of {@link #tryGetWithReadLock(String)} for a key that is not the tail; outside the int range, like
+	 * {@link #NO_VALUE}.
+	 */
+	private static final long NEEDS_MOVE = Long.MIN_VALUE + 1;
+	/**
+	 * How many nodes {@link #snapshot()} copies per read lock acquisition.
+	 */
+	private static final int SNAPSHOT_CHUNK = 4096;
+	/**
+	 * Runs the {@link ExpiryTick} of every engine that has entries with a time to live.
+	 */
+	private static final ScheduledExecutorService EXPIRY_TICKER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "warmest-expiry-ticker");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	private final Map<String, Node> map = new HashMap<>();
 	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final long maxEntries;
+	private final long maxBytes;
+	private final long sweepIntervalNanos;
+	/**
+	 * The time deadlines are measured in; {@link System#nanoTime()} unless a test controls it.
+	 */
+	private final LongSupplier nanoClock;
+	private Node head = null;  // Oldest (coldest)
 	private Node tail = null;  // Newest (warmest)
+	private long estimatedBytes = 0;  // Only tracked while maxBytes is set
+	private EngineProbe probe = null;
+	private MutationLog mutationLog = null;
+	private EvictionListener evictionListener = null;
+	private AccessListener accessListener = null;
+	private WarmestKeyListener warmestKeyListener = null;
+	private String reportedWarmestKey = null;  // Last key passed to the warmest key listener
+	private TimerWheel<Node> timerWheel = null;  // Created by the first put with a time to live
+	private ExpiryTick expiryTick = null;  // Scheduled when the timer wheel is first created
+	private final Consumer<Node> expireAction = this::expire;
+	private final ReentrantLock snapshotLock = new ReentrantLock();
+	private SnapshotCapture snapshotCapture = null;  // Only set while snapshot() copies
+
+	public WarmestDataStructure() {
+		this(0, DataSize.ofBytes(0));
+	}
+
+	/**
+	 * @param maxEntries evict the coldest entries while there are more than this many, 0 for no limit
+	 * @param maxBytes   evict the coldest entries while the estimated footprint exceeds this, 0 for no limit
+	 */
+	public WarmestDataStructure(long maxEntries, DataSize maxBytes) {
+		this(maxEntries, maxBytes, Duration.ofMillis(100));
+	}
+
+	/**
+	 * @param maxEntries    evict the coldest entries while there are more than this many, 0 for no limit
+	 * @param maxBytes      evict the coldest entries while the estimated footprint exceeds this, 0 for no limit
+	 * @param sweepInterval how often a background tick removes the expired entries, 0 to leave that to the writes
+	 */
+	@Autowired
+	public WarmestDataStructure(@Value("${warmest.capacity.max-entries:0}") long maxEntries,
+	                            @Value("${warmest.capacity.max-bytes:0B}") DataSize maxBytes,
+	                            @Value("${warmest.ttl.sweep-interval:100ms}") Duration sweepInterval) {
+		this(maxEntries, maxBytes, sweepInterval, System::nanoTime);
+	}
+
+	/**
+	 * @param nanoClock the time deadlines are measured in, like {@link System#nanoTime()}
+	 */
+	public WarmestDataStructure(long maxEntries, DataSize maxBytes, Duration sweepInterval, LongSupplier nanoClock) {
+		if (maxEntries < 0 || maxBytes.isNegative()) {
+			throw new IllegalArgumentException("Capacity limits must not be negative");
+		}
+		if (sweepInterval.isNegative()) {
+			throw new IllegalArgumentException("Sweep interval must not be negative");
+		}
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes.toBytes();
+		this.sweepIntervalNanos = sweepInterval.toNanos();
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Estimated retained size of one entry: the fixed per-entry overhead plus the key, a String and its compact
+	 * {@code byte[]} (1 B per char, or 2 B per char if any char is above U+00FF), rounded to 8 B object alignment.
+	 */
+	public static long estimateBytes(String key) {
+		long length = key.length();
+		for (int i = 0; i < key.length(); i++) {
+			if (key.charAt(i) > 0xFF) {
+				length *= 2;
+				break;
+			}
+		}
+		return ENTRY_OVERHEAD_BYTES + STRING_BYTES + ((ARRAY_HEADER_BYTES + length + 7) & ~7);
+	}
+
+	@Override
+	public void setProbe(EngineProbe probe) {
+		this.probe = probe;
+	}
+
+	/**
+	 * Must be called before the engine is used concurrently. Changes made by {@link #restore(EntrySource)} are not
+	 * logged, so restore before setting the log. Once the log fails, every write is rejected before it changes anything.
+	 */
+	public void setMutationLog(MutationLog mutationLog) {
+		this.mutationLog = mutationLog;
+	}
+
+	/**
+	 * @return the log set by {@link #setMutationLog(MutationLog)}, or null
+	 */
+	public MutationLog getMutationLog() {
+		return mutationLog;
+	}
+
+	/**
+	 * Must be called before the engine is used concurrently.
+	 */
+	public void setEvictionListener(EvictionListener evictionListener) {
+		this.evictionListener = evictionListener;
+	}
+
+	/**
+	 * Must be called before the engine is used concurrently.
+	 */
+	public void setAccessListener(AccessListener accessListener) {
+		this.accessListener = accessListener;
+	}
+
+	/**
+	 * Calls the listener with the current warmest key right away, then whenever a write changes it. Unlike the other
+	 * listeners, may be set while the engine is in use.
+	 */
+	public void setWarmestKeyListener(WarmestKeyListener warmestKeyListener) {
+		long acquiredAt = lockWrite();
+		try {
+			this.warmestKeyListener = warmestKeyListener;
+			reportedWarmestKey = tail == null ?
+					null :
+					tail.key;
+			warmestKeyListener.warmestChanged(reportedWarmestKey);
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+	}
+
+	/**
+	 * Acquires the write lock, reporting the wait to the probe if one is set, and removes the entries that expired since
+	 * the last acquisition.
+	 *
+	 * @return the time the lock was acquired, for {@link #unlockWrite(long)}
+	 */
+	private long lockWrite() {
+		long acquiredAt = 0;
+		if (probe == null) {
+			lock.writeLock().lock();
+		} else {
+			long start = System.nanoTime();
+			lock.writeLock().lock();
+			acquiredAt = System.nanoTime();
+			probe.writeLockWaited(acquiredAt - start);
+		}
+		if (timerWheel != null) {
+			timerWheel.advance(nanoClock.getAsLong(), expireAction);
+		}
+		return acquiredAt;
+	}
+
+	/**
+	 * Removes the entries that expired since the last write lock acquisition, unless a writer holds the lock, which does
+	 * the same anyway. Called by the {@link ExpiryTick}, so the expiries reach the listeners without any write.
+	 */
+	private void expireDue() {
+		if (!lock.writeLock().tryLock()) {
+			return;
+		}
+		long acquiredAt = probe == null ?
+				0 :
+				System.nanoTime();
+		if (timerWheel != null) {
+			timerWheel.advance(nanoClock.getAsLong(), expireAction);
+		}
+		unlockWrite(acquiredAt);
+	}
+
+	/**
+	 * Releases the write lock, reporting a new warmest key to the listener and the hold time to the probe if they are
+	 * set.
+	 */
+	private void unlockWrite(long acquiredAt) {
+		if (warmestKeyListener != null) {
+			String warmestKey = tail == null ?
+					null :
+					tail.key;
+			if (!Objects.equals(warmestKey, reportedWarmestKey)) {
+				reportedWarmestKey = warmestKey;
+				warmestKeyListener.warmestChanged(warmestKey);
+			}
+		}
+		if (probe != null) {
+			probe.writeLockHeld(System.nanoTime() - acquiredAt);
+		}
+		lock.writeLock().unlock();
+	}
+
+	/**
+	 * Rejects a change the log can no longer record, so that none is applied that a restart would lose.
+	 *
+	 * @implNote Must be called while holding write lock, before the change is applied.
+	 */
+	private void checkLogWritable() {
+		if (mutationLog != null) {
+			mutationLog.checkWritable();
+		}
+	}
+
+	/**
+	 * Waits until the log record appended while holding the write lock is durable.
+	 *
+	 * @param sequence the record's sequence number, 0 if nothing was logged
+	 */
+	private void awaitDurable(long sequence) {
+		if (sequence != 0) {
+			mutationLog.awaitDurable(sequence);
+		}
+	}
 
 	/**
 	 * Detaches a node from its current position in the linked list.
@@ -26,7 +301,11 @@ public class WarmestDataStructure implements WarmestDataStructureInterface {
 	 * @implNote Must be called while holding write lock.
 	 */
 	private void detach(Node node) {
-		if (node.prev != null) {
+		touched(node);
+		if (node.prev == null) {
+			// Node was head
+			head = node.next;
+		} else {
 			node.prev.next = node.next;
 		}
 
@@ -48,10 +327,13 @@ public class WarmestDataStructure implements WarmestDataStructureInterface {
 	 * @implNote Must be called while holding write lock.
 	 */
 	private void attachToTail(Node node) {
+		touched(node);
 		node.prev = tail;
 		node.next = null;
 
-		if (tail != null) {
+		if (tail == null) {
+			head = node;
+		} else {
 			tail.next = node;
 		}
 		tail = node;
@@ -67,31 +349,233 @@ public class WarmestDataStructure implements WarmestDataStructureInterface {
 		if (node != tail) {
 			detach(node);
 			attachToTail(node);
+		} else {
+			// Already at tail, but its value or deadline is about to change
+			touched(node);
+		}
+	}
+
+	/**
+	 * Reports an access to the listener if one is set.
+	 *
+	 * @implNote Must be called while holding write lock, or read lock if key already is the warmest.
+	 */
+	private void accessed(String key) {
+		if (accessListener != null) {
+			accessListener.accessed(key);
+		}
+	}
+
+	/**
+	 * Detaches a node that was removed from the map, cancels its timer and releases its estimated footprint.
+	 *
+	 * @param node the removed node
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void unlink(Node node) {
+		detach(node);
+		setTimeToLive(node, 0);
+		if (maxBytes != 0) {
+			estimatedBytes -= estimateBytes(node.key);
+		}
+	}
+
+	/**
+	 * @return whether the node has a deadline and it has passed
+	 * @implNote Must be called while holding read or write lock.
+	 */
+	private boolean isExpired(Node node) {
+		return node.timer != null && node.timer.deadline() - nanoClock.getAsLong() <= 0;
+	}
+
+	/**
+	 * Looks up a node, removing it right away if it has expired but its timer has not fired yet.
+	 *
+	 * @return the live node of key, or null if there is none
+	 * @implNote Must be called while holding write lock.
+	 */
+	private Node liveNode(String key) {
+		Node node = map.get(key);
+		if (node != null && isExpired(node)) {
+			timerWheel.cancel(node.timer);
+			expire(node);
+			return null;
+		}
+		return node;
+	}
+
+	/**
+	 * Removes an entry whose time to live has elapsed, logging it as a remove. Nothing waits for that record: the put
+	 * that set the deadline is logged, so a replay expires the entry anyway.
+	 *
+	 * @param node the expired node, whose timer is no longer scheduled
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void expire(Node node) {
+		node.timer = null;
+		map.remove(node.key);
+		unlink(node);
+		if (mutationLog != null) {
+			mutationLog.appendRemove(node.key);
+		}
+		if (probe != null) {
+			probe.expired(1);
+		}
+		if (evictionListener != null) {
+			evictionListener.expired(node.key, node.value);
 		}
-		// Already at tail, nothing to do
+	}
+
+	/**
+	 * Sets, moves or clears the node's deadline.
+	 *
+	 * @param ttlMillis the time to live from now, 0 to never expire
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void setTimeToLive(Node node, long ttlMillis) {
+		if (ttlMillis == 0) {
+			if (node.timer != null) {
+				timerWheel.cancel(node.timer);
+				node.timer = null;
+			}
+			return;
+		}
+
+		long now = nanoClock.getAsLong();
+		if (timerWheel == null) {
+			timerWheel = new TimerWheel<>(now);
+			if (expiryTick == null && sweepIntervalNanos != 0) {
+				expiryTick = ExpiryTick.schedule(this, sweepIntervalNanos);
+			}
+		}
+		long deadline = now + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		if (node.timer == null) {
+			node.timer = new TimerWheel.Timer<>(node, deadline);
+			timerWheel.schedule(node.timer);
+		} else {
+			timerWheel.reschedule(node.timer, deadline);
+		}
+	}
+
+	/**
+	 * Pops the coldest entries until both capacity limits hold again, logging every eviction as a remove so that a
+	 * replay does not depend on the limits it runs with. The warmest entry is never evicted, even if it alone exceeds
+	 * the byte budget.
+	 *
+	 * @param sequence the sequence of the last record this operation logged so far, 0 if none
+	 * @return the sequence of the last record this operation logged, 0 if none
+	 * @implNote Must be called while holding write lock.
+	 */
+	private long evictOverflow(long sequence) {
+		while (head != tail) {
+			String limit;
+			if (maxEntries != 0 && map.size() > maxEntries) {
+				limit = "entries";
+			} else if (maxBytes != 0 && estimatedBytes > maxBytes) {
+				limit = "bytes";
+			} else {
+				break;
+			}
+
+			Node node = head;
+			map.remove(node.key);
+			unlink(node);
+			if (mutationLog != null) {
+				sequence = mutationLog.appendRemove(node.key);
+			}
+			if (probe != null) {
+				probe.evicted(limit);
+			}
+			if (evictionListener != null) {
+				evictionListener.evicted(node.key, node.value);
+			}
+		}
+		return sequence;
+	}
+
+	/**
+	 * @param value {@link #NO_VALUE} or an int
+	 */
+	private static Integer box(long value) {
+		return value == NO_VALUE ?
+				null :
+				(int) value;
 	}
 
 	@Override
 	public Integer put(String key, int value) {
-		lock.writeLock().lock();
+		return box(putWithDeadline(key, value, 0, 0));
+	}
+
+	/**
+	 * Allocates nothing when the key is already mapped; an insert allocates only the new node.
+	 */
+	@Override
+	public long putInt(String key, int value) {
+		return putWithDeadline(key, value, 0, 0);
+	}
+
+	@Override
+	public boolean supportsTimeToLive() {
+		return true;
+	}
+
+	/**
+	 * Times to live above ~100 years are capped.
+	 */
+	@Override
+	public Integer put(String key, int value, long ttlMillis) {
+		if (ttlMillis <= 0) {
+			throw new IllegalArgumentException("Time to live must be positive");
+		}
+		ttlMillis = Math.min(ttlMillis, MAX_TTL_MILLIS);
+		return box(putWithDeadline(key, value, ttlMillis, System.currentTimeMillis() + ttlMillis));
+	}
+
+	/**
+	 * @param ttlMillis       the time to live, 0 to never expire
+	 * @param expiresAtMillis the epoch millisecond the entry expires at, for the log; ignored without a time to live
+	 * @return the previous value, or {@link #NO_VALUE}
+	 */
+	private long putWithDeadline(String key, int value, long ttlMillis, long expiresAtMillis) {
+		long previousValue;
+		long sequence = 0;
+		long acquiredAt = lockWrite();
 		try {
-			Node existingNode = map.get(key);
-			return existingNode == null
+			checkLogWritable();
+			Node existingNode = liveNode(key);
+			previousValue = existingNode == null
 					? insertNewNode(key, value)
 					: updateExistingNode(existingNode, value);
+			// Either way the node is now the tail
+			setTimeToLive(tail, ttlMillis);
+			accessed(key);
+			if (mutationLog != null) {
+				sequence = ttlMillis == 0 ?
+						mutationLog.appendPut(key, value) :
+						mutationLog.appendPut(key, value, expiresAtMillis);
+			}
+			if (existingNode == null) {
+				sequence = evictOverflow(sequence);
+			}
 		} finally {
-			lock.writeLock().unlock();
+			unlockWrite(acquiredAt);
 		}
+		awaitDurable(sequence);
+		return previousValue;
 	}
 
-	private Integer insertNewNode(String key, int value) {
+	private long insertNewNode(String key, int value) {
 		Node newNode = new Node(key, value);
 		map.put(key, newNode);
 		attachToTail(newNode);
-		return null;
+		if (maxBytes != 0) {
+			estimatedBytes += estimateBytes(key);
+		}
+		return NO_VALUE;
 	}
 
-	private Integer updateExistingNode(Node node, int newValue) {
+	private long updateExistingNode(Node node, int newValue) {
 		int previousValue = node.value;
 		node.value = newValue;
 		moveToTail(node);
@@ -100,89 +584,626 @@ public class WarmestDataStructure implements WarmestDataStructureInterface {
 
 	@Override
 	public Integer get(String key) {
-		ReadLockResult readResult = tryGetWithReadLock(key);
-		return switch (readResult.status()) {
-			case NOT_FOUND -> null;
-			case AT_TAIL -> readResult.value();
-			case NEEDS_MOVE -> moveNodeAndGetValue(key);
-		};
+		return box(getInt(key));
+	}
+
+	/**
+	 * Allocates nothing: the read-locked part reports its outcome as a primitive, see
+	 * {@link #tryGetWithReadLock(String)}.
+	 */
+	@Override
+	public long getInt(String key) {
+		long readResult = tryGetWithReadLock(key);
+		if (probe != null) {
+			probe.getOutcome((readResult == NO_VALUE ?
+					GetStatus.NOT_FOUND :
+					readResult == NEEDS_MOVE ?
+							GetStatus.NEEDS_MOVE :
+							GetStatus.AT_TAIL).name());
+		}
+		return readResult == NEEDS_MOVE ?
+				moveNodeAndGetValue(key) :
+				readResult;
+	}
+
+	/**
+	 * Reads the value of key without making it the warmest and without logging an access.
+	 */
+	public Integer peek(String key) {
+		lock.readLock().lock();
+		try {
+			Node node = map.get(key);
+			return node == null || isExpired(node) ?
+					null :
+					node.value;
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	/**
 	 * Reads the node under read lock.
 	 * <ul>
-	 *   <li>NOT_FOUND  – key absent</li>
-	 *   <li>AT_TAIL    – key found and already warmest; value is safe to return (lock still held)</li>
-	 *   <li>NEEDS_MOVE – key found but must be moved to tail under write lock</li>
+	 *   <li>{@link #NO_VALUE}   – key absent</li>
+	 *   <li>the value           – key found and already warmest; value is safe to return (lock still held)</li>
+	 *   <li>{@link #NEEDS_MOVE} – key found but must be moved to tail under write lock</li>
 	 * </ul>
 	 */
-	private ReadLockResult tryGetWithReadLock(String key) {
+	private long tryGetWithReadLock(String key) {
 		lock.readLock().lock();
 		try {
 			Node node = map.get(key);
-			return node == null ?
-					new ReadLockResult(GetStatus.NOT_FOUND, null) :
-					node == tail ?
-							// node.value is safe: read lock prevents any writer from mutating it
-							new ReadLockResult(GetStatus.AT_TAIL, node.value) :
-							new ReadLockResult(GetStatus.NEEDS_MOVE, null);
+			if (node == null || isExpired(node)) {
+				return NO_VALUE;
+			}
+			if (node != tail) {
+				return NEEDS_MOVE;
+			}
+			accessed(key);
+			// node.value is safe: read lock prevents any writer from mutating it
+			return node.value;
 		} finally {
 			lock.readLock().unlock();
 		}
 	}
 
-	private Integer moveNodeAndGetValue(String key) {
-		lock.writeLock().lock();
+	/**
+	 * @return the value, or {@link #NO_VALUE} if the key expired or was removed since the read lock was released
+	 */
+	private long moveNodeAndGetValue(String key) {
+		int value;
+		long sequence = 0;
+		long acquiredAt = lockWrite();
 		try {
-			Node node = map.get(key);
+			Node node = liveNode(key);
 			if (node == null) {
-				return null;
+				return NO_VALUE;
 			}
 
+			checkLogWritable();
 			moveToTail(node);
-			return node.value;
+			accessed(key);
+			value = node.value;
+			if (mutationLog != null) {
+				sequence = mutationLog.appendAccess(key);
+			}
 		} finally {
-			lock.writeLock().unlock();
+			unlockWrite(acquiredAt);
 		}
+		awaitDurable(sequence);
+		return value;
 	}
 
 	@Override
 	public Integer remove(String key) {
-		lock.writeLock().lock();
+		return box(removeInt(key));
+	}
+
+	/**
+	 * Allocates nothing.
+	 */
+	@Override
+	public long removeInt(String key) {
+		int previousValue;
+		long sequence = 0;
+		long acquiredAt = lockWrite();
 		try {
-			Node node = map.remove(key);
+			Node node = liveNode(key);
 
 			if (node == null) {
-				return null;
+				return NO_VALUE;
+			}
+			checkLogWritable();
+			map.remove(key);
+			unlink(node);
+			previousValue = node.value;
+			if (mutationLog != null) {
+				sequence = mutationLog.appendRemove(key);
 			}
-			detach(node);
-			return node.value;
 		} finally {
-			lock.writeLock().unlock();
+			unlockWrite(acquiredAt);
 		}
+		awaitDurable(sequence);
+		return previousValue;
 	}
 
+	/**
+	 * Skips entries that have expired but were not removed yet, so the result is the warmest live key.
+	 */
 	@Override
 	public String getWarmest() {
 		lock.readLock().lock();
 		try {
-			return tail == null ?
+			Node node = tail;
+			while (node != null && isExpired(node)) {
+				node = node.prev;
+			}
+			return node == null ?
 					null :
-					tail.key;
+					node.key;
 		} finally {
 			lock.readLock().unlock();
 		}
 	}
 
+	/**
+	 * Walks {@code prev} from the tail under the read lock, skipping entries that have expired but were not removed yet.
+	 */
+	@Override
+	public List<String> getWarmest(int n) {
+		return getWarmest(n, Function.identity());
+	}
+
+	/**
+	 * Like {@link #getWarmest(int)}, but maps every key while the read lock is still held, so the mapping sees the
+	 * state the keys were read in: no {@link AccessListener} call but one for the warmest key can run in between.
+	 */
+	public <T> List<T> getWarmest(int n, Function<String, T> mapper) {
+		lock.readLock().lock();
+		try {
+			List<T> warmest = new ArrayList<>(Math.max(0, Math.min(n, map.size())));
+			for (Node node = tail; node != null && warmest.size() < n; node = node.prev) {
+				if (!isExpired(node)) {
+					warmest.add(mapper.apply(node.key));
+				}
+			}
+			return warmest;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of entries, including expired ones not removed yet
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return map.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return whether a capacity limit is set, so the engine evicts
+	 */
+	public boolean isCapacityBounded() {
+		return maxEntries != 0 || maxBytes != 0;
+	}
+
+	/**
+	 * Complexity: O(1) while {@code maxBytes} is set, which keeps the estimate up to date; O(n) otherwise.
+	 *
+	 * @return the estimated retained size of all entries, the sum of {@link #estimateBytes(String)}
+	 */
+	public long estimatedBytes() {
+		lock.readLock().lock();
+		try {
+			if (maxBytes != 0) {
+				return estimatedBytes;
+			}
+			long bytes = 0;
+			for (String key : map.keySet()) {
+				bytes += estimateBytes(key);
+			}
+			return bytes;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		long sequence = 0;
+		long acquiredAt = lockWrite();
+		try {
+			checkLogWritable();
+			for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+				String key = entry.getKey();
+				int value = entry.getValue();
+				Node existingNode = liveNode(key);
+				previousValues.put(key, box(existingNode == null
+						? insertNewNode(key, value)
+						: updateExistingNode(existingNode, value)));
+				setTimeToLive(tail, 0);
+				accessed(key);
+				if (mutationLog != null) {
+					sequence = mutationLog.appendPut(key, value);
+				}
+				if (existingNode == null) {
+					sequence = evictOverflow(sequence);
+				}
+			}
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+		awaitDurable(sequence);
+		return previousValues;
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		long sequence = 0;
+		long acquiredAt = lockWrite();
+		try {
+			checkLogWritable();
+			for (String key : keys) {
+				Node node = liveNode(key);
+				if (node == null) {
+					values.put(key, null);
+				} else {
+					moveToTail(node);
+					accessed(key);
+					values.put(key, node.value);
+					if (mutationLog != null) {
+						sequence = mutationLog.appendAccess(key);
+					}
+				}
+			}
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+		awaitDurable(sequence);
+		return values;
+	}
+
+	/**
+	 * Applies the whole batch under a single write lock acquisition.
+	 */
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		long sequence = 0;
+		long acquiredAt = lockWrite();
+		try {
+			checkLogWritable();
+			for (String key : keys) {
+				Node node = liveNode(key);
+				if (node != null) {
+					map.remove(key);
+					unlink(node);
+					previousValues.put(key, node.value);
+					if (mutationLog != null) {
+						sequence = mutationLog.appendRemove(key);
+					}
+				} else if (!previousValues.containsKey(key)) {
+					previousValues.put(key, null);
+				}
+			}
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+		awaitDurable(sequence);
+		return previousValues;
+	}
+
+	/**
+	 * Copies all live entries, coldest first, as of the moment the copy finishes, without holding a lock for the whole
+	 * copy.
+	 * <p>
+	 * Every write moves, inserts or removes the nodes it touches at the tail, so while a snapshot runs the list is the
+	 * untouched nodes, in their order at the start, followed by the nodes touched since. The list is walked from the
+	 * head in chunks of {@value #SNAPSHOT_CHUNK} nodes, each under the read lock, up to the first touched node; writers
+	 * record the nodes they touch meanwhile. A last read-locked step copies the touched suffix, which only holds the
+	 * keys written during the copy, and the copies of nodes touched after they were copied are dropped. Writers thus
+	 * wait for at most one chunk or the suffix at a time; encoding and I/O run on the copy without any lock.
+	 * Concurrent calls run one after the other.
+	 */
+	public Snapshot snapshot() {
+		snapshotLock.lock();
+		try {
+			SnapshotCapture capture;
+			lock.readLock().lock();
+			try {
+				capture = new SnapshotCapture(head, map.size());
+				snapshotCapture = capture;
+			} finally {
+				lock.readLock().unlock();
+			}
+
+			boolean more = true;
+			while (more) {
+				lock.readLock().lock();
+				try {
+					more = capture.copyChunk(nanoClock.getAsLong());
+				} finally {
+					lock.readLock().unlock();
+				}
+			}
+
+			SnapshotCapture suffix;
+			long sequence;
+			lock.readLock().lock();
+			try {
+				snapshotCapture = null;
+				Node first = tail;
+				while (first != null && capture.touched.contains(first.prev)) {
+					first = first.prev;
+				}
+				if (first != null && !capture.touched.contains(first)) {
+					first = null;
+				}
+				suffix = new SnapshotCapture(first, capture.touched.size());
+				while (suffix.copyChunk(nanoClock.getAsLong())) {
+					// The suffix holds no touched-set entries, so the chunks run until its end
+				}
+				sequence = mutationLog == null ?
+						0 :
+						mutationLog.lastSequence();
+			} finally {
+				lock.readLock().unlock();
+			}
+			// The touched set no longer changes, so the copies of nodes written since are dropped without a lock
+			return capture.merge(suffix, sequence);
+		} finally {
+			snapshotLock.unlock();
+		}
+	}
+
+	/**
+	 * Records the nodes a write touches while {@link #snapshot()} copies; does nothing otherwise.
+	 *
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void touched(Node node) {
+		SnapshotCapture capture = snapshotCapture;
+		if (capture != null) {
+			if (node == capture.cursor) {
+				// Keep walking from where the node was, not from where it goes
+				capture.cursor = node.next;
+			}
+			capture.touched.add(node);
+		}
+	}
+
+	/**
+	 * Puts every entry the source produces, in order, under a single write lock acquisition, so a source that streams a
+	 * snapshot coldest first rebuilds its recency order. A snapshot larger than the current capacity limits keeps its
+	 * warmest entries; entries that expired in the meantime are skipped.
+	 */
+	public void restore(EntrySource source) throws IOException {
+		long acquiredAt = lockWrite();
+		try {
+			putAllFrom(source);
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+	}
+
+	/**
+	 * Like {@link #restore(EntrySource)}, but removes all entries first, under the same write lock acquisition, so
+	 * readers see either the old or the new content. Nothing is logged and no listener is notified of the removals.
+	 */
+	public void replace(EntrySource source) throws IOException {
+		long acquiredAt = lockWrite();
+		try {
+			if (snapshotCapture != null) {
+				// Every node copied so far is gone; the new ones all count as touched
+				snapshotCapture.cleared = true;
+				snapshotCapture.cursor = null;
+			}
+			map.clear();
+			head = null;
+			tail = null;
+			estimatedBytes = 0;
+			timerWheel = null;
+			putAllFrom(source);
+		} finally {
+			unlockWrite(acquiredAt);
+		}
+	}
+
+	/**
+	 * @implNote Must be called while holding write lock.
+	 */
+	private void putAllFrom(EntrySource source) throws IOException {
+		source.forEach((key, value, expiresAtMillis) -> {
+			long ttlMillis = 0;
+			if (expiresAtMillis != 0) {
+				ttlMillis = expiresAtMillis - System.currentTimeMillis();
+				if (ttlMillis <= 0) {
+					return;
+				}
+			}
+			Node existingNode = map.get(key);
+			if (existingNode == null) {
+				insertNewNode(key, value);
+			} else {
+				updateExistingNode(existingNode, value);
+			}
+			setTimeToLive(tail, ttlMillis);
+			if (existingNode == null) {
+				evictOverflow(0);
+			}
+		});
+	}
+
+	/**
+	 * All entries at one point in time; {@code keys[i]} maps to {@code values[i]}, index 0 is the coldest.
+	 *
+	 * @param expiresAt the epoch millisecond {@code keys[i]} expires at, 0 if it never does; null if no entry expires
+	 * @param sequence  the last {@link MutationLog} record included, 0 without a log
+	 */
+	public record Snapshot(String[] keys, int[] values, long[] expiresAt, long sequence) {
+	}
+
+	/**
+	 * Streams entries into {@link #restore(EntrySource)}.
+	 */
+	@FunctionalInterface
+	public interface EntrySource {
+		void forEach(EntrySink sink) throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface EntrySink {
+		/**
+		 * @param expiresAtMillis the epoch millisecond the entry expires at, 0 if it never does
+		 */
+		void accept(String key, int value, long expiresAtMillis);
+	}
+
+	/**
+	 * The state of one {@link #snapshot()}: where the walk is, the nodes written since it started and the copies so far.
+	 */
+	private static final class SnapshotCapture {
+		private final Set<Node> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+		/**
+		 * The next node to copy; moved on by {@link #touched(Node)} when a write takes it away.
+		 */
+		private Node cursor;
+		/**
+		 * Set by {@link #replace(EntrySource)}: none of the copied nodes exist anymore.
+		 */
+		private boolean cleared = false;
+		private Node[] nodes;
+		private String[] keys;
+		private int[] values;
+		private long[] expiresAt = null;  // Created by the first copied entry with a deadline
+		private int size = 0;
+
+		SnapshotCapture(Node first, int expectedSize) {
+			cursor = first;
+			nodes = new Node[Math.max(16, expectedSize)];
+			keys = new String[nodes.length];
+			values = new int[nodes.length];
+		}
+
+		/**
+		 * Copies up to {@value #SNAPSHOT_CHUNK} nodes, stopping at the first touched one, which starts the suffix.
+		 *
+		 * @param nowNanos the engine's clock
+		 * @return whether there is more to copy
+		 * @implNote Must be called while holding read or write lock.
+		 */
+		boolean copyChunk(long nowNanos) {
+			long nowMillis = System.currentTimeMillis();
+			for (int copied = 0; copied < SNAPSHOT_CHUNK; copied++) {
+				Node node = cursor;
+				if (node == null || touched.contains(node)) {
+					return false;
+				}
+				cursor = node.next;
+				long deadline = 0;
+				if (node.timer != null) {
+					long remainingNanos = node.timer.deadline() - nowNanos;
+					if (remainingNanos <= 0) {
+						continue;
+					}
+					deadline = nowMillis + TimeUnit.NANOSECONDS.toMillis(remainingNanos + 999_999);
+				}
+				add(node, deadline);
+			}
+			return true;
+		}
+
+		private void add(Node node, long deadline) {
+			if (size == nodes.length) {
+				int capacity = size * 2;
+				nodes = Arrays.copyOf(nodes, capacity);
+				keys = Arrays.copyOf(keys, capacity);
+				values = Arrays.copyOf(values, capacity);
+				if (expiresAt != null) {
+					expiresAt = Arrays.copyOf(expiresAt, capacity);
+				}
+			}
+			if (deadline != 0 && expiresAt == null) {
+				expiresAt = new long[nodes.length];
+			}
+			nodes[size] = node;
+			keys[size] = node.key;
+			values[size] = node.value;
+			if (expiresAt != null) {
+				expiresAt[size] = deadline;
+			}
+			size++;
+		}
+
+		/**
+		 * @return the copies of the untouched nodes followed by the suffix, coldest first
+		 */
+		Snapshot merge(SnapshotCapture suffix, long sequence) {
+			int kept = 0;
+			if (!cleared) {
+				for (int i = 0; i < size; i++) {
+					if (!touched.contains(nodes[i])) {
+						kept++;
+					}
+				}
+			}
+			int total = kept + suffix.size;
+			String[] mergedKeys = new String[total];
+			int[] mergedValues = new int[total];
+			long[] mergedExpiresAt = expiresAt == null && suffix.expiresAt == null ?
+					null :
+					new long[total];
+			int j = 0;
+			for (int i = 0; i < size && j < kept; i++) {
+				if (!touched.contains(nodes[i])) {
+					mergedKeys[j] = keys[i];
+					mergedValues[j] = values[i];
+					if (expiresAt != null) {
+						mergedExpiresAt[j] = expiresAt[i];
+					}
+					j++;
+				}
+			}
+			System.arraycopy(suffix.keys, 0, mergedKeys, j, suffix.size);
+			System.arraycopy(suffix.values, 0, mergedValues, j, suffix.size);
+			if (suffix.expiresAt != null) {
+				System.arraycopy(suffix.expiresAt, 0, mergedExpiresAt, j, suffix.size);
+			}
+			return new Snapshot(mergedKeys, mergedValues, mergedExpiresAt, sequence);
+		}
+	}
+
+	/**
+	 * Periodically calls {@link #expireDue()} on {@link #EXPIRY_TICKER}. Holds the engine weakly and cancels itself once
+	 * the engine is gone, so an engine dropped without a shutdown hook, like a deleted namespace, is still collected.
+	 */
+	private static final class ExpiryTick implements Runnable {
+		private final WeakReference<WarmestDataStructure> engine;
+		/**
+		 * Set right after scheduling; the first run cannot find the engine gone, since the scheduling caller holds it.
+		 */
+		private volatile ScheduledFuture<?> future;
+
+		ExpiryTick(WarmestDataStructure engine) {
+			this.engine = new WeakReference<>(engine);
+		}
+
+		static ExpiryTick schedule(WarmestDataStructure engine, long intervalNanos) {
+			ExpiryTick tick = new ExpiryTick(engine);
+			tick.future = EXPIRY_TICKER.scheduleWithFixedDelay(tick, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+			return tick;
+		}
+
+		@Override
+		public void run() {
+			WarmestDataStructure dataStructure = engine.get();
+			if (dataStructure == null) {
+				future.cancel(false);
+			} else {
+				dataStructure.expireDue();
+			}
+		}
+	}
+
 	private enum GetStatus {
 		NOT_FOUND,
 		AT_TAIL,
 		NEEDS_MOVE
 	}
 
-	private record ReadLockResult(GetStatus status, Integer value) {
-	}
-
 	/**
 	 * Node class for the doubly linked list.
 	 * Stores key, value, and references to previous and next nodes.
@@ -192,6 +1213,7 @@ public class WarmestDataStructure implements WarmestDataStructureInterface {
 		private int value;
 		private Node prev;
 		private Node next;
+		private TimerWheel.Timer<Node> timer;  // Only set while the entry has a time to live
 
 		Node(String key, int value) {
 			this.key = key;
@@ -0,0 +1,24 @@
+package io.github.ashr123.warmestdata.dto;
+
+/**
+ * Implemented by WarmestDataStructureInterface decorators, so code that needs a specific engine can see through them.
+ */
+public interface WarmestDataStructureDecorator {
+
+	WarmestDataStructureInterface getDelegate();
+
+	/**
+	 * @return the first instance of type found by peeling decorators off dataStructure, or null if there is none
+	 */
+	static <T> T unwrap(WarmestDataStructureInterface dataStructure, Class<T> type) {
+		for (Object current = dataStructure; current != null; ) {
+			if (type.isInstance(current)) {
+				return type.cast(current);
+			}
+			current = current instanceof WarmestDataStructureDecorator decorator ?
+					decorator.getDelegate() :
+					null;
+		}
+		return null;
+	}
+}
@@ -1,9 +1,22 @@
 package io.github.ashr123.warmestdata.dto;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * WarmestDataStructure interface with O(1) complexity for all operations.
+ * WarmestDataStructure interface. The single-key operations and {@link #getWarmest()} are O(1),
+ * {@link #getWarmest(int)} is O(n) for n keys, and the batch operations are O(k) for k keys; every method states its
+ * own complexity.
  */
 public interface WarmestDataStructureInterface {
+	/**
+	 * Returned by the primitive variants {@link #putInt(String, int)}, {@link #getInt(String)} and
+	 * {@link #removeInt(String)} when there is no mapping; outside the int range, so no value can be mistaken for it.
+	 */
+	long NO_VALUE = Long.MIN_VALUE;
+
 	/**
 	 * This method associates the specified value with the specified key
 	 * Complexity: O(1)
@@ -14,6 +27,30 @@ public interface WarmestDataStructureInterface {
 	 */
 	Integer put(String key, int value);
 
+	/**
+	 * This method associates the specified value with the specified key until the time to live elapses; after that the
+	 * mapping is gone, as if removed. A later put without a time to live makes the mapping permanent again.
+	 * Complexity: O(1)
+	 *
+	 * @param key       This is the key with which the specified value is to be associated.
+	 * @param value     This is the value to be associated with the specified key.
+	 * @param ttlMillis The time to live in milliseconds; must be positive.
+	 * @return the previous value associated with key, or null if there was no mapping for key.
+	 * @throws UnsupportedOperationException if {@link #supportsTimeToLive()} is false
+	 */
+	default Integer put(String key, int value, long ttlMillis) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support a time to live");
+	}
+
+	/**
+	 * Whether {@link #put(String, int, long)} is supported; callers check this instead of catching its exception.
+	 *
+	 * @return false unless the implementation expires entries
+	 */
+	default boolean supportsTimeToLive() {
+		return false;
+	}
+
 	/**
 	 * This method removes the mapping for the specified key if present.
 	 * Complexity: O(1)
@@ -32,6 +69,51 @@ public interface WarmestDataStructureInterface {
 	 */
 	Integer get(String key);
 
+	/**
+	 * Same as {@link #put(String, int)}, without boxing the previous value; the default delegates to it, implementations
+	 * override it to save the allocation.
+	 * Complexity: O(1)
+	 *
+	 * @return the previous value associated with key, widened to long, or {@link #NO_VALUE} if there was no mapping for
+	 * key.
+	 */
+	default long putInt(String key, int value) {
+		Integer previousValue = put(key, value);
+		return previousValue == null ?
+				NO_VALUE :
+				previousValue;
+	}
+
+	/**
+	 * Same as {@link #remove(String)}, without boxing the previous value; the default delegates to it, implementations
+	 * override it to save the allocation.
+	 * Complexity: O(1)
+	 *
+	 * @return the previous value associated with key, widened to long, or {@link #NO_VALUE} if there was no mapping for
+	 * key.
+	 */
+	default long removeInt(String key) {
+		Integer previousValue = remove(key);
+		return previousValue == null ?
+				NO_VALUE :
+				previousValue;
+	}
+
+	/**
+	 * Same as {@link #get(String)}, without boxing the value; the default delegates to it, implementations override it
+	 * to save the allocation.
+	 * Complexity: O(1)
+	 *
+	 * @return the value to which the specified key is mapped, widened to long, or {@link #NO_VALUE} if this map contains
+	 * no mapping for the key.
+	 */
+	default long getInt(String key) {
+		Integer value = get(key);
+		return value == null ?
+				NO_VALUE :
+				value;
+	}
+
 	/**
 	 * Get the "warmest" key in the system
 	 * Complexity: O(1)
@@ -39,4 +121,60 @@ public interface WarmestDataStructureInterface {
 	 * @return the last key that was passed in methods put or get, and was not removed
 	 */
 	String getWarmest();
+
+	/**
+	 * Get the n warmest keys in the system
+	 * Complexity: O(n)
+	 *
+	 * @param n The maximum number of keys to return.
+	 * @return up to n keys, warmest first, in the order they were last passed in methods put or get; empty if n is not
+	 * positive
+	 */
+	List<String> getWarmest(int n);
+
+	/**
+	 * This method associates every entry of the batch, in iteration order, so the last entry becomes the warmest.
+	 * Complexity: O(k) for k entries
+	 *
+	 * @param entries The key-value pairs to associate; the iteration order defines the recency order.
+	 * @return the previous value of every key, in batch order; a null value means there was no mapping for that key.
+	 */
+	default Map<String, Integer> putAll(Map<String, Integer> entries) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		entries.forEach((key, value) -> previousValues.put(key, put(key, value)));
+		return previousValues;
+	}
+
+	/**
+	 * This method returns the value of every key in the batch and marks each found key as accessed, in iteration order.
+	 * Complexity: O(k) for k keys
+	 *
+	 * @param keys The keys whose associated values are to be returned; the iteration order defines the recency order.
+	 * @return the value of every key, in batch order; a null value means there was no mapping for that key.
+	 */
+	default Map<String, Integer> getAll(Collection<String> keys) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		for (String key : keys) {
+			values.put(key, get(key));
+		}
+		return values;
+	}
+
+	/**
+	 * This method removes the mapping of every key in the batch, in iteration order.
+	 * Complexity: O(k) for k keys
+	 *
+	 * @param keys The keys whose mappings are to be removed.
+	 * @return the removed value of every key, in batch order; a null value means there was no mapping for that key.
+	 */
+	default Map<String, Integer> removeAll(Collection<String> keys) {
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		for (String key : keys) {
+			Integer previousValue = remove(key);
+			if (!previousValues.containsKey(key)) {
+				previousValues.put(key, previousValue);
+			}
+		}
+		return previousValues;
+	}
 }
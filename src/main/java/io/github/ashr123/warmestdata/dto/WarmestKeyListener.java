@@ -0,0 +1,15 @@
+package io.github.ashr123.warmestdata.dto;
+
+/**
+ * Notified whenever the warmest key of an engine changes.
+ * <p>
+ * Called while the engine's write lock is held, so implementations must be cheap, must not block and must not call
+ * back into the engine.
+ */
+@FunctionalInterface
+public interface WarmestKeyListener {
+	/**
+	 * @param key the new warmest key, null if the engine is empty
+	 */
+	void warmestChanged(String key);
+}
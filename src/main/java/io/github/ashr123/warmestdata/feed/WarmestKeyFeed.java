@@ -0,0 +1,336 @@
+package io.github.ashr123.warmestdata.feed;
+
+import io.github.ashr123.warmestdata.dto.ClusterWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.ReactiveWarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.dto.RedisSortedSetWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.metrics.FeedMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+/**
+ * Pushes every change of the warmest key to its subscribers, so clients need not poll {@code GET /warmest}.
+ * <p>
+ * The changes come from the active engine: the in-memory engine (also on a follower, whose replica applies the
+ * leader's changes) reports them through a {@link io.github.ashr123.warmestdata.dto.WarmestKeyListener}, and the Redis
+ * scripts publish them on {@value RedisWarmestDataStructure#WARMEST_CHANNEL}, so every instance sees the changes of all
+ * of them. The sharded cluster, where no single engine knows the global warmest key, and the segmented, buffered and
+ * primitive engines are not supported.
+ * <p>
+ * A change is only recorded where it happens, often under the in-memory engine's write lock; the
+ * {@code warmest-feed-dispatcher} thread hands the latest one to the subscribers, so changes made faster than it
+ * dispatches them are coalesced there already.
+ * <p>
+ * Every subscriber has a single pending slot: a change that arrives while the previous one is still being sent replaces
+ * the pending one instead of queueing behind it, so a slow subscriber skips to the latest state and never builds a
+ * backlog. Sends run on a pool of {@code warmest.feed.sender-threads} {@code warmest-feed-N} threads, each subscriber on
+ * one thread at a time, so a slow subscriber only delays the others once that many are sending at once.
+ */
+@Service
+public class WarmestKeyFeed implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(WarmestKeyFeed.class);
+	private static final Subscription[] NO_SUBSCRIPTIONS = {};
+
+	private final ObjectProvider<WarmestDataStructureInterface> dataStructure;
+	private final ObjectProvider<ReactiveWarmestDataStructureInterface> reactiveDataStructure;
+	private final ObjectProvider<RedisConnectionFactory> connectionFactory;
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+	private final ExecutorService dispatcher;
+	private final Runnable dispatchTask = this::dispatch;
+	private final ExecutorService senders;
+	private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+	private final AtomicLong coalesced = new AtomicLong();
+	// Guards the latest change and the subscription array
+	private final Object lock = new Object();
+	private String latestKey = null;
+	private long latestSequence = 0;
+	private long dispatchedSequence = 0;  // Only touched by the dispatcher
+	private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+	private RedisMessageListenerContainer listenerContainer;
+	/**
+	 * Why subscribing fails, null if the active engine is supported.
+	 */
+	private String unsupportedReason = null;
+
+	public WarmestKeyFeed(ObjectProvider<WarmestDataStructureInterface> dataStructure,
+	                      ObjectProvider<ReactiveWarmestDataStructureInterface> reactiveDataStructure,
+	                      ObjectProvider<RedisConnectionFactory> connectionFactory,
+	                      ObjectProvider<MeterRegistry> meterRegistry,
+	                      @Value("${warmest.feed.sender-threads:4}") int senderThreads) {
+		if (senderThreads <= 0) {
+			throw new IllegalArgumentException("Feed sender threads must be positive");
+		}
+		this.dataStructure = dataStructure;
+		this.reactiveDataStructure = reactiveDataStructure;
+		this.connectionFactory = connectionFactory;
+		this.meterRegistry = meterRegistry;
+		ThreadPoolExecutor dispatcherThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(),
+				daemonThreads(threadCount -> "warmest-feed-dispatcher"));
+		// Started now, so publishing never starts it under the engine's lock
+		dispatcherThread.prestartCoreThread();
+		dispatcher = dispatcherThread;
+		// At most one queued task per subscriber, since a subscription is never scheduled twice
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(),
+				daemonThreads(threadCount -> "warmest-feed-" + threadCount));
+		pool.allowCoreThreadTimeOut(true);
+		senders = pool;
+	}
+
+	/**
+	 * @param name the name of the n-th thread created, counting from 1
+	 */
+	private static ThreadFactory daemonThreads(IntFunction<String> name) {
+		AtomicInteger threadCount = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name.apply(threadCount.incrementAndGet()));
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		ReactiveWarmestDataStructureInterface reactive = reactiveDataStructure.getIfAvailable();
+		if (reactive != null) {
+			subscribeToRedis();
+			seed(reactive.getWarmest().block());
+		} else {
+			WarmestDataStructureInterface active = dataStructure.getObject();
+			WarmestDataStructure engine = WarmestDataStructureDecorator.unwrap(active, WarmestDataStructure.class);
+			if (WarmestDataStructureDecorator.unwrap(active, ClusterWarmestDataStructure.class) != null) {
+				unsupportedReason = "The warmest key feed is not supported by the sharded cluster";
+			} else if (engine != null) {
+				engine.setWarmestKeyListener(this::publish);
+			} else if (WarmestDataStructureDecorator.unwrap(active, RedisWarmestDataStructure.class) != null ||
+			           WarmestDataStructureDecorator.unwrap(active, RedisSortedSetWarmestDataStructure.class) != null) {
+				subscribeToRedis();
+				seed(active.getWarmest());
+			} else {
+				unsupportedReason = "The warmest key feed is not supported by " + active.getClass().getSimpleName();
+			}
+		}
+		meterRegistry.ifAvailable(registry -> FeedMetrics.bind(registry, this));
+	}
+
+	/**
+	 * Dispatches on the container's subscription thread, so changes are published in the order Redis sent them.
+	 */
+	private void subscribeToRedis() {
+		listenerContainer = new RedisMessageListenerContainer();
+		listenerContainer.setConnectionFactory(connectionFactory.getObject());
+		listenerContainer.setTaskExecutor(new SyncTaskExecutor());
+		listenerContainer.addMessageListener((message, pattern) -> {
+			byte[] body = message.getBody();
+			publish(body.length == 0 ?
+					null :
+					new String(body, StandardCharsets.UTF_8));
+		}, new ChannelTopic(RedisWarmestDataStructure.WARMEST_CHANNEL));
+		listenerContainer.afterPropertiesSet();
+		listenerContainer.start();
+	}
+
+	/**
+	 * Sets the initial warmest key, unless a change arrived meanwhile.
+	 */
+	private void seed(String key) {
+		synchronized (lock) {
+			if (latestSequence == 0) {
+				latestKey = key;
+			}
+		}
+	}
+
+	/**
+	 * Records a new warmest key and wakes the dispatcher. Called under the in-memory engine's write lock, so it does no
+	 * more than that: it never blocks or starts a thread, and only queues a dispatch if someone is subscribed and none
+	 * is queued yet.
+	 */
+	private void publish(String key) {
+		boolean subscribed;
+		synchronized (lock) {
+			latestKey = key;
+			++latestSequence;
+			subscribed = subscriptions.length > 0;
+		}
+		if (subscribed && dispatchScheduled.compareAndSet(false, true)) {
+			dispatcher.execute(dispatchTask);
+		}
+	}
+
+	/**
+	 * Hands the latest change to every subscriber; the changes recorded since the previous dispatch are skipped by all
+	 * of them, which each subscription counts once it sends the latest one.
+	 */
+	private void dispatch() {
+		dispatchScheduled.set(false);
+		Change change;
+		Subscription[] current;
+		synchronized (lock) {
+			change = new Change(latestSequence, latestKey);
+			current = subscriptions;
+		}
+		if (change.sequence() <= dispatchedSequence) {
+			return;
+		}
+		dispatchedSequence = change.sequence();
+		for (Subscription subscription : current) {
+			subscription.offer(change);
+		}
+	}
+
+	/**
+	 * Sends the current warmest key to the subscriber right away, then every change until the subscription is closed or
+	 * a send fails.
+	 *
+	 * @throws UnsupportedOperationException if the active engine does not report changes
+	 */
+	public Subscription subscribe(Subscriber subscriber) {
+		if (unsupportedReason != null) {
+			throw new UnsupportedOperationException(unsupportedReason);
+		}
+
+		Subscription subscription = new Subscription(subscriber);
+		Change current;
+		synchronized (lock) {
+			Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+			updated[updated.length - 1] = subscription;
+			subscriptions = updated;
+			current = new Change(latestSequence, latestKey);
+		}
+		subscription.offer(current);
+		return subscription;
+	}
+
+	private void unsubscribe(Subscription subscription) {
+		synchronized (lock) {
+			Subscription[] current = subscriptions;
+			for (int i = 0; i < current.length; i++) {
+				if (current[i] == subscription) {
+					Subscription[] updated = Arrays.copyOf(current, current.length - 1);
+					System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+					subscriptions = updated;
+					return;
+				}
+			}
+		}
+	}
+
+	public int getSubscriberCount() {
+		return subscriptions.length;
+	}
+
+	/**
+	 * @return changes that were never sent to some subscriber because a newer one replaced them first
+	 */
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (listenerContainer != null) {
+			listenerContainer.destroy();
+		}
+		for (Subscription subscription : subscriptions) {
+			subscription.close();
+		}
+		dispatcher.shutdownNow();
+		senders.shutdownNow();
+	}
+
+	/**
+	 * @param sequence numbers the changes this instance has seen, starting at 1; 0 for the state before the first one
+	 * @param key      the warmest key, null if there is none
+	 */
+	public record Change(long sequence, String key) {
+	}
+
+	@FunctionalInterface
+	public interface Subscriber {
+		/**
+		 * Called by one thread at a time, with ever greater sequence numbers. Throwing closes the subscription.
+		 */
+		void send(Change change) throws Exception;
+	}
+
+	public final class Subscription implements Runnable, AutoCloseable {
+		private final Subscriber subscriber;
+		private final AtomicReference<Change> pending = new AtomicReference<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean closed = false;
+		private long sentSequence = -1;  // Only touched by the thread running this
+
+		private Subscription(Subscriber subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		private void offer(Change change) {
+			pending.accumulateAndGet(change, (current, next) ->
+					current == null || next.sequence() > current.sequence() ?
+							next :
+							current);
+			if (scheduled.compareAndSet(false, true)) {
+				senders.execute(this);
+			}
+		}
+
+		/**
+		 * Sends the pending change, and the next one if it was replaced meanwhile, until none is left.
+		 */
+		@Override
+		public void run() {
+			do {
+				Change change = pending.getAndSet(null);
+				if (change != null && change.sequence() > sentSequence && !closed) {
+					// Counted where they are known to be skipped: neither a stale offer nor the first send skips any
+					if (sentSequence >= 0) {
+						coalesced.addAndGet(change.sequence() - sentSequence - 1);
+					}
+					sentSequence = change.sequence();
+					try {
+						subscriber.send(change);
+					} catch (Exception e) {
+						log.debug("Dropping a warmest key subscriber", e);
+						close();
+					}
+				}
+				scheduled.set(false);
+			} while (pending.get() != null && scheduled.compareAndSet(false, true));
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+			unsubscribe(this);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package io.github.ashr123.warmestdata.metrics;
+
+import io.github.ashr123.warmestdata.feed.WarmestKeyFeed;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Warmest key feed meters:
+ * <ul>
+ *   <li>{@code warmest.feed.subscribers} – open subscriptions</li>
+ *   <li>{@code warmest.feed.coalesced} – changes a subscriber never got because a newer one replaced them while it was
+ *   still busy with an older one; grows with slow subscribers</li>
+ * </ul>
+ */
+public final class FeedMetrics {
+
+	private FeedMetrics() {
+	}
+
+	public static void bind(MeterRegistry registry, WarmestKeyFeed feed) {
+		Gauge.builder("warmest.feed.subscribers", feed, WarmestKeyFeed::getSubscriberCount)
+				.description("Open warmest key feed subscriptions")
+				.register(registry);
+		FunctionCounter.builder("warmest.feed.coalesced", feed, WarmestKeyFeed::getCoalescedCount)
+				.description("Warmest key changes replaced by a newer one before they were sent")
+				.register(registry);
+	}
+}
@@ -0,0 +1,270 @@
+package io.github.ashr123.warmestdata.metrics;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorator that times every WarmestDataStructureInterface operation as {@code warmest.operation}, tagged with the
+ * engine, the operation and its outcome ({@code success} or {@code error}; {@code hit} or {@code miss} for get).
+ * <p>
+ * All timers are registered up front, so a call costs two {@link System#nanoTime()} reads and one timer update.
+ */
+public class InstrumentedWarmestDataStructure implements WarmestDataStructureInterface, WarmestDataStructureDecorator, DisposableBean {
+
+	private final WarmestDataStructureInterface delegate;
+	private final OperationTimers put;
+	private final OperationTimers putWithTtl;
+	private final OperationTimers remove;
+	private final OperationTimers getWarmest;
+	private final OperationTimers getWarmestN;
+	private final OperationTimers putAll;
+	private final OperationTimers getAll;
+	private final OperationTimers removeAll;
+	private final Timer getHit;
+	private final Timer getMiss;
+	private final Timer getError;
+
+	public InstrumentedWarmestDataStructure(WarmestDataStructureInterface delegate, MeterRegistry registry, String engine) {
+		this(delegate, registry, "warmest.operation", Tags.of("engine", engine));
+	}
+
+	/**
+	 * @param name the timers' name; meters of one name must all have the same tag keys
+	 * @param tags the tags of every timer besides {@code operation} and {@code outcome}
+	 */
+	public InstrumentedWarmestDataStructure(WarmestDataStructureInterface delegate, MeterRegistry registry, String name, Tags tags) {
+		this.delegate = delegate;
+		put = new OperationTimers(registry, name, tags, "put");
+		putWithTtl = new OperationTimers(registry, name, tags, "putWithTtl");
+		remove = new OperationTimers(registry, name, tags, "remove");
+		getWarmest = new OperationTimers(registry, name, tags, "getWarmest");
+		getWarmestN = new OperationTimers(registry, name, tags, "getWarmestN");
+		putAll = new OperationTimers(registry, name, tags, "putAll");
+		getAll = new OperationTimers(registry, name, tags, "getAll");
+		removeAll = new OperationTimers(registry, name, tags, "removeAll");
+		getHit = timer(registry, name, tags, "get", "hit");
+		getMiss = timer(registry, name, tags, "get", "miss");
+		getError = timer(registry, name, tags, "get", "error");
+	}
+
+	private static Timer timer(MeterRegistry registry, String name, Tags tags, String operation, String outcome) {
+		return Timer.builder(name)
+				.description("WarmestDataStructureInterface operation latency")
+				.tags(tags)
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.register(registry);
+	}
+
+	private static void record(Timer timer, long start) {
+		timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public WarmestDataStructureInterface getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public Integer put(String key, int value) {
+		long start = System.nanoTime();
+		try {
+			Integer previousValue = delegate.put(key, value);
+			record(put.success, start);
+			return previousValue;
+		} catch (RuntimeException e) {
+			record(put.error, start);
+			throw e;
+		}
+	}
+
+	/**
+	 * Recorded under the same timers as {@link #put(String, int)}.
+	 */
+	@Override
+	public long putInt(String key, int value) {
+		long start = System.nanoTime();
+		try {
+			long previousValue = delegate.putInt(key, value);
+			record(put.success, start);
+			return previousValue;
+		} catch (RuntimeException e) {
+			record(put.error, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean supportsTimeToLive() {
+		return delegate.supportsTimeToLive();
+	}
+
+	@Override
+	public Integer put(String key, int value, long ttlMillis) {
+		long start = System.nanoTime();
+		try {
+			Integer previousValue = delegate.put(key, value, ttlMillis);
+			record(putWithTtl.success, start);
+			return previousValue;
+		} catch (RuntimeException e) {
+			record(putWithTtl.error, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Integer remove(String key) {
+		long start = System.nanoTime();
+		try {
+			Integer previousValue = delegate.remove(key);
+			record(remove.success, start);
+			return previousValue;
+		} catch (RuntimeException e) {
+			record(remove.error, start);
+			throw e;
+		}
+	}
+
+	/**
+	 * Recorded under the same timers as {@link #remove(String)}.
+	 */
+	@Override
+	public long removeInt(String key) {
+		long start = System.nanoTime();
+		try {
+			long previousValue = delegate.removeInt(key);
+			record(remove.success, start);
+			return previousValue;
+		} catch (RuntimeException e) {
+			record(remove.error, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Integer get(String key) {
+		long start = System.nanoTime();
+		try {
+			Integer value = delegate.get(key);
+			record(value == null ?
+					getMiss :
+					getHit, start);
+			return value;
+		} catch (RuntimeException e) {
+			record(getError, start);
+			throw e;
+		}
+	}
+
+	/**
+	 * Recorded under the same timers as {@link #get(String)}.
+	 */
+	@Override
+	public long getInt(String key) {
+		long start = System.nanoTime();
+		try {
+			long value = delegate.getInt(key);
+			record(value == NO_VALUE ?
+					getMiss :
+					getHit, start);
+			return value;
+		} catch (RuntimeException e) {
+			record(getError, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public String getWarmest() {
+		long start = System.nanoTime();
+		try {
+			String warmest = delegate.getWarmest();
+			record(getWarmest.success, start);
+			return warmest;
+		} catch (RuntimeException e) {
+			record(getWarmest.error, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<String> getWarmest(int n) {
+		long start = System.nanoTime();
+		try {
+			List<String> warmest = delegate.getWarmest(n);
+			record(getWarmestN.success, start);
+			return warmest;
+		} catch (RuntimeException e) {
+			record(getWarmestN.error, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Map<String, Integer> putAll(Map<String, Integer> entries) {
+		long start = System.nanoTime();
+		try {
+			Map<String, Integer> previousValues = delegate.putAll(entries);
+			record(putAll.success, start);
+			return previousValues;
+		} catch (RuntimeException e) {
+			record(putAll.error, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Map<String, Integer> getAll(Collection<String> keys) {
+		long start = System.nanoTime();
+		try {
+			Map<String, Integer> values = delegate.getAll(keys);
+			record(getAll.success, start);
+			return values;
+		} catch (RuntimeException e) {
+			record(getAll.error, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Map<String, Integer> removeAll(Collection<String> keys) {
+		long start = System.nanoTime();
+		try {
+			Map<String, Integer> previousValues = delegate.removeAll(keys);
+			record(removeAll.success, start);
+			return previousValues;
+		} catch (RuntimeException e) {
+			record(removeAll.error, start);
+			throw e;
+		}
+	}
+
+	/**
+	 * Spring decides on destroy callbacks by looking at the exposed bean, which is this decorator, so it forwards them.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		if (delegate instanceof DisposableBean disposable) {
+			disposable.destroy();
+		}
+	}
+
+	private static final class OperationTimers {
+		private final Timer success;
+		private final Timer error;
+
+		private OperationTimers(MeterRegistry registry, String name, Tags tags, String operation) {
+			success = timer(registry, name, tags, operation, "success");
+			error = timer(registry, name, tags, operation, "error");
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package io.github.ashr123.warmestdata.metrics;
+
+import io.github.ashr123.warmestdata.dto.EngineProbeAware;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wraps every WarmestDataStructureInterface bean in an {@link InstrumentedWarmestDataStructure} and attaches a
+ * {@link MicrometerEngineProbe} to engines that accept one.
+ * <p>
+ * Enabled unless {@code warmest.metrics.enabled=false}; when disabled, nothing is wrapped and engines never see a probe,
+ * so the hot paths run exactly as without this class.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "warmest.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfiguration {
+
+	// static, so the post-processor does not force early creation of this configuration class
+	@Bean
+	static BeanPostProcessor warmestDataMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof WarmestDataStructureInterface dataStructure)) {
+					return bean;
+				}
+
+				MeterRegistry meterRegistry = registry.getObject();
+				String engine = bean.getClass().getSimpleName();
+				if (bean instanceof EngineProbeAware probeAware) {
+					probeAware.setProbe(new MicrometerEngineProbe(meterRegistry, engine));
+				}
+				return new InstrumentedWarmestDataStructure(dataStructure, meterRegistry, engine);
+			}
+		};
+	}
+}
@@ -0,0 +1,128 @@
+package io.github.ashr123.warmestdata.metrics;
+
+import io.github.ashr123.warmestdata.dto.EngineProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes an engine's internal events as Micrometer meters, tagged with the engine:
+ * <ul>
+ *   <li>{@code warmest.get.status} – counter per read-lock outcome of get ({@code status} tag)</li>
+ *   <li>{@code warmest.lock.write.wait} / {@code warmest.lock.write.hold} – write lock wait and hold times</li>
+ *   <li>{@code warmest.redis.script} – Lua script latency ({@code script} and {@code outcome} tags); the
+ *   {@code outcome=error} count is the script error count</li>
+ *   <li>{@code warmest.evictions} – entries dropped by a capacity-bounded engine ({@code limit} tag)</li>
+ *   <li>{@code warmest.expirations} – entries removed because their time to live elapsed</li>
+ *   <li>{@code warmest.tier.get} – get latency of a tiered engine by where the key was found ({@code tier} tag:
+ *   {@code heap}, {@code disk} or {@code miss}); the counts give the hit ratio of each tier</li>
+ *   <li>{@code warmest.redis.batch.size} – operations per coalesced {@code batch.lua} call</li>
+ * </ul>
+ */
+public class MicrometerEngineProbe implements EngineProbe {
+
+	private final MeterRegistry registry;
+	private final String engine;
+	private final Timer writeLockWait;
+	private final Timer writeLockHold;
+	private final Counter expirations;
+	private final DistributionSummary batchSize;
+	// Keys are constants (enum names, script names), so these stay small and lookups do not allocate
+	private final Map<String, Counter> getStatuses = new ConcurrentHashMap<>();
+	private final Map<String, Timer> scriptSuccesses = new ConcurrentHashMap<>();
+	private final Map<String, Timer> scriptErrors = new ConcurrentHashMap<>();
+	private final Map<String, Counter> evictions = new ConcurrentHashMap<>();
+	private final Map<String, Timer> tierGets = new ConcurrentHashMap<>();
+
+	public MicrometerEngineProbe(MeterRegistry registry, String engine) {
+		this.registry = registry;
+		this.engine = engine;
+		writeLockWait = Timer.builder("warmest.lock.write.wait")
+				.description("Time spent waiting for the engine's write lock")
+				.tag("engine", engine)
+				.register(registry);
+		writeLockHold = Timer.builder("warmest.lock.write.hold")
+				.description("Time the engine's write lock was held")
+				.tag("engine", engine)
+				.register(registry);
+		expirations = Counter.builder("warmest.expirations")
+				.description("Entries removed because their time to live elapsed")
+				.tag("engine", engine)
+				.register(registry);
+		batchSize = DistributionSummary.builder("warmest.redis.batch.size")
+				.description("Operations per coalesced script call")
+				.tag("engine", engine)
+				.register(registry);
+	}
+
+	@Override
+	public void getOutcome(String status) {
+		getStatuses.computeIfAbsent(status, s -> Counter.builder("warmest.get.status")
+						.description("Read-lock outcome of get")
+						.tag("engine", engine)
+						.tag("status", s)
+						.register(registry))
+				.increment();
+	}
+
+	@Override
+	public void writeLockWaited(long nanos) {
+		writeLockWait.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void writeLockHeld(long nanos) {
+		writeLockHold.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void scriptExecuted(String script, long nanos, boolean failed) {
+		Map<String, Timer> timers = failed ?
+				scriptErrors :
+				scriptSuccesses;
+		timers.computeIfAbsent(script, s -> Timer.builder("warmest.redis.script")
+						.description("Lua script execution latency")
+						.tag("engine", engine)
+						.tag("script", s)
+						.tag("outcome", failed ?
+								"error" :
+								"success")
+						.register(registry))
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void evicted(String limit) {
+		evictions.computeIfAbsent(limit, l -> Counter.builder("warmest.evictions")
+						.description("Entries evicted to stay within a capacity limit")
+						.tag("engine", engine)
+						.tag("limit", l)
+						.register(registry))
+				.increment();
+	}
+
+	@Override
+	public void expired(long count) {
+		expirations.increment(count);
+	}
+
+	@Override
+	public void tierGet(String tier, long nanos) {
+		tierGets.computeIfAbsent(tier, t -> Timer.builder("warmest.tier.get")
+						.description("Get latency by the tier the key was found in")
+						.tag("engine", engine)
+						.tag("tier", t)
+						.register(registry))
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void coalesced(int operations) {
+		batchSize.record(operations);
+	}
+}
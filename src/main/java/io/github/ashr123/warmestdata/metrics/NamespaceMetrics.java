@@ -0,0 +1,38 @@
+package io.github.ashr123.warmestdata.metrics;
+
+import io.github.ashr123.warmestdata.namespace.NamespaceStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-namespace gauges, tagged with the namespace:
+ * <ul>
+ *   <li>{@code warmest.namespace.entries} – entries in the namespace</li>
+ *   <li>{@code warmest.namespace.memory} – bytes the namespace takes, see {@link NamespaceStats#bytes()}</li>
+ * </ul>
+ * The operations of every namespace are timed as {@code warmest.namespace.operation} by an
+ * {@link InstrumentedWarmestDataStructure}. Each scrape reads the stats once per gauge; on Redis the registry caches
+ * them for {@code warmest.namespaces.stats-max-age}, so a scrape costs at most one script call per namespace.
+ */
+public final class NamespaceMetrics {
+
+	private NamespaceMetrics() {
+	}
+
+	public static void bind(MeterRegistry registry, String namespace, Supplier<NamespaceStats> stats) {
+		// Only the gauges reference the supplier, so they must not hold it weakly
+		Gauge.builder("warmest.namespace.entries", stats, s -> s.get().entries())
+				.description("Entries in the namespace")
+				.tag("namespace", namespace)
+				.strongReference(true)
+				.register(registry);
+		Gauge.builder("warmest.namespace.memory", stats, s -> s.get().bytes())
+				.description("Memory taken by the namespace")
+				.tag("namespace", namespace)
+				.baseUnit("bytes")
+				.strongReference(true)
+				.register(registry);
+	}
+}
@@ -0,0 +1,65 @@
+package io.github.ashr123.warmestdata.metrics;
+
+import io.github.ashr123.warmestdata.dto.StreamReplicaWarmestDataStructure;
+import io.github.ashr123.warmestdata.replication.RedisStreamFollower;
+import io.github.ashr123.warmestdata.replication.ReplicationFollower;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Replication gauges:
+ * <ul>
+ *   <li>{@code warmest.replication.followers} – followers connected to this leader</li>
+ *   <li>{@code warmest.replication.lag.records} – records the leader has published that this follower has not applied
+ *   yet, as of the last frame received</li>
+ *   <li>{@code warmest.replication.lag} – age of the newest leader state this follower is known to include; stays
+ *   below the heartbeat interval while connected and idle, and grows while disconnected</li>
+ *   <li>{@code warmest.replica.reads} – reads of a Redis stream replica, by whether the replica served them or it was
+ *   not fresh enough and Redis did ({@code served} tag: {@code replica} or {@code redis})</li>
+ * </ul>
+ * A Redis stream replica reports its lag under the follower's names: entries appended to the stream and not applied
+ * yet, and the time since it last drained the stream.
+ */
+public final class ReplicationMetrics {
+
+	private ReplicationMetrics() {
+	}
+
+	public static void bindLeader(MeterRegistry registry, IntSupplier followers) {
+		Gauge.builder("warmest.replication.followers", followers, IntSupplier::getAsInt)
+				.description("Followers connected to this leader")
+				.register(registry);
+	}
+
+	public static void bindFollower(MeterRegistry registry, ReplicationFollower follower) {
+		Gauge.builder("warmest.replication.lag.records", follower, ReplicationFollower::getLagRecords)
+				.description("Records published by the leader and not applied here yet")
+				.register(registry);
+		Gauge.builder("warmest.replication.lag", follower, ReplicationFollower::getLagMillis)
+				.description("Age of the newest leader state applied here")
+				.baseUnit("milliseconds")
+				.register(registry);
+	}
+
+	public static void bindStreamReplica(MeterRegistry registry, StreamReplicaWarmestDataStructure replica) {
+		RedisStreamFollower follower = replica.getFollower();
+		Gauge.builder("warmest.replication.lag.records", follower, RedisStreamFollower::getLagRecords)
+				.description("Stream entries appended in Redis and not applied here yet")
+				.register(registry);
+		Gauge.builder("warmest.replication.lag", follower, RedisStreamFollower::getLagMillis)
+				.description("Time since the replica last drained the stream")
+				.baseUnit("milliseconds")
+				.register(registry);
+		FunctionCounter.builder("warmest.replica.reads", replica, StreamReplicaWarmestDataStructure::getReplicaReads)
+				.description("Reads of a stream replica, by whether the replica or Redis served them")
+				.tag("served", "replica")
+				.register(registry);
+		FunctionCounter.builder("warmest.replica.reads", replica, StreamReplicaWarmestDataStructure::getRedisReads)
+				.description("Reads of a stream replica, by whether the replica or Redis served them")
+				.tag("served", "redis")
+				.register(registry);
+	}
+}
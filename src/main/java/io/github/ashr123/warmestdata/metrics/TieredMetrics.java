@@ -0,0 +1,39 @@
+package io.github.ashr123.warmestdata.metrics;
+
+import io.github.ashr123.warmestdata.dto.TieredWarmestDataStructure;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Gauges of the tiered engine:
+ * <ul>
+ *   <li>{@code warmest.tier.entries} – entries per tier ({@code tier} tag: {@code heap} or {@code disk})</li>
+ *   <li>{@code warmest.tier.disk.size} – bytes the disk tier's segment files take</li>
+ *   <li>{@code warmest.tier.heap.hit.ratio} – share of the gets that found their key which found it in the heap,
+ *   since startup</li>
+ * </ul>
+ * Get latency per tier is timed as {@code warmest.tier.get} by the {@link MicrometerEngineProbe}.
+ */
+public final class TieredMetrics {
+
+	private TieredMetrics() {
+	}
+
+	public static void bind(MeterRegistry registry, TieredWarmestDataStructure tiered) {
+		Gauge.builder("warmest.tier.entries", tiered, t -> t.stats().heapEntries())
+				.description("Entries in the tier")
+				.tag("tier", "heap")
+				.register(registry);
+		Gauge.builder("warmest.tier.entries", tiered, t -> t.stats().diskEntries())
+				.description("Entries in the tier")
+				.tag("tier", "disk")
+				.register(registry);
+		Gauge.builder("warmest.tier.disk.size", tiered, t -> t.stats().diskBytes())
+				.description("Bytes the disk tier's segment files take")
+				.baseUnit("bytes")
+				.register(registry);
+		Gauge.builder("warmest.tier.heap.hit.ratio", tiered, t -> t.stats().heapHitRatio())
+				.description("Share of the found keys that were found in the heap")
+				.register(registry);
+	}
+}
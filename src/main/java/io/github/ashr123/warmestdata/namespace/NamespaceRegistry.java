@@ -0,0 +1,362 @@
+package io.github.ashr123.warmestdata.namespace;
+
+import io.github.ashr123.warmestdata.dto.ClusterWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.FollowerWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.metrics.InstrumentedWarmestDataStructure;
+import io.github.ashr123.warmestdata.metrics.NamespaceMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Independent structures per namespace, created by their first write, next to the default structure of the active
+ * engine. A read of a namespace that does not exist answers as an empty one without creating it, and at most
+ * {@code warmest.namespaces.max-count} namespaces are open on an instance, so requests cannot grow it without bound.
+ * <p>
+ * With the in-memory engine every namespace gets its own {@link WarmestDataStructure}, with the same capacity limits as
+ * the default one; namespaces live only on this instance, and are neither snapshotted, logged nor replicated. With the
+ * Redis linked-list layout every namespace gets its own keys, {@code warmest:{namespace}:data} and so on
+ * ({@link RedisWarmestDataStructure#forNamespace}): the hash tag keeps a namespace in one Redis Cluster slot and spreads
+ * namespaces across slots, so they are shared by all instances and do not contend on one node. Their names are kept in
+ * the set {@value #NAMESPACES_KEY}, so a namespace another instance created is found there, and a single
+ * {@code redis-namespace-expiry-sweeper} thread sweeps the expired entries of the namespaces this instance has open.
+ * It only sweeps those whose expiry index may hold keys: a namespace is marked when it is opened and on every put with
+ * a time to live through this instance, and unmarked once a sweep leaves its index empty, so namespaces without
+ * expiring entries cost no script calls. The
+ * sorted-set layout, the sharded cluster, followers and the segmented, buffered and primitive engines are not supported.
+ * <p>
+ * While metrics are enabled, every namespace's operations are timed as {@code warmest.namespace.operation} and its size
+ * is published by {@link NamespaceMetrics}, all tagged with the namespace.
+ */
+@Service
+@Profile("!reactive")
+public class NamespaceRegistry implements InitializingBean, DisposableBean {
+
+	/**
+	 * Redis set of every namespace created on any instance.
+	 */
+	public static final String NAMESPACES_KEY = "warmest:namespaces";
+
+	private static final Logger log = LoggerFactory.getLogger(NamespaceRegistry.class);
+	/**
+	 * Nothing that could end a Redis hash tag or a key segment.
+	 */
+	private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.-]{1,64}");
+	/**
+	 * Stands in for a namespace that does not exist: it holds nothing, so reads find nothing and removes remove nothing.
+	 */
+	private static final WarmestDataStructureInterface ABSENT = new WarmestDataStructureInterface() {
+		@Override
+		public Integer put(String key, int value) {
+			throw new IllegalStateException("A namespace that does not exist cannot be written to");
+		}
+
+		@Override
+		public Integer remove(String key) {
+			return null;
+		}
+
+		@Override
+		public Integer get(String key) {
+			return null;
+		}
+
+		@Override
+		public String getWarmest() {
+			return null;
+		}
+
+		@Override
+		public List<String> getWarmest(int n) {
+			return List.of();
+		}
+	};
+
+	private final ObjectProvider<WarmestDataStructureInterface> dataStructure;
+	private final ObjectProvider<StringRedisTemplate> redisTemplate;
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+	private final boolean metricsEnabled;
+	private final long maxEntries;
+	private final DataSize maxBytes;
+	private final Duration sweepInterval;
+	private final int sweepBatch;
+	private final int maxCount;
+	private final long statsMaxAgeNanos;
+	private final ConcurrentMap<String, Namespace> namespaces = new ConcurrentHashMap<>();
+	/**
+	 * Namespaces open or being opened; counted before creating one, so concurrent creations cannot exceed the maximum.
+	 */
+	private final AtomicInteger count = new AtomicInteger();
+	/**
+	 * The Redis namespaces whose expiry index may hold keys; only these are swept.
+	 */
+	private final Set<Namespace> expiring = ConcurrentHashMap.newKeySet();
+	private boolean redis = false;
+	private ScheduledExecutorService sweeper = null;
+	/**
+	 * Why namespaces fail, null if the active engine is supported.
+	 */
+	private String unsupportedReason = null;
+
+	public NamespaceRegistry(ObjectProvider<WarmestDataStructureInterface> dataStructure,
+	                         ObjectProvider<StringRedisTemplate> redisTemplate,
+	                         ObjectProvider<MeterRegistry> meterRegistry,
+	                         @Value("${warmest.metrics.enabled:true}") boolean metricsEnabled,
+	                         @Value("${warmest.capacity.max-entries:0}") long maxEntries,
+	                         @Value("${warmest.capacity.max-bytes:0B}") DataSize maxBytes,
+	                         @Value("${warmest.ttl.sweep-interval:100ms}") Duration sweepInterval,
+	                         @Value("${warmest.ttl.sweep-batch:100}") int sweepBatch,
+	                         @Value("${warmest.namespaces.max-count:1000}") int maxCount,
+	                         @Value("${warmest.namespaces.stats-max-age:1s}") Duration statsMaxAge) {
+		if (maxCount <= 0) {
+			throw new IllegalArgumentException("Maximum namespace count must be positive");
+		}
+		this.dataStructure = dataStructure;
+		this.redisTemplate = redisTemplate;
+		this.meterRegistry = meterRegistry;
+		this.metricsEnabled = metricsEnabled;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.sweepInterval = sweepInterval;
+		this.sweepBatch = sweepBatch;
+		this.maxCount = maxCount;
+		statsMaxAgeNanos = statsMaxAge.toNanos();
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		WarmestDataStructureInterface active = dataStructure.getObject();
+		if (WarmestDataStructureDecorator.unwrap(active, ClusterWarmestDataStructure.class) != null) {
+			unsupportedReason = "Namespaces are not supported by the sharded cluster";
+		} else if (WarmestDataStructureDecorator.unwrap(active, FollowerWarmestDataStructure.class) != null) {
+			unsupportedReason = "Namespaces are not supported by a replication follower";
+		} else if (WarmestDataStructureDecorator.unwrap(active, RedisWarmestDataStructure.class) != null) {
+			redis = true;
+			sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "redis-namespace-expiry-sweeper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long intervalNanos = sweepInterval.toNanos();
+			sweeper.scheduleWithFixedDelay(this::sweepQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+		} else if (WarmestDataStructureDecorator.unwrap(active, WarmestDataStructure.class) == null) {
+			unsupportedReason = "Namespaces are not supported by " + active.getClass().getSimpleName();
+		}
+	}
+
+	/**
+	 * @param namespace 1 to 64 letters, digits, {@code _}, {@code .} or {@code -}
+	 * @return the namespace's structure, created if this is its first use on this instance
+	 * @throws IllegalArgumentException      if the name is invalid
+	 * @throws IllegalStateException         if the maximum number of namespaces is open
+	 * @throws UnsupportedOperationException if the active engine does not support namespaces
+	 */
+	public WarmestDataStructureInterface get(String namespace) {
+		checkSupported();
+		Namespace open = namespaces.get(namespace);
+		if (open != null) {
+			return open.dataStructure;
+		}
+		checkName(namespace);
+		Namespace created = open(namespace);
+		if (redis && !created.registered) {
+			// Outside computeIfAbsent, which must not wait for Redis while it blocks the map's bin; adding twice is harmless
+			redisTemplate.getObject().opsForSet().add(NAMESPACES_KEY, namespace);
+			created.registered = true;
+		}
+		return created.dataStructure;
+	}
+
+	/**
+	 * Same as {@link #get(String)}, but never creates the namespace: on Redis one that another instance created is
+	 * opened here too.
+	 *
+	 * @return the namespace's structure, or an empty stand-in that rejects writes if the namespace does not exist
+	 * @throws IllegalArgumentException      if the name is invalid
+	 * @throws IllegalStateException         if the namespace exists on Redis, but the maximum number of namespaces is open
+	 * @throws UnsupportedOperationException if the active engine does not support namespaces
+	 */
+	public WarmestDataStructureInterface find(String namespace) {
+		checkSupported();
+		Namespace open = namespaces.get(namespace);
+		if (open != null) {
+			return open.dataStructure;
+		}
+		checkName(namespace);
+		if (!redis || !Boolean.TRUE.equals(redisTemplate.getObject().opsForSet().isMember(NAMESPACES_KEY, namespace))) {
+			return ABSENT;
+		}
+		Namespace found = open(namespace);
+		found.registered = true;
+		return found.dataStructure;
+	}
+
+	/**
+	 * @return the stats of every namespace open on this instance, by name; on Redis each one's at most
+	 * {@code warmest.namespaces.stats-max-age} old
+	 * @throws UnsupportedOperationException if the active engine does not support namespaces
+	 */
+	public List<NamespaceStats> stats() {
+		checkSupported();
+		List<NamespaceStats> stats = new ArrayList<>(namespaces.size());
+		for (Namespace namespace : new TreeMap<>(namespaces).values()) {
+			stats.add(namespace.stats());
+		}
+		return stats;
+	}
+
+	private void checkSupported() {
+		if (unsupportedReason != null) {
+			throw new UnsupportedOperationException(unsupportedReason);
+		}
+	}
+
+	private static void checkName(String name) {
+		if (name == null || !NAME.matcher(name).matches()) {
+			throw new IllegalArgumentException("Invalid namespace: " + name);
+		}
+	}
+
+	/**
+	 * @return the namespace open on this instance, opened now if it was not
+	 */
+	private Namespace open(String name) {
+		return namespaces.computeIfAbsent(name, this::create);
+	}
+
+	/**
+	 * Builds the namespace's structure and binds its metrics; does not call Redis, since it runs inside
+	 * computeIfAbsent.
+	 */
+	private Namespace create(String name) {
+		if (count.incrementAndGet() > maxCount) {
+			count.decrementAndGet();
+			throw new IllegalStateException("The maximum of " + maxCount + " namespaces is reached");
+		}
+		Namespace namespace = redis ?
+				new Namespace(name, null,
+						RedisWarmestDataStructure.forNamespace(redisTemplate.getObject(), name, maxEntries, sweepBatch),
+						statsMaxAgeNanos) :
+				new Namespace(name, new WarmestDataStructure(maxEntries, maxBytes), null, statsMaxAgeNanos);
+		if (redis) {
+			// It may hold expiring keys from before this instance opened it; the first sweep finds out
+			namespace.redis.setExpiringPutListener(() -> expiring.add(namespace));
+			expiring.add(namespace);
+		}
+
+		MeterRegistry registry = metricsEnabled ?
+				meterRegistry.getIfAvailable() :
+				null;
+		if (registry != null) {
+			String engine = namespace.dataStructure.getClass().getSimpleName();
+			namespace.dataStructure = new InstrumentedWarmestDataStructure(namespace.dataStructure, registry,
+					"warmest.namespace.operation", Tags.of("engine", engine, "namespace", name));
+			NamespaceMetrics.bind(registry, name, namespace::stats);
+		}
+		return namespace;
+	}
+
+	/**
+	 * Sweeps the namespaces in {@link #expiring}. Each is unmarked before its sweep and marked again if keys are left, so
+	 * a put with a time to live during the sweep cannot be missed.
+	 */
+	private void sweepQuietly() {
+		for (Namespace namespace : expiring) {
+			expiring.remove(namespace);
+			try {
+				if (namespace.redis.sweepExpired()) {
+					expiring.add(namespace);
+				}
+			} catch (RuntimeException e) {
+				expiring.add(namespace);
+				log.warn("Failed to sweep expired entries of namespace {} from Redis", namespace.name, e);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (sweeper != null) {
+			sweeper.shutdown();
+		}
+	}
+
+	private static final class Namespace {
+		private final String name;
+		/**
+		 * Exactly one of local and redis is set.
+		 */
+		private final WarmestDataStructure local;
+		private final RedisWarmestDataStructure redis;
+		private final long statsMaxAgeNanos;
+		/**
+		 * The engine as exposed, instrumented if metrics are enabled.
+		 */
+		private WarmestDataStructureInterface dataStructure;
+		/**
+		 * Whether the name is known to be in {@value NamespaceRegistry#NAMESPACES_KEY}; only used on Redis.
+		 */
+		private volatile boolean registered = false;
+		/**
+		 * The Redis stats last read, null before the first read.
+		 */
+		private volatile CachedStats cachedStats = null;
+
+		private Namespace(String name, WarmestDataStructure local, RedisWarmestDataStructure redis, long statsMaxAgeNanos) {
+			this.name = name;
+			this.local = local;
+			this.redis = redis;
+			this.statsMaxAgeNanos = statsMaxAgeNanos;
+			this.dataStructure = local != null ?
+					local :
+					redis;
+		}
+
+		/**
+		 * Live for the in-memory engine; on Redis, where they cost a script call, read again only once the last read is
+		 * older than the max age, so listing namespaces and scraping their gauges do not each call Redis.
+		 */
+		private NamespaceStats stats() {
+			if (local != null) {
+				return new NamespaceStats(name, local.size(), local.estimatedBytes());
+			}
+			long now = System.nanoTime();
+			CachedStats cached = cachedStats;
+			if (cached == null || now - cached.readAt() >= statsMaxAgeNanos) {
+				RedisWarmestDataStructure.Stats stats = redis.stats();
+				cached = new CachedStats(new NamespaceStats(name, stats.entries(), stats.bytes()), now);
+				cachedStats = cached;
+			}
+			return cached.stats();
+		}
+	}
+
+	private record CachedStats(NamespaceStats stats, long readAt) {
+	}
+}
@@ -0,0 +1,9 @@
+package io.github.ashr123.warmestdata.namespace;
+
+/**
+ * @param entries the namespace's entries, including expired ones not removed yet
+ * @param bytes   the estimated heap footprint for the in-memory engine ({@code WarmestDataStructure#estimatedBytes()}),
+ *                the {@code MEMORY USAGE} of the namespace's keys on Redis
+ */
+public record NamespaceStats(String namespace, long entries, long bytes) {
+}
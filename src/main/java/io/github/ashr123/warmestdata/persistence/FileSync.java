@@ -0,0 +1,32 @@
+package io.github.ashr123.warmestdata.persistence;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Makes directory changes durable, which forcing the files themselves does not.
+ */
+final class FileSync {
+
+	/**
+	 * Windows cannot open a directory as a channel; NTFS journals the rename with the file.
+	 */
+	private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+	private FileSync() {
+	}
+
+	/**
+	 * Forces the entries of a directory, e.g. a file just created or renamed in it, to disk.
+	 */
+	static void forceDirectory(Path directory) throws IOException {
+		if (WINDOWS) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package io.github.ashr123.warmestdata.persistence;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoding of a single {@link io.github.ashr123.warmestdata.dto.MutationLog} record, shared by the write-ahead log and
+ * replication:
+ * <pre>
+ * long sequence, byte type (0 put, 1 remove, 2 access, 3 expiring put), varint key length, UTF-8 key,
+ * int value (puts only), long epoch millisecond the entry expires at (expiring put only)
+ * </pre>
+ */
+public final class MutationRecords {
+
+	public static final byte PUT = 0;
+	public static final byte REMOVE = 1;
+	public static final byte ACCESS = 2;
+	public static final byte PUT_EXPIRING = 3;
+	/**
+	 * The shortest record: sequence, type and an empty key.
+	 */
+	public static final int MIN_BYTES = Long.BYTES + 2;
+
+	private MutationRecords() {
+	}
+
+	/**
+	 * @return the encoded length of a record of type with a key of keyLength UTF-8 bytes
+	 */
+	public static int length(byte type, int keyLength) {
+		return Long.BYTES + 1 + varIntSize(keyLength) + keyLength + switch (type) {
+			case PUT -> Integer.BYTES;
+			case PUT_EXPIRING -> Integer.BYTES + Long.BYTES;
+			default -> 0;
+		};
+	}
+
+	/**
+	 * Writes a record at the buffer's position, which must have {@link #length} bytes left.
+	 *
+	 * @param value           ignored unless type is a put
+	 * @param expiresAtMillis ignored unless type is {@link #PUT_EXPIRING}
+	 */
+	public static void put(ByteBuffer buffer, long sequence, byte type, byte[] keyBytes, int value, long expiresAtMillis) {
+		buffer.putLong(sequence)
+				.put(type);
+		putVarInt(buffer, keyBytes.length);
+		buffer.put(keyBytes);
+		if (type == PUT || type == PUT_EXPIRING) {
+			buffer.putInt(value);
+		}
+		if (type == PUT_EXPIRING) {
+			buffer.putLong(expiresAtMillis);
+		}
+	}
+
+	/**
+	 * Applies the record that follows the sequence number at the buffer's position to target: puts as {@code put},
+	 * removes as {@code remove} and accesses as {@code get}. An expiring put is applied with its remaining time to live,
+	 * or as {@code remove} if it has expired meanwhile.
+	 */
+	public static void apply(ByteBuffer record, WarmestDataStructureInterface target) {
+		byte type = record.get();
+		byte[] keyBytes = new byte[readVarInt(record)];
+		record.get(keyBytes);
+		String key = new String(keyBytes, StandardCharsets.UTF_8);
+		switch (type) {
+			case PUT -> target.put(key, record.getInt());
+			case REMOVE -> target.remove(key);
+			case ACCESS -> target.get(key);
+			case PUT_EXPIRING -> {
+				int value = record.getInt();
+				long ttlMillis = record.getLong() - System.currentTimeMillis();
+				if (ttlMillis > 0) {
+					target.put(key, value, ttlMillis);
+				} else {
+					target.remove(key);
+				}
+			}
+			default -> throw new IllegalStateException("Unknown record type: " + type);
+		}
+	}
+
+	private static int varIntSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	private static void putVarInt(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private static int readVarInt(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+}
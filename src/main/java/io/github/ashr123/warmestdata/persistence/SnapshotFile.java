@@ -0,0 +1,170 @@
+package io.github.ashr123.warmestdata.persistence;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot format of {@link WarmestDataStructure}.
+ * <pre>
+ * int    magic ("WDS3", or "WDS2" if entries carry a deadline)
+ * long   last write-ahead log sequence included, 0 without a log
+ * int    entry count
+ * count × { varint key length, UTF-8 key bytes, int value[, long expires-at epoch millis, 0 for never] }   coldest first
+ * int    CRC32 of all preceding bytes
+ * </pre>
+ * All ints are big-endian. Since entries are stored coldest first, replaying them as puts rebuilds the recency order.
+ * Snapshots without any expiring entry are written as "WDS3", so they cost no extra byte per entry. Files in the
+ * original "WDS1" format, which has no sequence, are still read, as including no log record.
+ */
+public final class SnapshotFile {
+
+	/**
+	 * "WDS1": no sequence and no deadlines, written before the write-ahead log existed.
+	 */
+	private static final int MAGIC_WITHOUT_SEQUENCE = 0x57445331;
+	private static final int MAGIC_EXPIRING = 0x57445332;
+	private static final int MAGIC = 0x57445333;
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private SnapshotFile() {
+	}
+
+	/**
+	 * Writes the snapshot next to target and atomically moves it into place once it is on disk, so a crash mid-write
+	 * leaves the previous snapshot intact.
+	 */
+	public static void write(WarmestDataStructure.Snapshot snapshot, Path target) throws IOException {
+		Path directory = target.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+			CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), new CRC32());
+			DataOutputStream out = new DataOutputStream(checked);
+			String[] keys = snapshot.keys();
+			int[] values = snapshot.values();
+			long[] expiresAt = snapshot.expiresAt();
+			out.writeInt(expiresAt == null ?
+					MAGIC :
+					MAGIC_EXPIRING);
+			out.writeLong(snapshot.sequence());
+			out.writeInt(keys.length);
+			for (int i = 0; i < keys.length; i++) {
+				byte[] key = keys[i].getBytes(StandardCharsets.UTF_8);
+				writeVarInt(out, key.length);
+				out.write(key);
+				out.writeInt(values[i]);
+				if (expiresAt != null) {
+					out.writeLong(expiresAt[i]);
+				}
+			}
+			out.writeInt((int) checked.getChecksum().getValue());
+			out.flush();
+			channel.force(true);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		// Callers delete the log segments the snapshot includes, which must not outlive the rename on a crash
+		FileSync.forceDirectory(directory);
+	}
+
+	/**
+	 * Streams the entries of a snapshot, coldest first, to sink. The checksum is verified in a first pass, so sink never
+	 * sees an entry of a corrupt or truncated file.
+	 *
+	 * @return the header of the snapshot
+	 * @throws IOException if the file is corrupt, or its entries do not end right before the checksum, as in a file
+	 *                     whose magic does not match its layout
+	 */
+	public static Header read(Path source, WarmestDataStructure.EntrySink sink) throws IOException {
+		verifyChecksum(source);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source), BUFFER_SIZE))) {
+			int magic = readMagic(in, source);
+			boolean expiring = magic == MAGIC_EXPIRING;
+			long sequence = magic == MAGIC_WITHOUT_SEQUENCE ?
+					0 :
+					in.readLong();
+			int count = in.readInt();
+			byte[] buffer = new byte[64];
+			for (int i = 0; i < count; i++) {
+				int length = readVarInt(in);
+				if (buffer.length < length) {
+					buffer = new byte[Math.max(length, buffer.length << 1)];
+				}
+				in.readFully(buffer, 0, length);
+				String key = new String(buffer, 0, length, StandardCharsets.UTF_8);
+				int value = in.readInt();
+				sink.accept(key, value, expiring ?
+						in.readLong() :
+						0);
+			}
+			in.readInt(); // Checksum, verified above
+			if (in.read() != -1) {
+				throw new IOException("Snapshot " + source + " has data after its entries");
+			}
+			return new Header(count, sequence);
+		}
+	}
+
+	private static void verifyChecksum(Path source) throws IOException {
+		long size = Files.size(source);
+		if (size < Integer.BYTES * 3) {
+			throw new IOException("Snapshot " + source + " is truncated");
+		}
+		try (CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(source), BUFFER_SIZE), new CRC32());
+		     DataInputStream in = new DataInputStream(checked)) {
+			readMagic(in, source);
+			in.skipNBytes(size - Integer.BYTES * 2);
+			int expected = (int) checked.getChecksum().getValue();
+			if (in.readInt() != expected) {
+				throw new IOException("Snapshot " + source + " is corrupt: checksum mismatch");
+			}
+		}
+	}
+
+	private static int readMagic(DataInputStream in, Path source) throws IOException {
+		int magic = in.readInt();
+		if (magic != MAGIC && magic != MAGIC_EXPIRING && magic != MAGIC_WITHOUT_SEQUENCE) {
+			throw new IOException("Not a snapshot file: " + source);
+		}
+		return magic;
+	}
+
+	/**
+	 * @param sequence the last write-ahead log sequence included in the snapshot, 0 without a log
+	 */
+	public record Header(int entries, long sequence) {
+	}
+
+	private static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed key length");
+	}
+}
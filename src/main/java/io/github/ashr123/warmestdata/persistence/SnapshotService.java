@@ -0,0 +1,132 @@
+package io.github.ashr123.warmestdata.persistence;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Persists the in-memory {@link WarmestDataStructure} to a {@link SnapshotFile}.
+ * <p>
+ * On startup, before the web server accepts requests, an existing snapshot is streamed back into the engine. A new
+ * snapshot is written every {@code warmest.snapshot.interval} and once more on shutdown, after the web server has
+ * stopped. Writers only wait for one chunk of the copy {@link WarmestDataStructure#snapshot()} makes at a time; encoding
+ * and disk I/O run on the copy.
+ * <p>
+ * Enabled by setting {@code warmest.snapshot.path}; only supported together with the default in-memory engine.
+ */
+@Service
+@ConditionalOnProperty(name = "warmest.snapshot.path")
+public class SnapshotService implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+	private final WarmestDataStructure dataStructure;
+	private final Path path;
+	private final Duration interval;
+	private final ScheduledExecutorService scheduler;
+	private final List<LongConsumer> writeListeners = new CopyOnWriteArrayList<>();
+	private long restoredSequence = 0;
+
+	public SnapshotService(WarmestDataStructureInterface dataStructure,
+	                       @Value("${warmest.snapshot.path}") Path path,
+	                       @Value("${warmest.snapshot.interval:5m}") Duration interval) {
+		this.dataStructure = WarmestDataStructureDecorator.unwrap(dataStructure, WarmestDataStructure.class);
+		if (this.dataStructure == null) {
+			throw new IllegalStateException("warmest.snapshot.path requires the in-memory engine, but the active engine is " + dataStructure.getClass().getSimpleName());
+		}
+		this.path = path;
+		this.interval = interval;
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "snapshot-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void afterPropertiesSet() throws IOException {
+		restore();
+		long intervalNanos = interval.toNanos();
+		scheduler.scheduleWithFixedDelay(this::writeQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Streams the snapshot at the configured path, if there is one, into the engine.
+	 */
+	public void restore() throws IOException {
+		if (!Files.exists(path)) {
+			log.info("No snapshot at {}, starting empty", path);
+			return;
+		}
+
+		long start = System.nanoTime();
+		SnapshotFile.Header[] header = new SnapshotFile.Header[1];
+		dataStructure.restore(sink -> header[0] = SnapshotFile.read(path, sink));
+		restoredSequence = header[0].sequence();
+		log.info("Restored {} entries from {} in {} ms", header[0].entries(), path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	/**
+	 * @return the last write-ahead log sequence included in the restored snapshot, 0 if there was none
+	 */
+	public long getRestoredSequence() {
+		return restoredSequence;
+	}
+
+	/**
+	 * @param listener called with {@link WarmestDataStructure.Snapshot#sequence()} after every successful write
+	 */
+	public void addWriteListener(LongConsumer listener) {
+		writeListeners.add(listener);
+	}
+
+	/**
+	 * Writes a snapshot of the current contents to the configured path.
+	 */
+	public synchronized void write() throws IOException {
+		long start = System.nanoTime();
+		WarmestDataStructure.Snapshot snapshot = dataStructure.snapshot();
+		long copied = System.nanoTime();
+		SnapshotFile.write(snapshot, path);
+		log.debug("Wrote {} entries to {} (copy {} ms, write {} ms)",
+				snapshot.keys().length,
+				path,
+				TimeUnit.NANOSECONDS.toMillis(copied - start),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - copied));
+		writeListeners.forEach(listener -> listener.accept(snapshot.sequence()));
+	}
+
+	private void writeQuietly() {
+		try {
+			write();
+		} catch (IOException | RuntimeException e) {
+			// The previous snapshot is still in place; the next run tries again
+			log.error("Failed to write snapshot to {}", path, e);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		scheduler.shutdown();
+		scheduler.awaitTermination(1, TimeUnit.MINUTES);
+		write();
+	}
+}
@@ -0,0 +1,562 @@
+package io.github.ashr123.warmestdata.persistence;
+
+import io.github.ashr123.warmestdata.dto.MutationLog;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * File-backed {@link MutationLog} with group commit.
+ * <p>
+ * The append methods only encode the record into an in-memory buffer. A flush writes everything buffered so far with
+ * positional writes and a single {@code fsync}, so concurrent writers share one disk round trip. Who flushes depends
+ * on the {@link Mode}.
+ * <p>
+ * The log is a directory of segments, each named after the sequence number of its first record. A background thread
+ * fills the next segment with zeros under a temporary name ahead of time, so appending never changes the file size,
+ * {@code fsync} has no file metadata to write, and a flush that fills a segment only renames the next one into place.
+ * A record length of 0 marks the end of the written part.
+ * <p>
+ * The log fails stop: once a flush fails, nothing more is buffered or written, and {@link #checkWritable()} makes the
+ * engine reject every later write, so no change becomes visible that a restart would lose. Closing the log has the same
+ * effect. Record layout:
+ * <pre>
+ * int    body length
+ * int    CRC32C of body
+ * body:  a {@link MutationRecords} record
+ * </pre>
+ */
+public final class WriteAheadLog implements MutationLog, Closeable {
+
+	public enum Mode {
+		/**
+		 * Every caller flushes before returning; callers waiting for the same flush share its fsync.
+		 */
+		SYNC,
+		/**
+		 * Callers wait for the flusher thread, which flushes as soon as someone waits, but at most once per flush
+		 * interval; everything appended in between shares the next fsync.
+		 */
+		GROUP,
+		/**
+		 * Callers do not wait; the flusher thread flushes every flush interval, so a crash loses up to one interval of
+		 * changes.
+		 */
+		ASYNC
+	}
+
+	/**
+	 * Opens a segment renamed into place for writing.
+	 */
+	@FunctionalInterface
+	public interface SegmentOpener {
+		FileChannel open(Path path) throws IOException;
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+	private static final int HEADER_BYTES = 2 * Integer.BYTES;
+	private static final int ZEROS_CHUNK = 1 << 20;
+	private static final String SEGMENT_PREFIX = "wal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	/**
+	 * The preallocated next segment; not matched by {@link #listSegments(Path)}.
+	 */
+	private static final String NEXT_SEGMENT = "next-segment.tmp";
+
+	private final Path directory;
+	private final Mode mode;
+	private final long segmentBytes;
+	private final long flushIntervalNanos;
+	private final SegmentOpener segmentOpener;
+	private final Thread flusher;
+	private final ExecutorService preallocator = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "wal-preallocator");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final ReentrantLock appendLock = new ReentrantLock();
+	// Guarded by appendLock
+	private final CRC32C checksum = new CRC32C();
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+	private long pendingFirstSequence = 0;
+	private long lastSequence;
+
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final Condition flushed = flushLock.newCondition();
+	private final Condition flushRequested = flushLock.newCondition();
+	// Guarded by flushLock
+	private int waiters = 0;
+	private boolean closing = false;
+	private final NavigableMap<Long, Path> segments = new TreeMap<>();
+	private ByteBuffer spare = ByteBuffer.allocate(1 << 16);
+	private FileChannel channel;
+	private long position;
+	private Future<Path> nextSegment;
+	/**
+	 * Set under flushLock, read without it by {@link #checkWritable()} and the append methods.
+	 */
+	private volatile IOException failure = null;
+
+	private volatile long durableSequence;
+
+	/**
+	 * Opens a new segment in directory; existing segments are kept for {@link #deleteSegmentsUpTo(long)}, except those
+	 * starting after lastSequence, whose records {@link #replay} could not read.
+	 *
+	 * @param lastSequence the last sequence number already used, as returned by {@link #replay}
+	 */
+	public WriteAheadLog(Path directory, Mode mode, Duration flushInterval, long segmentBytes, long lastSequence) throws IOException {
+		this(directory, mode, flushInterval, segmentBytes, lastSequence, path -> FileChannel.open(path, StandardOpenOption.WRITE));
+	}
+
+	/**
+	 * @param segmentOpener opens every segment the log appends to, e.g. to inject write failures
+	 */
+	public WriteAheadLog(Path directory, Mode mode, Duration flushInterval, long segmentBytes, long lastSequence,
+	                     SegmentOpener segmentOpener) throws IOException {
+		this.directory = directory;
+		this.segmentOpener = segmentOpener;
+		this.mode = mode;
+		this.segmentBytes = segmentBytes;
+		flushIntervalNanos = flushInterval.toNanos();
+		this.lastSequence = lastSequence;
+		durableSequence = lastSequence;
+
+		Files.createDirectories(directory);
+		for (Map.Entry<Long, Path> segment : listSegments(directory).entrySet()) {
+			if (segment.getKey() > lastSequence) {
+				Files.delete(segment.getValue());
+			} else {
+				segments.put(segment.getKey(), segment.getValue());
+			}
+		}
+		nextSegment = preallocator.submit(this::preallocateSegment);
+		openSegment(lastSequence + 1);
+
+		if (mode == Mode.SYNC) {
+			flusher = null;
+		} else {
+			flusher = new Thread(this::runFlusher, "wal-flusher");
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+	}
+
+	/**
+	 * Applies the records of the log in directory with a sequence number above afterSequence to target, in order: puts
+	 * as {@code put}, removes as {@code remove} and accesses as {@code get}. An expiring put is applied with its
+	 * remaining time to live, or as {@code remove} if it expired while the log was not running.
+	 * <p>
+	 * Reading stops at the first torn or corrupt record and at the first segment that does not continue the sequence of
+	 * the previous one, since nothing after that point was acknowledged as durable in order.
+	 *
+	 * @return the last sequence number read, or afterSequence if that is higher
+	 * @throws IOException if the first segment starts after afterSequence + 1, so the records in between are missing
+	 */
+	public static long replay(Path directory, long afterSequence, WarmestDataStructureInterface target) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return afterSequence;
+		}
+
+		NavigableMap<Long, Path> segments = listSegments(directory);
+		if (segments.isEmpty()) {
+			return afterSequence;
+		}
+		long expected = segments.firstKey();
+		if (expected > afterSequence + 1) {
+			throw new IOException("Write-ahead log " + directory + " starts at sequence " + expected + ", but the snapshot only includes up to " + afterSequence + "; the records in between are missing");
+		}
+		for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+			if (segment.getKey() != expected) {
+				break;
+			}
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.getValue()), 1 << 16))) {
+				for (byte[] body; (body = readBody(in)) != null; ) {
+					ByteBuffer record = ByteBuffer.wrap(body);
+					long sequence = record.getLong();
+					if (sequence != expected) {
+						return Math.max(expected - 1, afterSequence);
+					}
+					expected = sequence + 1;
+					if (sequence > afterSequence) {
+						MutationRecords.apply(record, target);
+					}
+				}
+			}
+		}
+		return Math.max(expected - 1, afterSequence);
+	}
+
+	/**
+	 * @return the body of the next intact record, or null at the end of the written part
+	 */
+	private static byte[] readBody(DataInputStream in) throws IOException {
+		try {
+			int length = in.readInt();
+			if (length < MutationRecords.MIN_BYTES) {
+				// 0 is the zero-filled unwritten part; anything else is garbage
+				return null;
+			}
+			int expectedChecksum = in.readInt();
+			byte[] body = in.readNBytes(length);
+			if (body.length < length) {
+				return null;
+			}
+			CRC32C checksum = new CRC32C();
+			checksum.update(body);
+			return (int) checksum.getValue() == expectedChecksum ?
+					body :
+					null;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private static NavigableMap<Long, Path> listSegments(Path directory) throws IOException {
+		NavigableMap<Long, Path> segments = new TreeMap<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			files.forEach(file -> {
+				String name = file.getFileName().toString();
+				if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+					segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+				}
+			});
+		}
+		return segments;
+	}
+
+	@Override
+	public long appendPut(String key, int value) {
+		return append(MutationRecords.PUT, key, value);
+	}
+
+	@Override
+	public long appendPut(String key, int value, long expiresAtMillis) {
+		return append(MutationRecords.PUT_EXPIRING, key, value, expiresAtMillis);
+	}
+
+	@Override
+	public long appendRemove(String key) {
+		return append(MutationRecords.REMOVE, key, 0);
+	}
+
+	@Override
+	public long appendAccess(String key) {
+		return append(MutationRecords.ACCESS, key, 0);
+	}
+
+	private long append(byte type, String key, int value) {
+		return append(type, key, value, 0);
+	}
+
+	private long append(byte type, String key, int value, long expiresAtMillis) {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		int bodyLength = MutationRecords.length(type, keyBytes.length);
+		appendLock.lock();
+		try {
+			long sequence = ++lastSequence;
+			if (failure != null) {
+				// Never written, so awaitDurable fails for it; only reached by an expiry, writes are rejected
+				return sequence;
+			}
+			if (pending.remaining() < HEADER_BYTES + bodyLength) {
+				ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() << 1, pending.position() + HEADER_BYTES + bodyLength));
+				pending.flip();
+				pending = grown.put(pending);
+			}
+			if (pending.position() == 0) {
+				pendingFirstSequence = sequence;
+			}
+
+			int start = pending.position();
+			pending.putInt(bodyLength)
+					.putInt(0); // Checksum, filled in below
+			MutationRecords.put(pending, sequence, type, keyBytes, value, expiresAtMillis);
+			checksum.reset();
+			checksum.update(pending.array(), start + HEADER_BYTES, bodyLength);
+			pending.putInt(start + Integer.BYTES, (int) checksum.getValue());
+			return sequence;
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	@Override
+	public void checkWritable() {
+		IOException failure = this.failure;
+		if (failure != null) {
+			throw new UncheckedIOException("Write-ahead log failed, rejecting writes", failure);
+		}
+	}
+
+	@Override
+	public void awaitDurable(long sequence) {
+		if (mode == Mode.ASYNC || durableSequence >= sequence) {
+			return;
+		}
+
+		flushLock.lock();
+		try {
+			if (mode == Mode.SYNC) {
+				if (durableSequence < sequence) {
+					flush();
+				}
+			} else {
+				waiters++;
+				try {
+					flushRequested.signal();
+					while (durableSequence < sequence) {
+						if (failure != null) {
+							throw failure;
+						}
+						flushed.awaitUninterruptibly();
+					}
+				} finally {
+					waiters--;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Write-ahead log failed", e);
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	@Override
+	public long lastSequence() {
+		appendLock.lock();
+		try {
+			return lastSequence;
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * Writes and fsyncs everything appended so far. After a failure, every later flush fails the same way.
+	 *
+	 * @implNote Must be called while holding flushLock.
+	 */
+	private void flush() throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+
+		ByteBuffer batch;
+		long firstSequence;
+		long batchLastSequence;
+		appendLock.lock();
+		try {
+			if (pending.position() == 0) {
+				return;
+			}
+			batch = pending;
+			pending = spare;
+			firstSequence = pendingFirstSequence;
+			batchLastSequence = lastSequence;
+		} finally {
+			appendLock.unlock();
+		}
+
+		try {
+			batch.flip();
+			if (position > 0 && position + batch.remaining() > segmentBytes) {
+				channel.close();
+				openSegment(firstSequence);
+			}
+			while (batch.hasRemaining()) {
+				position += channel.write(batch, position);
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			failure = e;
+			appendLock.lock();
+			try {
+				pending.clear();
+			} finally {
+				appendLock.unlock();
+			}
+			// In ASYNC mode no caller waits to see it
+			log.error("Write-ahead log {} failed, rejecting writes from now on", directory, e);
+			flushed.signalAll();
+			throw e;
+		}
+		spare = batch.clear();
+		durableSequence = batchLastSequence;
+		flushed.signalAll();
+	}
+
+	/**
+	 * Flusher thread loop: in {@link Mode#GROUP} waits for a waiting caller, in {@link Mode#ASYNC} for the next
+	 * interval, and then flushes; in both modes flushes are at least one interval apart.
+	 */
+	private void runFlusher() {
+		long lastFlush = System.nanoTime() - flushIntervalNanos;
+		while (true) {
+			flushLock.lock();
+			try {
+				while (mode == Mode.GROUP && waiters == 0 && !closing) {
+					flushRequested.awaitUninterruptibly();
+				}
+				if (closing) {
+					return;
+				}
+			} finally {
+				flushLock.unlock();
+			}
+
+			long delay = lastFlush + flushIntervalNanos - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+			}
+			lastFlush = System.nanoTime();
+			flushQuietly();
+		}
+	}
+
+	private void flushQuietly() {
+		flushLock.lock();
+		try {
+			flush();
+		} catch (IOException e) {
+			// Recorded in failure; waiting and later callers get it
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Renames the preallocated segment into place, makes it the one appended to and starts preallocating the next one.
+	 * Only waits for the preallocation if segments fill up faster than the disk writes zeros.
+	 *
+	 * @implNote Must be called while holding flushLock, or from the constructor.
+	 */
+	private void openSegment(long firstSequence) throws IOException {
+		Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+		Files.move(awaitNextSegment(), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		// The new name must be durable before any record in the segment is acknowledged
+		FileSync.forceDirectory(directory);
+		channel = segmentOpener.open(path);
+		position = 0;
+		segments.put(firstSequence, path);
+		nextSegment = preallocator.submit(this::preallocateSegment);
+	}
+
+	/**
+	 * Runs on the preallocator thread.
+	 *
+	 * @return the zero-filled next segment, on disk
+	 */
+	private Path preallocateSegment() throws IOException {
+		Path path = directory.resolve(NEXT_SEGMENT);
+		try (FileChannel segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer zeros = ByteBuffer.allocate(ZEROS_CHUNK);
+			for (long written = 0; written < segmentBytes; ) {
+				zeros.clear().limit((int) Math.min(ZEROS_CHUNK, segmentBytes - written));
+				written += segment.write(zeros, written);
+			}
+			segment.force(true);
+		}
+		return path;
+	}
+
+	private Path awaitNextSegment() throws IOException {
+		try {
+			return nextSegment.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the next write-ahead log segment");
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException cause ?
+					cause :
+					new IOException("Failed to preallocate a write-ahead log segment", e.getCause());
+		}
+	}
+
+	/**
+	 * Deletes every segment whose records all have a sequence number up to the given one, e.g. because a snapshot
+	 * includes them. The segment currently appended to is never deleted.
+	 */
+	public void deleteSegmentsUpTo(long sequence) throws IOException {
+		flushLock.lock();
+		try {
+			List<Long> covered = new ArrayList<>();
+			for (Long first : segments.keySet()) {
+				Long next = segments.higherKey(first);
+				if (next == null || next - 1 > sequence) {
+					break;
+				}
+				covered.add(first);
+			}
+			for (Long first : covered) {
+				Files.deleteIfExists(segments.remove(first));
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Flushes what is still buffered and closes the current segment. Later appends are never written, and callers
+	 * waiting for them fail.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (flusher != null) {
+			flushLock.lock();
+			try {
+				closing = true;
+				flushRequested.signal();
+			} finally {
+				flushLock.unlock();
+			}
+			try {
+				flusher.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		flushLock.lock();
+		try {
+			flush();
+		} finally {
+			channel.close();
+			failure = new IOException("Write-ahead log is closed");
+			flushed.signalAll();
+			flushLock.unlock();
+			preallocator.shutdown();
+			try {
+				Files.deleteIfExists(awaitNextSegment());
+			} catch (IOException e) {
+				// Never renamed into place, so replay ignores it, and the next start overwrites it
+			}
+		}
+	}
+}
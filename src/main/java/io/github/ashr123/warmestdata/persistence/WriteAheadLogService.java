@@ -0,0 +1,89 @@
+package io.github.ashr123.warmestdata.persistence;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes every change of the in-memory {@link WarmestDataStructure} durable with a {@link WriteAheadLog}.
+ * <p>
+ * On startup, after {@link SnapshotService} (if enabled) has restored its snapshot, the log records the snapshot does
+ * not include are replayed, and only then is the log attached to the engine. With snapshots enabled, every snapshot
+ * write deletes the segments it made redundant; without them the log grows until it is removed by hand.
+ * <p>
+ * Enabled by setting {@code warmest.wal.path}; only supported together with the default in-memory engine.
+ */
+@Service
+@ConditionalOnProperty(name = "warmest.wal.path")
+public class WriteAheadLogService implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(WriteAheadLogService.class);
+
+	private final WarmestDataStructure dataStructure;
+	private final Optional<SnapshotService> snapshotService;
+	private final Path path;
+	private final WriteAheadLog.Mode mode;
+	private final Duration flushInterval;
+	private final DataSize segmentSize;
+	private WriteAheadLog writeAheadLog;
+
+	// Optional<SnapshotService> makes it a dependency, so it restores before and is destroyed after this bean
+	public WriteAheadLogService(WarmestDataStructureInterface dataStructure,
+	                            Optional<SnapshotService> snapshotService,
+	                            @Value("${warmest.wal.path}") Path path,
+	                            @Value("${warmest.wal.mode:group}") WriteAheadLog.Mode mode,
+	                            @Value("${warmest.wal.flush-interval:1ms}") Duration flushInterval,
+	                            @Value("${warmest.wal.segment-size:64MB}") DataSize segmentSize) {
+		this.dataStructure = WarmestDataStructureDecorator.unwrap(dataStructure, WarmestDataStructure.class);
+		if (this.dataStructure == null) {
+			throw new IllegalStateException("warmest.wal.path requires the in-memory engine, but the active engine is " + dataStructure.getClass().getSimpleName());
+		}
+		this.snapshotService = snapshotService;
+		this.path = path;
+		this.mode = mode;
+		this.flushInterval = flushInterval;
+		this.segmentSize = segmentSize;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws IOException {
+		long snapshotSequence = snapshotService.map(SnapshotService::getRestoredSequence)
+				.orElse(0L);
+		long start = System.nanoTime();
+		long lastSequence = WriteAheadLog.replay(path, snapshotSequence, dataStructure);
+		log.info("Replayed {} log records from {} in {} ms", lastSequence - snapshotSequence, path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+		writeAheadLog = new WriteAheadLog(path, mode, flushInterval, segmentSize.toBytes(), lastSequence);
+		writeAheadLog.deleteSegmentsUpTo(snapshotSequence);
+		dataStructure.setMutationLog(writeAheadLog);
+		snapshotService.ifPresent(snapshots -> snapshots.addWriteListener(this::deleteSegmentsQuietly));
+	}
+
+	private void deleteSegmentsQuietly(long snapshotSequence) {
+		try {
+			writeAheadLog.deleteSegmentsUpTo(snapshotSequence);
+		} catch (IOException e) {
+			// Harmless: replay skips the records the snapshot includes, and the next snapshot tries again
+			log.warn("Failed to delete write-ahead log segments up to {}", snapshotSequence, e);
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		writeAheadLog.close();
+	}
+}
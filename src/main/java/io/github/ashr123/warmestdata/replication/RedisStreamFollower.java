@@ -0,0 +1,278 @@
+package io.github.ashr123.warmestdata.replication;
+
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a replica {@link WarmestDataStructure} in sync with the Redis linked-list layout by consuming the replication
+ * stream its scripts append every change to.
+ * <p>
+ * A reader thread starts from {@link RedisWarmestDataStructure#streamSnapshot()} and then applies the stream from the
+ * snapshot's position on with blocking {@code XREAD} batches, in stream order, so the replica holds exactly what Redis
+ * held at the last applied entry, recency order included. Entries are numbered without gaps; one missing because the
+ * stream was trimmed before it was read, or a failed read, makes the reader take a new snapshot. It also trims the
+ * stream to about {@code maxLength} entries every second, so a replica that falls further behind than that resyncs.
+ */
+public final class RedisStreamFollower implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(RedisStreamFollower.class);
+	private static final long TRIM_INTERVAL_MILLIS = 1000;
+
+	private final RedisWarmestDataStructure source;
+	private final StringRedisTemplate redisTemplate;
+	private final WarmestDataStructure replica;
+	private final String streamKey;
+	private final StreamReadOptions readOptions;
+	private final int batchSize;
+	private final long maxLength;
+	private final long retryMillis;
+	private final Thread reader;
+	private final Object appliedMonitor = new Object();
+	private volatile boolean closed = false;
+	// Only written by the reader thread
+	private volatile boolean synced = false;
+	private volatile long appliedSequence = 0;
+	private volatile long streamSequence = 0;
+	private volatile long caughtUpAtMillis = 0;
+	/**
+	 * The ID of the last stream entry applied, read on from; null until the next snapshot.
+	 */
+	private String lastEntryId = null;
+	private long trimmedAtMillis = 0;
+
+	/**
+	 * @param source        the Redis engine whose scripts append to the stream
+	 * @param pollTimeout   how long one {@code XREAD} blocks while there are no new entries
+	 * @param batchSize     the most entries one {@code XREAD} returns
+	 * @param maxLength     the approximate number of entries the stream is trimmed to, 0 to never trim
+	 * @param retryInterval pause before reading again after a read failed
+	 */
+	public RedisStreamFollower(RedisWarmestDataStructure source, StringRedisTemplate redisTemplate,
+	                           WarmestDataStructure replica, Duration pollTimeout, int batchSize, long maxLength,
+	                           Duration retryInterval) {
+		if (source.getStreamKey() == null) {
+			throw new IllegalStateException("The replication stream requires warmest.redis.stream.enabled=true");
+		}
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Stream batch size must be positive");
+		}
+		this.source = source;
+		this.redisTemplate = redisTemplate;
+		this.replica = replica;
+		this.batchSize = batchSize;
+		this.maxLength = maxLength;
+		streamKey = source.getStreamKey();
+		readOptions = StreamReadOptions.empty()
+				.count(batchSize)
+				.block(pollTimeout);
+		retryMillis = retryInterval.toMillis();
+
+		reader = new Thread(this::run, "redis-stream-follower");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	// ==================== Reader thread ====================
+
+	private void run() {
+		while (!closed) {
+			try {
+				if (lastEntryId == null) {
+					resync();
+				}
+				readBatch();
+				trimPeriodically();
+			} catch (RuntimeException e) {
+				if (closed) {
+					return;
+				}
+				log.warn("Failed to follow the replication stream {}: {}", streamKey, e.toString());
+				try {
+					Thread.sleep(retryMillis);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the replica's content with a snapshot; readers see either the old or the new content.
+	 */
+	private void resync() {
+		RedisWarmestDataStructure.StreamSnapshot snapshot = source.streamSnapshot();
+		try {
+			replica.replace(sink -> {
+				for (int i = 0; i < snapshot.keys().length; i++) {
+					sink.accept(snapshot.keys()[i], snapshot.values()[i], snapshot.expiresAt()[i]);
+				}
+			});
+		} catch (IOException e) {
+			// The source reads from memory
+			throw new UncheckedIOException(e);
+		}
+		lastEntryId = snapshot.lastEntryId();
+		appliedSequence = snapshot.sequence();
+		streamSequence = snapshot.sequence();
+		caughtUpAtMillis = System.currentTimeMillis();
+		synced = true;
+		log.info("Replaced replica with a snapshot of {} entries at stream entry {}", snapshot.keys().length, snapshot.sequence());
+		signalApplied();
+	}
+
+	private void readBatch() {
+		List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+				.read(readOptions, StreamOffset.create(streamKey, ReadOffset.from(lastEntryId)));
+		long receivedAtMillis = System.currentTimeMillis();
+		if (records == null) {
+			records = List.of();
+		}
+		for (MapRecord<String, Object, Object> record : records) {
+			Map<Object, Object> fields = record.getValue();
+			long sequence = Long.parseLong((String) fields.get("s"));
+			if (sequence <= appliedSequence) {
+				continue;
+			}
+			if (sequence != appliedSequence + 1) {
+				log.warn("Replication stream {} skipped from entry {} to {}, resyncing", streamKey, appliedSequence, sequence);
+				lastEntryId = null;
+				return;
+			}
+			apply(fields);
+			appliedSequence = sequence;
+			lastEntryId = record.getId().getValue();
+		}
+
+		if (records.size() < batchSize) {
+			// Drained: nothing was appended after the last entry when the read returned
+			streamSequence = appliedSequence;
+			caughtUpAtMillis = receivedAtMillis;
+		} else {
+			streamSequence = Math.max(appliedSequence, source.streamSequence());
+		}
+		signalApplied();
+	}
+
+	/**
+	 * Applies one change the way the script made it; a put whose deadline already passed by the local clock is a
+	 * removal.
+	 */
+	private void apply(Map<Object, Object> fields) {
+		String key = (String) fields.get("k");
+		switch ((String) fields.get("o")) {
+			case "P" -> {
+				int value = Integer.parseInt((String) fields.get("v"));
+				long expiresAt = (long) Double.parseDouble((String) fields.get("e"));
+				if (expiresAt == 0) {
+					replica.put(key, value);
+				} else if (expiresAt > System.currentTimeMillis()) {
+					replica.put(key, value, expiresAt - System.currentTimeMillis());
+				} else {
+					replica.remove(key);
+				}
+			}
+			case "G" -> replica.get(key);
+			case "R" -> replica.remove(key);
+			default -> throw new IllegalStateException("Unknown replication stream operation: " + fields.get("o"));
+		}
+	}
+
+	private void trimPeriodically() {
+		long now = System.currentTimeMillis();
+		if (maxLength > 0 && now - trimmedAtMillis >= TRIM_INTERVAL_MILLIS) {
+			redisTemplate.opsForStream().trim(streamKey, maxLength, true);
+			trimmedAtMillis = now;
+		}
+	}
+
+	private void signalApplied() {
+		synchronized (appliedMonitor) {
+			appliedMonitor.notifyAll();
+		}
+	}
+
+	// ==================== Called by the engine ====================
+
+	/**
+	 * @return whether the replica holds a snapshot, so reads may be served from it
+	 */
+	public boolean isSynced() {
+		return synced;
+	}
+
+	/**
+	 * Waits until the replica has applied the stream up to sequence, or until deadline.
+	 *
+	 * @param sequence a number of {@link RedisWarmestDataStructure#streamSequence()}
+	 * @return whether it has
+	 */
+	public boolean awaitApplied(long sequence, long deadline) {
+		if (synced && appliedSequence >= sequence) {
+			return true;
+		}
+		synchronized (appliedMonitor) {
+			long remainingNanos;
+			while (!(synced && appliedSequence >= sequence)) {
+				if ((remainingNanos = deadline - System.nanoTime()) <= 0) {
+					return false;
+				}
+				try {
+					TimeUnit.NANOSECONDS.timedWait(appliedMonitor, remainingNanos);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	// ==================== Lag ====================
+
+	public long getAppliedSequence() {
+		return appliedSequence;
+	}
+
+	/**
+	 * @return entries appended to the stream, as of the last read, that the replica has not applied yet
+	 */
+	public double getLagRecords() {
+		return Math.max(0, streamSequence - appliedSequence);
+	}
+
+	/**
+	 * @return milliseconds since the replica last drained the stream, by the local clock: while it keeps up, below the
+	 * poll timeout when idle and a round trip when busy; NaN before the first snapshot
+	 */
+	public double getLagMillis() {
+		long caughtUpAt = caughtUpAtMillis;
+		return caughtUpAt == 0 ?
+				Double.NaN :
+				Math.max(0, System.currentTimeMillis() - caughtUpAt);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			reader.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,411 @@
+package io.github.ashr123.warmestdata.replication;
+
+import io.github.ashr123.warmestdata.cluster.ShardUnavailableException;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.persistence.MutationRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a replica {@link WarmestDataStructure} in sync with a {@link ReplicationLeader} and forwards writes and recency
+ * bumps to it.
+ * <p>
+ * A reader thread applies the leader's snapshots and batches to the replica in sequence order, and reconnects every
+ * {@code retryInterval} after the connection breaks, resuming from the last applied record. Writes are sent to the
+ * leader and wait for its reply and then for the replica to apply everything up to the reply's sequence number, so a
+ * client reads its own writes from this follower. Accesses are queued and sent every {@code batchInterval} in one frame,
+ * and before every write, so the leader applies this instance's reads and writes in the order they were made; they are
+ * best effort, and are dropped while disconnected.
+ */
+public final class ReplicationFollower implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+	private static final int MAX_ACCESSES_PER_FRAME = 4096;
+
+	/**
+	 * @param previousValues one per key of the write, in its order
+	 */
+	public record WriteResult(long sequence, List<Integer> previousValues) {
+	}
+
+	private final WarmestDataStructure replica;
+	private final String leader;
+	private final String host;
+	private final int port;
+	private final long timeoutMillis;
+	private final long retryMillis;
+	private final Thread reader;
+	private final ScheduledExecutorService accessSender;
+	private final Queue<String> accesses = new ConcurrentLinkedQueue<>();
+	private final Map<Long, CompletableFuture<WriteResult>> pendingWrites = new ConcurrentHashMap<>();
+	private final AtomicLong requestIds = new AtomicLong();
+	private final Object appliedMonitor = new Object();
+	private volatile boolean closed = false;
+	private volatile Socket socket = null;
+	private volatile DataOutputStream out = null;
+	// Only written by the reader thread
+	private volatile long epoch = 0;
+	private volatile long appliedSequence = 0;
+	private volatile long leaderSequence = 0;
+	private volatile long replicatedAtMillis = 0;
+
+	/**
+	 * @param leader the leader's replication address, {@code host:port}
+	 * @param timeout connect timeout, and how long a write waits for the leader and then for the replica
+	 */
+	public ReplicationFollower(WarmestDataStructure replica, String leader, Duration batchInterval, Duration timeout, Duration retryInterval) {
+		int colon = leader.lastIndexOf(':');
+		if (colon == -1) {
+			throw new IllegalArgumentException("Leader address must be host:port, but is " + leader);
+		}
+		this.replica = replica;
+		this.leader = leader;
+		host = leader.substring(0, colon);
+		port = Integer.parseInt(leader.substring(colon + 1));
+		timeoutMillis = timeout.toMillis();
+		retryMillis = retryInterval.toMillis();
+
+		reader = new Thread(this::run, "replication-follower");
+		reader.setDaemon(true);
+		reader.start();
+		accessSender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replication-access-sender");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalNanos = batchInterval.toNanos();
+		accessSender.scheduleWithFixedDelay(this::sendAccesses, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	// ==================== Reader thread ====================
+
+	private void run() {
+		while (!closed) {
+			try (Socket connection = new Socket()) {
+				connection.connect(new InetSocketAddress(host, port), (int) timeoutMillis);
+				connection.setTcpNoDelay(true);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16));
+				DataOutputStream connectionOut = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream(), 1 << 16));
+				connectionOut.writeByte(ReplicationProtocol.HELLO);
+				connectionOut.writeLong(epoch);
+				connectionOut.writeLong(appliedSequence);
+				connectionOut.flush();
+				socket = connection;
+				out = connectionOut;
+				log.info("Connected to leader {} at sequence {}", leader, appliedSequence);
+				readFrames(in);
+			} catch (IOException e) {
+				if (!closed) {
+					log.warn("Lost connection to leader {}: {}", leader, e.toString());
+				}
+			} finally {
+				out = null;
+				socket = null;
+				ShardUnavailableException failure = new ShardUnavailableException("Lost connection to leader " + leader);
+				for (Long requestId : pendingWrites.keySet()) {
+					CompletableFuture<WriteResult> write = pendingWrites.remove(requestId);
+					if (write != null) {
+						write.completeExceptionally(failure);
+					}
+				}
+			}
+			try {
+				Thread.sleep(retryMillis);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private void readFrames(DataInputStream in) throws IOException {
+		while (!closed) {
+			switch (in.readByte()) {
+				case ReplicationProtocol.SNAPSHOT -> readSnapshot(in);
+				case ReplicationProtocol.BATCH -> {
+					long lastSequence = in.readLong();
+					long sealedAtMillis = in.readLong();
+					byte[] records = new byte[in.readInt()];
+					in.readFully(records);
+					applyBatch(ByteBuffer.wrap(records));
+					leaderSequence = lastSequence;
+					replicatedAtMillis = sealedAtMillis;
+					signalApplied();
+				}
+				case ReplicationProtocol.HEARTBEAT -> {
+					long publishedSequence = in.readLong();
+					long sentAtMillis = in.readLong();
+					leaderSequence = publishedSequence;
+					if (appliedSequence >= publishedSequence) {
+						replicatedAtMillis = sentAtMillis;
+					}
+				}
+				case ReplicationProtocol.WRITTEN -> {
+					long requestId = in.readLong();
+					long sequence = in.readLong();
+					int count = in.readInt();
+					List<Integer> previousValues = new ArrayList<>(count);
+					for (int i = 0; i < count; i++) {
+						boolean present = in.readBoolean();
+						int value = in.readInt();
+						previousValues.add(present ?
+								value :
+								null);
+					}
+					complete(requestId, new WriteResult(sequence, previousValues));
+				}
+				case ReplicationProtocol.WRITE_FAILED -> {
+					long requestId = in.readLong();
+					CompletableFuture<WriteResult> write = pendingWrites.remove(requestId);
+					byte kind = in.readByte();
+					String message = in.readUTF();
+					if (write != null) {
+						write.completeExceptionally(kind == ReplicationProtocol.REJECTED ?
+								new IllegalArgumentException(message) :
+								new ShardUnavailableException("Write failed on leader " + leader + ": " + message));
+					}
+				}
+				default -> throw new IOException("Unknown frame type");
+			}
+		}
+	}
+
+	/**
+	 * Reads the whole snapshot before replacing the replica's content, so the replica's write lock is not held while
+	 * waiting for the network.
+	 */
+	private void readSnapshot(DataInputStream in) throws IOException {
+		long snapshotEpoch = in.readLong();
+		long sequence = in.readLong();
+		long sentAtMillis = in.readLong();
+		int count = in.readInt();
+		String[] keys = new String[count];
+		int[] values = new int[count];
+		long[] expiresAt = new long[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = ReplicationProtocol.readKey(in);
+			values[i] = in.readInt();
+			expiresAt[i] = in.readLong();
+		}
+		replica.replace(sink -> {
+			for (int i = 0; i < count; i++) {
+				sink.accept(keys[i], values[i], expiresAt[i]);
+			}
+		});
+		epoch = snapshotEpoch;
+		appliedSequence = sequence;
+		leaderSequence = sequence;
+		replicatedAtMillis = sentAtMillis;
+		log.info("Replaced replica with a snapshot of {} entries at sequence {}", count, sequence);
+		signalApplied();
+	}
+
+	/**
+	 * Applies the records after {@link #appliedSequence}; earlier ones are already included by a snapshot.
+	 */
+	private void applyBatch(ByteBuffer records) {
+		while (records.hasRemaining()) {
+			int length = records.getInt();
+			ByteBuffer record = records.slice(records.position(), length);
+			records.position(records.position() + length);
+			long sequence = record.getLong();
+			if (sequence > appliedSequence) {
+				MutationRecords.apply(record, replica);
+				appliedSequence = sequence;
+			}
+		}
+	}
+
+	private void signalApplied() {
+		synchronized (appliedMonitor) {
+			appliedMonitor.notifyAll();
+		}
+	}
+
+	private void complete(long requestId, WriteResult result) {
+		CompletableFuture<WriteResult> write = pendingWrites.remove(requestId);
+		if (write != null) {
+			write.complete(result);
+		}
+	}
+
+	// ==================== Called by the engine ====================
+
+	/**
+	 * Queues an access of key, served from the replica, to be applied on the leader.
+	 */
+	public void recordAccess(String key) {
+		accesses.add(key);
+	}
+
+	private void sendAccesses() {
+		DataOutputStream connectionOut = out;
+		if (connectionOut == null) {
+			accesses.clear();
+			return;
+		}
+		try {
+			synchronized (connectionOut) {
+				if (writeAccesses(connectionOut)) {
+					connectionOut.flush();
+				}
+			}
+		} catch (IOException e) {
+			// The reader notices the broken connection and reconnects
+		}
+	}
+
+	/**
+	 * Writes the queued accesses, so frames written after them are applied after them.
+	 *
+	 * @return whether any were queued
+	 * @implNote Must be called while synchronized on connectionOut.
+	 */
+	private boolean writeAccesses(DataOutputStream connectionOut) throws IOException {
+		boolean any = false;
+		List<String> keys = new ArrayList<>();
+		do {
+			keys.clear();
+			for (String key; keys.size() < MAX_ACCESSES_PER_FRAME && (key = accesses.poll()) != null; ) {
+				keys.add(key);
+			}
+			if (keys.isEmpty()) {
+				return any;
+			}
+			connectionOut.writeByte(ReplicationProtocol.ACCESSES);
+			connectionOut.writeInt(keys.size());
+			for (String key : keys) {
+				ReplicationProtocol.writeKey(connectionOut, key);
+			}
+			any = true;
+		} while (keys.size() == MAX_ACCESSES_PER_FRAME);
+		return any;
+	}
+
+	/**
+	 * Sends a put or remove to the leader, then waits until the replica includes it.
+	 *
+	 * @param operation {@link ReplicationProtocol#PUT} or {@link ReplicationProtocol#REMOVE}
+	 * @param values    the value of every key for a put, ignored for a remove
+	 * @param ttlMillis the time to live of a single put, 0 for none
+	 */
+	public WriteResult write(byte operation, List<String> keys, List<Integer> values, long ttlMillis) {
+		DataOutputStream connectionOut = out;
+		if (connectionOut == null) {
+			throw new ShardUnavailableException("Not connected to leader " + leader);
+		}
+		long requestId = requestIds.incrementAndGet();
+		CompletableFuture<WriteResult> reply = new CompletableFuture<>();
+		pendingWrites.put(requestId, reply);
+		try {
+			synchronized (connectionOut) {
+				// This instance's earlier reads come first, as they did for its client
+				writeAccesses(connectionOut);
+				connectionOut.writeByte(ReplicationProtocol.WRITE);
+				connectionOut.writeLong(requestId);
+				connectionOut.writeByte(operation);
+				connectionOut.writeLong(ttlMillis);
+				connectionOut.writeInt(keys.size());
+				for (int i = 0; i < keys.size(); i++) {
+					ReplicationProtocol.writeKey(connectionOut, keys.get(i));
+					if (operation == ReplicationProtocol.PUT) {
+						connectionOut.writeInt(values.get(i));
+					}
+				}
+				connectionOut.flush();
+			}
+		} catch (IOException e) {
+			pendingWrites.remove(requestId);
+			throw new ShardUnavailableException("Failed to send write to leader " + leader, e);
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		WriteResult result;
+		try {
+			result = reply.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof RuntimeException cause ?
+					cause :
+					new ShardUnavailableException("Write failed on leader " + leader, e.getCause());
+		} catch (TimeoutException e) {
+			pendingWrites.remove(requestId);
+			throw new ShardUnavailableException("Leader " + leader + " did not answer within " + timeoutMillis + " ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ShardUnavailableException("Interrupted while waiting for leader " + leader, e);
+		}
+		awaitApplied(result.sequence(), deadline);
+		return result;
+	}
+
+	/**
+	 * Waits until the replica has applied sequence, or until deadline; the write is done either way, only a read right
+	 * after it may miss it.
+	 */
+	private void awaitApplied(long sequence, long deadline) {
+		synchronized (appliedMonitor) {
+			long remainingNanos;
+			while (appliedSequence < sequence && (remainingNanos = deadline - System.nanoTime()) > 0) {
+				try {
+					TimeUnit.NANOSECONDS.timedWait(appliedMonitor, remainingNanos);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	// ==================== Lag ====================
+
+	public long getAppliedSequence() {
+		return appliedSequence;
+	}
+
+	/**
+	 * @return records the leader has published, as of its last frame, that the replica has not applied yet
+	 */
+	public double getLagRecords() {
+		return Math.max(0, leaderSequence - appliedSequence);
+	}
+
+	/**
+	 * @return milliseconds since the leader sealed the newest state the replica is known to include, by the leader's
+	 * clock; NaN before the first snapshot
+	 */
+	public double getLagMillis() {
+		long replicatedAt = replicatedAtMillis;
+		return replicatedAt == 0 ?
+				Double.NaN :
+				Math.max(0, System.currentTimeMillis() - replicatedAt);
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		accessSender.shutdownNow();
+		reader.interrupt();
+		Socket connection = socket;
+		if (connection != null) {
+			connection.close();
+		}
+	}
+}
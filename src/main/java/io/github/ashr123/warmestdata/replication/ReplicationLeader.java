@@ -0,0 +1,327 @@
+package io.github.ashr123.warmestdata.replication;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.metrics.ReplicationMetrics;
+import io.github.ashr123.warmestdata.persistence.SnapshotService;
+import io.github.ashr123.warmestdata.persistence.WriteAheadLogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams every change of the in-memory {@link WarmestDataStructure} to {@link ReplicationFollower}s over TCP, and
+ * applies the writes and recency bumps they forward.
+ * <p>
+ * A {@link ReplicationLog} is attached to the engine, after the write-ahead log (if enabled), which it keeps feeding.
+ * Every {@code warmest.replication.batch-interval} the records appended since the previous batch are sealed into one,
+ * which is written to every follower, so a burst of changes costs one frame and one flush per follower rather than one
+ * per change. A follower that connects, or reconnects after falling further behind than the backlog reaches, first gets
+ * a snapshot of the engine. Idle followers get a heartbeat every {@code warmest.replication.heartbeat-interval}, which
+ * bounds how stale they can be without noticing.
+ * <p>
+ * Every follower connection has a sender thread, which streams the log, and a receiver thread, which applies the
+ * follower's requests through the active engine, so they are logged and streamed back like local changes.
+ * <p>
+ * Writes from followers are not authenticated, so the port is bound to {@code warmest.replication.bind-address}, the
+ * loopback address unless configured otherwise; binding it to a reachable interface is only safe on a trusted network.
+ * <p>
+ * Enabled by setting {@code warmest.replication.port}; only supported together with the default in-memory engine.
+ */
+@Service
+@ConditionalOnProperty(name = "warmest.replication.port")
+public class ReplicationLeader implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicationLeader.class);
+
+	private final WarmestDataStructureInterface dataStructure;
+	private final WarmestDataStructure engine;
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+	private final int port;
+	private final String bindAddress;
+	private final Duration batchInterval;
+	private final long heartbeatMillis;
+	private final DataSize backlogSize;
+	private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+	private final ScheduledExecutorService publisher;
+	private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+	private ReplicationLog replicationLog;
+	private ServerSocket serverSocket;
+	private volatile boolean closed = false;
+
+	// The Optionals make the persistence services dependencies, so the engine is restored and the write-ahead log is
+	// attached before this bean wraps it
+	public ReplicationLeader(WarmestDataStructureInterface dataStructure,
+	                         Optional<SnapshotService> snapshotService,
+	                         Optional<WriteAheadLogService> writeAheadLogService,
+	                         ObjectProvider<MeterRegistry> meterRegistry,
+	                         @Value("${warmest.replication.port}") int port,
+	                         @Value("${warmest.replication.bind-address:127.0.0.1}") String bindAddress,
+	                         @Value("${warmest.replication.batch-interval:1ms}") Duration batchInterval,
+	                         @Value("${warmest.replication.heartbeat-interval:50ms}") Duration heartbeatInterval,
+	                         @Value("${warmest.replication.backlog-size:16MB}") DataSize backlogSize) {
+		this.dataStructure = dataStructure;
+		engine = WarmestDataStructureDecorator.unwrap(dataStructure, WarmestDataStructure.class);
+		if (engine == null) {
+			throw new IllegalStateException("warmest.replication.port requires the in-memory engine, but the active engine is " + dataStructure.getClass().getSimpleName());
+		}
+		this.meterRegistry = meterRegistry;
+		this.port = port;
+		this.bindAddress = bindAddress;
+		this.batchInterval = batchInterval;
+		heartbeatMillis = heartbeatInterval.toMillis();
+		this.backlogSize = backlogSize;
+		publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replication-publisher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void afterPropertiesSet() throws IOException {
+		replicationLog = new ReplicationLog(engine.getMutationLog(), backlogSize.toBytes());
+		engine.setMutationLog(replicationLog);
+		long intervalNanos = batchInterval.toNanos();
+		publisher.scheduleWithFixedDelay(replicationLog::publish, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+		serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(InetAddress.getByName(bindAddress), port));
+		startThread("replication-acceptor", this::accept);
+		meterRegistry.ifAvailable(registry -> ReplicationMetrics.bindLeader(registry, followers::size));
+		log.info("Accepting followers on {}", serverSocket.getLocalSocketAddress());
+	}
+
+	private static void startThread(String name, Runnable task) {
+		Thread thread = new Thread(task, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void accept() {
+		while (!closed) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				followers.add(socket);
+				startThread("replication-sender-" + socket.getPort(), () -> serve(socket));
+			} catch (IOException e) {
+				if (!closed) {
+					log.warn("Failed to accept a follower", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the follower's HELLO, starts its receiver thread and streams the log until the connection breaks.
+	 */
+	private void serve(Socket socket) {
+		try (socket) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+			if (in.readByte() != ReplicationProtocol.HELLO) {
+				throw new IOException("Expected HELLO");
+			}
+			long followerEpoch = in.readLong();
+			long appliedSequence = in.readLong();
+			log.info("Follower {} connected at sequence {}", socket.getRemoteSocketAddress(), appliedSequence);
+			startThread("replication-receiver-" + socket.getPort(), () -> receive(socket, in, out));
+			stream(out, followerEpoch == epoch && appliedSequence <= replicationLog.lastSequence() ?
+					appliedSequence :
+					-1);
+		} catch (IOException | InterruptedException e) {
+			if (!closed) {
+				log.info("Follower {} disconnected: {}", socket.getRemoteSocketAddress(), e.toString());
+			}
+		} finally {
+			followers.remove(socket);
+		}
+	}
+
+	/**
+	 * @param sentSequence the last sequence number the follower has, -1 if it needs a snapshot
+	 */
+	private void stream(DataOutputStream out, long sentSequence) throws IOException, InterruptedException {
+		while (!closed) {
+			List<ReplicationLog.Batch> batches = sentSequence == -1 ?
+					null :
+					replicationLog.awaitBatches(sentSequence, heartbeatMillis);
+			synchronized (out) {
+				if (batches == null) {
+					sentSequence = writeSnapshot(out);
+				} else if (batches.isEmpty()) {
+					out.writeByte(ReplicationProtocol.HEARTBEAT);
+					out.writeLong(replicationLog.publishedSequence());
+					out.writeLong(System.currentTimeMillis());
+				} else {
+					for (ReplicationLog.Batch batch : batches) {
+						out.writeByte(ReplicationProtocol.BATCH);
+						out.writeLong(batch.lastSequence());
+						out.writeLong(batch.sealedAtMillis());
+						out.writeInt(batch.records().length);
+						out.write(batch.records());
+					}
+					sentSequence = batches.get(batches.size() - 1).lastSequence();
+				}
+				out.flush();
+			}
+		}
+	}
+
+	/**
+	 * @return the last sequence number the snapshot includes; records up to it may still follow in batches, and are
+	 * skipped by the follower
+	 */
+	private long writeSnapshot(DataOutputStream out) throws IOException {
+		WarmestDataStructure.Snapshot snapshot = engine.snapshot();
+		out.writeByte(ReplicationProtocol.SNAPSHOT);
+		out.writeLong(epoch);
+		out.writeLong(snapshot.sequence());
+		out.writeLong(System.currentTimeMillis());
+		out.writeInt(snapshot.keys().length);
+		for (int i = 0; i < snapshot.keys().length; i++) {
+			ReplicationProtocol.writeKey(out, snapshot.keys()[i]);
+			out.writeInt(snapshot.values()[i]);
+			out.writeLong(snapshot.expiresAt() == null ?
+					0 :
+					snapshot.expiresAt()[i]);
+		}
+		return snapshot.sequence();
+	}
+
+	/**
+	 * Applies the follower's requests until the connection breaks, then closes it, which also stops the sender.
+	 */
+	private void receive(Socket socket, DataInputStream in, DataOutputStream out) {
+		try (socket) {
+			while (!closed) {
+				switch (in.readByte()) {
+					case ReplicationProtocol.ACCESSES -> {
+						int count = in.readInt();
+						List<String> keys = new ArrayList<>(count);
+						for (int i = 0; i < count; i++) {
+							keys.add(ReplicationProtocol.readKey(in));
+						}
+						dataStructure.getAll(keys);
+					}
+					case ReplicationProtocol.WRITE -> applyWrite(in, out);
+					default -> throw new IOException("Unknown frame type");
+				}
+			}
+		} catch (IOException e) {
+			// The sender logs the disconnect
+		}
+	}
+
+	private void applyWrite(DataInputStream in, DataOutputStream out) throws IOException {
+		long requestId = in.readLong();
+		byte operation = in.readByte();
+		long ttlMillis = in.readLong();
+		int count = in.readInt();
+		Map<String, Integer> entries = new LinkedHashMap<>();
+		List<String> keys = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String key = ReplicationProtocol.readKey(in);
+			keys.add(key);
+			if (operation == ReplicationProtocol.PUT) {
+				entries.put(key, in.readInt());
+			}
+		}
+
+		List<Integer> previousValues = new ArrayList<>(count);
+		byte failureKind = 0;
+		String failure = null;
+		try {
+			if (operation == ReplicationProtocol.PUT) {
+				if (count == 1) {
+					previousValues.add(ttlMillis == 0 ?
+							dataStructure.put(keys.get(0), entries.get(keys.get(0))) :
+							dataStructure.put(keys.get(0), entries.get(keys.get(0)), ttlMillis));
+				} else {
+					Map<String, Integer> results = dataStructure.putAll(entries);
+					keys.forEach(key -> previousValues.add(results.get(key)));
+				}
+			} else if (count == 1) {
+				previousValues.add(dataStructure.remove(keys.get(0)));
+			} else {
+				Map<String, Integer> results = dataStructure.removeAll(keys);
+				keys.forEach(key -> previousValues.add(results.get(key)));
+			}
+		} catch (IllegalArgumentException e) {
+			failureKind = ReplicationProtocol.REJECTED;
+			failure = String.valueOf(e.getMessage());
+		} catch (RuntimeException e) {
+			// Not the client's fault: logged here, where the stack trace is, and reported as a server error
+			log.error("Failed to apply a write from a follower", e);
+			failureKind = ReplicationProtocol.FAILED;
+			failure = String.valueOf(e.getMessage());
+		}
+		// Read after the write, so it covers the write's records
+		long sequence = replicationLog.lastSequence();
+
+		synchronized (out) {
+			if (failure != null) {
+				out.writeByte(ReplicationProtocol.WRITE_FAILED);
+				out.writeLong(requestId);
+				out.writeByte(failureKind);
+				out.writeUTF(failure);
+			} else {
+				out.writeByte(ReplicationProtocol.WRITTEN);
+				out.writeLong(requestId);
+				out.writeLong(sequence);
+				out.writeInt(previousValues.size());
+				for (Integer previousValue : previousValues) {
+					out.writeBoolean(previousValue != null);
+					out.writeInt(previousValue == null ?
+							0 :
+							previousValue);
+				}
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * @return the port followers connect to, useful when configured as 0
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		closed = true;
+		publisher.shutdownNow();
+		serverSocket.close();
+		for (Socket follower : followers) {
+			follower.close();
+		}
+	}
+}
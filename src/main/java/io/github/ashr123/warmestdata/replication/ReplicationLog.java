@@ -0,0 +1,218 @@
+package io.github.ashr123.warmestdata.replication;
+
+import io.github.ashr123.warmestdata.dto.MutationLog;
+import io.github.ashr123.warmestdata.persistence.MutationRecords;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link MutationLog} that records every change for followers, and passes it on to the log the engine had before (the
+ * write-ahead log, if enabled), whose sequence numbers it reuses.
+ * <p>
+ * Like {@link io.github.ashr123.warmestdata.persistence.WriteAheadLog}, the append methods only encode the record into a
+ * buffer. {@link #publish()} seals everything buffered since the previous call into one {@link Batch} and adds it to a
+ * backlog, which keeps the newest batches up to a size limit so a follower that reconnects can resume where it stopped.
+ * Records are framed as {@code int length} followed by a {@link MutationRecords} record.
+ */
+public final class ReplicationLog implements MutationLog {
+
+	/**
+	 * Consecutive records, sealed at sealedAtMillis.
+	 */
+	public record Batch(long firstSequence, long lastSequence, long sealedAtMillis, byte[] records) {
+	}
+
+	private final MutationLog downstream;
+	private final long backlogBytes;
+
+	private final ReentrantLock appendLock = new ReentrantLock();
+	// Guarded by appendLock
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+	private long pendingFirstSequence = 0;
+	private long lastSequence;
+
+	private final ReentrantLock backlogLock = new ReentrantLock();
+	private final Condition published = backlogLock.newCondition();
+	// Guarded by backlogLock
+	private final ArrayDeque<Batch> backlog = new ArrayDeque<>();
+	private long backlogSize = 0;
+	private long publishedSequence;
+	private long trimmedSequence;
+
+	/**
+	 * @param downstream   the log to pass every change on to, or null
+	 * @param backlogBytes how many bytes of the newest batches to keep for followers that fall behind
+	 */
+	public ReplicationLog(MutationLog downstream, long backlogBytes) {
+		this.downstream = downstream;
+		this.backlogBytes = backlogBytes;
+		lastSequence = downstream == null ?
+				0 :
+				downstream.lastSequence();
+		publishedSequence = lastSequence;
+		trimmedSequence = lastSequence;
+	}
+
+	@Override
+	public long appendPut(String key, int value) {
+		return append(MutationRecords.PUT, key, value, 0, downstream == null ?
+				0 :
+				downstream.appendPut(key, value));
+	}
+
+	@Override
+	public long appendPut(String key, int value, long expiresAtMillis) {
+		return append(MutationRecords.PUT_EXPIRING, key, value, expiresAtMillis, downstream == null ?
+				0 :
+				downstream.appendPut(key, value, expiresAtMillis));
+	}
+
+	@Override
+	public long appendRemove(String key) {
+		return append(MutationRecords.REMOVE, key, 0, 0, downstream == null ?
+				0 :
+				downstream.appendRemove(key));
+	}
+
+	@Override
+	public long appendAccess(String key) {
+		return append(MutationRecords.ACCESS, key, 0, 0, downstream == null ?
+				0 :
+				downstream.appendAccess(key));
+	}
+
+	/**
+	 * @param sequence the downstream log's sequence number for the record, 0 to assign the next one here
+	 */
+	private long append(byte type, String key, int value, long expiresAtMillis, long sequence) {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		int length = MutationRecords.length(type, keyBytes.length);
+		appendLock.lock();
+		try {
+			if (sequence == 0) {
+				sequence = lastSequence + 1;
+			}
+			lastSequence = sequence;
+			if (pendingFirstSequence == 0) {
+				pendingFirstSequence = sequence;
+			}
+			if (pending.remaining() < Integer.BYTES + length) {
+				pending = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + Integer.BYTES + length))
+						.put(pending.flip());
+			}
+			pending.putInt(length);
+			MutationRecords.put(pending, sequence, type, keyBytes, value, expiresAtMillis);
+			return sequence;
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	@Override
+	public void checkWritable() {
+		if (downstream != null) {
+			downstream.checkWritable();
+		}
+	}
+
+	@Override
+	public void awaitDurable(long sequence) {
+		if (downstream != null) {
+			downstream.awaitDurable(sequence);
+		}
+	}
+
+	@Override
+	public long lastSequence() {
+		appendLock.lock();
+		try {
+			return lastSequence;
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * Seals the records appended since the previous call into a batch, adds it to the backlog and wakes up the followers
+	 * waiting in {@link #awaitBatches}. Does nothing if nothing was appended.
+	 */
+	public void publish() {
+		Batch batch;
+		appendLock.lock();
+		try {
+			if (pendingFirstSequence == 0) {
+				return;
+			}
+			byte[] records = new byte[pending.position()];
+			pending.flip()
+					.get(records)
+					.clear();
+			batch = new Batch(pendingFirstSequence, lastSequence, System.currentTimeMillis(), records);
+			pendingFirstSequence = 0;
+		} finally {
+			appendLock.unlock();
+		}
+
+		backlogLock.lock();
+		try {
+			backlog.addLast(batch);
+			backlogSize += batch.records().length;
+			publishedSequence = batch.lastSequence();
+			while (backlogSize > backlogBytes && backlog.size() > 1) {
+				Batch trimmed = backlog.removeFirst();
+				backlogSize -= trimmed.records().length;
+				trimmedSequence = trimmed.lastSequence();
+			}
+			published.signalAll();
+		} finally {
+			backlogLock.unlock();
+		}
+	}
+
+	/**
+	 * Waits up to timeoutMillis for batches with records after afterSequence.
+	 *
+	 * @return the batches holding every published record after afterSequence, oldest first; empty if none was published
+	 * in time; null if some of those records are no longer in the backlog, so the follower needs a snapshot
+	 */
+	public List<Batch> awaitBatches(long afterSequence, long timeoutMillis) throws InterruptedException {
+		backlogLock.lock();
+		try {
+			long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			while (publishedSequence <= afterSequence && remainingNanos > 0) {
+				remainingNanos = published.awaitNanos(remainingNanos);
+			}
+			if (afterSequence < trimmedSequence) {
+				return null;
+			}
+			List<Batch> batches = new ArrayList<>();
+			for (Batch batch : backlog) {
+				if (batch.lastSequence() > afterSequence) {
+					batches.add(batch);
+				}
+			}
+			return batches;
+		} finally {
+			backlogLock.unlock();
+		}
+	}
+
+	/**
+	 * @return the last sequence number published in a batch
+	 */
+	public long publishedSequence() {
+		backlogLock.lock();
+		try {
+			return publishedSequence;
+		} finally {
+			backlogLock.unlock();
+		}
+	}
+}
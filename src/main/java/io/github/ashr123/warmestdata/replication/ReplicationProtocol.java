@@ -0,0 +1,70 @@
+package io.github.ashr123.warmestdata.replication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames exchanged between {@link ReplicationLeader} and {@link ReplicationFollower} over one TCP connection per
+ * follower, big-endian, each starting with its type byte.
+ * <p>
+ * Follower to leader:
+ * <pre>
+ * HELLO     long leader epoch, long applied sequence     (first frame; epoch 0 and sequence 0 when empty)
+ * ACCESSES  int count, keys                              (gets served locally, to apply on the leader)
+ * WRITE     long request id, byte PUT or REMOVE, long time to live in milliseconds (0 for none),
+ *           int count, keys (each followed by int value for PUT)
+ * </pre>
+ * Leader to follower:
+ * <pre>
+ * SNAPSHOT     long epoch, long sequence, long sent at, int count, entries coldest first (key, int value,
+ *              long epoch millisecond it expires at or 0)
+ * BATCH        long last sequence, long sealed at, int length, records as framed by {@link ReplicationLog}
+ * HEARTBEAT    long published sequence, long sent at
+ * WRITTEN      long request id, long sequence, int count, previous values (boolean present, int value)
+ * WRITE_FAILED long request id, byte REJECTED or FAILED, UTF message
+ * </pre>
+ * Keys are an int length and UTF-8 bytes; times are epoch milliseconds of the leader's clock. The epoch identifies one
+ * run of the leader: sequence numbers only continue across a restart when the write-ahead log keeps them, so a follower
+ * whose epoch does not match starts over from a snapshot.
+ */
+public final class ReplicationProtocol {
+
+	public static final byte HELLO = 1;
+	public static final byte ACCESSES = 2;
+	public static final byte WRITE = 3;
+
+	public static final byte SNAPSHOT = 1;
+	public static final byte BATCH = 2;
+	public static final byte HEARTBEAT = 3;
+	public static final byte WRITTEN = 4;
+	public static final byte WRITE_FAILED = 5;
+
+	/**
+	 * The leader's engine rejected the write's arguments, a client error.
+	 */
+	public static final byte REJECTED = 0;
+	/**
+	 * The leader failed to apply a valid write, a server error.
+	 */
+	public static final byte FAILED = 1;
+
+	public static final byte PUT = 0;
+	public static final byte REMOVE = 1;
+
+	private ReplicationProtocol() {
+	}
+
+	public static void writeKey(DataOutputStream out, String key) throws IOException {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	public static String readKey(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,83 @@
+-- KEYS[1] = "warmest:data"
+-- KEYS[2] = "warmest:prev"
+-- KEYS[3] = "warmest:next"
+-- KEYS[4] = "warmest:tail"
+-- KEYS[5] = "warmest:head"
+-- KEYS[6] = "warmest:expiry"
+-- KEYS[7] = "warmest:stream", optional: the replication stream to append every change to
+-- KEYS[8] = "warmest:stream-seq", with KEYS[7]: the number of the last entry appended
+-- ARGV[1] = maximum entry count, 0 for unbounded
+-- ARGV[2] = channel to publish evicted keys on, '' for none
+-- ARGV[3] = channel to publish warmest key changes on, '' for none
+-- ARGV[4..] = op1, key1, value1, op2, key2, value2, ... in arrival order; op is 'P' (put), 'G' (get) or 'R' (remove),
+--             value is '' for 'G' and 'R'
+
+local dataKey = KEYS[1]
+local prevKey = KEYS[2]
+local nextKey = KEYS[3]
+local tailKey = KEYS[4]
+local headKey = KEYS[5]
+local expiryKey = KEYS[6]
+local streamKey = KEYS[7]
+local sequenceKey = KEYS[8]
+local maxEntries = tonumber(ARGV[1])
+local channel = ARGV[2]
+local warmestChannel = ARGV[3]
+
+-- #include list.lua
+
+-- #include stream.lua
+
+-- #include expiry.lua
+
+-- #include trim.lua
+
+-- Main logic: the steps of put.lua, get.lua or remove.lua for every operation, in order
+for i = 4, #ARGV, 3 do
+    local op = ARGV[i]
+    if op ~= 'P' and op ~= 'G' and op ~= 'R' then
+        -- Checked up front, as a script is not rolled back when it fails
+        return redis.error_reply('Unknown operation: ' .. op)
+    end
+end
+
+local tailBefore = redis.call('GET', tailKey)
+local results = {}
+
+for i = 4, #ARGV, 3 do
+    local op = ARGV[i]
+    local key = ARGV[i + 1]
+    local value = redis.call('HGET', dataKey, key)
+    local exists = value ~= false
+
+    if exists and isExpired(key) then
+        value = false
+    end
+
+    if op == 'P' then
+        redis.call('HSET', dataKey, key, ARGV[i + 2])
+        if exists then
+            moveToTail(key)
+        else
+            attachToTail(key)
+            trimHead()
+        end
+        setTimeToLive(key, 0)
+        appendChange('P', key, ARGV[i + 2], 0)
+    elseif op == 'G' then
+        if value ~= false and moveToTail(key) then
+            appendChange('G', key)
+        end
+    elseif exists then
+        -- op == 'R'
+        redis.call('HDEL', dataKey, key)
+        redis.call('ZREM', expiryKey, key)
+        unlink(key)
+        appendChange('R', key)
+    end
+
+    results[#results + 1] = value or ''
+end
+publishWarmestChange(tailBefore)
+
+return replyAll(results)
@@ -0,0 +1,48 @@
+-- KEYS[1] = "warmest:data"
+-- KEYS[2] = "warmest:prev"
+-- KEYS[3] = "warmest:next"
+-- KEYS[4] = "warmest:tail"
+-- KEYS[5] = "warmest:head"
+-- KEYS[6] = "warmest:expiry"
+-- KEYS[7] = "warmest:stream", optional: the replication stream to append every change to
+-- KEYS[8] = "warmest:stream-seq", with KEYS[7]: the number of the last entry appended
+-- ARGV[1] = maximum number of keys to remove in this call
+-- ARGV[2] = channel to publish removed keys on, '' for none
+-- ARGV[3] = channel to publish warmest key changes on, '' for none
+-- Returns {number of keys removed, number of keys still in the expiry index}
+
+local dataKey = KEYS[1]
+local prevKey = KEYS[2]
+local nextKey = KEYS[3]
+local tailKey = KEYS[4]
+local headKey = KEYS[5]
+local expiryKey = KEYS[6]
+local streamKey = KEYS[7]
+local sequenceKey = KEYS[8]
+local batchSize = tonumber(ARGV[1])
+local channel = ARGV[2]
+local warmestChannel = ARGV[3]
+
+-- #include list.lua
+
+-- #include stream.lua
+
+-- Main logic: remove up to one batch of keys whose deadline has passed, earliest first, as remove.lua would
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local due = redis.call('ZRANGEBYSCORE', expiryKey, '-inf', now, 'LIMIT', 0, batchSize)
+local tailBefore = redis.call('GET', tailKey)
+
+for _, key in ipairs(due) do
+    redis.call('ZREM', expiryKey, key)
+    if redis.call('HDEL', dataKey, key) == 1 then
+        unlink(key)
+        appendChange('R', key)
+    end
+    if channel ~= '' then
+        redis.call('PUBLISH', channel, key)
+    end
+end
+publishWarmestChange(tailBefore)
+
+return {#due, redis.call('ZCARD', expiryKey)}
@@ -1,8 +1,20 @@
 -- KEYS[1] = "warmest:tail"
+-- KEYS[2] = "warmest:prev"
+-- KEYS[3] = "warmest:expiry"
 
 local tailKey = KEYS[1]
+local prevKey = KEYS[2]
+local expiryKey = KEYS[3]
+
+-- #include expiry.lua
+
+-- Walks prev from the tail past keys that have expired but were not swept yet
 local tail = redis.call('GET', tailKey)
 
+while tail ~= false and isExpired(tail) do
+    tail = redis.call('HGET', prevKey, tail)
+end
+
 if tail == false then
     return nil
 end
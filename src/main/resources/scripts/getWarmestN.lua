@@ -0,0 +1,24 @@
+-- KEYS[1] = "warmest:tail"
+-- KEYS[2] = "warmest:prev"
+-- KEYS[3] = "warmest:expiry"
+-- ARGV[1] = n
+
+local tailKey = KEYS[1]
+local prevKey = KEYS[2]
+local expiryKey = KEYS[3]
+local n = tonumber(ARGV[1])
+
+-- #include expiry.lua
+
+-- Walks the prev pointers from the tail, collecting up to n live keys (warmest first)
+local warmest = {}
+local current = redis.call('GET', tailKey)
+
+while current ~= false and #warmest < n do
+    if not isExpired(current) then
+        warmest[#warmest + 1] = current
+    end
+    current = redis.call('HGET', prevKey, current)
+end
+
+return warmest
@@ -0,0 +1,27 @@
+-- Time-to-live helpers of the linked-list layout; the including script declares expiryKey, the "warmest:expiry"
+-- sorted set of epoch millisecond deadlines
+
+-- Current server time in epoch milliseconds
+local function nowMillis()
+    local time = redis.call('TIME')
+    return tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+end
+
+-- Whether the key's deadline in the expiry index has passed; such a key stays linked until expire.lua sweeps it, but
+-- is reported as absent
+local function isExpired(key)
+    local deadline = redis.call('ZSCORE', expiryKey, key)
+    return deadline ~= false and tonumber(deadline) <= nowMillis()
+end
+
+-- Records the key's deadline in the expiry index, or clears it for a put without a time to live; returns the deadline,
+-- 0 for none
+local function setTimeToLive(key, ttlMillis)
+    if ttlMillis > 0 then
+        local deadline = nowMillis() + ttlMillis
+        redis.call('ZADD', expiryKey, deadline, key)
+        return deadline
+    end
+    redis.call('ZREM', expiryKey, key)
+    return 0
+end
@@ -0,0 +1,95 @@
+-- Linked-list helpers of the list layout; the including script declares prevKey, nextKey, tailKey and headKey, the
+-- "warmest:prev", "warmest:next", "warmest:tail" and "warmest:head" keys, and warmestChannel, '' for none
+
+-- Publishes the new warmest key ('' once there is none) on warmestChannel if this call changed the tail
+local function publishWarmestChange(tailBefore)
+    if warmestChannel == '' then
+        return
+    end
+    local tailAfter = redis.call('GET', tailKey)
+    if tailAfter ~= tailBefore then
+        redis.call('PUBLISH', warmestChannel, tailAfter or '')
+    end
+end
+
+-- Detaches a node from its current position in the linked list; the tail is never detached here
+local function detach(key)
+    local prevNode = redis.call('HGET', prevKey, key)
+    local nextNode = redis.call('HGET', nextKey, key)
+
+    -- Update previous node's next pointer
+    if prevNode ~= false and nextNode ~= false then
+        redis.call('HSET', nextKey, prevNode, nextNode)
+    elseif prevNode ~= false then
+        redis.call('HDEL', nextKey, prevNode)
+    end
+
+    -- Update next node's prev pointer or update head if this was the head
+    if nextNode ~= false and prevNode ~= false then
+        redis.call('HSET', prevKey, nextNode, prevNode)
+    elseif nextNode ~= false then
+        redis.call('HDEL', prevKey, nextNode)
+        redis.call('SET', headKey, nextNode)
+    end
+end
+
+-- Attaches a node to the tail of the linked list (making it the warmest)
+local function attachToTail(key)
+    local currentTail = redis.call('GET', tailKey)
+
+    if currentTail ~= false then
+        redis.call('HSET', nextKey, currentTail, key)
+        redis.call('HSET', prevKey, key, currentTail)
+    else
+        redis.call('SET', headKey, key)
+    end
+
+    redis.call('HDEL', nextKey, key)
+    redis.call('SET', tailKey, key)
+end
+
+-- Moves an existing node to the tail position (making it the warmest); returns whether it was not there already
+local function moveToTail(key)
+    local currentTail = redis.call('GET', tailKey)
+
+    if currentTail == key then
+        -- Already at tail, nothing to do
+        return false
+    end
+
+    detach(key)
+    attachToTail(key)
+    return true
+end
+
+-- Unlinks a node from the linked list for good, updating the tail and the head as needed
+local function unlink(key)
+    local prevNode = redis.call('HGET', prevKey, key)
+    local nextNode = redis.call('HGET', nextKey, key)
+
+    -- Update previous node's next pointer
+    if prevNode ~= false and nextNode ~= false then
+        redis.call('HSET', nextKey, prevNode, nextNode)
+    elseif prevNode ~= false then
+        redis.call('HDEL', nextKey, prevNode)
+    end
+
+    -- Update next node's prev pointer or update tail if this was the tail
+    if nextNode ~= false and prevNode ~= false then
+        redis.call('HSET', prevKey, nextNode, prevNode)
+    elseif nextNode ~= false then
+        -- Node was head
+        redis.call('HDEL', prevKey, nextNode)
+        redis.call('SET', headKey, nextNode)
+    elseif prevNode ~= false then
+        -- Node was tail
+        redis.call('SET', tailKey, prevNode)
+    else
+        -- Node was the only element
+        redis.call('DEL', tailKey, headKey)
+    end
+
+    -- Clean up node references
+    redis.call('HDEL', prevKey, key)
+    redis.call('HDEL', nextKey, key)
+end
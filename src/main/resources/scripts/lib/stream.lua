@@ -0,0 +1,39 @@
+-- Replication stream helpers of the list layout; the including script declares streamKey and sequenceKey, the
+-- optional "warmest:stream" and "warmest:stream-seq" keys, nil when the call does not append to the stream
+
+-- The number of the last entry this call appended, 0 for none
+local appendedSequence = 0
+
+-- Appends a change to the replication stream if this call was given one: 'P' with the value and the epoch millisecond
+-- deadline (0 for none), 'G' for a move to the tail, 'R' for a removal. Entries are numbered by the counter in
+-- sequenceKey, so a consumer notices entries trimmed from the stream before it read them
+local function appendChange(op, key, value, expiresAt)
+    if streamKey == nil then
+        return
+    end
+    local sequence = redis.call('INCR', sequenceKey)
+    if op == 'P' then
+        redis.call('XADD', streamKey, '*', 's', sequence, 'o', op, 'k', key, 'v', value, 'e', expiresAt)
+    else
+        redis.call('XADD', streamKey, '*', 's', sequence, 'o', op, 'k', key)
+    end
+    appendedSequence = sequence
+end
+
+-- The reply of a single-key script: its result as is without the stream, and with it {result or '',
+-- appendedSequence}, so the caller learns which entry a replica must have applied to include the call without
+-- another round trip
+local function reply(result)
+    if streamKey == nil then
+        return result
+    end
+    return {result or '', string.format('%d', appendedSequence)}
+end
+
+-- The reply of a batch script: with the stream, appendedSequence follows the per-entry results
+local function replyAll(results)
+    if streamKey ~= nil then
+        results[#results + 1] = string.format('%d', appendedSequence)
+    end
+    return results
+end
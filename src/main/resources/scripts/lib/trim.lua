@@ -0,0 +1,39 @@
+-- Capacity bound of the list layout; besides the keys list.lua needs, the including script declares dataKey,
+-- expiryKey, maxEntries (0 for unbounded), channel (for evicted keys, '' for none) and appendChange
+
+-- Evicts the coldest keys until at most maxEntries remain, publishing each one as a near-cache invalidation.
+-- Only called right after an insert, so with maxEntries >= 1 the new tail is never evicted.
+local function trimHead()
+    if maxEntries <= 0 then
+        return
+    end
+    local overflow = redis.call('HLEN', dataKey) - maxEntries
+    if overflow <= 0 then
+        return
+    end
+
+    local head = redis.call('GET', headKey)
+    if head == false then
+        -- Written before the head was tracked: find it once by walking prev from the tail
+        head = redis.call('GET', tailKey)
+        local prevNode = redis.call('HGET', prevKey, head)
+        while prevNode ~= false do
+            head = prevNode
+            prevNode = redis.call('HGET', prevKey, head)
+        end
+    end
+
+    for _ = 1, overflow do
+        local nextNode = redis.call('HGET', nextKey, head)
+        redis.call('HDEL', dataKey, head)
+        redis.call('ZREM', expiryKey, head)
+        redis.call('HDEL', nextKey, head)
+        redis.call('HDEL', prevKey, nextNode)
+        if channel ~= '' then
+            redis.call('PUBLISH', channel, head)
+        end
+        appendChange('R', head)
+        head = nextNode
+    end
+    redis.call('SET', headKey, head)
+end
@@ -0,0 +1,39 @@
+-- Helpers of the sorted-set layout; the including script declares recencyKey, the "warmest:z:recency" key, and
+-- warmestChannel, '' for none. A script that calls trimHead also declares dataKey, maxEntries (0 for unbounded) and
+-- channel (for evicted keys, '' for none)
+
+-- The highest-scored (warmest) key, false if there is none
+local function warmest()
+    return redis.call('ZREVRANGE', recencyKey, 0, 0)[1] or false
+end
+
+-- Publishes the new warmest key ('' once there is none) on warmestChannel if this call changed it
+local function publishWarmestChange(warmestBefore)
+    if warmestChannel == '' then
+        return
+    end
+    local warmestAfter = warmest()
+    if warmestAfter ~= warmestBefore then
+        redis.call('PUBLISH', warmestChannel, warmestAfter or '')
+    end
+end
+
+-- Evicts the lowest-scored (coldest) keys until at most maxEntries remain, publishing each one as a near-cache
+-- invalidation. Only called right after an insert, so with maxEntries >= 1 the new key is never evicted.
+local function trimHead()
+    if maxEntries <= 0 then
+        return
+    end
+    local overflow = redis.call('ZCARD', recencyKey) - maxEntries
+    if overflow <= 0 then
+        return
+    end
+
+    local coldest = redis.call('ZPOPMIN', recencyKey, overflow)
+    for i = 1, #coldest, 2 do
+        redis.call('HDEL', dataKey, coldest[i])
+        if channel ~= '' then
+            redis.call('PUBLISH', channel, coldest[i])
+        end
+    end
+end
@@ -2,66 +2,45 @@
 -- KEYS[2] = "warmest:prev"
 -- KEYS[3] = "warmest:next"
 -- KEYS[4] = "warmest:tail"
+-- KEYS[5] = "warmest:head"
+-- KEYS[6] = "warmest:expiry"
+-- KEYS[7] = "warmest:stream", optional: the replication stream to append every change to
+-- KEYS[8] = "warmest:stream-seq", with KEYS[7]: the number of the last entry appended
 -- ARGV[1] = key
 -- ARGV[2] = value
+-- ARGV[3] = maximum entry count, 0 for unbounded
+-- ARGV[4] = channel to publish evicted keys on, '' for none
+-- ARGV[5] = time to live in milliseconds, 0 for none
+-- ARGV[6] = channel to publish warmest key changes on, '' for none
 
 local dataKey = KEYS[1]
 local prevKey = KEYS[2]
 local nextKey = KEYS[3]
 local tailKey = KEYS[4]
+local headKey = KEYS[5]
+local expiryKey = KEYS[6]
+local streamKey = KEYS[7]
+local sequenceKey = KEYS[8]
 local key = ARGV[1]
 local value = ARGV[2]
+local maxEntries = tonumber(ARGV[3])
+local channel = ARGV[4]
+local ttlMillis = tonumber(ARGV[5])
+local warmestChannel = ARGV[6]
 
--- Detaches a node from its current position in the linked list
-local function detach(key)
-    local prevNode = redis.call('HGET', prevKey, key)
-    local nextNode = redis.call('HGET', nextKey, key)
+-- #include list.lua
 
-    -- Update previous node's next pointer
-    if prevNode ~= false and nextNode ~= false then
-        redis.call('HSET', nextKey, prevNode, nextNode)
-    elseif prevNode ~= false then
-        redis.call('HDEL', nextKey, prevNode)
-    end
+-- #include stream.lua
 
-    -- Update next node's prev pointer
-    if nextNode ~= false and prevNode ~= false then
-        redis.call('HSET', prevKey, nextNode, prevNode)
-    elseif nextNode ~= false then
-        redis.call('HDEL', prevKey, nextNode)
-    end
-end
-
--- Attaches a node to the tail of the linked list (making it the warmest)
-local function attachToTail(key)
-    local currentTail = redis.call('GET', tailKey)
-
-    if currentTail ~= false then
-        redis.call('HSET', nextKey, currentTail, key)
-        redis.call('HSET', prevKey, key, currentTail)
-    end
-
-    redis.call('HDEL', nextKey, key)
-    redis.call('SET', tailKey, key)
-end
-
--- Moves an existing node to the tail position (making it the warmest)
-local function moveToTail(key)
-    local currentTail = redis.call('GET', tailKey)
+-- #include expiry.lua
 
-    if currentTail == key then
-        -- Already at tail, nothing to do
-        return
-    end
+-- #include trim.lua
 
-    detach(key)
-    attachToTail(key)
-end
-
--- Inserts a new node and attaches it to the tail
+-- Inserts a new node, attaches it to the tail and evicts from the head if over capacity
 local function insertNewNode(key, value)
     redis.call('HSET', dataKey, key, value)
     attachToTail(key)
+    trimHead()
 end
 
 -- Updates an existing node's value and moves it to tail
@@ -71,13 +50,21 @@ local function updateExistingNode(key, value)
 end
 
 -- Main logic
+local tailBefore = redis.call('GET', tailKey)
 local previousValue = redis.call('HGET', dataKey, key)
 local exists = previousValue ~= false
 
+if exists and isExpired(key) then
+    -- Still linked until swept, but the put replaces an absent mapping
+    previousValue = false
+end
+
 if exists then
     updateExistingNode(key, value)
 else
     insertNewNode(key, value)
 end
+appendChange('P', key, value, setTimeToLive(key, ttlMillis))
+publishWarmestChange(tailBefore)
 
-return previousValue
+return reply(previousValue)
@@ -0,0 +1,62 @@
+-- KEYS[1] = "warmest:data"
+-- KEYS[2] = "warmest:prev"
+-- KEYS[3] = "warmest:next"
+-- KEYS[4] = "warmest:tail"
+-- KEYS[5] = "warmest:head"
+-- KEYS[6] = "warmest:expiry"
+-- KEYS[7] = "warmest:stream", optional: the replication stream to append every change to
+-- KEYS[8] = "warmest:stream-seq", with KEYS[7]: the number of the last entry appended
+-- ARGV[1] = maximum entry count, 0 for unbounded
+-- ARGV[2] = channel to publish evicted keys on, '' for none
+-- ARGV[3] = channel to publish warmest key changes on, '' for none
+-- ARGV[4..] = key1, value1, key2, value2, ... (batch order defines recency order)
+
+local dataKey = KEYS[1]
+local prevKey = KEYS[2]
+local nextKey = KEYS[3]
+local tailKey = KEYS[4]
+local headKey = KEYS[5]
+local expiryKey = KEYS[6]
+local streamKey = KEYS[7]
+local sequenceKey = KEYS[8]
+local maxEntries = tonumber(ARGV[1])
+local channel = ARGV[2]
+local warmestChannel = ARGV[3]
+
+-- #include list.lua
+
+-- #include stream.lua
+
+-- #include expiry.lua
+
+-- #include trim.lua
+
+-- Main logic: same steps as put.lua for every pair, in order
+local tailBefore = redis.call('GET', tailKey)
+local previousValues = {}
+
+for i = 4, #ARGV, 2 do
+    local key = ARGV[i]
+    local value = ARGV[i + 1]
+    local previousValue = redis.call('HGET', dataKey, key)
+    local exists = previousValue ~= false
+
+    if exists and isExpired(key) then
+        previousValue = false
+    end
+
+    redis.call('HSET', dataKey, key, value)
+    if exists then
+        moveToTail(key)
+    else
+        attachToTail(key)
+        trimHead()
+    end
+    setTimeToLive(key, 0)
+    appendChange('P', key, value, 0)
+
+    previousValues[#previousValues + 1] = previousValue or ''
+end
+publishWarmestChange(tailBefore)
+
+return replyAll(previousValues)
@@ -2,55 +2,50 @@
 -- KEYS[2] = "warmest:prev"
 -- KEYS[3] = "warmest:next"
 -- KEYS[4] = "warmest:tail"
+-- KEYS[5] = "warmest:head"
+-- KEYS[6] = "warmest:expiry"
+-- KEYS[7] = "warmest:stream", optional: the replication stream to append every change to
+-- KEYS[8] = "warmest:stream-seq", with KEYS[7]: the number of the last entry appended
 -- ARGV[1] = key
+-- ARGV[2] = channel to publish warmest key changes on, '' for none
 
 local dataKey = KEYS[1]
 local prevKey = KEYS[2]
 local nextKey = KEYS[3]
 local tailKey = KEYS[4]
+local headKey = KEYS[5]
+local expiryKey = KEYS[6]
+local streamKey = KEYS[7]
+local sequenceKey = KEYS[8]
 local key = ARGV[1]
+local warmestChannel = ARGV[2]
 
--- Detaches a node from the linked list and handles tail update if needed
-local function detach(key)
-    local prevNode = redis.call('HGET', prevKey, key)
-    local nextNode = redis.call('HGET', nextKey, key)
-
-    -- Update previous node's next pointer
-    if prevNode ~= false and nextNode ~= false then
-        redis.call('HSET', nextKey, prevNode, nextNode)
-    elseif prevNode ~= false then
-        redis.call('HDEL', nextKey, prevNode)
-    end
-
-    -- Update next node's prev pointer or update tail if this was the tail
-    if nextNode ~= false and prevNode ~= false then
-        redis.call('HSET', prevKey, nextNode, prevNode)
-    elseif nextNode ~= false then
-        redis.call('HDEL', prevKey, nextNode)
-    elseif prevNode ~= false then
-        -- Node was tail
-        redis.call('SET', tailKey, prevNode)
-    else
-        -- Node was the only element
-        redis.call('DEL', tailKey)
-    end
-
-    -- Clean up node references
-    redis.call('HDEL', prevKey, key)
-    redis.call('HDEL', nextKey, key)
-end
+-- #include list.lua
+
+-- #include stream.lua
+
+-- #include expiry.lua
 
 -- Main logic
 local value = redis.call('HGET', dataKey, key)
 
 if value == false then
-    return nil
+    return reply(nil)
 end
 
--- Remove from data hash
+local expired = isExpired(key)
+
+-- Remove from data hash and expiry index
 redis.call('HDEL', dataKey, key)
+redis.call('ZREM', expiryKey, key)
 
 -- Detach from linked list
-detach(key)
+local tailBefore = redis.call('GET', tailKey)
+unlink(key)
+appendChange('R', key)
+publishWarmestChange(tailBefore)
 
-return value
+if expired then
+    return reply(nil)
+end
+return reply(value)
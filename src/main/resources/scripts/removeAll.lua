@@ -0,0 +1,51 @@
+-- KEYS[1] = "warmest:data"
+-- KEYS[2] = "warmest:prev"
+-- KEYS[3] = "warmest:next"
+-- KEYS[4] = "warmest:tail"
+-- KEYS[5] = "warmest:head"
+-- KEYS[6] = "warmest:expiry"
+-- KEYS[7] = "warmest:stream", optional: the replication stream to append every change to
+-- KEYS[8] = "warmest:stream-seq", with KEYS[7]: the number of the last entry appended
+-- ARGV[1] = channel to publish warmest key changes on, '' for none
+-- ARGV[2..] = key1, key2, ...
+
+local dataKey = KEYS[1]
+local prevKey = KEYS[2]
+local nextKey = KEYS[3]
+local tailKey = KEYS[4]
+local headKey = KEYS[5]
+local expiryKey = KEYS[6]
+local streamKey = KEYS[7]
+local sequenceKey = KEYS[8]
+local warmestChannel = ARGV[1]
+
+-- #include list.lua
+
+-- #include stream.lua
+
+-- #include expiry.lua
+
+-- Main logic: same steps as remove.lua for every key, in order
+local tailBefore = redis.call('GET', tailKey)
+local values = {}
+
+for i = 2, #ARGV do
+    local key = ARGV[i]
+    local value = redis.call('HGET', dataKey, key)
+
+    if value ~= false then
+        if isExpired(key) then
+            value = false
+        end
+        -- Remove from data hash and expiry index and detach from linked list
+        redis.call('HDEL', dataKey, key)
+        redis.call('ZREM', expiryKey, key)
+        unlink(key)
+        appendChange('R', key)
+    end
+
+    values[i - 1] = value or ''
+end
+publishWarmestChange(tailBefore)
+
+return replyAll(values)
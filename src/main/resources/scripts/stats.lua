@@ -0,0 +1,20 @@
+-- KEYS[1] = "warmest:data"
+-- KEYS[2] = "warmest:prev"
+-- KEYS[3] = "warmest:next"
+-- KEYS[4] = "warmest:tail"
+-- KEYS[5] = "warmest:head"
+-- KEYS[6] = "warmest:expiry"
+-- (each prefixed "warmest:{namespace}:" instead of "warmest:" for a namespace)
+--
+-- Returns: {entries, bytes}, the number of entries (including expired ones not swept yet) and the MEMORY USAGE of all
+-- the keys
+
+local bytes = 0
+for _, key in ipairs(KEYS) do
+    local usage = redis.call('MEMORY', 'USAGE', key)
+    if usage then
+        bytes = bytes + usage
+    end
+end
+
+return { redis.call('HLEN', KEYS[1]), bytes }
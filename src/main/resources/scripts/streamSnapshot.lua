@@ -0,0 +1,58 @@
+-- KEYS[1] = "warmest:data"
+-- KEYS[2] = "warmest:prev"
+-- KEYS[3] = "warmest:next"
+-- KEYS[4] = "warmest:tail"
+-- KEYS[5] = "warmest:head"
+-- KEYS[6] = "warmest:expiry"
+-- KEYS[7] = "warmest:stream"
+-- KEYS[8] = "warmest:stream-seq"
+--
+-- Returns: {sequence, lastEntryId, key1, value1, expiresAt1, key2, ...}, every live entry, coldest first, with the
+-- epoch millisecond it expires at ('0' for never), plus the number and the ID of the last replication stream entry the
+-- entries include ('0' and '0-0' before the first one). A consumer that applies the stream from that ID on keeps an
+-- exact copy. Walks the whole list in one call, so it blocks Redis for a time proportional to the entry count.
+
+local dataKey = KEYS[1]
+local prevKey = KEYS[2]
+local nextKey = KEYS[3]
+local tailKey = KEYS[4]
+local headKey = KEYS[5]
+local expiryKey = KEYS[6]
+local streamKey = KEYS[7]
+local sequenceKey = KEYS[8]
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local lastEntryId = '0-0'
+local last = redis.call('XREVRANGE', streamKey, '+', '-', 'COUNT', 1)
+if #last > 0 then
+    lastEntryId = last[1][1]
+end
+local result = { redis.call('GET', sequenceKey) or '0', lastEntryId }
+
+local head = redis.call('GET', headKey)
+if head == false then
+    -- Empty, or written before the head was tracked: find it by walking prev from the tail
+    head = redis.call('GET', tailKey)
+    if head ~= false then
+        local prevNode = redis.call('HGET', prevKey, head)
+        while prevNode ~= false do
+            head = prevNode
+            prevNode = redis.call('HGET', prevKey, head)
+        end
+    end
+end
+
+local key = head
+while key ~= false do
+    local deadline = redis.call('ZSCORE', expiryKey, key)
+    if deadline == false or tonumber(deadline) > now then
+        result[#result + 1] = key
+        result[#result + 1] = redis.call('HGET', dataKey, key)
+        result[#result + 1] = deadline or '0'
+    end
+    key = redis.call('HGET', nextKey, key)
+end
+
+return result
@@ -0,0 +1,30 @@
+-- KEYS[1] = "warmest:z:data"
+-- KEYS[2] = "warmest:z:recency"
+-- KEYS[3] = "warmest:z:clock"
+-- ARGV[1] = channel to publish warmest key changes on, '' for none
+-- ARGV[2..] = key1, key2, ... (batch order defines recency order)
+
+local dataKey = KEYS[1]
+local recencyKey = KEYS[2]
+local clockKey = KEYS[3]
+local warmestChannel = ARGV[1]
+
+-- #include zset.lua
+
+-- Main logic: same steps as get.lua for every key, in order
+local warmestBefore = warmest()
+local values = {}
+
+for i = 2, #ARGV do
+    local key = ARGV[i]
+    local value = redis.call('HGET', dataKey, key)
+
+    if value ~= false then
+        redis.call('ZADD', recencyKey, redis.call('INCR', clockKey), key)
+    end
+
+    values[i - 1] = value or ''
+end
+publishWarmestChange(warmestBefore)
+
+return values
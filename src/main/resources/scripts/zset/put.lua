@@ -0,0 +1,32 @@
+-- KEYS[1] = "warmest:z:data"
+-- KEYS[2] = "warmest:z:recency"
+-- KEYS[3] = "warmest:z:clock"
+-- ARGV[1] = key
+-- ARGV[2] = value
+-- ARGV[3] = maximum entry count, 0 for unbounded
+-- ARGV[4] = channel to publish evicted keys on, '' for none
+-- ARGV[5] = channel to publish warmest key changes on, '' for none
+
+local dataKey = KEYS[1]
+local recencyKey = KEYS[2]
+local clockKey = KEYS[3]
+local key = ARGV[1]
+local value = ARGV[2]
+local maxEntries = tonumber(ARGV[3])
+local channel = ARGV[4]
+local warmestChannel = ARGV[5]
+
+-- #include zset.lua
+
+-- Main logic: store the value and stamp the key with the next access score
+local previousValue = redis.call('HGET', dataKey, key)
+local warmestBefore = warmest()
+
+redis.call('HSET', dataKey, key, value)
+redis.call('ZADD', recencyKey, redis.call('INCR', clockKey), key)
+if previousValue == false then
+    trimHead()
+end
+publishWarmestChange(warmestBefore)
+
+return previousValue
@@ -0,0 +1,38 @@
+-- KEYS[1] = "warmest:z:data"
+-- KEYS[2] = "warmest:z:recency"
+-- KEYS[3] = "warmest:z:clock"
+-- ARGV[1] = maximum entry count, 0 for unbounded
+-- ARGV[2] = channel to publish evicted keys on, '' for none
+-- ARGV[3] = channel to publish warmest key changes on, '' for none
+-- ARGV[4..] = key1, value1, key2, value2, ... (batch order defines recency order)
+
+local dataKey = KEYS[1]
+local recencyKey = KEYS[2]
+local clockKey = KEYS[3]
+local maxEntries = tonumber(ARGV[1])
+local channel = ARGV[2]
+local warmestChannel = ARGV[3]
+
+-- #include zset.lua
+
+-- Main logic: same steps as put.lua for every pair, in order; the clock is advanced once for the whole batch
+local warmestBefore = warmest()
+local count = (#ARGV - 3) / 2
+local score = redis.call('INCRBY', clockKey, count) - count
+local previousValues = {}
+
+for i = 4, #ARGV, 2 do
+    local key = ARGV[i]
+    local previousValue = redis.call('HGET', dataKey, key)
+    score = score + 1
+
+    previousValues[#previousValues + 1] = previousValue or ''
+    redis.call('HSET', dataKey, key, ARGV[i + 1])
+    redis.call('ZADD', recencyKey, score, key)
+    if previousValue == false then
+        trimHead()
+    end
+end
+publishWarmestChange(warmestBefore)
+
+return previousValues
@@ -0,0 +1,25 @@
+-- KEYS[1] = "warmest:z:data"
+-- KEYS[2] = "warmest:z:recency"
+-- ARGV[1] = key
+-- ARGV[2] = channel to publish warmest key changes on, '' for none
+
+local dataKey = KEYS[1]
+local recencyKey = KEYS[2]
+local key = ARGV[1]
+local warmestChannel = ARGV[2]
+
+-- #include zset.lua
+
+-- Main logic
+local value = redis.call('HGET', dataKey, key)
+
+if value == false then
+    return nil
+end
+
+local warmestBefore = warmest()
+redis.call('HDEL', dataKey, key)
+redis.call('ZREM', recencyKey, key)
+publishWarmestChange(warmestBefore)
+
+return value
@@ -0,0 +1,29 @@
+-- KEYS[1] = "warmest:z:data"
+-- KEYS[2] = "warmest:z:recency"
+-- ARGV[1] = channel to publish warmest key changes on, '' for none
+-- ARGV[2..] = key1, key2, ...
+
+local dataKey = KEYS[1]
+local recencyKey = KEYS[2]
+local warmestChannel = ARGV[1]
+
+-- #include zset.lua
+
+-- Main logic: same steps as remove.lua for every key, in order
+local warmestBefore = warmest()
+local values = {}
+
+for i = 2, #ARGV do
+    local key = ARGV[i]
+    local value = redis.call('HGET', dataKey, key)
+
+    if value ~= false then
+        redis.call('HDEL', dataKey, key)
+        redis.call('ZREM', recencyKey, key)
+    end
+
+    values[i - 1] = value or ''
+end
+publishWarmestChange(warmestBefore)
+
+return values
@@ -4,8 +4,13 @@ import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * Abstract base class containing all 21 functional test cases from the specification.
+ * Abstract base class containing the functional test cases from the specification, plus the batch operation cases.
  * Concrete subclasses activate the desired Spring profile so that Spring injects either
  * {@link io.github.ashr123.warmestdata.dto.WarmestDataStructure} (profile {@code !redis})
  * or {@link io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure} (profile {@code redis}).
@@ -209,4 +214,112 @@ abstract class AbstractWarmestDataStructureTest {
 		dataStructure.remove("a");
 		Assertions.assertNull(dataStructure.remove("a"));
 	}
+
+	// ==================== Batch Operations (Test Cases 22-25) ====================
+
+	@Test
+	@Order(22)
+	void test22_putAll_returnsPreviousValuesInBatchOrder() {
+		dataStructure.put("b", 200);
+		Map<String, Integer> batch = new LinkedHashMap<>();
+		batch.put("a", 100);
+		batch.put("b", 201);
+		batch.put("c", 300);
+
+		Map<String, Integer> expected = new LinkedHashMap<>();
+		expected.put("a", null);
+		expected.put("b", 200);
+		expected.put("c", null);
+		Map<String, Integer> previousValues = dataStructure.putAll(batch);
+		Assertions.assertEquals(expected, previousValues);
+		Assertions.assertEquals(List.of("a", "b", "c"), List.copyOf(previousValues.keySet()));
+	}
+
+	@Test
+	@Order(23)
+	void test23_putAll_lastEntryBecomesWarmest() {
+		Map<String, Integer> batch = new LinkedHashMap<>();
+		batch.put("c", 300);
+		batch.put("a", 100);
+		batch.put("b", 200);
+		dataStructure.putAll(batch);
+		Assertions.assertEquals("b", dataStructure.getWarmest());
+		dataStructure.remove("b");
+		Assertions.assertEquals("a", dataStructure.getWarmest());
+	}
+
+	@Test
+	@Order(24)
+	void test24_getAll_returnsValuesAndTouchesKeysInBatchOrder() {
+		dataStructure.put("a", 100);
+		dataStructure.put("b", 200);
+		dataStructure.put("c", 300);
+
+		Map<String, Integer> expected = new LinkedHashMap<>();
+		expected.put("b", 200);
+		expected.put("missing", null);
+		expected.put("a", 100);
+		Assertions.assertEquals(expected, dataStructure.getAll(Arrays.asList("b", "missing", "a")));
+		Assertions.assertEquals("a", dataStructure.getWarmest());
+		dataStructure.remove("a");
+		Assertions.assertEquals("b", dataStructure.getWarmest());
+	}
+
+	@Test
+	@Order(25)
+	void test25_removeAll_returnsRemovedValuesAndUpdatesWarmest() {
+		dataStructure.put("a", 100);
+		dataStructure.put("b", 200);
+		dataStructure.put("c", 300);
+
+		Map<String, Integer> expected = new LinkedHashMap<>();
+		expected.put("c", 300);
+		expected.put("missing", null);
+		expected.put("b", 200);
+		Assertions.assertEquals(expected, dataStructure.removeAll(Arrays.asList("c", "missing", "b")));
+		Assertions.assertEquals("a", dataStructure.getWarmest());
+		Assertions.assertNull(dataStructure.get("c"));
+	}
+
+	// ==================== Top-N Warmest (Test Cases 26-27) ====================
+
+	@Test
+	@Order(26)
+	void test26_getWarmestN_returnsKeysWarmestFirst() {
+		dataStructure.put("a", 100);
+		dataStructure.put("b", 200);
+		dataStructure.put("c", 300);
+		dataStructure.put("d", 400);
+		dataStructure.get("b");
+		dataStructure.remove("c");
+		Assertions.assertEquals(List.of("b", "d"), dataStructure.getWarmest(2));
+		Assertions.assertEquals(List.of("b", "d", "a"), dataStructure.getWarmest(3));
+		// Reading the top N does not change the recency order
+		Assertions.assertEquals("b", dataStructure.getWarmest());
+	}
+
+	@Test
+	@Order(27)
+	void test27_getWarmestN_beyondSizeOrNotPositive() {
+		Assertions.assertEquals(List.of(), dataStructure.getWarmest(5));
+		dataStructure.put("a", 100);
+		dataStructure.put("b", 200);
+		Assertions.assertEquals(List.of("b", "a"), dataStructure.getWarmest(5));
+		Assertions.assertEquals(List.of(), dataStructure.getWarmest(0));
+	}
+
+	@Test
+	@Order(28)
+	void test28_primitiveVariants_matchBoxedOperations() {
+		Assertions.assertEquals(WarmestDataStructureInterface.NO_VALUE, dataStructure.putInt("a", 100));
+		Assertions.assertEquals(WarmestDataStructureInterface.NO_VALUE, dataStructure.putInt("b", -1));
+		Assertions.assertEquals(100, dataStructure.putInt("a", Integer.MIN_VALUE));
+		Assertions.assertEquals("a", dataStructure.getWarmest());
+		Assertions.assertEquals(-1, dataStructure.getInt("b"));
+		Assertions.assertEquals("b", dataStructure.getWarmest());
+		Assertions.assertEquals(WarmestDataStructureInterface.NO_VALUE, dataStructure.getInt("missing"));
+		Assertions.assertEquals(Integer.MIN_VALUE, dataStructure.removeInt("a"));
+		Assertions.assertEquals(WarmestDataStructureInterface.NO_VALUE, dataStructure.removeInt("a"));
+		Assertions.assertNull(dataStructure.get("a"));
+	}
 }
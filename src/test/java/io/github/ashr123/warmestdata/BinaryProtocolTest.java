@@ -0,0 +1,179 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.binary.BinaryProtocol;
+import io.github.ashr123.warmestdata.binary.BinaryProtocolClient;
+import io.github.ashr123.warmestdata.binary.BinaryProtocolException;
+import io.github.ashr123.warmestdata.binary.BinaryProtocolServer;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * {@link BinaryProtocolServer} over an in-memory engine on a free localhost port, without Spring.
+ */
+class BinaryProtocolTest {
+
+	private WarmestDataStructure dataStructure;
+	private BinaryProtocolServer server;
+	private BinaryProtocolClient client;
+
+	@BeforeEach
+	void start() throws IOException {
+		dataStructure = new WarmestDataStructure();
+		server = new BinaryProtocolServer(dataStructure, 0, 2, DataSize.ofKilobytes(64), 10_000);
+		server.afterPropertiesSet();
+		client = new BinaryProtocolClient("localhost", server.getPort());
+	}
+
+	@AfterEach
+	void stop() throws IOException {
+		client.close();
+		server.destroy();
+	}
+
+	@Test
+	void operations_matchTheEngine() throws IOException {
+		Assertions.assertNull(client.put("a", 1));
+		Assertions.assertEquals(1, client.put("a", 2));
+		Assertions.assertNull(client.put("b", -3));
+		Assertions.assertEquals(2, client.get("a"));
+		Assertions.assertNull(client.get("missing"));
+		Assertions.assertEquals("a", client.getWarmest());
+		Assertions.assertEquals(List.of("a", "b"), client.getWarmest(5));
+		Assertions.assertEquals(-3, client.remove("b"));
+		Assertions.assertNull(client.remove("b"));
+
+		Map<String, Integer> entries = new LinkedHashMap<>();
+		entries.put("x", 10);
+		entries.put("a", 20);
+		Map<String, Integer> expected = new LinkedHashMap<>();
+		expected.put("x", null);
+		expected.put("a", 2);
+		Assertions.assertEquals(expected, client.putAll(entries));
+		Assertions.assertEquals("a", client.getWarmest());
+
+		expected.put("x", 10);
+		expected.put("a", 20);
+		expected.put("nope", null);
+		Assertions.assertEquals(expected, client.getAll(List.of("x", "a", "nope")));
+		Assertions.assertEquals(expected, client.removeAll(List.of("x", "a", "nope")));
+		Assertions.assertNull(client.getWarmest());
+		Assertions.assertEquals(List.of(), client.getWarmest(3));
+
+		// Non-ASCII keys round-trip
+		client.put("température", 21);
+		Assertions.assertEquals("température", client.getWarmest());
+		Assertions.assertEquals(21, dataStructure.get("température"));
+	}
+
+	@Test
+	void put_withTtl_expires() throws Exception {
+		Assertions.assertNull(client.put("session", 7, 50));
+		Assertions.assertEquals(7, client.get("session"));
+		Thread.sleep(100);
+		Assertions.assertNull(client.get("session"));
+	}
+
+	@Test
+	void pipelinedRequests_answeredInOrder() throws IOException {
+		int requests = 2_000;
+		for (int i = 0; i < requests; i++) {
+			client.sendPut("key-" + i, i);
+			client.sendGet("key-" + (i / 2));
+		}
+		client.sendGetWarmest();
+		client.flush();
+
+		for (int i = 0; i < requests; i++) {
+			Assertions.assertNull(client.readValue());
+			Assertions.assertEquals(i / 2, client.readValue());
+		}
+		Assertions.assertEquals("key-" + (requests - 1) / 2, client.readKey());
+	}
+
+	@Test
+	void errors_failOnlyTheirRequest() throws IOException {
+		client.sendPut("a", 1);
+		client.sendPut("a", 2, 0);
+		client.sendGet("a");
+		client.flush();
+
+		Assertions.assertNull(client.readValue());
+		Assertions.assertThrows(BinaryProtocolException.class, client::readValue);
+		Assertions.assertEquals(1, client.readValue());
+		Assertions.assertThrows(BinaryProtocolException.class, () -> client.getWarmest(10_001));
+		Assertions.assertEquals(List.of("a"), client.getWarmest(10_000));
+	}
+
+	@Test
+	void malformedRequests_answeredWithErrors_oversizedFrameClosesConnection() throws IOException {
+		try (Socket socket = new Socket("localhost", server.getPort())) {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+
+			out.writeInt(1);
+			out.writeByte(99);  // Unknown opcode
+			out.writeInt(3);
+			out.writeByte(BinaryProtocol.GET);
+			out.writeShort(100);  // Key longer than the frame
+			out.flush();
+			for (int i = 0; i < 2; i++) {
+				in.readInt();
+				Assertions.assertEquals(BinaryProtocol.ERROR, in.readByte());
+				in.skipNBytes(in.readUnsignedShort());
+			}
+
+			out.writeInt(Integer.MAX_VALUE);
+			out.flush();
+			Assertions.assertEquals(-1, in.read());
+		}
+		// Other connections are unaffected
+		Assertions.assertNull(client.get("a"));
+	}
+
+	@Test
+	void concurrentClients_eachGetTheirOwnResponses() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				String prefix = "client-" + t + "-";
+				results.add(executor.submit(() -> {
+					try (BinaryProtocolClient own = new BinaryProtocolClient("localhost", server.getPort())) {
+						for (int i = 0; i < 1_000; i++) {
+							own.sendPut(prefix + i, i);
+							own.sendGet(prefix + i);
+						}
+						own.flush();
+						for (int i = 0; i < 1_000; i++) {
+							Assertions.assertNull(own.readValue());
+							Assertions.assertEquals(i, own.readValue());
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assertions.assertEquals(8_000, dataStructure.getWarmest(Integer.MAX_VALUE).size());
+	}
+}
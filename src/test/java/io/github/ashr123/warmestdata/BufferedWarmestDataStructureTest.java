@@ -0,0 +1,57 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.BufferedWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.EngineProbe;
+import io.github.ashr123.warmestdata.dto.EngineProbeAware;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the shared functional scenarios against the buffered in-memory
+ * {@link io.github.ashr123.warmestdata.dto.BufferedWarmestDataStructure} implementation
+ * (Spring profile {@code buffered}).
+ */
+@SpringBootTest
+@ActiveProfiles("buffered")
+class BufferedWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
+
+	private static final int KEY_COUNT = 1_024;
+	private static final int GETS = 10_000;
+
+	/**
+	 * Counts the write-lock acquisitions of gets that each move a non-tail key, which the classic engine makes one by one.
+	 */
+	private static long writeLocksForHotReads(WarmestDataStructureInterface engine) {
+		for (int i = 0; i < KEY_COUNT; i++) {
+			engine.put("key-" + i, i);
+		}
+		LongAdder writeLocks = new LongAdder();
+		((EngineProbeAware) engine).setProbe(new EngineProbe() {
+			@Override
+			public void writeLockWaited(long nanos) {
+				writeLocks.increment();
+			}
+		});
+		for (int i = 0; i < GETS; i++) {
+			// Cycling through the keys never hits the tail
+			Assertions.assertEquals(i % KEY_COUNT, engine.get("key-" + i % KEY_COUNT));
+		}
+		return writeLocks.sum();
+	}
+
+	@Test
+	void hotReads_takeTheWriteLockAnOrderOfMagnitudeLessOften() {
+		long classic = writeLocksForHotReads(new WarmestDataStructure());
+		long buffered = writeLocksForHotReads(new BufferedWarmestDataStructure(1, 128));
+
+		Assertions.assertEquals(GETS, classic);
+		Assertions.assertTrue(buffered * 10 <= classic, "Buffered engine took the write lock " + buffered + " times for " + GETS + " gets");
+	}
+}
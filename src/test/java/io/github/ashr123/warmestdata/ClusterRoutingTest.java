@@ -0,0 +1,102 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.cluster.ConsistentHashRing;
+import io.github.ashr123.warmestdata.cluster.HybridLogicalClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ConsistentHashRing} and {@link HybridLogicalClock}, without any nodes running.
+ */
+class ClusterRoutingTest {
+
+	private static final List<String> NODES = List.of("http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+	private static final int KEYS = 30_000;
+
+	@Test
+	void ring_balancesKeysAcrossNodes() {
+		ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < KEYS; i++) {
+			counts.merge(ring.ownerOf("key-" + i), 1, Integer::sum);
+		}
+
+		Assertions.assertEquals(NODES.size(), counts.size());
+		for (int count : counts.values()) {
+			Assertions.assertTrue(Math.abs(count - KEYS / NODES.size()) < KEYS / NODES.size() / 5, "unbalanced: " + counts);
+		}
+	}
+
+	@Test
+	void ring_addingNodeOnlyMovesKeysToIt() {
+		ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+		String added = "http://localhost:8084";
+		ConsistentHashRing grown = new ConsistentHashRing(List.of(NODES.get(2), added, NODES.get(0), NODES.get(1)), 128);
+		int moved = 0;
+		for (int i = 0; i < KEYS; i++) {
+			String key = "key-" + i;
+			String before = ring.ownerOf(key);
+			String after = grown.ownerOf(key);
+			if (!before.equals(after)) {
+				Assertions.assertEquals(added, after);
+				moved++;
+			}
+		}
+		// About a quarter of the keys
+		Assertions.assertTrue(moved > KEYS / 5 && moved < KEYS / 3, "moved " + moved);
+	}
+
+	@Test
+	void partition_keepsOrderAndPutsShardOfLastKeyLast() {
+		ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+		List<String> keys = List.of("a", "b", "c", "d", "e", "f", "g", "h");
+		Map<String, List<String>> shards = ring.partition(keys);
+
+		List<String> lastShard = null;
+		for (Map.Entry<String, List<String>> shard : shards.entrySet()) {
+			for (String key : shard.getValue()) {
+				Assertions.assertEquals(shard.getKey(), ring.ownerOf(key));
+			}
+			Assertions.assertEquals(keys.stream().filter(shard.getValue()::contains).toList(), shard.getValue());
+			lastShard = shard.getValue();
+		}
+		Assertions.assertEquals("h", lastShard.get(lastShard.size() - 1));
+	}
+
+	@Test
+	void clock_staysMonotonicWhenWallClockStandsStillOrGoesBack() {
+		AtomicLong wallClock = new AtomicLong(1_000_000);
+		HybridLogicalClock clock = new HybridLogicalClock(wallClock::get);
+		long previous = clock.now();
+		for (int i = 0; i < 10_000; i++) {  // Overflows the logical counter
+			if (i == 5_000) {
+				wallClock.addAndGet(-500);
+			}
+			long stamp = clock.now();
+			Assertions.assertTrue(stamp > previous);
+			previous = stamp;
+		}
+		Assertions.assertTrue(HybridLogicalClock.epochMicros(previous) >= 1_000_000);
+	}
+
+	@Test
+	void clock_ordersReceiveAfterSendAcrossNodes() {
+		AtomicLong aheadWallClock = new AtomicLong(2_000_000);
+		AtomicLong behindWallClock = new AtomicLong(1_000_000);
+		HybridLogicalClock ahead = new HybridLogicalClock(aheadWallClock::get);
+		HybridLogicalClock behind = new HybridLogicalClock(behindWallClock::get);
+
+		long sent = ahead.now();
+		long received = behind.update(sent);
+		Assertions.assertTrue(received > sent);
+		Assertions.assertTrue(behind.now() > received);
+		// Once the wall clock catches up, stamps follow it again
+		behindWallClock.set(3_000_000);
+		Assertions.assertEquals(3_000_000, HybridLogicalClock.epochMicros(behind.now()));
+	}
+}
@@ -0,0 +1,269 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.cluster.ConsistentHashRing;
+import io.github.ashr123.warmestdata.dto.ClusterWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Starts three {@code cluster} instances on free localhost ports and drives them over HTTP, sending every request to a
+ * different node than the previous one, so most requests are forwarded.
+ */
+class ClusterTest {
+
+	private static final int NODES = 3;
+	private static final int THREADS = 8;
+
+	private static final List<String> urls = new ArrayList<>();
+	private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+	private static final HttpClient httpClient = HttpClient.newHttpClient();
+
+	private int next = 0;
+
+	@BeforeAll
+	static void startNodes() throws IOException {
+		List<Integer> ports = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			try (ServerSocket socket = new ServerSocket(0)) {
+				ports.add(socket.getLocalPort());
+			}
+		}
+		for (int port : ports) {
+			urls.add("http://localhost:" + port);
+		}
+		for (int port : ports) {
+			contexts.add(new SpringApplicationBuilder(WarmestDataApplication.class)
+					.profiles("cluster")
+					.properties("server.port=" + port,
+							"warmest.cluster.self=http://localhost:" + port,
+							"warmest.cluster.nodes=" + String.join(",", urls))
+					.run());
+		}
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		contexts.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@BeforeEach
+	void clear() throws Exception {
+		String warmest;
+		while (!(warmest = send("GET", "/warmest", null)).isEmpty()) {
+			send("DELETE", "/data/" + warmest, null);
+		}
+	}
+
+	/**
+	 * Sends the request to the next node, round-robin.
+	 *
+	 * @return the body, empty for 404
+	 */
+	private String send(String method, String path, String body) throws Exception {
+		return send(next++ % NODES, method, path, body);
+	}
+
+	/**
+	 * @return the body, empty for 404
+	 */
+	private static String send(int node, String method, String path, String body) throws Exception {
+		String url = urls.get(node);
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+				.header("Content-Type", "application/json")
+				.method(method, body == null ?
+						HttpRequest.BodyPublishers.noBody() :
+						HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() == 404) {
+			return "";
+		}
+		Assertions.assertEquals(200, response.statusCode(), method + " " + path + ": " + response.body());
+		return response.body();
+	}
+
+	@Test
+	void keys_spreadOverAllNodesAndReadableThroughAnyNode() throws Exception {
+		ConsistentHashRing ring = new ConsistentHashRing(urls, 128);
+		Set<String> owners = new HashSet<>();
+		for (int i = 0; i < 30; i++) {
+			send("PUT", "/data/key-" + i, String.valueOf(i));
+			owners.add(ring.ownerOf("key-" + i));
+		}
+		Assertions.assertEquals(NODES, owners.size());
+
+		for (int i = 0; i < 30; i++) {
+			for (int node = 0; node < NODES; node++) {
+				Assertions.assertEquals(String.valueOf(i), send("GET", "/data/key-" + i, null));
+			}
+		}
+		Assertions.assertEquals("29", send("PUT", "/data/key-29", "290"));
+		Assertions.assertEquals("290", send("DELETE", "/data/key-29", null));
+		Assertions.assertEquals("", send("GET", "/data/key-29", null));
+	}
+
+	@Test
+	void getWarmest_isExactAcrossShards() throws Exception {
+		for (int i = 0; i < 30; i++) {
+			send("PUT", "/data/key-" + i, String.valueOf(i));
+			for (int node = 0; node < NODES; node++) {
+				Assertions.assertEquals("key-" + i, send("GET", "/warmest", null));
+			}
+		}
+
+		// Accessing an old key anywhere makes it the warmest everywhere
+		send("GET", "/data/key-3", null);
+		for (int node = 0; node < NODES; node++) {
+			Assertions.assertEquals("key-3", send("GET", "/warmest", null));
+		}
+
+		// Removing the warmest falls back to the previous one, whichever shard holds it
+		send("DELETE", "/data/key-3", null);
+		Assertions.assertEquals("key-29", send("GET", "/warmest", null));
+		Assertions.assertEquals("[\"key-29\",\"key-28\",\"key-27\",\"key-26\"]", send("GET", "/warmest?limit=4", null));
+	}
+
+	/**
+	 * Runs task on {@link #THREADS} threads, started together, each with a random of its own, and waits for all of them.
+	 */
+	private static void runConcurrently(long seed, RandomTask task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				SplittableRandom random = new SplittableRandom(seed * THREADS + thread);
+				futures.add(executor.submit(() -> {
+					start.await();
+					task.run(random);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * A single node owns every key, so its engine's own recency order is the oracle for the cluster's stamp order. The
+	 * rounds are short, so most of the accesses that decide the final order race each other.
+	 */
+	@Test
+	void getWarmest_afterConcurrentAccesses_matchesTheEngine() throws Exception {
+		WarmestDataStructure engine = new WarmestDataStructure();
+		String self = "http://localhost:1";
+		ClusterWarmestDataStructure cluster = new ClusterWarmestDataStructure(engine, self, List.of(self), 128, Duration.ofSeconds(1));
+		int keyCount = 32;
+
+		for (int round = 0; round < 500; round++) {
+			runConcurrently(round, random -> {
+				for (int i = 0; i < 10; i++) {
+					String key = "key-" + random.nextInt(keyCount);
+					switch (random.nextInt(4)) {
+						case 0 -> cluster.put(key, i);
+						case 1 -> {
+							Map<String, Integer> entries = new LinkedHashMap<>();
+							entries.put(key, i);
+							entries.put("key-" + random.nextInt(keyCount), i);
+							cluster.putAll(entries);
+						}
+						case 2 -> cluster.getAll(List.of(key, "key-" + random.nextInt(keyCount)));
+						default -> cluster.get(key);
+					}
+				}
+			});
+			Assertions.assertEquals(engine.getWarmest(keyCount), cluster.getWarmest(keyCount), "round " + round);
+		}
+	}
+
+	/**
+	 * After concurrent accesses through every node, all nodes give the same answer, and within every shard it is the
+	 * owner's own recency order.
+	 */
+	@Test
+	void getWarmest_afterConcurrentAccessesThroughAllNodes_followsEveryOwnersOrder() throws Exception {
+		int keyCount = 30;
+		runConcurrently(42, random -> {
+			for (int i = 0; i < 100; i++) {
+				String path = "/data/key-" + random.nextInt(keyCount);
+				int node = random.nextInt(NODES);
+				if (random.nextBoolean()) {
+					send(node, "PUT", path, String.valueOf(i));
+				} else {
+					send(node, "GET", path, null);
+				}
+			}
+		});
+
+		String warmest = send(0, "GET", "/warmest?limit=" + keyCount, null);
+		for (int node = 1; node < NODES; node++) {
+			Assertions.assertEquals(warmest, send(node, "GET", "/warmest?limit=" + keyCount, null));
+		}
+		List<String> global = List.of(warmest.replaceAll("[\\[\\]\"]", "").split(","));
+		ConsistentHashRing ring = new ConsistentHashRing(urls, 128);
+		for (int node = 0; node < NODES; node++) {
+			String url = urls.get(node);
+			WarmestDataStructure owner = WarmestDataStructureDecorator.unwrap(
+					contexts.get(node).getBean(ClusterWarmestDataStructure.class), WarmestDataStructure.class);
+			Assertions.assertEquals(owner.getWarmest(keyCount),
+					global.stream().filter(key -> ring.ownerOf(key).equals(url)).toList(),
+					url);
+		}
+	}
+
+	@Test
+	void batches_spanShardsAndEndWithTheirLastKeyWarmest() throws Exception {
+		Assertions.assertEquals("{\"a\":null,\"b\":null,\"c\":null,\"d\":null,\"e\":null}",
+				send("PUT", "/data", "{\"a\":1,\"b\":2,\"c\":3,\"d\":4,\"e\":5}"));
+		Assertions.assertEquals("e", send("GET", "/warmest", null));
+
+		Assertions.assertEquals("{\"e\":5,\"a\":1,\"x\":null}", send("GET", "/data?keys=e,a,x", null));
+		Assertions.assertEquals("a", send("GET", "/warmest", null));
+
+		Assertions.assertEquals("{\"a\":1,\"b\":2}", send("DELETE", "/data?keys=a,b", null));
+		Assertions.assertEquals("e", send("GET", "/warmest", null));
+	}
+
+	@Test
+	void put_withTtl_expiresOnTheOwner() throws Exception {
+		send("PUT", "/data/session?ttlMillis=100", "7");
+		Assertions.assertEquals("7", send("GET", "/data/session", null));
+		Thread.sleep(200);
+		Assertions.assertEquals("", send("GET", "/data/session", null));
+	}
+
+	@FunctionalInterface
+	private interface RandomTask {
+		void run(SplittableRandom random) throws Exception;
+	}
+}
@@ -0,0 +1,136 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.persistence.WriteAheadLog;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Capacity-bounded mode of {@link WarmestDataStructure}.
+ */
+class EvictionTest {
+
+	@TempDir
+	Path directory;
+
+	private final List<String> evicted = new ArrayList<>();
+
+	private WarmestDataStructure bounded(long maxEntries, long maxBytes) {
+		WarmestDataStructure dataStructure = new WarmestDataStructure(maxEntries, DataSize.ofBytes(maxBytes));
+		dataStructure.setEvictionListener((key, value) -> evicted.add(key + "=" + value));
+		return dataStructure;
+	}
+
+	@Test
+	void maxEntries_evictsColdestOnInsert() {
+		WarmestDataStructure dataStructure = bounded(3, 0);
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		dataStructure.put("d", 4);
+
+		Assertions.assertEquals(List.of("a=1"), evicted);
+		Assertions.assertNull(dataStructure.get("a"));
+		Assertions.assertEquals(List.of("d", "c", "b"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void access_protectsFromEviction() {
+		WarmestDataStructure dataStructure = bounded(3, 0);
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		dataStructure.get("a");       // b becomes coldest
+		dataStructure.put("c", 30);   // update at capacity, nothing evicted
+		dataStructure.put("d", 4);
+
+		Assertions.assertEquals(List.of("b=2"), evicted);
+		Assertions.assertEquals(List.of("d", "c", "a"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void putAll_evictsWithinBatch() {
+		WarmestDataStructure dataStructure = bounded(2, 0);
+		Map<String, Integer> batch = new LinkedHashMap<>();
+		batch.put("a", 1);
+		batch.put("b", 2);
+		batch.put("c", 3);
+		batch.put("d", 4);
+		dataStructure.putAll(batch);
+
+		Assertions.assertEquals(List.of("a=1", "b=2"), evicted);
+		Assertions.assertEquals(List.of("d", "c"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void maxBytes_evictsByEstimatedFootprint() {
+		long entryBytes = WarmestDataStructure.estimateBytes("key-1");
+		WarmestDataStructure dataStructure = bounded(0, entryBytes * 3);
+		for (int i = 1; i <= 5; i++) {
+			dataStructure.put("key-" + i, i);
+		}
+
+		Assertions.assertEquals(List.of("key-1=1", "key-2=2"), evicted);
+
+		// A remove releases its share of the budget
+		dataStructure.remove("key-3");
+		dataStructure.put("key-6", 6);
+		Assertions.assertEquals(2, evicted.size());
+		Assertions.assertEquals(List.of("key-6", "key-5", "key-4"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void maxBytes_keepsWarmestEntryEvenIfOversized() {
+		WarmestDataStructure dataStructure = bounded(0, 1);
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+
+		Assertions.assertEquals(List.of("a=1"), evicted);
+		Assertions.assertEquals(2, dataStructure.get("b"));
+	}
+
+	@Test
+	void estimateBytes_countsTwoBytesPerCharForNonLatin1Keys() {
+		Assertions.assertEquals(WarmestDataStructure.estimateBytes("ab") + 8, WarmestDataStructure.estimateBytes("abcdefghij"));
+		Assertions.assertEquals(WarmestDataStructure.estimateBytes("abcdefgh"), WarmestDataStructure.estimateBytes("ключ"));
+	}
+
+	@Test
+	void restore_keepsWarmestEntries() throws IOException {
+		WarmestDataStructure dataStructure = bounded(2, 0);
+		dataStructure.restore(sink -> {
+			sink.accept("a", 1, 0);
+			sink.accept("b", 2, 0);
+			sink.accept("c", 3, 0);
+		});
+
+		Assertions.assertEquals(List.of("c", "b"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void evictions_areLoggedAsRemoves() throws IOException {
+		WarmestDataStructure dataStructure = bounded(2, 0);
+		WriteAheadLog writeAheadLog = new WriteAheadLog(directory, WriteAheadLog.Mode.SYNC, Duration.ofMillis(1), 1 << 20, 0);
+		dataStructure.setMutationLog(writeAheadLog);
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		writeAheadLog.close();
+
+		// Replaying into an unbounded engine reproduces the bounded state
+		WarmestDataStructure replayed = new WarmestDataStructure();
+		WriteAheadLog.replay(directory, 0, replayed);
+		Assertions.assertNull(replayed.get("a"));
+		Assertions.assertEquals(List.of("c", "b"), replayed.getWarmest(10));
+	}
+}
@@ -0,0 +1,236 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.EvictionListener;
+import io.github.ashr123.warmestdata.dto.TimerWheel;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.persistence.SnapshotFile;
+import io.github.ashr123.warmestdata.persistence.WriteAheadLog;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-to-live support: {@link TimerWheel} and {@link WarmestDataStructure} on a simulated clock; only the write-ahead
+ * log, whose deadlines are wall-clock times, waits on the real one.
+ */
+class ExpiryTest {
+
+	private static final long TTL_MILLIS = 100;
+	private static final long TICK_NANOS = 1L << 23;
+	private static final long TIMEOUT_MILLIS = 5_000;
+
+	@TempDir
+	Path directory;
+
+	private final AtomicLong clock = new AtomicLong(-123_456_789L);  // nanoTime may be negative
+
+	/**
+	 * @return an engine on {@link #clock}, without the background tick unless tickInterval is positive
+	 */
+	private WarmestDataStructure dataStructure(Duration tickInterval) {
+		return new WarmestDataStructure(0, DataSize.ofBytes(0), tickInterval, clock::get);
+	}
+
+	private WarmestDataStructure dataStructure() {
+		return dataStructure(Duration.ZERO);
+	}
+
+	private void advancePastTtl() {
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL_MILLIS * 2));
+	}
+
+	private static void sleepPastTtl() throws InterruptedException {
+		Thread.sleep(TTL_MILLIS * 2);
+	}
+
+	@Test
+	void timerWheel_expiresEveryTimerAfterItsDeadlineAndBeforeTheAdvanceAfterNext() {
+		long start = -123_456_789L;  // nanoTime may be negative
+		TimerWheel<Long> wheel = new TimerWheel<>(start);
+		SplittableRandom random = new SplittableRandom(42);
+		int count = 10_000;
+		for (int i = 0; i < count; i++) {
+			// From sub-tick up to ~2 hours, so every level is used
+			long deadline = start + random.nextLong(1, TimeUnit.HOURS.toNanos(2));
+			wheel.schedule(new TimerWheel.Timer<>(deadline, deadline));
+		}
+
+		long maxStep = 50 * TICK_NANOS;
+		List<Long> expired = new ArrayList<>();
+		for (long now = start; wheel.size() > 0; now += random.nextLong(1, maxStep)) {
+			long time = now;
+			wheel.advance(now, deadline -> {
+				Assertions.assertTrue(deadline - time <= 0, "expired early");
+				// A due timer waits at most for the clock to leave its level-0 tick
+				Assertions.assertTrue(time - deadline < maxStep + TICK_NANOS, "expired late");
+				expired.add(deadline);
+			});
+		}
+		Assertions.assertEquals(count, expired.size());
+	}
+
+	@Test
+	void timerWheel_expiresWithinOneTickWhenAdvancedEveryTick() {
+		TimerWheel<Long> wheel = new TimerWheel<>(0);
+		long[] deadlines = {1, TICK_NANOS * 3 + 5, TICK_NANOS * 100, TimeUnit.MINUTES.toNanos(5)};
+		for (long deadline : deadlines) {
+			wheel.schedule(new TimerWheel.Timer<>(deadline, deadline));
+		}
+
+		List<Long> expiredAt = new ArrayList<>();
+		for (long now = 0; wheel.size() > 0; now += TICK_NANOS) {
+			long time = now;
+			wheel.advance(now, deadline -> expiredAt.add(time - deadline));
+		}
+		Assertions.assertEquals(deadlines.length, expiredAt.size());
+		for (long lateness : expiredAt) {
+			Assertions.assertTrue(lateness >= 0 && lateness < 2 * TICK_NANOS, "late by " + lateness);
+		}
+	}
+
+	@Test
+	void timerWheel_cancelledAndRescheduledTimers() {
+		TimerWheel<String> wheel = new TimerWheel<>(0);
+		TimerWheel.Timer<String> cancelled = new TimerWheel.Timer<>("cancelled", TICK_NANOS);
+		TimerWheel.Timer<String> moved = new TimerWheel.Timer<>("moved", TICK_NANOS);
+		wheel.schedule(cancelled);
+		wheel.schedule(moved);
+		wheel.cancel(cancelled);
+		wheel.reschedule(moved, TICK_NANOS * 200);
+
+		List<String> expired = new ArrayList<>();
+		wheel.advance(TICK_NANOS * 10, expired::add);
+		Assertions.assertEquals(List.of(), expired);
+		wheel.advance(TICK_NANOS * 201, expired::add);
+		Assertions.assertEquals(List.of("moved"), expired);
+		Assertions.assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void put_withTtl_expiresEntry() {
+		WarmestDataStructure dataStructure = dataStructure();
+		Assertions.assertNull(dataStructure.put("a", 1, TTL_MILLIS));
+		Assertions.assertEquals(1, dataStructure.get("a"));
+
+		advancePastTtl();
+		Assertions.assertNull(dataStructure.get("a"));
+		Assertions.assertNull(dataStructure.remove("a"));
+		Assertions.assertNull(dataStructure.put("a", 2));
+	}
+
+	@Test
+	void getWarmest_skipsExpiredTail() {
+		WarmestDataStructure dataStructure = dataStructure();
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3, TTL_MILLIS);
+		Assertions.assertEquals("c", dataStructure.getWarmest());
+
+		advancePastTtl();
+		// Nothing has taken the write lock since, so c is still linked but must not be visible
+		Assertions.assertEquals("b", dataStructure.getWarmest());
+		Assertions.assertEquals(List.of("b", "a"), dataStructure.getWarmest(10));
+
+		dataStructure.put("d", 4);  // Reaps c
+		Assertions.assertEquals(List.of("d", "b", "a"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void plainPut_clearsTtl() {
+		WarmestDataStructure dataStructure = dataStructure();
+		dataStructure.put("a", 1, TTL_MILLIS);
+		Assertions.assertEquals(1, dataStructure.put("a", 2));
+
+		advancePastTtl();
+		Assertions.assertEquals(2, dataStructure.get("a"));
+	}
+
+	@Test
+	void putWithTtl_replacesEarlierTtl() {
+		WarmestDataStructure dataStructure = dataStructure();
+		dataStructure.put("a", 1, TTL_MILLIS);
+		dataStructure.put("a", 2, TimeUnit.MINUTES.toMillis(1));
+
+		advancePastTtl();
+		Assertions.assertEquals(2, dataStructure.get("a"));
+	}
+
+	@Test
+	void put_withNonPositiveTtl_isRejected() {
+		WarmestDataStructure dataStructure = dataStructure();
+		Assertions.assertThrows(IllegalArgumentException.class, () -> dataStructure.put("a", 1, 0));
+	}
+
+	@Test
+	void snapshot_keepsDeadlinesAndDropsExpiredEntries() throws IOException {
+		WarmestDataStructure dataStructure = dataStructure();
+		dataStructure.put("gone", 1, TTL_MILLIS);
+		dataStructure.put("expiring", 2, TimeUnit.MINUTES.toMillis(1));
+		dataStructure.put("permanent", 3);
+		advancePastTtl();
+		Path file = directory.resolve("warmest.snapshot");
+
+		SnapshotFile.write(dataStructure.snapshot(), file);
+		List<String> entries = new ArrayList<>();
+		SnapshotFile.read(file, (key, value, expiresAtMillis) -> entries.add(key + "=" + value + (expiresAtMillis == 0 ?
+				"" :
+				" expiring")));
+
+		Assertions.assertEquals(List.of("expiring=2 expiring", "permanent=3"), entries);
+	}
+
+	@Test
+	void backgroundTick_expiresEntriesWithoutWrites() throws InterruptedException {
+		WarmestDataStructure dataStructure = dataStructure(Duration.ofMillis(10));
+		BlockingQueue<String> expired = new LinkedBlockingQueue<>();
+		dataStructure.setEvictionListener(new EvictionListener() {
+			@Override
+			public void evicted(String key, int value) {
+				// Unbounded, so nothing is evicted
+			}
+
+			@Override
+			public void expired(String key, int value) {
+				expired.add(key);
+			}
+		});
+		BlockingQueue<String> warmest = new LinkedBlockingQueue<>();
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2, TTL_MILLIS);
+		dataStructure.setWarmestKeyListener(warmest::add);
+		Assertions.assertEquals("b", warmest.take());
+
+		advancePastTtl();
+		Assertions.assertEquals("b", expired.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		Assertions.assertEquals("a", warmest.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		Assertions.assertEquals(1, dataStructure.size());
+	}
+
+	@Test
+	void writeAheadLog_replaysRemainingTtl() throws IOException, InterruptedException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		WriteAheadLog writeAheadLog = new WriteAheadLog(directory, WriteAheadLog.Mode.SYNC, Duration.ofMillis(1), 1 << 20, 0);
+		dataStructure.setMutationLog(writeAheadLog);
+		dataStructure.put("short", 1, TTL_MILLIS);
+		dataStructure.put("long", 2, TimeUnit.MINUTES.toMillis(1));
+		writeAheadLog.close();
+		sleepPastTtl();
+
+		WarmestDataStructure replayed = new WarmestDataStructure();
+		WriteAheadLog.replay(directory, 0, replayed);
+		Assertions.assertNull(replayed.get("short"));
+		Assertions.assertEquals(2, replayed.get("long"));
+	}
+}
@@ -0,0 +1,167 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.MappedWarmestDataStructure;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Reopens {@link MappedWarmestDataStructure} after clean closes, crashes and torn links.
+ */
+class MappedRestartTest {
+
+	private static final int MAX_KEY_LENGTH = 8;
+
+	@TempDir
+	Path directory;
+
+	private MappedWarmestDataStructure open() throws IOException {
+		return new MappedWarmestDataStructure(directory, MAX_KEY_LENGTH, 4);
+	}
+
+	/**
+	 * Leaves c, d, a, ключ (warmest first) in slots 2, 4, 0 and 3, after growing past the initial capacity of 4.
+	 */
+	private MappedWarmestDataStructure populate() throws IOException {
+		MappedWarmestDataStructure dataStructure = open();
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		dataStructure.put("ключ", 4);
+		dataStructure.put("d", 5);
+		dataStructure.put("e", 6);
+		dataStructure.get("ключ");    // ключ becomes warmest
+		dataStructure.remove("b");    // middle removed
+		dataStructure.remove("e");    // tail removed
+		dataStructure.get("a");       // a becomes warmest
+		dataStructure.put("c", 30);   // c updated and warmest
+		dataStructure.put("d", 50);   // d updated and warmest
+		dataStructure.get("c");       // c becomes warmest again
+		return dataStructure;
+	}
+
+	private static void assertRestored(MappedWarmestDataStructure restored) {
+		Assertions.assertEquals(4, restored.size());
+		Assertions.assertEquals(List.of("c", "d", "a", "ключ"), restored.getWarmest(10));
+		Assertions.assertEquals(1, restored.get("a"));
+		Assertions.assertNull(restored.get("b"));
+		Assertions.assertEquals(4, restored.get("ключ"));
+		Assertions.assertEquals(50, restored.get("d"));
+		Assertions.assertNull(restored.get("e"));
+		Assertions.assertEquals(30, restored.get("c"));
+	}
+
+	private void overwriteInt(String file, long position, int value) throws IOException {
+		try (FileChannel channel = FileChannel.open(directory.resolve(file), StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value), position);
+		}
+	}
+
+	@Test
+	void cleanReopen_keepsValuesAndRecencyOrder() throws IOException {
+		populate().close();
+
+		try (MappedWarmestDataStructure restored = open()) {
+			assertRestored(restored);
+		}
+	}
+
+	@Test
+	void reopenAfterCrash_recoversTailFromStamps() throws IOException {
+		populate();    // Never closed, so the header still holds the counters of the empty structure
+
+		try (MappedWarmestDataStructure restored = open()) {
+			assertRestored(restored);
+		}
+	}
+
+	@Test
+	void reopenAfterCrash_ignoresCorruptHeaderTail() throws IOException {
+		populate();
+		overwriteInt("header.dat", 16, 12345);
+
+		try (MappedWarmestDataStructure restored = open()) {
+			assertRestored(restored);
+		}
+	}
+
+	@Test
+	void reopenAfterCrash_relinksTornList() throws IOException {
+		populate();
+		overwriteInt("slots.dat", 20, 12345);    // next of slot 0 ("a"), as if a move was cut off
+
+		try (MappedWarmestDataStructure restored = open()) {
+			assertRestored(restored);
+		}
+	}
+
+	@Test
+	void recoveredStructure_reusesFreeSlotsAndKeepsWorking() throws IOException {
+		populate();
+
+		try (MappedWarmestDataStructure restored = open()) {
+			restored.put("f", 7);
+			restored.put("g", 8);
+			restored.remove("a");
+			Assertions.assertEquals(List.of("g", "f", "c", "d", "ключ"), restored.getWarmest(10));
+		}
+		try (MappedWarmestDataStructure reopened = open()) {
+			Assertions.assertEquals(List.of("g", "f", "c", "d", "ключ"), reopened.getWarmest(10));
+		}
+	}
+
+	@Test
+	void keyLongerThanMax_isRejected() throws IOException {
+		try (MappedWarmestDataStructure dataStructure = open()) {
+			Assertions.assertThrows(IllegalArgumentException.class, () -> dataStructure.put("123456789", 1));
+			Assertions.assertNull(dataStructure.put("12345678", 1));
+		}
+	}
+
+	/**
+	 * @return the memory mappings of this test's files, read from {@code /proc/self/maps}
+	 */
+	private long mappings() throws IOException {
+		String files = directory.toRealPath().toString();
+		return Files.readAllLines(Path.of("/proc/self/maps")).stream()
+				.filter(line -> line.contains(files))
+				.count();
+	}
+
+	@Test
+	void growingAndClosing_releaseTheMappings() throws IOException {
+		Assumptions.assumeTrue(Files.isReadable(Path.of("/proc/self/maps")), "Needs Linux");
+		MappedWarmestDataStructure dataStructure = open();
+		long mappingsWhenOpened = mappings();
+		for (int i = 0; i < 10_000; i++) {
+			dataStructure.put("key-" + i, i);
+		}
+
+		// Grown 12 times, still one mapping per file
+		Assertions.assertEquals(mappingsWhenOpened, mappings());
+		dataStructure.close();
+		Assertions.assertEquals(0, mappings());
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> dataStructure.get("key-0"));
+		try (MappedWarmestDataStructure reopened = open()) {
+			Assertions.assertEquals(mappingsWhenOpened, mappings());
+			Assertions.assertEquals(9_999, reopened.get("key-9999"));
+		}
+	}
+
+	@Test
+	void reopenWithOtherMaxKeyLength_fails() throws IOException {
+		open().close();
+
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> new MappedWarmestDataStructure(directory, MAX_KEY_LENGTH * 2, 4));
+	}
+}
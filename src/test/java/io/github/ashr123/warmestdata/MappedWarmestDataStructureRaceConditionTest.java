@@ -0,0 +1,16 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs all race condition scenarios against the memory-mapped
+ * {@link io.github.ashr123.warmestdata.dto.MappedWarmestDataStructure} implementation
+ * (Spring profile {@code mapped}).
+ */
+@SpringBootTest(properties = "warmest.mapped.path=build/mapped-test")
+@ActiveProfiles("mapped")
+class MappedWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
+	// The test scenarios are inherited from AbstractRaceConditionTest.
+	// Mapped pages are plain memory once faulted in, so the default 1 000 iterations are used.
+}
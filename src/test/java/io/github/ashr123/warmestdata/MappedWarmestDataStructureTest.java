@@ -0,0 +1,15 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the shared functional scenarios against the memory-mapped
+ * {@link io.github.ashr123.warmestdata.dto.MappedWarmestDataStructure} implementation
+ * (Spring profile {@code mapped}).
+ */
+@SpringBootTest(properties = "warmest.mapped.path=build/mapped-test")
+@ActiveProfiles("mapped")
+class MappedWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
+}
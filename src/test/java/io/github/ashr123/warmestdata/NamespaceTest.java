@@ -0,0 +1,118 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.namespace.NamespaceRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * {@code /ns/{ns}} over the in-memory engine: every namespace is independent of the others and of the default
+ * structure.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NamespaceTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private void put(String path, int value) throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.put(path)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(String.valueOf(value)))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+	}
+
+	@Test
+	void namespaces_areIndependent() throws Exception {
+		put("/ns/tenant-a/data/x", 1);
+		put("/ns/tenant-b/data/y", 2);
+		put("/ns/tenant-b/data/z", 3);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/tenant-a/warmest"))
+				.andExpect(MockMvcResultMatchers.content().string("x"));
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/tenant-b/warmest"))
+				.andExpect(MockMvcResultMatchers.content().string("z"));
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/tenant-a/data/y"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+		mockMvc.perform(MockMvcRequestBuilders.get("/data/x"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/tenant-b/data/y"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$").value(2));
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/tenant-b/warmest").param("limit", "2"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.contains("y", "z")));
+		mockMvc.perform(MockMvcRequestBuilders.delete("/ns/tenant-b/data").param("keys", "y", "z"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.y").value(2))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.z").value(3));
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/tenant-a/warmest"))
+				.andExpect(MockMvcResultMatchers.content().string("x"));
+	}
+
+	@Test
+	void stats_listEveryNamespaceWithItsSize() throws Exception {
+		put("/ns/stats-a/data/x", 1);
+		put("/ns/stats-a/data/y", 2);
+		put("/ns/stats-b/data/x", 3);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$[?(@.namespace == 'stats-a')].entries").value(2))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[?(@.namespace == 'stats-b')].entries").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[?(@.namespace == 'stats-a')].bytes",
+						Matchers.contains(Matchers.greaterThan(0))));
+	}
+
+	@Test
+	void readsOfUnknownNamespace_answerEmpty_withoutCreatingIt() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/never-written/data/x"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/never-written/warmest").param("limit", "3"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.empty()));
+		mockMvc.perform(MockMvcRequestBuilders.delete("/ns/never-written/data/x"))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[?(@.namespace == 'never-written')]", Matchers.empty()));
+	}
+
+	@Test
+	void maxCount_rejectsFurtherNamespaces() {
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("dataStructure", new WarmestDataStructure());
+		NamespaceRegistry namespaces = new NamespaceRegistry(beans.getBeanProvider(WarmestDataStructureInterface.class),
+				beans.getBeanProvider(StringRedisTemplate.class),
+				beans.getBeanProvider(MeterRegistry.class),
+				false, 0, DataSize.ofBytes(0), Duration.ofMillis(100), 100, 2, Duration.ofSeconds(1));
+		namespaces.afterPropertiesSet();
+
+		namespaces.get("a").put("x", 1);
+		namespaces.get("b").put("x", 2);
+		Assertions.assertThrows(IllegalStateException.class, () -> namespaces.get("c"));
+		// Open namespaces stay usable, and unknown ones still answer reads
+		Assertions.assertEquals(1, namespaces.get("a").get("x"));
+		Assertions.assertNull(namespaces.find("c").get("x"));
+		Assertions.assertEquals(2, namespaces.stats().size());
+	}
+
+	@Test
+	void invalidNamespace_returns400() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get("/ns/{ns}/warmest", "a}b"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+}
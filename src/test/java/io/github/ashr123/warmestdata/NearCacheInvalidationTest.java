@@ -0,0 +1,148 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.NearCacheWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Checks the near cache across two app instances sharing one Testcontainers Redis: the Spring-managed
+ * {@link NearCacheWarmestDataStructure} and a second one created by hand over the same connection factory.
+ */
+@SpringBootTest
+@ActiveProfiles({"redis", "near-cache"})
+@Import(TestcontainersConfiguration.class)
+class NearCacheInvalidationTest {
+
+	private static final long TIMEOUT_MILLIS = 5_000;
+
+	@Autowired
+	private WarmestDataStructureInterface dataStructure;
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	@Autowired
+	private RedisConnectionFactory connectionFactory;
+
+	private NearCacheWarmestDataStructure otherInstance;
+
+	@BeforeEach
+	void setUp() {
+		while (dataStructure.getWarmest() != null) {
+			dataStructure.remove(dataStructure.getWarmest());
+		}
+		otherInstance = new NearCacheWarmestDataStructure(new RedisWarmestDataStructure(redisTemplate),
+				redisTemplate,
+				connectionFactory,
+				1_000,
+				Duration.ofMinutes(1),
+				Duration.ofMillis(10));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		otherInstance.destroy();
+	}
+
+	private static <T> void awaitEquals(T expected, Supplier<T> actual) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!Objects.equals(expected, actual.get())) {
+			if (System.currentTimeMillis() > deadline) {
+				Assertions.assertEquals(expected, actual.get(), "Timed out waiting for the near cache to catch up");
+				return;
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void putOnOtherInstance_invalidatesCachedValue() throws InterruptedException {
+		dataStructure.put("a", 100);
+		Assertions.assertEquals(100, dataStructure.get("a")); // now cached locally
+
+		otherInstance.put("a", 101);
+
+		awaitEquals(101, () -> dataStructure.get("a"));
+	}
+
+	@Test
+	void removeOnOtherInstance_invalidatesCachedValue() throws InterruptedException {
+		dataStructure.put("a", 100);
+		Assertions.assertEquals(100, dataStructure.get("a")); // now cached locally
+
+		otherInstance.remove("a");
+
+		awaitEquals(null, () -> dataStructure.get("a"));
+	}
+
+	@Test
+	void cachedGet_recencyReachesRedis() throws InterruptedException {
+		dataStructure.put("a", 100);
+		Assertions.assertEquals(100, dataStructure.get("a")); // now cached locally
+		dataStructure.put("b", 200);
+
+		// Served from the near cache, the bump is flushed in the background
+		Assertions.assertEquals(100, dataStructure.get("a"));
+
+		awaitEquals("a", otherInstance::getWarmest);
+	}
+
+	@Test
+	void fullCache_evictsInsteadOfGrowing() throws Exception {
+		NearCacheWarmestDataStructure small = new NearCacheWarmestDataStructure(new RedisWarmestDataStructure(redisTemplate),
+				redisTemplate,
+				connectionFactory,
+				16,
+				Duration.ofMinutes(1),
+				Duration.ofMillis(10));
+		try {
+			for (int i = 0; i < 100; i++) {
+				dataStructure.put("k" + i, i);
+			}
+			for (int i = 0; i < 100; i++) {
+				Assertions.assertEquals(i, small.get("k" + i));
+				Assertions.assertTrue(small.getCachedEntryCount() <= 16, "Near cache grew to " + small.getCachedEntryCount());
+			}
+			// The last load made room for itself, so it is served locally
+			Assertions.assertEquals(99, small.get("k99"));
+			Assertions.assertEquals(List.of("k99"), small.getWarmest(1));
+		} finally {
+			small.destroy();
+		}
+	}
+
+	@Test
+	void agedOutValues_areDropped() throws Exception {
+		NearCacheWarmestDataStructure shortLived = new NearCacheWarmestDataStructure(new RedisWarmestDataStructure(redisTemplate),
+				redisTemplate,
+				connectionFactory,
+				1_000,
+				Duration.ofMillis(50),
+				Duration.ofMillis(10));
+		try {
+			dataStructure.put("a", 100);
+			Assertions.assertEquals(100, shortLived.get("a"));
+			Assertions.assertEquals(1, shortLived.getCachedEntryCount());
+
+			awaitEquals(0, shortLived::getCachedEntryCount);
+			Assertions.assertEquals(100, shortLived.get("a"));
+		} finally {
+			shortLived.destroy();
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs all race condition scenarios against the
+ * {@link io.github.ashr123.warmestdata.dto.NearCacheWarmestDataStructure} decorator over the Redis-backed
+ * implementation (Spring profiles {@code redis} + {@code near-cache}) using a Testcontainers Redis instance.
+ */
+@SpringBootTest
+@ActiveProfiles({"redis", "near-cache"})
+@Import(TestcontainersConfiguration.class)
+class NearCacheWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
+	// The test scenarios are inherited from AbstractRaceConditionTest.
+	// Both profiles use 1 000 iterations.
+}
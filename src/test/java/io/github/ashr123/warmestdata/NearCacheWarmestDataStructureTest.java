@@ -0,0 +1,17 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the shared functional scenarios against the
+ * {@link io.github.ashr123.warmestdata.dto.NearCacheWarmestDataStructure} decorator over the Redis-backed
+ * implementation (Spring profiles {@code redis} + {@code near-cache}) using a Testcontainers Redis instance.
+ */
+@SpringBootTest
+@ActiveProfiles({"redis", "near-cache"})
+@Import(TestcontainersConfiguration.class)
+class NearCacheWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
+}
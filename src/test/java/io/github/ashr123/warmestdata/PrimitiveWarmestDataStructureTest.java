@@ -0,0 +1,15 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the shared functional scenarios against the primitive in-memory
+ * {@link io.github.ashr123.warmestdata.dto.PrimitiveWarmestDataStructure} implementation
+ * (Spring profile {@code primitive}).
+ */
+@SpringBootTest
+@ActiveProfiles("primitive")
+class PrimitiveWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
+}
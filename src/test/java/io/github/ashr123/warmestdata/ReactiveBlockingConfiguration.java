@@ -0,0 +1,65 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.ReactiveWarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the reactive engine (profile {@code reactive}) as a blocking {@link WarmestDataStructureInterface}, so the
+ * shared functional and race condition suites can run against it unchanged.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class ReactiveBlockingConfiguration {
+
+	@Bean
+	@Primary
+	WarmestDataStructureInterface blockingDataStructure(ReactiveWarmestDataStructureInterface reactive) {
+		return new WarmestDataStructureInterface() {
+			@Override
+			public Integer put(String key, int value) {
+				return reactive.put(key, value).block();
+			}
+
+			@Override
+			public Integer remove(String key) {
+				return reactive.remove(key).block();
+			}
+
+			@Override
+			public Integer get(String key) {
+				return reactive.get(key).block();
+			}
+
+			@Override
+			public String getWarmest() {
+				return reactive.getWarmest().block();
+			}
+
+			@Override
+			public List<String> getWarmest(int n) {
+				return reactive.getWarmest(n).block();
+			}
+
+			@Override
+			public Map<String, Integer> putAll(Map<String, Integer> entries) {
+				return reactive.putAll(entries).block();
+			}
+
+			@Override
+			public Map<String, Integer> getAll(Collection<String> keys) {
+				return reactive.getAll(keys).block();
+			}
+
+			@Override
+			public Map<String, Integer> removeAll(Collection<String> keys) {
+				return reactive.removeAll(keys).block();
+			}
+		};
+	}
+}
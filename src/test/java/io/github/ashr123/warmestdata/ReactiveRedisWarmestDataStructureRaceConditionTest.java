@@ -0,0 +1,18 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs all race condition scenarios against the non-blocking
+ * {@link io.github.ashr123.warmestdata.dto.ReactiveRedisWarmestDataStructure} implementation (Spring profile
+ * {@code reactive}) using a Testcontainers Redis instance, through {@link ReactiveBlockingConfiguration}.
+ */
+@SpringBootTest
+@ActiveProfiles("reactive")
+@Import({TestcontainersConfiguration.class, ReactiveBlockingConfiguration.class})
+class ReactiveRedisWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
+	// The test scenarios are inherited from AbstractRaceConditionTest.
+	// Both profiles use 1 000 iterations.
+}
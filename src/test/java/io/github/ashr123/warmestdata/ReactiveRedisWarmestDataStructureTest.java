@@ -0,0 +1,25 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.ReactiveRedisWarmestDataStructure;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the shared functional scenarios against the non-blocking
+ * {@link io.github.ashr123.warmestdata.dto.ReactiveRedisWarmestDataStructure} implementation (Spring profile
+ * {@code reactive}) using a Testcontainers Redis instance, through {@link ReactiveBlockingConfiguration}.
+ */
+@SpringBootTest
+@ActiveProfiles("reactive")
+@Import({TestcontainersConfiguration.class, ReactiveBlockingConfiguration.class})
+class ReactiveRedisWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The shared test cases are inherited from AbstractWarmestDataStructureTest.
+
+	@Test
+	void streamEnabled_failsAtStartup() {
+		Assertions.assertThrows(IllegalStateException.class, () -> new ReactiveRedisWarmestDataStructure(null, 0, true));
+	}
+}
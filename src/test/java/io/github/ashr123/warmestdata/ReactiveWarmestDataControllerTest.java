@@ -0,0 +1,207 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.ReactiveWarmestDataStructureInterface;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Integration tests for ReactiveWarmestDataController (profile {@code reactive}); mirrors WarmestDataControllerTest.
+ */
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveWarmestDataControllerTest {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@MockitoBean
+	private ReactiveWarmestDataStructureInterface dataStructure;
+
+	@Test
+	void put_whenNewKey_returnsNullPreviousValue() {
+		Mockito.when(dataStructure.put("a", 100)).thenReturn(Mono.empty());
+
+		webTestClient.put().uri("/data/a")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("100")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().isEmpty();
+	}
+
+	@Test
+	void getWarmest_withLimit_returnsKeysWarmestFirst() {
+		Mockito.when(dataStructure.getWarmest(2)).thenReturn(Mono.just(List.of("c", "b")));
+
+		webTestClient.get().uri("/warmest?limit=2")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$[0]").isEqualTo("c")
+				.jsonPath("$[1]").isEqualTo("b")
+				.jsonPath("$.length()").isEqualTo(2);
+	}
+
+	@Test
+	void getWarmest_withNegativeLimit_returns400() {
+		webTestClient.get().uri("/warmest?limit=-1")
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	void getWarmest_withLimitAboveMax_returns400() {
+		webTestClient.get().uri("/warmest?limit=10001")
+				.exchange()
+				.expectStatus().isBadRequest();
+		Mockito.verifyNoInteractions(dataStructure);
+	}
+
+	@Test
+	void put_whenExistingKey_returnsPreviousValue() {
+		Mockito.when(dataStructure.put("a", 101)).thenReturn(Mono.just(100));
+
+		webTestClient.put().uri("/data/a")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("101")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$").isEqualTo(100);
+	}
+
+	// ==================== GET /data/{key} Tests ====================
+
+	@Test
+	void get_whenKeyExists_returnsValue() {
+		Mockito.when(dataStructure.get("a")).thenReturn(Mono.just(100));
+
+		webTestClient.get().uri("/data/a")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$").isEqualTo(100);
+	}
+
+	@Test
+	void get_whenKeyNotExists_returns404() {
+		Mockito.when(dataStructure.get("nonexistent")).thenReturn(Mono.empty());
+
+		webTestClient.get().uri("/data/nonexistent")
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	// ==================== DELETE /data/{key} Tests ====================
+
+	@Test
+	void remove_whenKeyExists_returnsPreviousValue() {
+		Mockito.when(dataStructure.remove("a")).thenReturn(Mono.just(100));
+
+		webTestClient.delete().uri("/data/a")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$").isEqualTo(100);
+	}
+
+	@Test
+	void remove_whenKeyNotExists_returnsNullValue() {
+		Mockito.when(dataStructure.remove("nonexistent")).thenReturn(Mono.empty());
+
+		webTestClient.delete().uri("/data/nonexistent")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().isEmpty();
+	}
+
+	// ==================== GET /warmest Tests ====================
+
+	@Test
+	void getWarmest_whenDataExists_returnsWarmestKey() {
+		Mockito.when(dataStructure.getWarmest()).thenReturn(Mono.just("a"));
+
+		webTestClient.get().uri("/warmest")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).isEqualTo("a");
+	}
+
+	@Test
+	void getWarmest_whenEmpty_returnsEmptyKey() {
+		Mockito.when(dataStructure.getWarmest()).thenReturn(Mono.empty());
+
+		webTestClient.get().uri("/warmest")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().isEmpty();
+	}
+
+	// ==================== Batch Tests ====================
+
+	@Test
+	void putAll_returnsPreviousValuesPerKey() {
+		Map<String, Integer> batch = new LinkedHashMap<>();
+		batch.put("a", 100);
+		batch.put("b", 200);
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		previousValues.put("a", null);
+		previousValues.put("b", 150);
+		Mockito.when(dataStructure.putAll(batch)).thenReturn(Mono.just(previousValues));
+
+		webTestClient.put().uri("/data")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"a\":100,\"b\":200}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.a").isEmpty()
+				.jsonPath("$.b").isEqualTo(150);
+	}
+
+	@Test
+	void putAll_whenValueIsNull_returns400() {
+		webTestClient.put().uri("/data")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"a\":null}")
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	void getAll_returnsValuesPerKey() {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		values.put("a", 100);
+		values.put("missing", null);
+		Mockito.when(dataStructure.getAll(List.of("a", "missing"))).thenReturn(Mono.just(values));
+
+		webTestClient.get().uri(builder -> builder.path("/data").queryParam("keys", "a", "missing").build())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.a").isEqualTo(100)
+				.jsonPath("$.missing").isEmpty();
+	}
+
+	@Test
+	void removeAll_returnsRemovedValuesPerKey() {
+		Mockito.when(dataStructure.removeAll(List.of("a", "b"))).thenReturn(Mono.just(Map.of("a", 100, "b", 200)));
+
+		webTestClient.delete().uri(builder -> builder.path("/data").queryParam("keys", "a,b").build())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.a").isEqualTo(100)
+				.jsonPath("$.b").isEqualTo(200);
+	}
+}
@@ -0,0 +1,18 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs all race condition scenarios against the Redis-backed
+ * {@link io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure} implementation (Spring profile {@code redis})
+ * with its single-key operations coalesced, so concurrent callers share {@code batch.lua} calls, using a Testcontainers
+ * Redis instance.
+ */
+@SpringBootTest(properties = "warmest.redis.coalesce.enabled=true")
+@ActiveProfiles("redis")
+@Import(TestcontainersConfiguration.class)
+class RedisCoalescingWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
+	// The test scenarios are inherited from AbstractRaceConditionTest.
+}
@@ -0,0 +1,17 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the shared functional scenarios against the Redis-backed
+ * {@link io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure} implementation (Spring profile {@code redis})
+ * with its single-key operations coalesced into {@code batch.lua} calls, using a Testcontainers Redis instance.
+ */
+@SpringBootTest(properties = "warmest.redis.coalesce.enabled=true")
+@ActiveProfiles("redis")
+@Import(TestcontainersConfiguration.class)
+class RedisCoalescingWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
+}
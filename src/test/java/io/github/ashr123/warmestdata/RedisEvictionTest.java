@@ -0,0 +1,183 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.NearCacheWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.RedisSortedSetWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capacity-bounded eviction of both Redis layouts, using a Testcontainers Redis: the coldest keys are removed inside the
+ * writing script, {@code trimHead} on the linked list and {@code ZPOPMIN} on the sorted set, and each one is published
+ * as a near-cache invalidation.
+ */
+@SpringBootTest
+@ActiveProfiles("redis")
+@Import(TestcontainersConfiguration.class)
+class RedisEvictionTest {
+
+	private static final long TIMEOUT_MILLIS = 5_000;
+	private static final String READY = "\0ready";
+	private static final int MAX_ENTRIES = 3;
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	@Autowired
+	private RedisConnectionFactory connectionFactory;
+
+	private RedisMessageListenerContainer listenerContainer;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (listenerContainer != null) {
+			listenerContainer.destroy();
+		}
+	}
+
+	/**
+	 * @return the messages published on channel from now on; returns once the subscription is active
+	 */
+	private BlockingQueue<String> subscribe(String channel) throws InterruptedException {
+		BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+		listenerContainer = new RedisMessageListenerContainer();
+		listenerContainer.setConnectionFactory(connectionFactory);
+		listenerContainer.addMessageListener((message, pattern) -> messages.add(new String(message.getBody(), StandardCharsets.UTF_8)),
+				new ChannelTopic(channel));
+		listenerContainer.afterPropertiesSet();
+		listenerContainer.start();
+		// Subscribing is asynchronous: publish until the container receives it
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		do {
+			Assertions.assertTrue(System.currentTimeMillis() < deadline, "Timed out subscribing to " + channel);
+			redisTemplate.convertAndSend(channel, READY);
+		} while (!READY.equals(messages.poll(50, TimeUnit.MILLISECONDS)));
+		messages.clear();
+		return messages;
+	}
+
+	/**
+	 * @return the next count messages, skipping subscription probes that arrived late
+	 */
+	private static List<String> take(BlockingQueue<String> messages, int count) throws InterruptedException {
+		List<String> taken = new ArrayList<>();
+		while (taken.size() < count) {
+			String message = messages.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			Assertions.assertNotNull(message, "Received only " + taken);
+			if (!READY.equals(message)) {
+				taken.add(message);
+			}
+		}
+		return taken;
+	}
+
+	/**
+	 * Puts a, b and c, reads a, then puts d and e, which evict b and c.
+	 */
+	private static void putOverCapacity(WarmestDataStructureInterface dataStructure) {
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		dataStructure.get("a");
+		dataStructure.put("d", 4);
+		dataStructure.put("e", 5);
+	}
+
+	private static Map<String, Integer> fiveEntries() {
+		Map<String, Integer> entries = new LinkedHashMap<>();
+		for (String key : List.of("a", "b", "c", "d", "e")) {
+			entries.put(key, key.charAt(0) - 'a');
+		}
+		return entries;
+	}
+
+	@Test
+	void listLayout_putOverCapacity_trimsHeadAndPublishesEvictions() throws InterruptedException {
+		String namespace = "eviction-put-" + System.nanoTime();
+		RedisWarmestDataStructure dataStructure = RedisWarmestDataStructure.forNamespace(redisTemplate, namespace, MAX_ENTRIES, 100);
+		BlockingQueue<String> evicted = subscribe(RedisWarmestDataStructure.namespacePrefix(namespace) + "invalidations");
+
+		putOverCapacity(dataStructure);
+
+		Assertions.assertEquals(List.of("b", "c"), take(evicted, 2));
+		Assertions.assertEquals(List.of("e", "d", "a"), dataStructure.getWarmest(10));
+		Assertions.assertNull(dataStructure.get("b"));
+		Assertions.assertNull(dataStructure.get("c"));
+		Assertions.assertEquals("a", redisTemplate.opsForValue().get(RedisWarmestDataStructure.namespacePrefix(namespace) + "head"));
+	}
+
+	@Test
+	void listLayout_putAllOverCapacity_trimsHeadInBatchOrder() throws InterruptedException {
+		String namespace = "eviction-put-all-" + System.nanoTime();
+		RedisWarmestDataStructure dataStructure = RedisWarmestDataStructure.forNamespace(redisTemplate, namespace, MAX_ENTRIES, 100);
+		BlockingQueue<String> evicted = subscribe(RedisWarmestDataStructure.namespacePrefix(namespace) + "invalidations");
+
+		dataStructure.putAll(fiveEntries());
+
+		Assertions.assertEquals(List.of("a", "b"), take(evicted, 2));
+		Assertions.assertEquals(List.of("e", "d", "c"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void listLayout_withoutHeadKey_findsTheHeadFromTheTail() throws InterruptedException {
+		String namespace = "eviction-legacy-" + System.nanoTime();
+		RedisWarmestDataStructure dataStructure = RedisWarmestDataStructure.forNamespace(redisTemplate, namespace, MAX_ENTRIES, 100);
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		// As written before the head key existed
+		redisTemplate.delete(RedisWarmestDataStructure.namespacePrefix(namespace) + "head");
+		BlockingQueue<String> evicted = subscribe(RedisWarmestDataStructure.namespacePrefix(namespace) + "invalidations");
+
+		dataStructure.put("d", 4);
+
+		Assertions.assertEquals(List.of("a"), take(evicted, 1));
+		Assertions.assertEquals(List.of("d", "c", "b"), dataStructure.getWarmest(10));
+		Assertions.assertEquals("b", redisTemplate.opsForValue().get(RedisWarmestDataStructure.namespacePrefix(namespace) + "head"));
+	}
+
+	@Test
+	void sortedSetLayout_putOverCapacity_popsMinAndPublishesEvictions() throws InterruptedException {
+		redisTemplate.delete(List.of("warmest:z:data", "warmest:z:recency", "warmest:z:clock"));
+		RedisSortedSetWarmestDataStructure dataStructure = new RedisSortedSetWarmestDataStructure(redisTemplate, MAX_ENTRIES);
+		BlockingQueue<String> evicted = subscribe(NearCacheWarmestDataStructure.INVALIDATION_CHANNEL);
+
+		putOverCapacity(dataStructure);
+
+		Assertions.assertEquals(List.of("b", "c"), take(evicted, 2));
+		Assertions.assertEquals(List.of("e", "d", "a"), dataStructure.getWarmest(10));
+		Assertions.assertNull(dataStructure.get("b"));
+		Assertions.assertEquals(MAX_ENTRIES, redisTemplate.opsForHash().size("warmest:z:data"));
+	}
+
+	@Test
+	void sortedSetLayout_putAllOverCapacity_popsMinInBatchOrder() throws InterruptedException {
+		redisTemplate.delete(List.of("warmest:z:data", "warmest:z:recency", "warmest:z:clock"));
+		RedisSortedSetWarmestDataStructure dataStructure = new RedisSortedSetWarmestDataStructure(redisTemplate, MAX_ENTRIES);
+		BlockingQueue<String> evicted = subscribe(NearCacheWarmestDataStructure.INVALIDATION_CHANNEL);
+
+		dataStructure.putAll(fiveEntries());
+
+		Assertions.assertEquals(List.of("a", "b"), take(evicted, 2));
+		Assertions.assertEquals(List.of("e", "d", "c"), dataStructure.getWarmest(10));
+	}
+}
@@ -0,0 +1,165 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Time to live on the Redis list layout, using a Testcontainers Redis: the scripts hide a key once its deadline in the
+ * expiry index has passed, and {@code expire.lua} unlinks it and publishes it as a near-cache invalidation. Deadlines
+ * are Redis server time, so the tests wait for them on the real clock.
+ */
+@SpringBootTest
+@ActiveProfiles("redis")
+@Import(TestcontainersConfiguration.class)
+class RedisExpiryTest {
+
+	private static final long TTL_MILLIS = 50;
+	private static final long TIMEOUT_MILLIS = 5_000;
+	private static final String READY = "\0ready";
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	@Autowired
+	private RedisConnectionFactory connectionFactory;
+
+	private RedisMessageListenerContainer listenerContainer;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (listenerContainer != null) {
+			listenerContainer.destroy();
+		}
+	}
+
+	/**
+	 * A namespace of its own per test, swept only when the test calls {@link RedisWarmestDataStructure#sweepExpired()}.
+	 */
+	private RedisWarmestDataStructure dataStructure(String namespace) {
+		return RedisWarmestDataStructure.forNamespace(redisTemplate, namespace, 0, 100);
+	}
+
+	/**
+	 * Waits until condition holds, failing after {@link #TIMEOUT_MILLIS}.
+	 */
+	private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!condition.getAsBoolean()) {
+			Assertions.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting until " + message);
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * @return the messages published on channel from now on; returns once the subscription is active
+	 */
+	private BlockingQueue<String> subscribe(String channel) throws InterruptedException {
+		BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+		listenerContainer = new RedisMessageListenerContainer();
+		listenerContainer.setConnectionFactory(connectionFactory);
+		listenerContainer.addMessageListener((message, pattern) -> messages.add(new String(message.getBody(), StandardCharsets.UTF_8)),
+				new ChannelTopic(channel));
+		listenerContainer.afterPropertiesSet();
+		listenerContainer.start();
+		// Subscribing is asynchronous: publish until the container receives it
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		do {
+			Assertions.assertTrue(System.currentTimeMillis() < deadline, "Timed out subscribing to " + channel);
+			redisTemplate.convertAndSend(channel, READY);
+		} while (!READY.equals(messages.poll(50, TimeUnit.MILLISECONDS)));
+		messages.clear();
+		return messages;
+	}
+
+	@Test
+	void supportsTimeToLive() {
+		Assertions.assertTrue(dataStructure("expiry-capability-" + System.nanoTime()).supportsTimeToLive());
+	}
+
+	@Test
+	void put_withTtl_expiresEntry() throws InterruptedException {
+		RedisWarmestDataStructure dataStructure = dataStructure("expiry-get-" + System.nanoTime());
+		Assertions.assertNull(dataStructure.put("a", 1, TTL_MILLIS));
+		Assertions.assertEquals(1, dataStructure.get("a"));
+
+		await(() -> dataStructure.get("a") == null, "a expired");
+		Assertions.assertNull(dataStructure.remove("a"));
+		Assertions.assertNull(dataStructure.put("a", 2));
+	}
+
+	@Test
+	void getWarmest_skipsExpiredTail() throws InterruptedException {
+		RedisWarmestDataStructure dataStructure = dataStructure("expiry-warmest-" + System.nanoTime());
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3, TTL_MILLIS);
+		Assertions.assertEquals("c", dataStructure.getWarmest());
+
+		await(() -> "b".equals(dataStructure.getWarmest()), "c expired");
+		// Not swept yet, so c is still linked but must not be visible
+		Assertions.assertEquals(List.of("b", "a"), dataStructure.getWarmest(10));
+		Assertions.assertEquals(3, dataStructure.stats().entries());
+	}
+
+	@Test
+	void sweep_unlinksExpiredEntriesAndPublishesThem() throws InterruptedException {
+		String namespace = "expiry-sweep-" + System.nanoTime();
+		String prefix = RedisWarmestDataStructure.namespacePrefix(namespace);
+		RedisWarmestDataStructure dataStructure = dataStructure(namespace);
+		BlockingQueue<String> invalidated = subscribe(prefix + "invalidations");
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2, TTL_MILLIS);
+		dataStructure.put("c", 3);
+
+		await(() -> dataStructure.get("b") == null, "b expired");
+		Assertions.assertFalse(dataStructure.sweepExpired(), "No key with a time to live should be left");
+
+		Assertions.assertEquals("b", invalidated.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		Assertions.assertFalse(redisTemplate.opsForHash().hasKey(prefix + "data", "b"));
+		Assertions.assertEquals(0, redisTemplate.opsForZSet().size(prefix + "expiry"));
+		Assertions.assertEquals(2, dataStructure.stats().entries());
+		Assertions.assertEquals(List.of("c", "a"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void sweep_reportsKeysThatExpireLater() {
+		RedisWarmestDataStructure dataStructure = dataStructure("expiry-later-" + System.nanoTime());
+		Assertions.assertFalse(dataStructure.sweepExpired());
+		dataStructure.put("a", 1, 60_000);
+
+		Assertions.assertTrue(dataStructure.sweepExpired());
+		Assertions.assertEquals(1, dataStructure.get("a"));
+		dataStructure.remove("a");
+		Assertions.assertFalse(dataStructure.sweepExpired());
+	}
+
+	@Test
+	void plainPut_clearsTtl() throws InterruptedException {
+		String namespace = "expiry-clear-" + System.nanoTime();
+		RedisWarmestDataStructure dataStructure = dataStructure(namespace);
+		dataStructure.put("a", 1, TTL_MILLIS);
+		Assertions.assertEquals(1, dataStructure.put("a", 2));
+
+		Thread.sleep(TTL_MILLIS * 2);
+		dataStructure.sweepExpired();
+		Assertions.assertEquals(2, dataStructure.get("a"));
+		Assertions.assertEquals(0, redisTemplate.opsForZSet().size(RedisWarmestDataStructure.namespacePrefix(namespace) + "expiry"));
+	}
+}
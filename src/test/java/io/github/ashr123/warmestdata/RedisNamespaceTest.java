@@ -0,0 +1,99 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.namespace.NamespaceRegistry;
+import io.github.ashr123.warmestdata.namespace.NamespaceStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+/**
+ * Namespaces on the Redis linked-list layout, using a Testcontainers Redis: each one has its own hash-tagged keys.
+ */
+@SpringBootTest
+@ActiveProfiles("redis")
+@Import(TestcontainersConfiguration.class)
+class RedisNamespaceTest {
+
+	@Autowired
+	private NamespaceRegistry namespaces;
+
+	@Autowired
+	private WarmestDataStructureInterface dataStructure;
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	@Test
+	void namespaces_useTheirOwnHashTaggedKeys() {
+		WarmestDataStructureInterface a = namespaces.get("redis-a");
+		WarmestDataStructureInterface b = namespaces.get("redis-b");
+		a.put("x", 1);
+		b.put("y", 2);
+
+		Assertions.assertEquals("x", a.getWarmest());
+		Assertions.assertEquals("y", b.getWarmest());
+		Assertions.assertNull(a.get("y"));
+		Assertions.assertNull(dataStructure.get("x"));
+		Assertions.assertEquals("1", redisTemplate.opsForHash().get("warmest:{redis-a}:data", "x"));
+		Assertions.assertEquals("2", redisTemplate.opsForHash().get("warmest:{redis-b}:data", "y"));
+		Assertions.assertEquals(Boolean.TRUE, redisTemplate.opsForSet().isMember(NamespaceRegistry.NAMESPACES_KEY, "redis-a"));
+	}
+
+	@Test
+	void stats_reportEntriesAndMemoryUsage() {
+		WarmestDataStructureInterface namespace = namespaces.get("redis-stats");
+		namespace.put("x", 1);
+		namespace.put("y", 2);
+
+		List<NamespaceStats> stats = namespaces.stats();
+		NamespaceStats namespaceStats = stats.stream()
+				.filter(s -> s.namespace().equals("redis-stats"))
+				.findFirst()
+				.orElseThrow();
+		Assertions.assertEquals(2, namespaceStats.entries());
+		Assertions.assertTrue(namespaceStats.bytes() > 0);
+	}
+
+	@Test
+	void find_opensNamespacesOfOtherInstances_withoutCreatingUnknownOnes() {
+		Assertions.assertNull(namespaces.find("redis-unknown").getWarmest());
+		Assertions.assertEquals(Boolean.FALSE, redisTemplate.opsForSet().isMember(NamespaceRegistry.NAMESPACES_KEY, "redis-unknown"));
+
+		// As another instance creates it
+		RedisWarmestDataStructure.forNamespace(redisTemplate, "redis-other", 0, 100).put("x", 1);
+		redisTemplate.opsForSet().add(NamespaceRegistry.NAMESPACES_KEY, "redis-other");
+		Assertions.assertEquals("x", namespaces.find("redis-other").getWarmest());
+		Assertions.assertTrue(namespaces.stats().stream().anyMatch(s -> s.namespace().equals("redis-other")));
+	}
+
+	@Test
+	void expiringEntries_areSweptInTheBackground() throws InterruptedException {
+		WarmestDataStructureInterface namespace = namespaces.get("redis-expiring");
+		namespace.put("kept", 1);
+		// Opened and swept once with nothing to sweep, then marked again by the put
+		Thread.sleep(300);
+		namespace.put("t", 2, 50);
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (Boolean.TRUE.equals(redisTemplate.opsForHash().hasKey("warmest:{redis-expiring}:data", "t"))) {
+			Assertions.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for t to be swept");
+			Thread.sleep(10);
+		}
+		Assertions.assertEquals(0, redisTemplate.opsForZSet().size("warmest:{redis-expiring}:expiry"));
+		Assertions.assertEquals(List.of("kept"), namespace.getWarmest(10));
+	}
+
+	@Test
+	void invalidNamespace_isRejected() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> namespaces.get("a}b"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> namespaces.get(""));
+	}
+}
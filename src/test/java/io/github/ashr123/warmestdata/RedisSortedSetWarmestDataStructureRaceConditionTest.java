@@ -0,0 +1,18 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs all race condition scenarios against the Redis-backed
+ * {@link io.github.ashr123.warmestdata.dto.RedisSortedSetWarmestDataStructure} implementation
+ * (Spring profiles {@code redis} + {@code redis-zset}) using a Testcontainers Redis instance.
+ */
+@SpringBootTest
+@ActiveProfiles({"redis", "redis-zset"})
+@Import(TestcontainersConfiguration.class)
+class RedisSortedSetWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
+	// The test scenarios are inherited from AbstractRaceConditionTest.
+	// Both profiles use 1 000 iterations.
+}
@@ -0,0 +1,17 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the shared functional scenarios against the Redis-backed
+ * {@link io.github.ashr123.warmestdata.dto.RedisSortedSetWarmestDataStructure} implementation
+ * (Spring profiles {@code redis} + {@code redis-zset}) using a Testcontainers Redis instance.
+ */
+@SpringBootTest
+@ActiveProfiles({"redis", "redis-zset"})
+@Import(TestcontainersConfiguration.class)
+class RedisSortedSetWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
+}
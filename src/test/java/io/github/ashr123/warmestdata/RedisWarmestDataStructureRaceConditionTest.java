@@ -13,6 +13,6 @@ import org.springframework.test.context.ActiveProfiles;
 @ActiveProfiles("redis")
 @Import(TestcontainersConfiguration.class)
 class RedisWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
-	// All 10 test scenarios are inherited from AbstractRaceConditionTest.
+	// The test scenarios are inherited from AbstractRaceConditionTest.
 	// Both profiles use 1 000 iterations.
 }
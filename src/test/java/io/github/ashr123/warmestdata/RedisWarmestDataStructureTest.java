@@ -5,7 +5,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 
 /**
- * Runs all 21 functional scenarios against the Redis-backed
+ * Runs the shared functional scenarios against the Redis-backed
  * {@link io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure} implementation
  * (Spring profile {@code redis}) using a Testcontainers Redis instance.
  */
@@ -13,5 +13,5 @@ import org.springframework.test.context.ActiveProfiles;
 @ActiveProfiles("redis")
 @Import(TestcontainersConfiguration.class)
 class RedisWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
-	// All 21 test cases are inherited from AbstractWarmestDataStructureTest.
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
 }
@@ -0,0 +1,109 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Follows {@code GET /warmest/changes} while the Redis scripts change the warmest key, using a Testcontainers Redis.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "warmest.ttl.sweep-interval=10ms")
+@ActiveProfiles("redis")
+@Import(TestcontainersConfiguration.class)
+class RedisWarmestKeyFeedTest {
+
+	private static final long TIMEOUT_MILLIS = 5_000;
+
+	@Autowired
+	private WarmestDataStructureInterface dataStructure;
+
+	@Value("${local.server.port}")
+	private int port;
+
+	private final BlockingQueue<String> keys = new LinkedBlockingQueue<>();
+	private CompletableFuture<HttpResponse<Stream<String>>> stream;
+
+	@BeforeEach
+	void subscribe() throws InterruptedException {
+		while (dataStructure.getWarmest() != null) {
+			dataStructure.remove(dataStructure.getWarmest());
+		}
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/warmest/changes"))
+				.header("Accept", "text/event-stream")
+				.build();
+		stream = HttpClient.newHttpClient()
+				.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+				.thenApply(response -> {
+					response.body()
+							.filter(line -> line.startsWith("data:"))
+							.forEach(line -> keys.add(line.substring("data:".length())));
+					return response;
+				});
+		Assertions.assertEquals("", nextKey());
+	}
+
+	@AfterEach
+	void unsubscribe() {
+		stream.cancel(true);
+	}
+
+	private String nextKey() throws InterruptedException {
+		String key = keys.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		Assertions.assertNotNull(key, "No event within " + TIMEOUT_MILLIS + " ms");
+		return key;
+	}
+
+	@Test
+	void everyScript_publishesWarmestKeyChanges() throws InterruptedException {
+		dataStructure.put("a", 1);
+		Assertions.assertEquals("a", nextKey());
+		dataStructure.put("b", 2);
+		Assertions.assertEquals("b", nextKey());
+		dataStructure.get("a");
+		Assertions.assertEquals("a", nextKey());
+		dataStructure.get("a");  // Already the warmest
+		dataStructure.put("a", 3);  // Same key, new value
+		dataStructure.remove("a");
+		Assertions.assertEquals("b", nextKey());
+
+		Map<String, Integer> batch = new LinkedHashMap<>();
+		batch.put("c", 3);
+		batch.put("d", 4);
+		dataStructure.putAll(batch);
+		Assertions.assertEquals("d", nextKey());
+		dataStructure.getAll(List.of("b"));
+		Assertions.assertEquals("b", nextKey());
+		dataStructure.removeAll(List.of("b", "missing"));
+		Assertions.assertEquals("d", nextKey());
+
+		dataStructure.put("e", 5, 50);
+		Assertions.assertEquals("e", nextKey());
+		// Removed by the expiry sweep
+		Assertions.assertEquals("d", nextKey());
+
+		dataStructure.removeAll(List.of("c", "d"));
+		Assertions.assertEquals("", nextKey());
+		Assertions.assertNull(keys.poll(100, TimeUnit.MILLISECONDS));
+	}
+}
@@ -0,0 +1,191 @@
+package io.github.ashr123.warmestdata;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Starts a leader and two {@code follower} instances on free localhost ports and drives them over HTTP.
+ */
+class ReplicationTest {
+
+	private static final int FOLLOWERS = 2;
+	private static final long TIMEOUT_MILLIS = 5_000;
+
+	private static final HttpClient httpClient = HttpClient.newHttpClient();
+	private static final List<String> followerUrls = new ArrayList<>();
+	private static final List<ConfigurableApplicationContext> followers = new ArrayList<>();
+	private static String leaderUrl;
+	private static int replicationPort;
+	private static ConfigurableApplicationContext leader;
+
+	@BeforeAll
+	static void startInstances() throws IOException {
+		int leaderPort = freePort();
+		replicationPort = freePort();
+		leaderUrl = "http://localhost:" + leaderPort;
+		leader = new SpringApplicationBuilder(WarmestDataApplication.class)
+				.properties("server.port=" + leaderPort,
+						"warmest.replication.port=" + replicationPort)
+				.run();
+		for (int i = 0; i < FOLLOWERS; i++) {
+			int port = freePort();
+			followerUrls.add("http://localhost:" + port);
+			followers.add(startFollower(port));
+		}
+	}
+
+	private static ConfigurableApplicationContext startFollower(int port) {
+		return new SpringApplicationBuilder(WarmestDataApplication.class)
+				.profiles("follower")
+				.properties("server.port=" + port,
+						"warmest.replication.leader=localhost:" + replicationPort,
+						"warmest.replication.retry-interval=100ms")
+				.run();
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	@AfterAll
+	static void stopInstances() {
+		followers.forEach(ConfigurableApplicationContext::close);
+		leader.close();
+	}
+
+	@BeforeEach
+	void clear() throws Exception {
+		String warmest;
+		while (!(warmest = send(leaderUrl, "GET", "/warmest", null)).isEmpty()) {
+			send(leaderUrl, "DELETE", "/data/" + warmest, null);
+		}
+		for (String url : followerUrls) {
+			eventually(() -> send(url, "GET", "/warmest", null), "");
+		}
+	}
+
+	/**
+	 * @return the body, empty for 404
+	 */
+	private static String send(String url, String method, String path, String body) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+				.header("Content-Type", "application/json")
+				.method(method, body == null ?
+						HttpRequest.BodyPublishers.noBody() :
+						HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() == 404) {
+			return "";
+		}
+		Assertions.assertEquals(200, response.statusCode(), method + " " + path + ": " + response.body());
+		return response.body();
+	}
+
+	/**
+	 * Polls actual until it returns expected, failing after {@link #TIMEOUT_MILLIS}.
+	 */
+	private static <T> void eventually(Callable<T> actual, T expected) throws Exception {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		T value;
+		while (!expected.equals(value = actual.call()) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertEquals(expected, value);
+	}
+
+	@Test
+	void writesOnLeader_reachEveryFollowerInOrder() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			send(leaderUrl, "PUT", "/data/key-" + i, String.valueOf(i));
+		}
+		send(leaderUrl, "GET", "/data/key-3", null);
+		send(leaderUrl, "DELETE", "/data/key-19", null);
+
+		for (String url : followerUrls) {
+			eventually(() -> send(url, "GET", "/warmest?limit=3", null), "[\"key-3\",\"key-18\",\"key-17\"]");
+			Assertions.assertEquals("7", send(url, "GET", "/data/key-7", null));
+			Assertions.assertEquals("", send(url, "GET", "/data/key-19", null));
+		}
+	}
+
+	@Test
+	void writeThroughFollower_isAppliedByLeaderAndReadableRightAway() throws Exception {
+		String follower = followerUrls.get(0);
+		Assertions.assertEquals("", send(follower, "PUT", "/data/a", "1"));
+		Assertions.assertEquals("1", send(follower, "PUT", "/data/a", "2"));
+		// Read-your-writes on the same follower, without waiting
+		Assertions.assertEquals("2", send(follower, "GET", "/data/a", null));
+		Assertions.assertEquals("2", send(leaderUrl, "GET", "/data/a", null));
+
+		Assertions.assertEquals("{\"b\":null,\"c\":null}", send(follower, "PUT", "/data", "{\"b\":3,\"c\":4}"));
+		Assertions.assertEquals("c", send(follower, "GET", "/warmest", null));
+		Assertions.assertEquals("{\"a\":2,\"b\":3}", send(follower, "DELETE", "/data?keys=a,b", null));
+		Assertions.assertEquals("", send(follower, "GET", "/data/a", null));
+		eventually(() -> send(followerUrls.get(1), "GET", "/warmest?limit=5", null), "[\"c\"]");
+	}
+
+	@Test
+	void getOnFollower_bumpsRecencyOnLeaderAndOtherFollowers() throws Exception {
+		send(leaderUrl, "PUT", "/data/old", "1");
+		send(leaderUrl, "PUT", "/data/new", "2");
+		for (String url : followerUrls) {
+			eventually(() -> send(url, "GET", "/warmest", null), "new");
+		}
+
+		Assertions.assertEquals("1", send(followerUrls.get(0), "GET", "/data/old", null));
+		eventually(() -> send(leaderUrl, "GET", "/warmest", null), "old");
+		for (String url : followerUrls) {
+			eventually(() -> send(url, "GET", "/warmest", null), "old");
+		}
+	}
+
+	@Test
+	void newFollower_catchesUpFromSnapshot() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			send(leaderUrl, "PUT", "/data/key-" + i, String.valueOf(i));
+		}
+		send(leaderUrl, "GET", "/data/key-50", null);
+
+		int port = freePort();
+		try (ConfigurableApplicationContext lateFollower = startFollower(port)) {
+			String url = "http://localhost:" + port;
+			eventually(() -> send(url, "GET", "/warmest?limit=2", null), "[\"key-50\",\"key-99\"]");
+
+			send(leaderUrl, "PUT", "/data/after", "7");
+			eventually(() -> send(url, "GET", "/warmest", null), "after");
+			Assertions.assertEquals("0", send(url, "GET", "/data/key-0", null));
+		}
+	}
+
+	@Test
+	void lagMetrics_reportCaughtUpFollower() throws Exception {
+		send(leaderUrl, "PUT", "/data/a", "1");
+		for (ConfigurableApplicationContext follower : followers) {
+			MeterRegistry registry = follower.getBean(MeterRegistry.class);
+			eventually(() -> registry.get("warmest.replication.lag.records").gauge().value(), 0.0);
+			double lagMillis = registry.get("warmest.replication.lag").gauge().value();
+			Assertions.assertTrue(lagMillis >= 0 && lagMillis < 1_000, "lag " + lagMillis);
+		}
+		MeterRegistry leaderRegistry = leader.getBean(MeterRegistry.class);
+		eventually(() -> leaderRegistry.get("warmest.replication.followers").gauge().value(), (double) FOLLOWERS);
+	}
+}
@@ -0,0 +1,16 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs all race condition scenarios against the segmented in-memory
+ * {@link io.github.ashr123.warmestdata.dto.SegmentedWarmestDataStructure} implementation
+ * (Spring profile {@code segmented}).
+ */
+@SpringBootTest
+@ActiveProfiles("segmented")
+class SegmentedWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
+	// The test scenarios are inherited from AbstractRaceConditionTest.
+	// In-memory is fast, so the default 1 000 iterations are used.
+}
@@ -0,0 +1,15 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the shared functional scenarios against the segmented in-memory
+ * {@link io.github.ashr123.warmestdata.dto.SegmentedWarmestDataStructure} implementation
+ * (Spring profile {@code segmented}).
+ */
+@SpringBootTest
+@ActiveProfiles("segmented")
+class SegmentedWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
+}
@@ -0,0 +1,171 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.persistence.SnapshotFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Round-trips {@link WarmestDataStructure} through {@link SnapshotFile}.
+ */
+class SnapshotTest {
+
+	@TempDir
+	Path directory;
+
+	/**
+	 * @return all keys, warmest first, by repeatedly removing the warmest
+	 */
+	private static List<String> drainWarmestFirst(WarmestDataStructure dataStructure) {
+		List<String> keys = new ArrayList<>();
+		for (String warmest; (warmest = dataStructure.getWarmest()) != null; ) {
+			keys.add(warmest);
+			dataStructure.remove(warmest);
+		}
+		return keys;
+	}
+
+	private static WarmestDataStructure restore(Path file) throws IOException {
+		WarmestDataStructure restored = new WarmestDataStructure();
+		restored.restore(sink -> SnapshotFile.read(file, sink));
+		return restored;
+	}
+
+	@Test
+	void restore_rebuildsValuesAndRecencyOrder() throws IOException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		dataStructure.put("ключ", 4);
+		dataStructure.get("a");       // a becomes warmest
+		dataStructure.remove("b");    // middle removed
+		dataStructure.put("c", 30);   // c updated and warmest
+		Path file = directory.resolve("warmest.snapshot");
+
+		SnapshotFile.write(dataStructure.snapshot(), file);
+		WarmestDataStructure restored = restore(file);
+
+		Assertions.assertEquals(30, restored.get("c"));
+		Assertions.assertEquals(1, restored.get("a"));
+		Assertions.assertEquals(4, restored.get("ключ"));
+		Assertions.assertNull(restored.get("b"));
+		Assertions.assertEquals(List.of("c", "a", "ключ"), drainWarmestFirst(restore(file)));
+	}
+
+	@Test
+	void snapshot_followsColdestAfterHeadRemoval() {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		dataStructure.remove("a");
+		dataStructure.get("b");
+
+		WarmestDataStructure.Snapshot snapshot = dataStructure.snapshot();
+
+		Assertions.assertArrayEquals(new String[]{"c", "b"}, snapshot.keys());
+		Assertions.assertArrayEquals(new int[]{3, 2}, snapshot.values());
+	}
+
+	@Test
+	void emptySnapshot_restoresNothing() throws IOException {
+		Path file = directory.resolve("empty.snapshot");
+
+		SnapshotFile.write(new WarmestDataStructure().snapshot(), file);
+
+		Assertions.assertNull(restore(file).getWarmest());
+	}
+
+	@Test
+	void corruptSnapshot_isRejectedBeforeAnyEntryIsApplied() throws IOException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		Path file = directory.resolve("warmest.snapshot");
+		SnapshotFile.write(dataStructure.snapshot(), file);
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[10] ^= 0x01;
+		Files.write(file, bytes);
+
+		Assertions.assertThrows(IOException.class, () -> restore(file));
+		WarmestDataStructure target = new WarmestDataStructure();
+		Assertions.assertThrows(IOException.class, () -> target.restore(sink -> SnapshotFile.read(file, sink)));
+		Assertions.assertNull(target.getWarmest());
+	}
+
+	@Test
+	void sequencelessSnapshot_isStillRead() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CheckedOutputStream checked = new CheckedOutputStream(bytes, new CRC32());
+		DataOutputStream out = new DataOutputStream(checked);
+		out.writeInt(0x57445331); // "WDS1"
+		out.writeInt(2);
+		for (String key : List.of("a", "b")) {
+			out.writeByte(1);
+			out.writeBytes(key);
+			out.writeInt(key.charAt(0));
+		}
+		out.writeInt((int) checked.getChecksum().getValue());
+		Path file = directory.resolve("old.snapshot");
+		Files.write(file, bytes.toByteArray());
+
+		WarmestDataStructure restored = new WarmestDataStructure();
+		SnapshotFile.Header header = SnapshotFile.read(file, (key, value, expiresAt) -> restored.put(key, value));
+
+		Assertions.assertEquals(new SnapshotFile.Header(2, 0), header);
+		Assertions.assertEquals(List.of("b", "a"), drainWarmestFirst(restored));
+	}
+
+	/**
+	 * A single writer puts the keys round-robin with the round as value, so in any state the writer passes through, the
+	 * write number {@code round * keyCount + index} grows by exactly one from the coldest entry to the warmest.
+	 */
+	@Test
+	void snapshotDuringWrites_isAPointInTimeState() throws InterruptedException {
+		int keyCount = 20_000;  // Several copy chunks
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		for (int i = 0; i < keyCount; i++) {
+			dataStructure.put("key-" + i, 0);
+		}
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread writer = new Thread(() -> {
+			for (int round = 1; running.get(); round++) {
+				for (int i = 0; i < keyCount; i++) {
+					dataStructure.put("key-" + i, round);
+				}
+			}
+		});
+		writer.start();
+		try {
+			for (int attempt = 0; attempt < 50; attempt++) {
+				WarmestDataStructure.Snapshot snapshot = dataStructure.snapshot();
+
+				Assertions.assertEquals(keyCount, snapshot.keys().length);
+				long previousWrite = -1;
+				for (int i = 0; i < keyCount; i++) {
+					long write = (long) snapshot.values()[i] * keyCount + Integer.parseInt(snapshot.keys()[i].substring(4));
+					if (previousWrite >= 0) {
+						Assertions.assertEquals(previousWrite + 1, write, "Entry " + i + " of the snapshot");
+					}
+					previousWrite = write;
+				}
+			}
+		} finally {
+			running.set(false);
+			writer.join();
+		}
+	}
+}
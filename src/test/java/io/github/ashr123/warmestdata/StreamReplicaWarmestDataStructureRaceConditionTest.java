@@ -0,0 +1,18 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs all race condition scenarios against the
+ * {@link io.github.ashr123.warmestdata.dto.StreamReplicaWarmestDataStructure} decorator over the Redis-backed
+ * implementation (Spring profiles {@code redis} + {@code replica}, read-your-writes) using a Testcontainers Redis
+ * instance.
+ */
+@SpringBootTest
+@ActiveProfiles({"redis", "replica"})
+@Import(TestcontainersConfiguration.class)
+class StreamReplicaWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
+	// The test scenarios are inherited from AbstractRaceConditionTest.
+}
@@ -0,0 +1,181 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.RedisWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.StreamReplicaWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureDecorator;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Checks the Redis stream replicas of two app instances sharing one Testcontainers Redis: the Spring-managed
+ * {@link StreamReplicaWarmestDataStructure} (read-your-writes) and a second one created by hand (bounded staleness,
+ * with a bound long enough that it always reads from its replica once synced).
+ */
+@SpringBootTest
+@ActiveProfiles({"redis", "replica"})
+@Import(TestcontainersConfiguration.class)
+class StreamReplicationTest {
+
+	private static final long TIMEOUT_MILLIS = 5_000;
+
+	@Autowired
+	private WarmestDataStructureInterface dataStructure;
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	private RedisWarmestDataStructure redis;
+	private RedisWarmestDataStructure otherRedis;
+	private StreamReplicaWarmestDataStructure otherInstance;
+
+	@BeforeEach
+	void setUp() {
+		while (dataStructure.getWarmest() != null) {
+			dataStructure.remove(dataStructure.getWarmest());
+		}
+		redis = WarmestDataStructureDecorator.unwrap(dataStructure, RedisWarmestDataStructure.class);
+		otherRedis = new RedisWarmestDataStructure(redisTemplate, 0, Duration.ofMillis(100), 100,
+				false, Duration.ZERO, 1, true);
+		otherInstance = new StreamReplicaWarmestDataStructure(otherRedis,
+				redisTemplate,
+				new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class),
+				StreamReplicaWarmestDataStructure.Consistency.BOUNDED_STALENESS,
+				Duration.ofMinutes(1),
+				Duration.ofMillis(100),
+				Duration.ofMillis(10),
+				Duration.ofMillis(100),
+				1_000,
+				1_000_000,
+				Duration.ofMillis(100));
+	}
+
+	@AfterEach
+	void tearDown() {
+		otherInstance.destroy();
+		otherRedis.destroy();
+	}
+
+	private static <T> void awaitEquals(T expected, Supplier<T> actual) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!Objects.equals(expected, actual.get())) {
+			if (System.currentTimeMillis() > deadline) {
+				Assertions.assertEquals(expected, actual.get(), "Timed out waiting for the replica to catch up");
+				return;
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void readYourWrites_readRightAfterWriteSeesIt() {
+		StreamReplicaWarmestDataStructure replica = WarmestDataStructureDecorator.unwrap(dataStructure, StreamReplicaWarmestDataStructure.class);
+		for (int i = 0; i < 100; i++) {
+			dataStructure.put("k" + i, i);
+			Assertions.assertEquals(i, dataStructure.get("k" + i));
+		}
+		dataStructure.remove("k99");
+		Assertions.assertNull(dataStructure.get("k99"));
+
+		// Its own gets moved k0 and k1, and getWarmest includes that
+		dataStructure.get("k0");
+		dataStructure.get("k1");
+		Assertions.assertEquals(List.of("k1", "k0", "k98"), dataStructure.getWarmest(3));
+		Assertions.assertEquals(redis.getWarmest(3), dataStructure.getWarmest(3));
+		Assertions.assertTrue(replica.getReplicaReads() > 0, "No read was served by the replica");
+	}
+
+	@Test
+	void scriptReplies_carryTheNumberOfTheEntryTheyAppended() {
+		redis.put("a", 1);
+		Assertions.assertEquals(redis.streamSequence(), redis.appendedSequence());
+		redis.putAll(Map.of("b", 2));
+		Assertions.assertEquals(List.of(1), List.copyOf(redis.getAll(List.of("a")).values()));
+		Assertions.assertEquals(redis.streamSequence(), redis.appendedSequence());
+
+		// Another instance's entry is not this one's, and a call that appends nothing leaves it unchanged
+		long appended = redis.appendedSequence();
+		otherRedis.remove("b");
+		Assertions.assertNull(redis.get("b"));
+		Assertions.assertEquals(appended, redis.appendedSequence());
+		Assertions.assertEquals(appended + 1, otherRedis.appendedSequence());
+	}
+
+	@Test
+	void changesOnOneInstance_reachTheOthersReplicaInRedisOrder() throws InterruptedException {
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+		dataStructure.get("a");
+		dataStructure.remove("b");
+		dataStructure.putAll(Map.of("d", 4));
+
+		awaitEquals(redis.getWarmest(10), () -> otherInstance.getWarmest(10));
+		Assertions.assertEquals(List.of("d", "a", "c"), otherInstance.getWarmest(10));
+		Assertions.assertEquals(1, otherInstance.get("a"));
+		Assertions.assertNull(otherInstance.get("b"));
+	}
+
+	@Test
+	void replicaRead_recencyReachesRedisAndEveryReplica() throws InterruptedException {
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		awaitEquals(1, () -> otherInstance.get("a"));   // Served by its replica, the bump is flushed in the background
+
+		awaitEquals("a", redis::getWarmest);
+		awaitEquals("a", otherInstance::getWarmest);
+		awaitEquals("a", dataStructure::getWarmest);
+	}
+
+	@Test
+	void expiringPut_isReplicatedWithItsDeadline() throws InterruptedException {
+		dataStructure.put("t", 1, 300);
+		awaitEquals(1, () -> otherInstance.get("t"));
+
+		awaitEquals(null, () -> otherInstance.get("t"));
+		Assertions.assertNull(dataStructure.get("t"));
+	}
+
+	@Test
+	void skippedStreamEntry_resyncsFromSnapshot() throws InterruptedException {
+		dataStructure.put("a", 1);
+		awaitEquals(1, () -> otherInstance.get("a"));
+
+		// As if an entry was trimmed before the replica read it
+		redisTemplate.opsForValue().increment("warmest:stream-seq");
+		dataStructure.put("b", 2);
+		dataStructure.put("a", 3);
+
+		awaitEquals(List.of("a", "b"), () -> otherInstance.getWarmest(10));
+		Assertions.assertEquals(3, otherInstance.get("a"));
+		Assertions.assertEquals(3, dataStructure.get("a"));
+	}
+
+	@Test
+	void lag_drainsToZeroWhileIdle() throws InterruptedException {
+		for (int i = 0; i < 1_000; i++) {
+			dataStructure.put("k" + i, i);
+		}
+		awaitEquals(999, () -> otherInstance.get("k999"));
+
+		awaitEquals(0.0, () -> otherInstance.getFollower().getLagRecords());
+		awaitEquals(redis.streamSequence(), () -> otherInstance.getFollower().getAppliedSequence());
+		double lagMillis = otherInstance.getFollower().getLagMillis();
+		Assertions.assertTrue(lagMillis >= 0 && lagMillis < TIMEOUT_MILLIS, "Lag should stay below the poll timeout while idle, but is " + lagMillis);
+	}
+}
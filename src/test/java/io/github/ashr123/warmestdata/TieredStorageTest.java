@@ -0,0 +1,155 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.TieredWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Spilling to and paging in from the disk tier of {@link TieredWarmestDataStructure}.
+ */
+class TieredStorageTest {
+
+	@TempDir
+	Path directory;
+
+	private TieredWarmestDataStructure tiered;
+
+	private TieredWarmestDataStructure tiered(long heapEntries, DataSize segmentSize) throws IOException {
+		tiered = new TieredWarmestDataStructure(new WarmestDataStructure(heapEntries, DataSize.ofBytes(0)),
+				new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), directory, segmentSize);
+		return tiered;
+	}
+
+	private long segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		if (tiered != null) {
+			tiered.destroy();
+		}
+	}
+
+	@Test
+	void overflow_spillsColdestToDisk() throws IOException {
+		TieredWarmestDataStructure dataStructure = tiered(2, DataSize.ofMegabytes(1));
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+
+		TieredWarmestDataStructure.Stats stats = dataStructure.stats();
+		Assertions.assertEquals(2, stats.heapEntries());
+		Assertions.assertEquals(1, stats.diskEntries());
+		Assertions.assertEquals(List.of("c", "b", "a"), dataStructure.getWarmest(10));
+		Assertions.assertEquals(List.of("c", "b"), dataStructure.getWarmest(2));
+	}
+
+	@Test
+	void getOfSpilledKey_pagesItBackInAsWarmest() throws IOException {
+		TieredWarmestDataStructure dataStructure = tiered(2, DataSize.ofMegabytes(1));
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+
+		Assertions.assertEquals(1, dataStructure.get("a"));   // b is spilled in turn
+		Assertions.assertEquals(3, dataStructure.get("c"));
+		Assertions.assertNull(dataStructure.get("x"));
+
+		TieredWarmestDataStructure.Stats stats = dataStructure.stats();
+		Assertions.assertEquals(1, stats.heapHits());
+		Assertions.assertEquals(1, stats.diskHits());
+		Assertions.assertEquals(1, stats.misses());
+		Assertions.assertEquals(0.5, stats.heapHitRatio());
+		Assertions.assertEquals(List.of("c", "a", "b"), dataStructure.getWarmest(10));
+	}
+
+	@Test
+	void putAndRemoveOfSpilledKey_returnPreviousValueFromDisk() throws IOException {
+		TieredWarmestDataStructure dataStructure = tiered(1, DataSize.ofMegabytes(1));
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.put("c", 3);
+
+		Assertions.assertEquals(1, dataStructure.put("a", 10));
+		Assertions.assertEquals(2, dataStructure.remove("b"));
+		Assertions.assertNull(dataStructure.get("b"));
+		Assertions.assertEquals(List.of("a", "c"), dataStructure.getWarmest(10));
+		Assertions.assertEquals(10, dataStructure.get("a"));
+	}
+
+	@Test
+	void emptyHeap_fallsBackToWarmestOnDisk() throws IOException {
+		TieredWarmestDataStructure dataStructure = tiered(1, DataSize.ofMegabytes(1));
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.remove("b");
+
+		Assertions.assertEquals("a", dataStructure.getWarmest());
+	}
+
+	@Test
+	void deadSegments_areReclaimed() throws IOException {
+		// 16 B segments hold one record each
+		TieredWarmestDataStructure dataStructure = tiered(1, DataSize.ofBytes(16));
+		for (int i = 0; i < 10; i++) {
+			dataStructure.put("k" + i, i);
+		}
+		Assertions.assertEquals(9, segmentFiles());
+
+		for (int i = 0; i < 9; i++) {
+			Assertions.assertEquals(i, dataStructure.remove("k" + i));
+		}
+		Assertions.assertEquals(1, segmentFiles());   // Only the active segment is left
+		Assertions.assertEquals(0, dataStructure.stats().diskEntries());
+	}
+
+	@Test
+	void halfDeadSegments_areCompactedInOrder() throws IOException {
+		// Records of k00 to k19 take 11 B, so a 44 B segment holds four
+		TieredWarmestDataStructure dataStructure = tiered(1, DataSize.ofBytes(44));
+		for (int i = 0; i < 20; i++) {
+			dataStructure.put("k%02d".formatted(i), i);
+		}
+		Assertions.assertEquals(19 * 11, dataStructure.stats().diskBytes());
+
+		for (int i = 0; i < 20; i += 2) {
+			dataStructure.remove("k%02d".formatted(i));
+		}
+		// The four full segments shrink to their live half; the active one is never compacted
+		Assertions.assertEquals(4 * 22 + 33, dataStructure.stats().diskBytes());
+		Assertions.assertEquals(List.of("k19", "k17", "k15", "k13", "k11", "k09", "k07", "k05", "k03", "k01"),
+				dataStructure.getWarmest(20));
+		for (int i = 1; i < 19; i += 2) {
+			Assertions.assertEquals(i, dataStructure.get("k%02d".formatted(i)));
+		}
+	}
+
+	@Test
+	void destroy_deletesSegmentsAndRestartStartsEmpty() throws IOException {
+		TieredWarmestDataStructure dataStructure = tiered(1, DataSize.ofMegabytes(1));
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		dataStructure.destroy();
+		Assertions.assertEquals(0, segmentFiles());
+
+		Files.writeString(directory.resolve("spill-7.dat"), "left over by a crash");
+		TieredWarmestDataStructure restarted = tiered(1, DataSize.ofMegabytes(1));
+		Assertions.assertNull(restarted.getWarmest());
+		Assertions.assertEquals(1, segmentFiles());   // The new, empty active segment
+	}
+}
@@ -0,0 +1,16 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs all race condition scenarios against the
+ * {@link io.github.ashr123.warmestdata.dto.TieredWarmestDataStructure} implementation (Spring profile {@code tiered}),
+ * with a heap tier of two entries.
+ */
+@SpringBootTest(properties = {"warmest.tiered.path=build/tiered-test", "warmest.capacity.max-entries=2"})
+@ActiveProfiles("tiered")
+class TieredWarmestDataStructureRaceConditionTest extends AbstractRaceConditionTest {
+	// The test scenarios are inherited from AbstractRaceConditionTest.
+	// Every write takes this engine's write lock and may touch the disk, but the default 1 000 iterations stay fast.
+}
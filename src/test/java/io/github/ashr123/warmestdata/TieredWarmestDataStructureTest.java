@@ -0,0 +1,15 @@
+package io.github.ashr123.warmestdata;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the shared functional scenarios against the
+ * {@link io.github.ashr123.warmestdata.dto.TieredWarmestDataStructure} implementation (Spring profile {@code tiered}),
+ * with a heap tier of two entries, so most scenarios spill to disk and page back in.
+ */
+@SpringBootTest(properties = {"warmest.tiered.path=build/tiered-test", "warmest.capacity.max-entries=2"})
+@ActiveProfiles("tiered")
+class TieredWarmestDataStructureTest extends AbstractWarmestDataStructureTest {
+	// The test cases are inherited from AbstractWarmestDataStructureTest.
+}
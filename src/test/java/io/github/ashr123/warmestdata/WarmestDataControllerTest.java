@@ -1,6 +1,8 @@
 package io.github.ashr123.warmestdata;
 
+import io.github.ashr123.warmestdata.cluster.ShardUnavailableException;
 import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +14,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Integration tests for WarmestDataController.
  */
@@ -27,7 +33,7 @@ class WarmestDataControllerTest {
 
 	@Test
 	void put_whenNewKey_returnsNullPreviousValue() throws Exception {
-		Mockito.when(dataStructure.put("a", 100)).thenReturn(null);
+		Mockito.when(dataStructure.putInt("a", 100)).thenReturn(WarmestDataStructureInterface.NO_VALUE);
 
 		mockMvc.perform(MockMvcRequestBuilders.put("/data/a")
 						.contentType(MediaType.APPLICATION_JSON)
@@ -36,9 +42,67 @@ class WarmestDataControllerTest {
 				.andExpect(MockMvcResultMatchers.jsonPath("$").doesNotExist());
 	}
 
+	@Test
+	void put_withTtl_passesTimeToLive() throws Exception {
+		Mockito.when(dataStructure.supportsTimeToLive()).thenReturn(true);
+		Mockito.when(dataStructure.put("a", 100, 5000)).thenReturn(7);
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/data/a")
+						.param("ttlMillis", "5000")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("100"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$").value(7));
+	}
+
+	@Test
+	void put_withNonPositiveTtl_returns400() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.put("/data/a")
+						.param("ttlMillis", "0")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("100"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void put_withTtlOnEngineWithoutExpiry_returns501() throws Exception {
+		Mockito.when(dataStructure.supportsTimeToLive()).thenReturn(false);
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/data/a")
+						.param("ttlMillis", "5000")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("100"))
+				.andExpect(MockMvcResultMatchers.status().isNotImplemented());
+		Mockito.verify(dataStructure, Mockito.never()).put("a", 100, 5000);
+	}
+
+	@Test
+	void getWarmest_withLimit_returnsKeysWarmestFirst() throws Exception {
+		Mockito.when(dataStructure.getWarmest(2)).thenReturn(List.of("c", "b"));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/warmest").param("limit", "2"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0]").value("c"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[1]").value("b"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2));
+	}
+
+	@Test
+	void getWarmest_withNegativeLimit_returns400() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get("/warmest").param("limit", "-1"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void getWarmest_withLimitAboveMax_returns400() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get("/warmest").param("limit", "10001"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		Mockito.verifyNoInteractions(dataStructure);
+	}
+
 	@Test
 	void put_whenExistingKey_returnsPreviousValue() throws Exception {
-		Mockito.when(dataStructure.put("a", 101)).thenReturn(100);
+		Mockito.when(dataStructure.putInt("a", 101)).thenReturn(100L);
 
 		mockMvc.perform(MockMvcRequestBuilders.put("/data/a")
 						.contentType(MediaType.APPLICATION_JSON)
@@ -51,7 +115,7 @@ class WarmestDataControllerTest {
 
 	@Test
 	void get_whenKeyExists_returnsValue() throws Exception {
-		Mockito.when(dataStructure.get("a")).thenReturn(100);
+		Mockito.when(dataStructure.getInt("a")).thenReturn(100L);
 
 		mockMvc.perform(MockMvcRequestBuilders.get("/data/a"))
 				.andExpect(MockMvcResultMatchers.status().isOk())
@@ -60,7 +124,7 @@ class WarmestDataControllerTest {
 
 	@Test
 	void get_whenKeyNotExists_returns404() throws Exception {
-		Mockito.when(dataStructure.get("nonexistent")).thenReturn(null);
+		Mockito.when(dataStructure.getInt("nonexistent")).thenReturn(WarmestDataStructureInterface.NO_VALUE);
 
 		mockMvc.perform(MockMvcRequestBuilders.get("/data/nonexistent"))
 				.andExpect(MockMvcResultMatchers.status().isNotFound());
@@ -70,7 +134,7 @@ class WarmestDataControllerTest {
 
 	@Test
 	void remove_whenKeyExists_returnsPreviousValue() throws Exception {
-		Mockito.when(dataStructure.remove("a")).thenReturn(100);
+		Mockito.when(dataStructure.removeInt("a")).thenReturn(100L);
 
 		mockMvc.perform(MockMvcRequestBuilders.delete("/data/a"))
 				.andExpect(MockMvcResultMatchers.status().isOk())
@@ -79,7 +143,7 @@ class WarmestDataControllerTest {
 
 	@Test
 	void remove_whenKeyNotExists_returnsNullValue() throws Exception {
-		Mockito.when(dataStructure.remove("nonexistent")).thenReturn(null);
+		Mockito.when(dataStructure.removeInt("nonexistent")).thenReturn(WarmestDataStructureInterface.NO_VALUE);
 
 		mockMvc.perform(MockMvcRequestBuilders.delete("/data/nonexistent"))
 				.andExpect(MockMvcResultMatchers.status().isOk())
@@ -105,4 +169,98 @@ class WarmestDataControllerTest {
 				.andExpect(MockMvcResultMatchers.status().isOk())
 				.andExpect(MockMvcResultMatchers.jsonPath("$").doesNotExist());
 	}
+
+	// ==================== Batch Tests ====================
+
+	@Test
+	void putAll_returnsPreviousValuesPerKey() throws Exception {
+		Map<String, Integer> batch = new LinkedHashMap<>();
+		batch.put("a", 100);
+		batch.put("b", 200);
+		Map<String, Integer> previousValues = new LinkedHashMap<>();
+		previousValues.put("a", null);
+		previousValues.put("b", 150);
+		Mockito.when(dataStructure.putAll(batch)).thenReturn(previousValues);
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/data")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"a\":100,\"b\":200}"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.a").value(Matchers.nullValue()))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.b").value(150));
+	}
+
+	@Test
+	void putAll_whenValueIsNull_returns400() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.put("/data")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"a\":null}"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void getAll_returnsValuesPerKey() throws Exception {
+		Map<String, Integer> values = new LinkedHashMap<>();
+		values.put("a", 100);
+		values.put("missing", null);
+		Mockito.when(dataStructure.getAll(List.of("a", "missing"))).thenReturn(values);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/data").param("keys", "a", "missing"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.a").value(100))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.missing").value(Matchers.nullValue()));
+	}
+
+	@Test
+	void removeAll_returnsRemovedValuesPerKey() throws Exception {
+		Mockito.when(dataStructure.removeAll(List.of("a", "b"))).thenReturn(Map.of("a", 100, "b", 200));
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/data").param("keys", "a,b"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.a").value(100))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.b").value(200));
+	}
+
+	// ==================== Engine errors, e.g. a follower's forwarded writes ====================
+
+	@Test
+	void put_whenLeaderRejectsWrite_returns400() throws Exception {
+		// What a follower throws for a WRITE_FAILED frame of kind REJECTED
+		Mockito.when(dataStructure.putInt("a", 100)).thenThrow(new IllegalArgumentException("Key longer than 8 chars: 9"));
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/data/a")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("100"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.status().reason("Key longer than 8 chars: 9"));
+	}
+
+	@Test
+	void putAll_whenLeaderRejectsWrite_returns400() throws Exception {
+		Mockito.when(dataStructure.putAll(Map.of("a", 100))).thenThrow(new IllegalArgumentException("Key longer than 8 chars: 9"));
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/data")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"a\": 100}"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void put_whenLeaderFailsWrite_returns502() throws Exception {
+		// What a follower throws for a WRITE_FAILED frame of kind FAILED
+		Mockito.when(dataStructure.putInt("a", 100)).thenThrow(new ShardUnavailableException("Write failed on leader localhost:9090: disk full"));
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/data/a")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("100"))
+				.andExpect(MockMvcResultMatchers.status().isBadGateway());
+	}
+
+	@Test
+	void remove_whenLeaderFailsWrite_returns502() throws Exception {
+		Mockito.when(dataStructure.removeInt("a")).thenThrow(new ShardUnavailableException("Write failed on leader localhost:9090: disk full"));
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/data/a"))
+				.andExpect(MockMvcResultMatchers.status().isBadGateway());
+	}
 }
@@ -0,0 +1,135 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.metrics.InstrumentedWarmestDataStructure;
+import io.github.ashr123.warmestdata.metrics.MicrometerEngineProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that the in-memory engine is instrumented by default ({@code warmest.metrics.enabled} unset).
+ */
+@SpringBootTest
+class WarmestDataMetricsTest {
+
+	private static final String ENGINE = "WarmestDataStructure";
+
+	@Autowired
+	private WarmestDataStructureInterface dataStructure;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@BeforeEach
+	void clearDataStructure() {
+		while (dataStructure.getWarmest() != null) {
+			dataStructure.remove(dataStructure.getWarmest());
+		}
+	}
+
+	private long operationCount(String operation, String outcome) {
+		return registry.get("warmest.operation")
+				.tag("engine", ENGINE)
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.timer()
+				.count();
+	}
+
+	private double getStatusCount(String status) {
+		// Status counters are registered on first use
+		Counter counter = registry.find("warmest.get.status")
+				.tag("engine", ENGINE)
+				.tag("status", status)
+				.counter();
+		return counter == null ?
+				0 :
+				counter.count();
+	}
+
+	@Test
+	void operations_areTimedPerOutcome() {
+		long putsBefore = operationCount("put", "success");
+		long hitsBefore = operationCount("get", "hit");
+		long missesBefore = operationCount("get", "miss");
+
+		dataStructure.put("a", 100);
+		dataStructure.get("a");
+		dataStructure.get("missing");
+
+		Assertions.assertEquals(putsBefore + 1, operationCount("put", "success"));
+		Assertions.assertEquals(hitsBefore + 1, operationCount("get", "hit"));
+		Assertions.assertEquals(missesBefore + 1, operationCount("get", "miss"));
+	}
+
+	@Test
+	void get_countsEveryReadLockOutcome() {
+		dataStructure.put("a", 100);
+		dataStructure.put("b", 200);
+		double notFoundBefore = getStatusCount("NOT_FOUND");
+		double atTailBefore = getStatusCount("AT_TAIL");
+		double needsMoveBefore = getStatusCount("NEEDS_MOVE");
+
+		dataStructure.get("missing"); // NOT_FOUND
+		dataStructure.get("b");       // AT_TAIL
+		dataStructure.get("a");       // NEEDS_MOVE
+
+		Assertions.assertEquals(notFoundBefore + 1, getStatusCount("NOT_FOUND"));
+		Assertions.assertEquals(atTailBefore + 1, getStatusCount("AT_TAIL"));
+		Assertions.assertEquals(needsMoveBefore + 1, getStatusCount("NEEDS_MOVE"));
+	}
+
+	@Test
+	void writes_recordWriteLockWaitAndHold() {
+		long waitsBefore = registry.get("warmest.lock.write.wait").tag("engine", ENGINE).timer().count();
+		long holdsBefore = registry.get("warmest.lock.write.hold").tag("engine", ENGINE).timer().count();
+
+		dataStructure.put("a", 100);
+
+		Assertions.assertEquals(waitsBefore + 1, registry.get("warmest.lock.write.wait").tag("engine", ENGINE).timer().count());
+		Assertions.assertEquals(holdsBefore + 1, registry.get("warmest.lock.write.hold").tag("engine", ENGINE).timer().count());
+	}
+
+	/**
+	 * Differential check: the same random operation sequence on a bare engine and on a fully instrumented one (decorator
+	 * and probe) must return the same results and leave the same recency order.
+	 */
+	@Test
+	void instrumentedEngine_behavesLikeTheBareEngine() {
+		WarmestDataStructure bare = new WarmestDataStructure();
+		WarmestDataStructure probed = new WarmestDataStructure();
+		SimpleMeterRegistry localRegistry = new SimpleMeterRegistry();
+		probed.setProbe(new MicrometerEngineProbe(localRegistry, "differential"));
+		WarmestDataStructureInterface instrumented = new InstrumentedWarmestDataStructure(probed, localRegistry, "differential");
+
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < 20_000; i++) {
+			String key = "k" + random.nextInt(100);
+			int value = random.nextInt();
+			switch (random.nextInt(8)) {
+				case 0, 1 -> Assertions.assertEquals(bare.put(key, value), instrumented.put(key, value));
+				case 2, 3 -> Assertions.assertEquals(bare.get(key), instrumented.get(key));
+				case 4 -> Assertions.assertEquals(bare.remove(key), instrumented.remove(key));
+				case 5 -> Assertions.assertEquals(bare.putAll(Map.of(key, value)), instrumented.putAll(Map.of(key, value)));
+				case 6 -> Assertions.assertEquals(bare.getAll(List.of(key, "k0")), instrumented.getAll(List.of(key, "k0")));
+				default -> Assertions.assertEquals(bare.getWarmest(), instrumented.getWarmest());
+			}
+		}
+		Assertions.assertEquals(20_000, localRegistry.find("warmest.operation").timers().stream()
+				.mapToLong(Timer::count)
+				.sum());
+		Assertions.assertEquals(bare.getWarmest(100), instrumented.getWarmest(100));
+	}
+}
@@ -1,14 +1,52 @@
 package io.github.ashr123.warmestdata;
 
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.lang.management.ManagementFactory;
+
 /**
- * Runs all 21 functional scenarios against the in-memory
+ * Runs the shared functional scenarios against the in-memory
  * {@link io.github.ashr123.warmestdata.dto.WarmestDataStructure} implementation.
- * No active profile → {@code redis} is inactive → {@code @Profile("!redis")} selects
+ * No active profile → none of the alternative engine profiles ({@code redis}, {@code segmented},
+ * {@code buffered}, {@code primitive}) is active → selects
  * {@link io.github.ashr123.warmestdata.dto.WarmestDataStructure}.
  */
 @SpringBootTest
 class WarmestDataStructureTest extends AbstractWarmestDataStructureTest {
-	// All 21 test cases are inherited from AbstractWarmestDataStructureTest.
+	// The shared test cases are inherited from AbstractWarmestDataStructureTest.
+
+	/**
+	 * The 0 B/op claim of the primitive variants, measured with the thread's allocation counter rather than a
+	 * benchmark: once warmed up, getInt and putInt on existing keys allocate no bytes at all.
+	 */
+	@Test
+	void primitiveVariants_onExistingKeys_doNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		String[] keys = new String[64];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = "key-" + i;
+			dataStructure.put(keys[i], i);
+		}
+
+		int operations = 200_000;
+		long allocated = 0;
+		// The first round warms up, e.g. the read lock's per-thread hold counter
+		for (int round = 0; round < 2; round++) {
+			long before = threads.getCurrentThreadAllocatedBytes();
+			for (int i = 0; i < operations / 2; i++) {
+				String key = keys[i & (keys.length - 1)];
+				Assertions.assertNotEquals(WarmestDataStructureInterface.NO_VALUE, dataStructure.getInt(key));
+				Assertions.assertNotEquals(WarmestDataStructureInterface.NO_VALUE, dataStructure.putInt(key, i));
+			}
+			allocated = threads.getCurrentThreadAllocatedBytes() - before;
+		}
+		Assertions.assertEquals(0, allocated, allocated + " bytes allocated by " + operations + " warmed-up operations");
+	}
 }
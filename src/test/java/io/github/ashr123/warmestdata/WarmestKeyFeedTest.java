@@ -0,0 +1,217 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.ReactiveWarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.dto.SegmentedWarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.dto.WarmestDataStructureInterface;
+import io.github.ashr123.warmestdata.feed.WarmestKeyFeed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link WarmestKeyFeed} over the in-memory engine, without Spring.
+ */
+class WarmestKeyFeedTest {
+
+	private static final long TIMEOUT_MILLIS = 5_000;
+
+	private WarmestKeyFeed feed;
+
+	private WarmestKeyFeed start(WarmestDataStructureInterface dataStructure) {
+		return start(dataStructure, 4);
+	}
+
+	private WarmestKeyFeed start(WarmestDataStructureInterface dataStructure, int senderThreads) {
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("dataStructure", dataStructure);
+		feed = new WarmestKeyFeed(beans.getBeanProvider(WarmestDataStructureInterface.class),
+				beans.getBeanProvider(ReactiveWarmestDataStructureInterface.class),
+				beans.getBeanProvider(RedisConnectionFactory.class),
+				beans.getBeanProvider(MeterRegistry.class),
+				senderThreads);
+		feed.afterPropertiesSet();
+		return feed;
+	}
+
+	@AfterEach
+	void stop() throws Exception {
+		if (feed != null) {
+			feed.destroy();
+		}
+	}
+
+	private static String nextKey(BlockingQueue<WarmestKeyFeed.Change> changes) throws InterruptedException {
+		WarmestKeyFeed.Change change = changes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		Assertions.assertNotNull(change, "No change within " + TIMEOUT_MILLIS + " ms");
+		return change.key();
+	}
+
+	private static void awaitSubscriberCount(WarmestKeyFeed feed, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (feed.getSubscriberCount() != count) {
+			Assertions.assertTrue(System.currentTimeMillis() < deadline, "Subscriber count never reached " + count);
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	void subscribe_sendsCurrentKeyThenEveryChange() throws InterruptedException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		dataStructure.put("a", 1);
+		BlockingQueue<WarmestKeyFeed.Change> changes = new LinkedBlockingQueue<>();
+		start(dataStructure).subscribe(changes::add);
+		Assertions.assertEquals("a", nextKey(changes));
+
+		// One change at a time: changes made faster than they are sent would be coalesced
+		dataStructure.put("b", 2);
+		Assertions.assertEquals("b", nextKey(changes));
+		dataStructure.get("a");
+		Assertions.assertEquals("a", nextKey(changes));
+		dataStructure.get("a");  // Already the warmest
+		dataStructure.put("a", 3);  // Same key, new value
+		dataStructure.put("c", 4);
+		Assertions.assertEquals("c", nextKey(changes));
+		dataStructure.remove("c");
+		Assertions.assertEquals("a", nextKey(changes));
+		dataStructure.remove("a");
+		Assertions.assertEquals("b", nextKey(changes));
+		dataStructure.remove("b");
+		Assertions.assertNull(nextKey(changes));
+		Assertions.assertNull(changes.poll(50, TimeUnit.MILLISECONDS));
+		Assertions.assertEquals(0, feed.getCoalescedCount());
+	}
+
+	@Test
+	void changesBelowTheTail_andBatches_sendAtMostOneEvent() throws InterruptedException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		BlockingQueue<WarmestKeyFeed.Change> changes = new LinkedBlockingQueue<>();
+		start(dataStructure).subscribe(changes::add);
+		Assertions.assertEquals("b", nextKey(changes));
+
+		dataStructure.remove("a");
+		dataStructure.put("b", 5);
+		Map<String, Integer> batch = new LinkedHashMap<>();
+		batch.put("c", 3);
+		batch.put("d", 4);
+		dataStructure.putAll(batch);
+		Assertions.assertEquals("d", nextKey(changes));
+		Assertions.assertNull(changes.poll(50, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void expiredWarmestKey_reportedByTheNextWrite() throws InterruptedException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2, 20);
+		BlockingQueue<WarmestKeyFeed.Change> changes = new LinkedBlockingQueue<>();
+		start(dataStructure).subscribe(changes::add);
+		Assertions.assertEquals("b", nextKey(changes));
+
+		Thread.sleep(100);
+		dataStructure.remove("missing");
+		Assertions.assertEquals("a", nextKey(changes));
+	}
+
+	@Test
+	void slowSubscriber_skipsToTheLatest_withoutDelayingOthers() throws InterruptedException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		start(dataStructure);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> slowKeys = new ArrayList<>();
+		CountDownLatch slowDone = new CountDownLatch(2);
+		feed.subscribe(change -> {
+			release.await();
+			synchronized (slowKeys) {
+				slowKeys.add(change.key());
+			}
+			slowDone.countDown();
+		});
+		BlockingQueue<WarmestKeyFeed.Change> fastChanges = new LinkedBlockingQueue<>();
+		feed.subscribe(fastChanges::add);
+		Assertions.assertNull(nextKey(fastChanges));
+
+		for (int i = 0; i < 1_000; i++) {
+			dataStructure.put("key-" + i, i);
+		}
+		// The fast subscriber keeps up while the slow one is stuck on its first event
+		String fastKey;
+		do {
+			fastKey = nextKey(fastChanges);
+		} while (!fastKey.equals("key-999"));
+
+		release.countDown();
+		Assertions.assertTrue(slowDone.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		Assertions.assertNull(fastChanges.poll(50, TimeUnit.MILLISECONDS));
+		synchronized (slowKeys) {
+			Assertions.assertEquals(Arrays.asList(null, "key-999"), slowKeys);
+		}
+		Assertions.assertTrue(feed.getCoalescedCount() >= 998);
+	}
+
+	@Test
+	void stuckSubscribers_occupyAtMostTheSenderThreads() throws InterruptedException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		start(dataStructure, 2);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger sending = new AtomicInteger();
+		CountDownLatch sent = new CountDownLatch(10);
+		for (int i = 0; i < 10; i++) {
+			feed.subscribe(change -> {
+				sending.incrementAndGet();
+				release.await();
+				sent.countDown();
+			});
+		}
+		for (int i = 0; i < 100; i++) {
+			dataStructure.put("key-" + i, i);
+		}
+
+		Thread.sleep(50);
+		// Each stuck send holds one of the two threads, so the other subscribers are still waiting for theirs
+		Assertions.assertEquals(2, sending.get());
+		release.countDown();
+		Assertions.assertTrue(sent.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void failingOrClosedSubscriptions_areRemoved() throws InterruptedException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		start(dataStructure);
+		feed.subscribe(change -> {
+			throw new IllegalStateException("Client went away");
+		});
+		BlockingQueue<WarmestKeyFeed.Change> changes = new LinkedBlockingQueue<>();
+		WarmestKeyFeed.Subscription subscription = feed.subscribe(changes::add);
+		awaitSubscriberCount(feed, 1);
+
+		Assertions.assertNull(nextKey(changes));
+		subscription.close();
+		Assertions.assertEquals(0, feed.getSubscriberCount());
+		dataStructure.put("a", 1);
+		Assertions.assertNull(changes.poll(50, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void unsupportedEngine_rejectsSubscriptions() {
+		start(new SegmentedWarmestDataStructure(4));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> feed.subscribe(change -> {
+		}));
+	}
+}
@@ -0,0 +1,215 @@
+package io.github.ashr123.warmestdata;
+
+import io.github.ashr123.warmestdata.dto.WarmestDataStructure;
+import io.github.ashr123.warmestdata.persistence.SnapshotFile;
+import io.github.ashr123.warmestdata.persistence.WriteAheadLog;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Replays a {@link WriteAheadLog} into a fresh {@link WarmestDataStructure}, as on a restart.
+ */
+class WriteAheadLogTest {
+
+	private static final long SEGMENT_BYTES = 4096;
+
+	@TempDir
+	Path directory;
+
+	private WriteAheadLog open(WarmestDataStructure dataStructure, WriteAheadLog.Mode mode, long lastSequence) throws IOException {
+		WriteAheadLog writeAheadLog = new WriteAheadLog(directory, mode, Duration.ofMillis(1), SEGMENT_BYTES, lastSequence);
+		dataStructure.setMutationLog(writeAheadLog);
+		return writeAheadLog;
+	}
+
+	/**
+	 * @return entries coldest first, as "key=value"
+	 */
+	private static List<String> contents(WarmestDataStructure dataStructure) {
+		WarmestDataStructure.Snapshot snapshot = dataStructure.snapshot();
+		String[] entries = new String[snapshot.keys().length];
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = snapshot.keys()[i] + "=" + snapshot.values()[i];
+		}
+		return List.of(entries);
+	}
+
+	private static void applySomeChanges(WarmestDataStructure dataStructure, int round) {
+		for (int i = 0; i < 300; i++) {
+			dataStructure.put("key-" + (i % 50), round * 1000 + i);
+			if (i % 7 == 0) {
+				dataStructure.remove("key-" + (i % 13));
+			}
+			if (i % 5 == 0) {
+				dataStructure.get("key-" + (i % 11));
+			}
+		}
+		dataStructure.putAll(Map.of("batch-a", 1, "batch-b", 2));
+		dataStructure.getAll(List.of("key-3", "missing", "batch-a"));
+		dataStructure.removeAll(List.of("key-4", "batch-b"));
+	}
+
+	@ParameterizedTest
+	@EnumSource(WriteAheadLog.Mode.class)
+	void replay_rebuildsValuesAndRecencyOrder(WriteAheadLog.Mode mode) throws IOException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		WriteAheadLog writeAheadLog = open(dataStructure, mode, 0);
+		applySomeChanges(dataStructure, 1);
+		writeAheadLog.close();
+
+		WarmestDataStructure restored = new WarmestDataStructure();
+		long lastSequence = WriteAheadLog.replay(directory, 0, restored);
+
+		Assertions.assertEquals(contents(dataStructure), contents(restored));
+		Assertions.assertEquals(writeAheadLog.lastSequence(), lastSequence);
+	}
+
+	@Test
+	void replay_continuesAcrossRestarts() throws IOException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		WriteAheadLog writeAheadLog = open(dataStructure, WriteAheadLog.Mode.GROUP, 0);
+		applySomeChanges(dataStructure, 1);
+		writeAheadLog.close();
+
+		WarmestDataStructure restarted = new WarmestDataStructure();
+		long lastSequence = WriteAheadLog.replay(directory, 0, restarted);
+		writeAheadLog = open(restarted, WriteAheadLog.Mode.GROUP, lastSequence);
+		applySomeChanges(restarted, 2);
+		writeAheadLog.close();
+
+		WarmestDataStructure restored = new WarmestDataStructure();
+		WriteAheadLog.replay(directory, 0, restored);
+		Assertions.assertEquals(contents(restarted), contents(restored));
+	}
+
+	@Test
+	void replay_afterSnapshot_skipsIncludedRecordsAndDeletedSegments() throws IOException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		WriteAheadLog writeAheadLog = open(dataStructure, WriteAheadLog.Mode.SYNC, 0);
+		applySomeChanges(dataStructure, 1);
+		WarmestDataStructure.Snapshot snapshot = dataStructure.snapshot();
+		Path snapshotFile = directory.resolve("warmest.snapshot");
+		SnapshotFile.write(snapshot, snapshotFile);
+		long segmentsBefore = segmentCount();
+		writeAheadLog.deleteSegmentsUpTo(snapshot.sequence());
+		Assertions.assertEquals(1, segmentCount());
+		Assertions.assertTrue(segmentsBefore > 1);
+		applySomeChanges(dataStructure, 2);
+		writeAheadLog.close();
+
+		WarmestDataStructure restored = new WarmestDataStructure();
+		SnapshotFile.Header[] header = new SnapshotFile.Header[1];
+		restored.restore(sink -> header[0] = SnapshotFile.read(snapshotFile, sink));
+		WriteAheadLog.replay(directory, header[0].sequence(), restored);
+
+		Assertions.assertEquals(contents(dataStructure), contents(restored));
+	}
+
+	@Test
+	void replay_stopsAtTornRecord() throws IOException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		WriteAheadLog writeAheadLog = open(dataStructure, WriteAheadLog.Mode.SYNC, 0);
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+		writeAheadLog.close();
+		Path segment = lastSegment();
+		byte[] bytes = Files.readAllBytes(segment);
+		int secondRecord = Integer.BYTES * 2 + ByteBuffer.wrap(bytes).getInt();
+		bytes[secondRecord + Integer.BYTES * 2 + Long.BYTES] ^= 0x01;
+		Files.write(segment, bytes);
+
+		WarmestDataStructure restored = new WarmestDataStructure();
+		long lastSequence = WriteAheadLog.replay(directory, 0, restored);
+
+		Assertions.assertEquals(1, lastSequence);
+		Assertions.assertEquals(List.of("a=1"), contents(restored));
+
+		// New records continue after the last intact one and are replayed on the next start
+		writeAheadLog = open(restored, WriteAheadLog.Mode.SYNC, lastSequence);
+		restored.put("c", 3);
+		writeAheadLog.close();
+		WarmestDataStructure restoredAgain = new WarmestDataStructure();
+		WriteAheadLog.replay(directory, 0, restoredAgain);
+		Assertions.assertEquals(List.of("a=1", "c=3"), contents(restoredAgain));
+	}
+
+	@Test
+	void replay_failsWhenTheLogStartsAfterTheSnapshot() throws IOException {
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		WriteAheadLog writeAheadLog = open(dataStructure, WriteAheadLog.Mode.SYNC, 100);
+		dataStructure.put("a", 1);
+		writeAheadLog.close();
+
+		Assertions.assertThrows(IOException.class, () -> WriteAheadLog.replay(directory, 99, new WarmestDataStructure()));
+		WarmestDataStructure restored = new WarmestDataStructure();
+		Assertions.assertEquals(101, WriteAheadLog.replay(directory, 100, restored));
+		Assertions.assertEquals(List.of("a=1"), contents(restored));
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = WriteAheadLog.Mode.class, names = {"SYNC", "GROUP"})
+	void failedFlush_rejectsLaterWritesBeforeTheyChangeAnything(WriteAheadLog.Mode mode) throws IOException {
+		List<FileChannel> channels = new ArrayList<>();
+		WarmestDataStructure dataStructure = new WarmestDataStructure();
+		WriteAheadLog writeAheadLog = new WriteAheadLog(directory, mode, Duration.ofMillis(1), SEGMENT_BYTES, 0, path -> {
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+			channels.add(channel);
+			return channel;
+		});
+		dataStructure.setMutationLog(writeAheadLog);
+		dataStructure.put("a", 1);
+		dataStructure.put("b", 2);
+
+		// Every later write to the segment fails
+		channels.get(channels.size() - 1).close();
+		// Applied before its flush failed; the caller is told it is not durable
+		Assertions.assertThrows(UncheckedIOException.class, () -> dataStructure.put("c", 3));
+
+		Assertions.assertThrows(UncheckedIOException.class, () -> dataStructure.put("d", 4));
+		Assertions.assertThrows(UncheckedIOException.class, () -> dataStructure.put("a", 10));
+		Assertions.assertThrows(UncheckedIOException.class, () -> dataStructure.remove("b"));
+		Assertions.assertThrows(UncheckedIOException.class, () -> dataStructure.putAll(Map.of("e", 5)));
+		Assertions.assertThrows(UncheckedIOException.class, () -> dataStructure.removeAll(List.of("a")));
+		// A get that would move a is a write too
+		Assertions.assertThrows(UncheckedIOException.class, () -> dataStructure.get("a"));
+
+		Assertions.assertNull(dataStructure.get("d"));
+		Assertions.assertNull(dataStructure.get("e"));
+		Assertions.assertEquals(3, dataStructure.get("c"));
+		Assertions.assertEquals("c", dataStructure.getWarmest());
+		Assertions.assertEquals(List.of("c", "b", "a"), dataStructure.getWarmest(10));
+		Assertions.assertEquals(List.of("a=1", "b=2", "c=3"), contents(dataStructure));
+		Assertions.assertThrows(IOException.class, writeAheadLog::close);
+	}
+
+	private long segmentCount() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("wal-"))
+					.count();
+		}
+	}
+
+	private Path lastSegment() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("wal-"))
+					.max(Path::compareTo)
+					.orElseThrow();
+		}
+	}
+}
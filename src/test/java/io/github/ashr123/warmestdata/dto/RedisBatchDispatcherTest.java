@@ -0,0 +1,127 @@
+package io.github.ashr123.warmestdata.dto;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@link RedisBatchDispatcher} over a fake executor instead of {@code batch.lua}: how batches are formed and how a
+ * failing batch reaches its callers. In the package of the dispatcher, which is not public.
+ */
+class RedisBatchDispatcherTest {
+
+	private static final long TIMEOUT_MILLIS = 5_000;
+
+	private RedisBatchDispatcher dispatcher;
+	private ExecutorService callers;
+
+	@AfterEach
+	void tearDown() {
+		if (dispatcher != null) {
+			dispatcher.close();
+		}
+		if (callers != null) {
+			callers.shutdownNow();
+		}
+	}
+
+	private RedisBatchDispatcher start(Function<List<RedisBatchDispatcher.Operation>, List<String>> executor, Duration window) {
+		dispatcher = new RedisBatchDispatcher(executor, window, 100);
+		return dispatcher;
+	}
+
+	/**
+	 * @return the key of every operation, the result a fake {@code batch.lua} returns for it
+	 */
+	private static List<String> keys(List<RedisBatchDispatcher.Operation> batch) {
+		List<String> results = new ArrayList<>(batch.size());
+		for (RedisBatchDispatcher.Operation operation : batch) {
+			results.add(operation.key());
+		}
+		return results;
+	}
+
+	@Test
+	void concurrentOperations_runAsOneBatch_andEachCallerGetsItsResult() throws Exception {
+		List<List<String>> batches = new CopyOnWriteArrayList<>();
+		RedisBatchDispatcher dispatcher = start(batch -> {
+			batches.add(keys(batch));
+			return keys(batch);
+		}, Duration.ofMillis(200));
+		callers = Executors.newFixedThreadPool(3);
+		CountDownLatch queued = new CountDownLatch(3);
+		List<Future<String>> results = new ArrayList<>();
+		for (String key : List.of("a", "b", "c")) {
+			results.add(callers.submit(() -> {
+				queued.countDown();
+				return dispatcher.apply(RedisBatchDispatcher.GET, key, "");
+			}));
+		}
+
+		Assertions.assertTrue(queued.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertEquals(List.of("a", "b", "c").get(i), results.get(i).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		}
+		Assertions.assertEquals(1, batches.size());
+		Assertions.assertEquals(3, batches.get(0).size());
+	}
+
+	@Test
+	void failedBatch_failsItsCallers_andDispatchingGoesOn() {
+		RedisBatchDispatcher dispatcher = start(batch -> {
+			if (batch.get(0).key().equals("fail")) {
+				throw new IllegalStateException("Redis is down");
+			}
+			return keys(batch);
+		}, Duration.ZERO);
+
+		IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+				() -> dispatcher.apply(RedisBatchDispatcher.PUT, "fail", "1"));
+		Assertions.assertEquals("Redis is down", e.getMessage());
+		Assertions.assertEquals("a", dispatcher.apply(RedisBatchDispatcher.GET, "a", ""));
+	}
+
+	@Test
+	void missingResult_failsItsCaller_andDispatchingGoesOn() {
+		// Drops the result of the last operation of every batch
+		RedisBatchDispatcher dispatcher = start(batch -> keys(batch).subList(0, batch.size() - 1), Duration.ZERO);
+
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> dispatcher.apply(RedisBatchDispatcher.GET, "a", ""));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> dispatcher.apply(RedisBatchDispatcher.GET, "b", ""));
+	}
+
+	@Test
+	void error_failsItsCallersAndClosesTheDispatcher() {
+		RedisBatchDispatcher dispatcher = start(batch -> {
+			throw new AssertionError("Broken executor");
+		}, Duration.ZERO);
+
+		IllegalStateException failed = Assertions.assertThrows(IllegalStateException.class,
+				() -> dispatcher.apply(RedisBatchDispatcher.GET, "a", ""));
+		Assertions.assertEquals("Redis batch failed", failed.getMessage());
+		// The dispatcher thread is gone: later operations fail instead of waiting forever
+		IllegalStateException closed = Assertions.assertThrows(IllegalStateException.class,
+				() -> dispatcher.apply(RedisBatchDispatcher.GET, "b", ""));
+		Assertions.assertEquals("Redis batch dispatcher is closed", closed.getMessage());
+	}
+
+	@Test
+	void close_failsLaterOperations() {
+		RedisBatchDispatcher dispatcher = start(RedisBatchDispatcherTest::keys, Duration.ZERO);
+		Assertions.assertEquals("a", dispatcher.apply(RedisBatchDispatcher.GET, "a", ""));
+
+		dispatcher.close();
+		Assertions.assertThrows(IllegalStateException.class, () -> dispatcher.apply(RedisBatchDispatcher.GET, "b", ""));
+	}
+}
@@ -0,0 +1,53 @@
+package io.github.ashr123.warmestdata.workload;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks in {@code [0, items)} with probability proportional to {@code 1 / (rank + 1)^theta}, so rank 0 is the
+ * hottest key.
+ * <p>
+ * Uses the constant-time approximation of Gray et al., "Quickly Generating Billion-Record Synthetic Databases" (the
+ * same one YCSB uses); only the constructor is O(items). Immutable, so one instance can be shared by all threads.
+ * Shared by the JMH benchmarks and the HTTP load generator, so both draw the same key distribution.
+ */
+public final class ZipfianGenerator {
+
+	/**
+	 * YCSB's default skew.
+	 */
+	public static final double DEFAULT_THETA = 0.99;
+
+	private final int items;
+	private final double theta;
+	private final double zetaN;
+	private final double alpha;
+	private final double eta;
+
+	public ZipfianGenerator(int items, double theta) {
+		this.items = items;
+		this.theta = theta;
+		zetaN = zeta(items, theta);
+		alpha = 1 / (1 - theta);
+		eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+	}
+
+	private static double zeta(int n, double theta) {
+		double sum = 0;
+		for (int i = 1; i <= n; i++) {
+			sum += 1 / Math.pow(i, theta);
+		}
+		return sum;
+	}
+
+	public int next(SplittableRandom random) {
+		double u = random.nextDouble();
+		double uz = u * zetaN;
+		if (uz < 1) {
+			return 0;
+		}
+		if (uz < 1 + Math.pow(0.5, theta)) {
+			return 1;
+		}
+		return Math.min(items - 1, (int) (items * Math.pow(eta * u - eta + 1, alpha)));
+	}
+}